@@ -0,0 +1,62 @@
+package org.metricssampler.config;
+
+import static org.metricssampler.util.Preconditions.checkArgument;
+
+/**
+ * Configuration of the circuit breaker that stops a sampler from trying to read an unavailable input on every tick.
+ */
+public class CircuitBreakerConfig {
+	public static final long DEFAULT_MAX_BACKOFF = 300000L;
+	public static final double DEFAULT_JITTER = 0.2d;
+
+	private final int failureThreshold;
+	private final long backoff;
+	private final long maxBackoff;
+	private final double jitter;
+
+	public CircuitBreakerConfig(final int failureThreshold, final long backoff, final long maxBackoff, final double jitter) {
+		checkArgument(failureThreshold > 0, "failureThreshold must be greater than 0");
+		checkArgument(backoff > 0, "backoff must be greater than 0");
+		checkArgument(maxBackoff >= backoff, "maxBackoff must be greater than or equal to backoff");
+		checkArgument(jitter >= 0d && jitter < 1d, "jitter must be in range [0,1)");
+		this.failureThreshold = failureThreshold;
+		this.backoff = backoff;
+		this.maxBackoff = maxBackoff;
+		this.jitter = jitter;
+	}
+
+	/**
+	 * @return the number of consecutive failures to read the input after which the circuit breaker opens
+	 */
+	public int getFailureThreshold() {
+		return failureThreshold;
+	}
+
+	/**
+	 * @return the number of milliseconds the circuit breaker stays open the first time. The time is doubled each time the probe fails
+	 *         until it reaches {@link #getMaxBackoff()}.
+	 */
+	public long getBackoff() {
+		return backoff;
+	}
+
+	/**
+	 * @return the maximal number of milliseconds the circuit breaker stays open
+	 */
+	public long getMaxBackoff() {
+		return maxBackoff;
+	}
+
+	/**
+	 * @return the fraction by which the backoff is randomly shortened or prolonged so that samplers of the same failed host do not probe
+	 *         at the same time
+	 */
+	public double getJitter() {
+		return jitter;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[failureThreshold=" + failureThreshold + ", backoff=" + backoff + ", maxBackoff=" + maxBackoff + ", jitter=" + jitter + "]";
+	}
+}
@@ -6,10 +6,18 @@ package org.metricssampler.config;
  */
 public abstract class OutputConfig extends NamedConfig {
 	private final boolean default_;
+	private final WriteQueueConfig writeQueue;
+	private final SpoolConfig spool;
 	
 	public OutputConfig(final String name, final boolean default_) {
+		this(name, default_, null, null);
+	}
+
+	public OutputConfig(final String name, final boolean default_, final WriteQueueConfig writeQueue, final SpoolConfig spool) {
 		super(name);
 		this.default_ = default_;
+		this.writeQueue = writeQueue;
+		this.spool = spool;
 	}
 	
 	/**
@@ -18,4 +26,20 @@ public abstract class OutputConfig extends NamedConfig {
 	public boolean isDefault() {
 		return default_;
 	}
+
+	/**
+	 * @return the configuration of the queue through which the samplers write to this output asynchronously or {@code null} if the samplers
+	 *         should write directly to the output
+	 */
+	public WriteQueueConfig getWriteQueue() {
+		return writeQueue;
+	}
+
+	/**
+	 * @return the configuration of the spool keeping the metrics that could not be written to this output or {@code null} if such metrics
+	 *         should be discarded
+	 */
+	public SpoolConfig getSpool() {
+		return spool;
+	}
 }
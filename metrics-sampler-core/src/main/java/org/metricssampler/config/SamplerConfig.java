@@ -11,21 +11,42 @@ import java.util.Map;
  * Base class for sampler configurations.
  */
 public abstract class SamplerConfig extends NamedConfig {
+	/**
+	 * What to do with executions that are due while the previous execution is still running.
+	 */
+	public enum MissedTickPolicy {
+		/**
+		 * Run the missed executions back-to-back as soon as the previous execution has finished
+		 */
+		CATCH_UP,
+		/**
+		 * Drop the missed executions and continue with the next regular one
+		 */
+		SKIP
+	}
+
 	private final String pool;
-	private final int interval;
+	private final long intervalMillis;
+	private final long timeoutMillis;
+	private final MissedTickPolicy missedTickPolicy;
 	private final boolean ignored;
 	private final boolean disabled;
 	private final Map<String, Object> globalVariables;
 	private final List<ValueTransformerConfig> valueTransformers;
 	
-	public SamplerConfig(final String name, final String pool, final int interval, final boolean ignored, final boolean disabled, final Map<String, Object> globalVariables, final List<ValueTransformerConfig> valueTransformers) {
+	public SamplerConfig(final String name, final String pool, final long intervalMillis, final long timeoutMillis, final MissedTickPolicy missedTickPolicy,
+			final boolean ignored, final boolean disabled, final Map<String, Object> globalVariables, final List<ValueTransformerConfig> valueTransformers) {
 		super(name);
 		checkArgumentNotNull(pool, "pool");
-		checkArgument(interval > 0, "interval must be greater than 0 seconds");
+		checkArgument(intervalMillis > 0, "interval must be greater than 0 milliseconds");
+		checkArgument(timeoutMillis >= 0, "timeout must not be negative");
+		checkArgumentNotNull(missedTickPolicy, "missedTickPolicy");
 		checkArgumentNotNull(globalVariables, "globalVariables");
 		checkArgumentNotNull(valueTransformers, "valueTransformers");
 		this.pool = pool;
-		this.interval = interval;
+		this.intervalMillis = intervalMillis;
+		this.timeoutMillis = timeoutMillis;
+		this.missedTickPolicy = missedTickPolicy;
 		this.ignored = ignored;
 		this.disabled = disabled;
 		this.globalVariables = unmodifiableMap(globalVariables);
@@ -33,10 +54,29 @@ public abstract class SamplerConfig extends NamedConfig {
 	}
 
 	/**
-	 * @return the sampling interval in seconds
+	 * @return the sampling interval in whole seconds, i.e. 0 for sub-second intervals. Use {@link #getIntervalMillis()} for scheduling.
 	 */
 	public int getInterval() {
-		return interval;
+		return (int) (intervalMillis / 1000L);
+	}
+
+	/**
+	 * @return the sampling interval in milliseconds
+	 */
+	public long getIntervalMillis() {
+		return intervalMillis;
+	}
+
+	/**
+	 * @return the maximal number of milliseconds a single sampling may take before it is interrupted and the sampler is reset or 0 if there
+	 *         is no limit
+	 */
+	public long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	public MissedTickPolicy getMissedTickPolicy() {
+		return missedTickPolicy;
 	}
 
 	/**
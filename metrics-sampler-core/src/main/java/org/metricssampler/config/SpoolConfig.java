@@ -0,0 +1,75 @@
+package org.metricssampler.config;
+
+import static org.metricssampler.util.Preconditions.checkArgument;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+import java.io.File;
+
+/**
+ * Configuration of the on-disk spool that keeps the metrics an output failed to write until they can be replayed.
+ */
+public class SpoolConfig {
+	public static final int DEFAULT_MAX_SIZE = 100;
+	public static final int DEFAULT_MAX_AGE = 86400;
+	public static final int DEFAULT_SEGMENT_SIZE = 4;
+	public static final int DEFAULT_REPLAY_RATE = 10000;
+
+	private final File directory;
+	private final long maxSize;
+	private final long maxAge;
+	private final int segmentSize;
+	private final int replayRate;
+
+	public SpoolConfig(final File directory, final long maxSize, final long maxAge, final int segmentSize, final int replayRate) {
+		checkArgumentNotNull(directory, "directory");
+		checkArgument(segmentSize > 0, "segmentSize must be greater than 0");
+		checkArgument(maxSize >= segmentSize, "maxSize must be greater than or equal to segmentSize");
+		checkArgument(maxAge > 0, "maxAge must be greater than 0");
+		checkArgument(replayRate >= 0, "replayRate must not be negative");
+		this.directory = directory;
+		this.maxSize = maxSize;
+		this.maxAge = maxAge;
+		this.segmentSize = segmentSize;
+		this.replayRate = replayRate;
+	}
+
+	/**
+	 * @return the directory containing the segment files
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * @return the maximal number of bytes of all segments. The oldest segments are deleted when the spool grows beyond that.
+	 */
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @return the maximal age in milliseconds of spooled metrics. Older metrics are discarded instead of replayed.
+	 */
+	public long getMaxAge() {
+		return maxAge;
+	}
+
+	/**
+	 * @return the size in bytes of each memory-mapped segment file
+	 */
+	public int getSegmentSize() {
+		return segmentSize;
+	}
+
+	/**
+	 * @return the maximal number of metrics per second to replay or 0 for no limit
+	 */
+	public int getReplayRate() {
+		return replayRate;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[directory=" + directory + ", maxSize=" + maxSize + ", maxAge=" + maxAge + ", segmentSize=" + segmentSize + ", replayRate=" + replayRate + "]";
+	}
+}
@@ -1,18 +1,135 @@
 package org.metricssampler.config;
 
+import static org.metricssampler.util.Preconditions.checkArgument;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
 public class ThreadPoolConfig extends SharedResourceConfig {
+	public static final int DEFAULT_TICK_DURATION = 10;
+	public static final int DEFAULT_TARGET_LAG = 100;
+
+	/**
+	 * How the samplers are executed by the thread pool.
+	 */
+	public enum Type {
+		/**
+		 * A scheduled thread pool executor whose threads both schedule and execute the samplers
+		 */
+		SCHEDULED,
+		/**
+		 * A single scheduler thread that hands each execution over to a pool of worker threads which grows on demand up to the maximum
+		 * size. Suitable for many samplers that mostly wait for I/O.
+		 */
+		ELASTIC
+	}
+
+	/**
+	 * How the scheduler thread of an elastic thread pool keeps track of the due samplers.
+	 */
+	public enum Scheduler {
+		/**
+		 * A scheduled thread pool executor with one thread. Each tick costs O(log n) in the number of samplers.
+		 */
+		EXECUTOR,
+		/**
+		 * A hashed timing wheel that advances in ticks of fixed duration. Scheduling and expiring samplers costs O(1) and all samplers due in
+		 * the same tick are dispatched together.
+		 */
+		TIMING_WHEEL
+	}
+
+	/**
+	 * When the samplers run within their interval.
+	 */
+	public enum Phase {
+		/**
+		 * All samplers start right after scheduling, so samplers with the same interval always run at the same time
+		 */
+		IMMEDIATE,
+		/**
+		 * Each sampler gets a fixed offset within its interval computed from the hash of its name. The samplers are thus spread evenly over
+		 * the interval and keep their offset across restarts.
+		 */
+		SPREAD
+	}
+
+	private final Type type;
+	private final Scheduler scheduler;
+	private final int tickDuration;
+	private final Phase phase;
+	private final boolean alignToInterval;
+	private final boolean autoSize;
+	private final int targetLag;
 	private final int coreSize;
 	private final int maxSize;
 	private final int keepAliveTime;
 
 
-	public ThreadPoolConfig(final String name, final boolean ignored, final int coreSize, final int maxSize, final int keepAliveTime) {
+	public ThreadPoolConfig(final String name, final boolean ignored, final Type type, final Scheduler scheduler, final int tickDuration,
+			final Phase phase, final boolean alignToInterval, final boolean autoSize, final int targetLag, final int coreSize, final int maxSize,
+			final int keepAliveTime) {
 		super(name, ignored);
+		checkArgumentNotNull(type, "type");
+		checkArgumentNotNull(scheduler, "scheduler");
+		checkArgument(scheduler == Scheduler.EXECUTOR || type == Type.ELASTIC, "the timing wheel scheduler requires an elastic thread pool");
+		checkArgument(tickDuration > 0, "tickDuration must be greater than 0");
+		checkArgumentNotNull(phase, "phase");
+		checkArgument(!autoSize || type == Type.SCHEDULED, "auto sizing requires a scheduled thread pool");
+		checkArgument(!autoSize || maxSize >= coreSize, "auto sizing requires a maximum size greater than or equal to the core size");
+		checkArgument(targetLag > 0, "targetLag must be greater than 0");
+		this.type = type;
+		this.scheduler = scheduler;
+		this.tickDuration = tickDuration;
+		this.phase = phase;
+		this.alignToInterval = alignToInterval;
+		this.autoSize = autoSize;
+		this.targetLag = targetLag;
 		this.coreSize = coreSize;
 		this.maxSize = maxSize;
 		this.keepAliveTime = keepAliveTime;
 	}
 
+	public Type getType() {
+		return type;
+	}
+
+	public Scheduler getScheduler() {
+		return scheduler;
+	}
+
+	/**
+	 * @return the number of milliseconds between two ticks of the timing wheel scheduler
+	 */
+	public int getTickDuration() {
+		return tickDuration;
+	}
+
+	public Phase getPhase() {
+		return phase;
+	}
+
+	/**
+	 * @return {@code true} if the samplers should run at multiples of their interval since the epoch (plus the offset of the phase), e.g.
+	 *         at every full minute for an interval of 60 seconds
+	 */
+	public boolean isAlignToInterval() {
+		return alignToInterval;
+	}
+
+	/**
+	 * @return {@code true} if the number of threads should be adjusted between {@link #getCoreSize()} and {@link #getMaxSize()} so that
+	 *         the samplers start no later than {@link #getTargetLag()} after they are due
+	 */
+	public boolean isAutoSize() {
+		return autoSize;
+	}
+
+	/**
+	 * @return the number of milliseconds the 95th percentile of the schedule lag of an auto sized thread pool should not exceed
+	 */
+	public int getTargetLag() {
+		return targetLag;
+	}
+
 	/**
 	 * @return the number of threads to always keep in the thread pool even if they are idle
 	 * @see java.util.concurrent.ThreadPoolExecutor#getCorePoolSize()
@@ -0,0 +1,65 @@
+package org.metricssampler.config;
+
+import static org.metricssampler.util.Preconditions.checkArgument;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+/**
+ * Configuration of the bounded queue used to decouple the samplers from an output.
+ */
+public class WriteQueueConfig {
+	public static final int DEFAULT_BLOCK_TIMEOUT = 1000;
+
+	/**
+	 * What to do when a sampler wants to write to an output whose queue is full.
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * Discard the oldest queued metrics to make room for the new ones.
+		 */
+		DROP_OLDEST,
+		/**
+		 * Discard the new metrics.
+		 */
+		DROP_NEWEST,
+		/**
+		 * Wait for free space up to the block timeout and discard the new metrics if there is still none.
+		 */
+		BLOCK
+	}
+
+	private final int size;
+	private final OverflowPolicy overflowPolicy;
+	private final int blockTimeout;
+
+	public WriteQueueConfig(final int size, final OverflowPolicy overflowPolicy, final int blockTimeout) {
+		checkArgument(size > 0, "size must be greater than 0");
+		checkArgumentNotNull(overflowPolicy, "overflowPolicy");
+		checkArgument(blockTimeout >= 0, "blockTimeout must not be negative");
+		this.size = size;
+		this.overflowPolicy = overflowPolicy;
+		this.blockTimeout = blockTimeout;
+	}
+
+	/**
+	 * @return the maximal number of sampled metric batches waiting to be written
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	/**
+	 * @return the maximal number of milliseconds to wait for free space if the overflow policy is {@link OverflowPolicy#BLOCK}
+	 */
+	public int getBlockTimeout() {
+		return blockTimeout;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[size=" + size + ", overflowPolicy=" + overflowPolicy + ", blockTimeout=" + blockTimeout + "]";
+	}
+}
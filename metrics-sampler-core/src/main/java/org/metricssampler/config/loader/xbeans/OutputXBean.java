@@ -1,6 +1,15 @@
 package org.metricssampler.config.loader.xbeans;
 
+import static org.metricssampler.config.loader.xbeans.ValidationUtils.greaterThanZero;
+import static org.metricssampler.config.loader.xbeans.ValidationUtils.notNegativeOptional;
+
+import java.io.File;
+
+import org.metricssampler.config.ConfigurationException;
 import org.metricssampler.config.OutputConfig;
+import org.metricssampler.config.SpoolConfig;
+import org.metricssampler.config.WriteQueueConfig;
+import org.metricssampler.config.WriteQueueConfig.OverflowPolicy;
 
 import com.thoughtworks.xstream.annotations.XStreamAlias;
 import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
@@ -9,9 +18,43 @@ import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
  * Base class for output XBeans.
  */
 public abstract class OutputXBean extends NamedXBean {
+	private static final int MAX_SPOOL_SEGMENT_SIZE = 1024;
+
 	@XStreamAlias("default")
 	@XStreamAsAttribute
 	private Boolean default_;
+
+	@XStreamAlias("queue-size")
+	@XStreamAsAttribute
+	private Integer queueSize;
+
+	@XStreamAlias("overflow-policy")
+	@XStreamAsAttribute
+	private String overflowPolicy;
+
+	@XStreamAlias("block-timeout")
+	@XStreamAsAttribute
+	private Integer blockTimeout;
+
+	@XStreamAlias("spool-directory")
+	@XStreamAsAttribute
+	private String spoolDirectory;
+
+	@XStreamAlias("spool-max-size")
+	@XStreamAsAttribute
+	private Integer spoolMaxSize;
+
+	@XStreamAlias("spool-max-age")
+	@XStreamAsAttribute
+	private Integer spoolMaxAge;
+
+	@XStreamAlias("spool-segment-size")
+	@XStreamAsAttribute
+	private Integer spoolSegmentSize;
+
+	@XStreamAlias("spool-replay-rate")
+	@XStreamAsAttribute
+	private Integer spoolReplayRate;
 	
 	public Boolean getDefault_() {
 		return default_;
@@ -24,6 +67,147 @@ public abstract class OutputXBean extends NamedXBean {
 	public boolean isDefault() {
 		return default_ != null ? default_ : false;
 	}
+
+	public Integer getQueueSize() {
+		return queueSize;
+	}
+
+	public void setQueueSize(final Integer queueSize) {
+		this.queueSize = queueSize;
+	}
+
+	public String getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	public void setOverflowPolicy(final String overflowPolicy) {
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	public Integer getBlockTimeout() {
+		return blockTimeout;
+	}
+
+	public void setBlockTimeout(final Integer blockTimeout) {
+		this.blockTimeout = blockTimeout;
+	}
+
+	public String getSpoolDirectory() {
+		return spoolDirectory;
+	}
+
+	public void setSpoolDirectory(final String spoolDirectory) {
+		this.spoolDirectory = spoolDirectory;
+	}
+
+	public Integer getSpoolMaxSize() {
+		return spoolMaxSize;
+	}
+
+	public void setSpoolMaxSize(final Integer spoolMaxSize) {
+		this.spoolMaxSize = spoolMaxSize;
+	}
+
+	public Integer getSpoolMaxAge() {
+		return spoolMaxAge;
+	}
+
+	public void setSpoolMaxAge(final Integer spoolMaxAge) {
+		this.spoolMaxAge = spoolMaxAge;
+	}
+
+	public Integer getSpoolSegmentSize() {
+		return spoolSegmentSize;
+	}
+
+	public void setSpoolSegmentSize(final Integer spoolSegmentSize) {
+		this.spoolSegmentSize = spoolSegmentSize;
+	}
+
+	public Integer getSpoolReplayRate() {
+		return spoolReplayRate;
+	}
+
+	public void setSpoolReplayRate(final Integer spoolReplayRate) {
+		this.spoolReplayRate = spoolReplayRate;
+	}
+
+	@Override
+	protected void validate() {
+		super.validate();
+		if (getQueueSize() != null) {
+			greaterThanZero(this, "queue-size", getQueueSize());
+			parseOverflowPolicy();
+			notNegativeOptional(this, "block-timeout", getBlockTimeout());
+		} else if (getOverflowPolicy() != null || getBlockTimeout() != null) {
+			throw new ConfigurationException("Attributes \"overflow-policy\" and \"block-timeout\" of output[" + getName() + "] require \"queue-size\"");
+		}
+		if (getSpoolDirectory() != null) {
+			if (getSpoolMaxSize() != null) {
+				greaterThanZero(this, "spool-max-size", getSpoolMaxSize());
+			}
+			if (getSpoolMaxAge() != null) {
+				greaterThanZero(this, "spool-max-age", getSpoolMaxAge());
+			}
+			if (getSpoolSegmentSize() != null) {
+				greaterThanZero(this, "spool-segment-size", getSpoolSegmentSize());
+				if (getSpoolSegmentSize() > MAX_SPOOL_SEGMENT_SIZE) {
+					throw new ConfigurationException("Attribute \"spool-segment-size\" of output[" + getName() + "] must not be greater than " + MAX_SPOOL_SEGMENT_SIZE + " MB");
+				}
+			}
+			notNegativeOptional(this, "spool-replay-rate", getSpoolReplayRate());
+			if (getSpoolSegmentSizeOrDefault() > getSpoolMaxSizeOrDefault()) {
+				throw new ConfigurationException("Attribute \"spool-max-size\" of output[" + getName() + "] must be greater than or equal to \"spool-segment-size\"");
+			}
+		} else if (getSpoolMaxSize() != null || getSpoolMaxAge() != null || getSpoolSegmentSize() != null || getSpoolReplayRate() != null) {
+			throw new ConfigurationException("Attributes \"spool-max-size\", \"spool-max-age\", \"spool-segment-size\" and \"spool-replay-rate\" of output[" + getName() + "] require \"spool-directory\"");
+		}
+	}
+
+	private int getSpoolMaxSizeOrDefault() {
+		return getSpoolMaxSize() != null ? getSpoolMaxSize() : SpoolConfig.DEFAULT_MAX_SIZE;
+	}
+
+	private int getSpoolSegmentSizeOrDefault() {
+		return getSpoolSegmentSize() != null ? getSpoolSegmentSize() : Math.min(SpoolConfig.DEFAULT_SEGMENT_SIZE, getSpoolMaxSizeOrDefault());
+	}
+
+	private OverflowPolicy parseOverflowPolicy() {
+		if (getOverflowPolicy() == null) {
+			return OverflowPolicy.DROP_OLDEST;
+		}
+		try {
+			return OverflowPolicy.valueOf(getOverflowPolicy().toUpperCase().replace('-', '_'));
+		} catch (final IllegalArgumentException e) {
+			throw new ConfigurationException("Attribute \"overflow-policy\" of output[" + getName() + "] must be one of drop-oldest, drop-newest or block but was \"" + getOverflowPolicy() + "\"");
+		}
+	}
+
+	/**
+	 * @return the write queue configuration or {@code null} if the output should be written to synchronously
+	 */
+	protected WriteQueueConfig createWriteQueueConfig() {
+		if (getQueueSize() == null) {
+			return null;
+		}
+		final int timeout = getBlockTimeout() != null ? getBlockTimeout() : WriteQueueConfig.DEFAULT_BLOCK_TIMEOUT;
+		return new WriteQueueConfig(getQueueSize(), parseOverflowPolicy(), timeout);
+	}
 	
+	/**
+	 * @return the spool configuration or {@code null} if metrics that could not be written should be discarded
+	 */
+	protected SpoolConfig createSpoolConfig() {
+		if (getSpoolDirectory() == null) {
+			return null;
+		}
+		final long megabyte = 1024L * 1024L;
+		final long maxSize = getSpoolMaxSizeOrDefault() * megabyte;
+		final long maxAge = (getSpoolMaxAge() != null ? getSpoolMaxAge() : SpoolConfig.DEFAULT_MAX_AGE) * 1000L;
+		final int segmentSize = (int) (getSpoolSegmentSizeOrDefault() * megabyte);
+		final int replayRate = getSpoolReplayRate() != null ? getSpoolReplayRate() : SpoolConfig.DEFAULT_REPLAY_RATE;
+		return new SpoolConfig(new File(getSpoolDirectory(), getName()), maxSize, maxAge, segmentSize, replayRate);
+	}
+
 	public abstract OutputConfig toConfig();
 }
@@ -2,6 +2,7 @@ package org.metricssampler.config.loader.xbeans;
 
 import static org.metricssampler.config.loader.xbeans.ValidationUtils.greaterThanZero;
 
+import org.metricssampler.config.ConfigurationException;
 import org.metricssampler.config.SharedResourceConfig;
 import org.metricssampler.config.ThreadPoolConfig;
 
@@ -10,6 +11,31 @@ import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
 
 @XStreamAlias("thread-pool")
 public class SamplerThreadPoolXBean extends SharedResourceXBean {
+	@XStreamAsAttribute
+	private String type;
+
+	@XStreamAsAttribute
+	private String scheduler;
+
+	@XStreamAsAttribute
+	@XStreamAlias("tick-duration")
+	private Integer tickDuration;
+
+	@XStreamAsAttribute
+	private String phase;
+
+	@XStreamAsAttribute
+	@XStreamAlias("align-to-interval")
+	private Boolean alignToInterval;
+
+	@XStreamAsAttribute
+	@XStreamAlias("auto-size")
+	private Boolean autoSize;
+
+	@XStreamAsAttribute
+	@XStreamAlias("target-lag")
+	private Integer targetLag;
+
 	@XStreamAsAttribute
 	private Integer size;
 
@@ -21,6 +47,62 @@ public class SamplerThreadPoolXBean extends SharedResourceXBean {
 	@XStreamAlias("max-size")
 	private Integer maxSize;
 	
+	public String getType() {
+		return type;
+	}
+
+	public void setType(final String type) {
+		this.type = type;
+	}
+
+	public String getScheduler() {
+		return scheduler;
+	}
+
+	public void setScheduler(final String scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	public Integer getTickDuration() {
+		return tickDuration;
+	}
+
+	public void setTickDuration(final Integer tickDuration) {
+		this.tickDuration = tickDuration;
+	}
+
+	public String getPhase() {
+		return phase;
+	}
+
+	public void setPhase(final String phase) {
+		this.phase = phase;
+	}
+
+	public Boolean getAlignToInterval() {
+		return alignToInterval;
+	}
+
+	public void setAlignToInterval(final Boolean alignToInterval) {
+		this.alignToInterval = alignToInterval;
+	}
+
+	public Boolean getAutoSize() {
+		return autoSize;
+	}
+
+	public void setAutoSize(final Boolean autoSize) {
+		this.autoSize = autoSize;
+	}
+
+	public Integer getTargetLag() {
+		return targetLag;
+	}
+
+	public void setTargetLag(final Integer targetLag) {
+		this.targetLag = targetLag;
+	}
+
 	public Integer getSize() {
 		return size;
 	}
@@ -49,6 +131,64 @@ public class SamplerThreadPoolXBean extends SharedResourceXBean {
 	protected void validate() {
 		super.validate();
 		greaterThanZero(this, "size", getSize());
+		if (parseScheduler() == ThreadPoolConfig.Scheduler.TIMING_WHEEL && parseType() != ThreadPoolConfig.Type.ELASTIC) {
+			throw new ConfigurationException("Attribute \"scheduler\" of thread-pool[" + getName() + "] may only be timing-wheel for elastic thread pools");
+		}
+		if (getTickDuration() != null) {
+			greaterThanZero(this, "tick-duration", getTickDuration());
+		}
+		parsePhase();
+		if (getMaxSize() != null && getMaxSize() < getSize()) {
+			throw new ConfigurationException("Attribute \"max-size\" of thread-pool[" + getName() + "] must be greater than or equal to \"size\"");
+		}
+		if (isAutoSize()) {
+			if (parseType() != ThreadPoolConfig.Type.SCHEDULED) {
+				throw new ConfigurationException("Attribute \"auto-size\" of thread-pool[" + getName() + "] may only be true for scheduled thread pools");
+			}
+			if (getMaxSize() == null) {
+				throw new ConfigurationException("Attribute \"auto-size\" of thread-pool[" + getName() + "] requires \"max-size\"");
+			}
+		}
+		if (getTargetLag() != null) {
+			greaterThanZero(this, "target-lag", getTargetLag());
+		}
+	}
+
+	private boolean isAutoSize() {
+		return getAutoSize() != null ? getAutoSize() : false;
+	}
+
+	private ThreadPoolConfig.Type parseType() {
+		if (getType() == null) {
+			return ThreadPoolConfig.Type.SCHEDULED;
+		}
+		try {
+			return ThreadPoolConfig.Type.valueOf(getType().toUpperCase());
+		} catch (final IllegalArgumentException e) {
+			throw new ConfigurationException("Attribute \"type\" of thread-pool[" + getName() + "] must be either scheduled or elastic but was \"" + getType() + "\"");
+		}
+	}
+
+	private ThreadPoolConfig.Scheduler parseScheduler() {
+		if (getScheduler() == null) {
+			return ThreadPoolConfig.Scheduler.EXECUTOR;
+		}
+		try {
+			return ThreadPoolConfig.Scheduler.valueOf(getScheduler().toUpperCase().replace('-', '_'));
+		} catch (final IllegalArgumentException e) {
+			throw new ConfigurationException("Attribute \"scheduler\" of thread-pool[" + getName() + "] must be either executor or timing-wheel but was \"" + getScheduler() + "\"");
+		}
+	}
+
+	private ThreadPoolConfig.Phase parsePhase() {
+		if (getPhase() == null) {
+			return ThreadPoolConfig.Phase.IMMEDIATE;
+		}
+		try {
+			return ThreadPoolConfig.Phase.valueOf(getPhase().toUpperCase());
+		} catch (final IllegalArgumentException e) {
+			throw new ConfigurationException("Attribute \"phase\" of thread-pool[" + getName() + "] must be either immediate or spread but was \"" + getPhase() + "\"");
+		}
 	}
 
 	@Override
@@ -56,7 +196,11 @@ public class SamplerThreadPoolXBean extends SharedResourceXBean {
 		final int coreSize = getSize();
 		final int maxSize = getMaxSize() != null ? getMaxSize() : -1;
 		final int keepAliveTime = getKeepAliveTime() != null ? getKeepAliveTime() : -1;
-		return new ThreadPoolConfig(getName(), isIgnored(), coreSize, maxSize, keepAliveTime);
+		final int tickDuration = getTickDuration() != null ? getTickDuration() : ThreadPoolConfig.DEFAULT_TICK_DURATION;
+		final boolean alignToInterval = getAlignToInterval() != null ? getAlignToInterval() : false;
+		final int targetLag = getTargetLag() != null ? getTargetLag() : ThreadPoolConfig.DEFAULT_TARGET_LAG;
+		return new ThreadPoolConfig(getName(), isIgnored(), parseType(), parseScheduler(), tickDuration, parsePhase(), alignToInterval, isAutoSize(), targetLag,
+				coreSize, maxSize, keepAliveTime);
 	}
 	
 }
@@ -1,15 +1,19 @@
 package org.metricssampler.config.loader.xbeans;
 
-import static org.metricssampler.config.loader.xbeans.ValidationUtils.greaterThanZero;
+import static org.metricssampler.config.loader.xbeans.ValidationUtils.notEmpty;
 
 import java.util.List;
 import java.util.Map;
 
+import org.metricssampler.config.ConfigurationException;
 import org.metricssampler.config.InputConfig;
 import org.metricssampler.config.OutputConfig;
 import org.metricssampler.config.SamplerConfig;
+import org.metricssampler.config.SamplerConfig.MissedTickPolicy;
 import org.metricssampler.config.SelectorConfig;
+import org.metricssampler.util.StringUtils;
 
+import com.thoughtworks.xstream.annotations.XStreamAlias;
 import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
 
 /**
@@ -17,7 +21,14 @@ import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
  */
 public abstract class SamplerXBean extends TemplatableXBean {
 	@XStreamAsAttribute
-	private Integer interval;
+	private String interval;
+
+	@XStreamAsAttribute
+	private String timeout;
+
+	@XStreamAsAttribute
+	@XStreamAlias("missed-ticks")
+	private String missedTicks;
 
 	@XStreamAsAttribute
 	private Boolean ignored;
@@ -27,14 +38,30 @@ public abstract class SamplerXBean extends TemplatableXBean {
 
 	public abstract SamplerConfig toConfig(Map<String, InputConfig> inputs, Map<String, OutputConfig> outputs, Map<String, List<SelectorConfig>> selectorGroups, Map<String, Object> globalVariables);
 
-	public Integer getInterval() {
+	public String getInterval() {
 		return interval;
 	}
 
-	public void setInterval(final Integer interval) {
+	public void setInterval(final String interval) {
 		this.interval = interval;
 	}
 
+	public String getTimeout() {
+		return timeout;
+	}
+
+	public void setTimeout(final String timeout) {
+		this.timeout = timeout;
+	}
+
+	public String getMissedTicks() {
+		return missedTicks;
+	}
+
+	public void setMissedTicks(final String missedTicks) {
+		this.missedTicks = missedTicks;
+	}
+
 	public Boolean getIgnored() {
 		return ignored;
 	}
@@ -55,7 +82,47 @@ public abstract class SamplerXBean extends TemplatableXBean {
 	protected void validate() {
 		super.validate();
 		if (isInstantiatable()) {
-			greaterThanZero(this, "interval", getInterval());
+			notEmpty(this, "interval", getInterval());
+			if (parseInterval() <= 0L) {
+				throw new ConfigurationException("Attribute \"interval\" of sampler[" + getName() + "] must be greater than 0 but was \"" + getInterval() + "\"");
+			}
+			if (parseTimeout() < 0L) {
+				throw new ConfigurationException("Attribute \"timeout\" of sampler[" + getName() + "] must not be negative but was \"" + getTimeout() + "\"");
+			}
+			parseMissedTicks();
+		}
+	}
+
+	/**
+	 * @return the interval in milliseconds
+	 */
+	protected long parseInterval() {
+		return parseDuration("interval", getInterval());
+	}
+
+	/**
+	 * @return the timeout in milliseconds or 0 if not set
+	 */
+	protected long parseTimeout() {
+		return getTimeout() != null ? parseDuration("timeout", getTimeout()) : 0L;
+	}
+
+	protected long parseDuration(final String attribute, final String value) {
+		try {
+			return StringUtils.parseDuration(value);
+		} catch (final NumberFormatException e) {
+			throw new ConfigurationException("Attribute \"" + attribute + "\" of sampler[" + getName() + "] must be a number of seconds (e.g. 10 or 0.5) or milliseconds (e.g. 250ms) but was \"" + value + "\"");
+		}
+	}
+
+	protected MissedTickPolicy parseMissedTicks() {
+		if (getMissedTicks() == null) {
+			return MissedTickPolicy.CATCH_UP;
+		}
+		try {
+			return MissedTickPolicy.valueOf(getMissedTicks().toUpperCase().replace('-', '_'));
+		} catch (final IllegalArgumentException e) {
+			throw new ConfigurationException("Attribute \"missed-ticks\" of sampler[" + getName() + "] must be either catch-up or skip but was \"" + getMissedTicks() + "\"");
 		}
 	}
 }
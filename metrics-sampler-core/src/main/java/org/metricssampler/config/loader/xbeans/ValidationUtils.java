@@ -43,6 +43,12 @@ public final class ValidationUtils {
 		}
 	}
 
+	public static void notNull(final Object xbean, final String name, final Object value) {
+		if (value == null) {
+			throw new ConfigurationException("Attribute \"" + name + "\" of " + determineBeanName(xbean) + " is mandatory");
+		}
+	}
+
 	public static void validUrl(final Object xbean, final String name, final String value) {
 		notEmpty(xbean, name, value);
 		try {
@@ -11,7 +11,7 @@ public class ControlCommandParser {
 	private static final String CMD_SHUTDOWN = "shutdown";
 	private static final String CMD_STATUS = "status";
 
-	private static final Pattern PATTERN_SAMPLER_ACTION = Pattern.compile("^sampler (.+) (enable|disable|reset|list)$");
+	private static final Pattern PATTERN_SAMPLER_ACTION = Pattern.compile("^sampler (.+) (enable|disable|reset|list|timings)$");
 	private static final Pattern PATTERN_SAMPLER_ENABLE_FOR_TIMES = Pattern.compile("^sampler (.+) enable for ([0-9]+) times$");
 	private static final Pattern PATTERN_SAMPLER_ENABLE_FOR_DURATION = Pattern.compile("^sampler (.+) enable for ([0-9]+) (hour|minute|second)s?$");
 
@@ -62,6 +62,8 @@ public class ControlCommandParser {
 			} else if ("list".equals(action)) {
 				System.out.println("LISTING");
 				return factory.listSampler(name);
+			} else if ("timings".equals(action)) {
+				return factory.timingsSampler(name);
 			} else {
 				return factory.invalidSyntax(line, "Unsupported action \"" + action + "\"");
 			}
@@ -52,7 +52,7 @@ public class Daemon {
 	private void scheduleSamplers() {
 		for (final Sampler sampler : bootstrapper.getSamplers()) {
 			final SamplerConfig config = sampler.getConfig();
-			logger.info("Scheduling {} at fixed rate of {} seconds", sampler, config.getInterval());
+			logger.info("Scheduling {} at fixed rate of {} ms", sampler, config.getIntervalMillis());
 			final SamplerThreadPool threadPool = (SamplerThreadPool) bootstrapper.getSharedResource(sampler.getConfig().getPool());
 			final SamplerTask task = threadPool.schedule(sampler);
 			tasks.put(config.getName(), task);
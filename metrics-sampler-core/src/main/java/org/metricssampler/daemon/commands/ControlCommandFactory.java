@@ -12,4 +12,5 @@ public interface ControlCommandFactory {
 	ControlCommand startResource(String name);
 	ControlCommand stopResource(String name);
 	ControlCommand listSampler(String name);
+	ControlCommand timingsSampler(String name);
 }
@@ -64,5 +64,10 @@ public class DefaultControlCommandFactory implements ControlCommandFactory {
 		return new ListSamplerCommand(controller.getClientReader(), controller.getClientWriter(), controller.getTasks(), name);
 	}
 
+	@Override
+	public ControlCommand timingsSampler(final String name) {
+		return new TimingsSamplerCommand(controller.getClientReader(), controller.getClientWriter(), controller.getTasks(), name);
+	}
+
 
 }
@@ -0,0 +1,38 @@
+package org.metricssampler.daemon.commands;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.Map;
+
+import org.metricssampler.resources.SamplerStats;
+import org.metricssampler.resources.SamplerStats.Phase;
+import org.metricssampler.resources.SamplerTask;
+import org.metricssampler.util.Histogram;
+
+/**
+ * Respond with the percentiles of the schedule lag and the duration of each sampling phase of the matching samplers, one line per sampler
+ * and phase since startup. The self input reports the percentiles since its last reading instead.
+ */
+public class TimingsSamplerCommand extends MapEntryCommand<SamplerTask> {
+	private final StringBuilder timings = new StringBuilder();
+
+	protected TimingsSamplerCommand(final BufferedReader reader, final BufferedWriter writer, final Map<String, SamplerTask> tasks, final String name) {
+		super(reader, writer, tasks, name);
+	}
+
+	@Override
+	protected void processMatchingItem(final SamplerTask task, final BufferedWriter writer) throws IOException {
+		final SamplerStats stats = task.getStats();
+		for (final Phase phase : Phase.values()) {
+			final Histogram.Snapshot times = stats.getPhaseTimes(phase);
+			timings.append(String.format("%s %s count=%d p50=%d p95=%d p99=%d max=%d us%n", task.getName(), phase.getMetricName(), times.getCount(),
+					times.getValueAtPercentile(50), times.getValueAtPercentile(95), times.getValueAtPercentile(99), times.getMax()));
+		}
+	}
+
+	@Override
+	protected void after(final int count) throws IOException {
+		respond(timings.toString().trim());
+	}
+}
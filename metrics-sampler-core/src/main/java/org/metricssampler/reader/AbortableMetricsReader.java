@@ -0,0 +1,13 @@
+package org.metricssampler.reader;
+
+/**
+ * A reader whose blocking reads can be aborted from another thread, e.g. by the watchdog of a sampler that exceeded its timeout. Reads
+ * over RMI or JDBC sockets ignore {@link Thread#interrupt()}, so interrupting the reading thread alone does not free it.
+ */
+public interface AbortableMetricsReader extends MetricsReader {
+	/**
+	 * Abort a read in progress by force-closing the connection to the input. Called from another thread than the one reading, so it must be
+	 * thread safe and must not block. The reading thread calls {@link #reset()} afterwards to clean up the rest of the state.
+	 */
+	void abort();
+}
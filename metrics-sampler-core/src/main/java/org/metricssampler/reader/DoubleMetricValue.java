@@ -0,0 +1,27 @@
+package org.metricssampler.reader;
+
+/**
+ * A metric value that is a double. The value is only boxed if {@link #getValue()} is called.
+ */
+public class DoubleMetricValue extends MetricValue {
+	private final double doubleValue;
+
+	public DoubleMetricValue(final long timestamp, final double value) {
+		super(timestamp, null);
+		this.doubleValue = value;
+	}
+
+	public double getDoubleValue() {
+		return doubleValue;
+	}
+
+	@Override
+	public Object getValue() {
+		return Double.valueOf(doubleValue);
+	}
+
+	@Override
+	public String toString() {
+		return Double.toString(doubleValue);
+	}
+}
@@ -0,0 +1,27 @@
+package org.metricssampler.reader;
+
+/**
+ * A metric value that is a long. The value is only boxed if {@link #getValue()} is called.
+ */
+public class LongMetricValue extends MetricValue {
+	private final long longValue;
+
+	public LongMetricValue(final long timestamp, final long value) {
+		super(timestamp, null);
+		this.longValue = value;
+	}
+
+	public long getLongValue() {
+		return longValue;
+	}
+
+	@Override
+	public Object getValue() {
+		return Long.valueOf(longValue);
+	}
+
+	@Override
+	public String toString() {
+		return Long.toString(longValue);
+	}
+}
@@ -1,6 +1,15 @@
 package org.metricssampler.reader;
 
+/**
+ * The value of a metric at a given time. Readers that know that a value is a number should use {@link LongMetricValue} or
+ * {@link DoubleMetricValue} so that it is neither boxed nor converted to a string on its way to the writers.
+ */
 public class MetricValue {
+	/**
+	 * Enough for the sign and the 19 digits of a long
+	 */
+	private static final int MAX_LONG_LENGTH = 20;
+
 	private final long timestamp;
 	private final Object value;
 	
@@ -9,6 +18,60 @@ public class MetricValue {
 		this.value = value;
 	}
 
+	/**
+	 * @return a {@link LongMetricValue} or {@link DoubleMetricValue} if the text is exactly how that number would be printed and a value
+	 *         holding the text otherwise, so that e.g. {@code "007"} or {@code "1e3"} are written as they were read
+	 */
+	public static MetricValue parse(final long timestamp, final String text) {
+		if (text != null) {
+			try {
+				if (isLong(text)) {
+					return new LongMetricValue(timestamp, Long.parseLong(text));
+				} else if (isDouble(text)) {
+					final double value = Double.parseDouble(text);
+					if (Double.toString(value).equals(text)) {
+						return new DoubleMetricValue(timestamp, value);
+					}
+				}
+			} catch (final NumberFormatException e) {
+				// out of range so keep the text
+			}
+		}
+		return new MetricValue(timestamp, text);
+	}
+
+	/**
+	 * @return {@code true} if the text consists of digits without leading zeros and an optional minus sign
+	 */
+	private static boolean isLong(final String text) {
+		final int start = text.startsWith("-") ? 1 : 0;
+		final int length = text.length();
+		if (length == start || length > MAX_LONG_LENGTH || (text.charAt(start) == '0' && (length > start + 1 || start == 1))) {
+			return false;
+		}
+		for (int i = start; i < length; i++) {
+			final char c = text.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isDouble(final String text) {
+		final int length = text.length();
+		if (length == 0 || text.indexOf('.') < 0) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			final char c = text.charAt(i);
+			if ((c < '0' || c > '9') && c != '.' && c != '-' && c != 'E') {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	public long getTimestamp() {
 		return timestamp;
 	}
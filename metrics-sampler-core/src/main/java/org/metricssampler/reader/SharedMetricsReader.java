@@ -0,0 +1,268 @@
+package org.metricssampler.reader;
+
+import static org.metricssampler.util.Preconditions.checkArgument;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNullNorEmpty;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.metricssampler.resources.SharedResource;
+import org.metricssampler.service.GlobalRegistry;
+
+/**
+ * Lets several samplers of the same input share one reader so that the input is read once per tick instead of once per sampler. Each
+ * sampler gets its own {@link MetricsReader} from {@link #newReader(long)}. Values read by one sampler are handed to the others as long as
+ * they are younger than the maximum age of their reader, which is typically half the interval of the sampler. The underlying reader is only
+ * opened if a value has to be read and closed when the last sampler that needed it closes its reader. All access to the underlying reader is
+ * synchronized so it does not need to be thread safe.
+ */
+public class SharedMetricsReader implements SharedResource {
+	private final String name;
+	private final MetricsReader reader;
+
+	private final AtomicLong readCount = new AtomicLong();
+	private final AtomicLong sharedReadCount = new AtomicLong();
+
+	/**
+	 * The number of readers that currently need the underlying reader to be open. Guarded by this.
+	 */
+	private int openCount = 0;
+	/**
+	 * Whether the underlying reader was reset and must be opened again before the next read even if other readers still need it. Guarded by
+	 * this.
+	 */
+	private boolean needsOpen = false;
+	private long bulkReadTime = 0L;
+	private Map<MetricName, MetricValue> bulkMetrics = null;
+	private MetricsMetaData metaData = null;
+	private final Map<MetricName, Entry> values = new HashMap<MetricName, Entry>();
+
+	public SharedMetricsReader(final String name, final MetricsReader reader) {
+		checkArgumentNotNullNorEmpty(name, "name");
+		checkArgumentNotNull(reader, "reader");
+		checkArgument(reader instanceof BulkMetricsReader || reader instanceof MetaDataMetricsReader, "Unsupported reader: " + reader);
+		this.name = name;
+		this.reader = reader;
+		GlobalRegistry.getInstance().addSharedResource(this);
+	}
+
+	/**
+	 * @param maxAge the maximum age in milliseconds of values read by other samplers that the returned reader uses instead of reading
+	 *            them again
+	 * @return a reader for one sampler
+	 */
+	public MetricsReader newReader(final long maxAge) {
+		checkArgument(maxAge >= 0L, "maxAge must not be negative");
+		final long maxAgeNanos = maxAge * 1000000L;
+		if (reader instanceof MetaDataMetricsReader) {
+			return new SharedMetaDataMetricsReader(maxAgeNanos);
+		}
+		return new SharedBulkMetricsReader(maxAgeNanos);
+	}
+
+	private void open(final View view) {
+		if (openCount == 0 || needsOpen) {
+			reader.open();
+			needsOpen = false;
+			if (reader instanceof MetaDataMetricsReader) {
+				updateMetaData(((MetaDataMetricsReader) reader).getMetaData());
+			}
+		}
+		if (!view.open) {
+			openCount++;
+			view.open = true;
+		}
+	}
+
+	private synchronized void close(final View view) {
+		if (!view.open) {
+			return;
+		}
+		view.open = false;
+		openCount--;
+		if (openCount == 0) {
+			reader.close();
+		}
+	}
+
+	private void updateMetaData(final MetricsMetaData newMetaData) {
+		if (metaData != newMetaData) {
+			// the reader reconnected and the cached values may refer to metrics that no longer exist
+			values.clear();
+			metaData = newMetaData;
+		}
+	}
+
+	private synchronized Map<MetricName, MetricValue> readAllMetrics(final View view) {
+		final long now = System.nanoTime();
+		if (bulkMetrics != null && now - bulkReadTime <= view.maxAge) {
+			sharedReadCount.incrementAndGet();
+			return bulkMetrics;
+		}
+		open(view);
+		bulkMetrics = ((BulkMetricsReader) reader).readAllMetrics();
+		bulkReadTime = now;
+		readCount.incrementAndGet();
+		return bulkMetrics;
+	}
+
+	private synchronized MetricsMetaData getMetaData(final View view) {
+		if (metaData == null) {
+			open(view);
+		}
+		return metaData;
+	}
+
+	private synchronized MetricValue readMetric(final View view, final MetricName metric) {
+		final long now = System.nanoTime();
+		final Entry entry = values.get(metric);
+		if (entry != null && now - entry.time <= view.maxAge) {
+			sharedReadCount.incrementAndGet();
+			return entry.value;
+		}
+		open(view);
+		final MetricValue result = ((MetaDataMetricsReader) reader).readMetric(metric);
+		values.put(metric, new Entry(result, now));
+		readCount.incrementAndGet();
+		return result;
+	}
+
+	/**
+	 * Reset the underlying reader and discard the cached values. The readers of the other samplers stay open, so the underlying reader is
+	 * opened again on the next read of any of them.
+	 */
+	private synchronized void reset() {
+		bulkMetrics = null;
+		metaData = null;
+		values.clear();
+		reader.reset();
+		needsOpen = true;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public void startup() {
+		// nothing to do here
+	}
+
+	@Override
+	public void shutdown() {
+		// the underlying reader is closed when the last sampler closes its reader
+	}
+
+	@Override
+	public Map<String, Object> getStats() {
+		final String prefix = "shared-inputs." + name + ".";
+		final Map<String, Object> result = new HashMap<String, Object>();
+		result.put(prefix + "readCount", readCount.get());
+		result.put(prefix + "sharedReadCount", sharedReadCount.get());
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + reader + "]";
+	}
+
+	private static class Entry {
+		private final MetricValue value;
+		private final long time;
+
+		public Entry(final MetricValue value, final long time) {
+			this.value = value;
+			this.time = time;
+		}
+	}
+
+	/**
+	 * The reader of one sampler. Only used by the thread running the sampler.
+	 */
+	private abstract class View implements AbortableMetricsReader {
+		private final long maxAge;
+		/**
+		 * Whether this reader needs the underlying reader to be open. Guarded by the shared reader.
+		 */
+		private boolean open = false;
+
+		protected View(final long maxAge) {
+			this.maxAge = maxAge;
+		}
+
+		@Override
+		public void open() throws MetricReadException {
+			// the underlying reader is opened when a value has to be read
+		}
+
+		@Override
+		public void close() {
+			SharedMetricsReader.this.close(this);
+		}
+
+		@Override
+		public Map<String, Object> getVariables() {
+			return reader.getVariables();
+		}
+
+		@Override
+		public void reset() {
+			SharedMetricsReader.this.reset();
+		}
+
+		/**
+		 * Not synchronized because the thread blocked in the underlying reader holds the lock
+		 */
+		@Override
+		public void abort() {
+			if (reader instanceof AbortableMetricsReader) {
+				((AbortableMetricsReader) reader).abort();
+			}
+		}
+
+		@Override
+		public String toString() {
+			return SharedMetricsReader.this.toString();
+		}
+	}
+
+	private class SharedBulkMetricsReader extends View implements BulkMetricsReader {
+		public SharedBulkMetricsReader(final long maxAge) {
+			super(maxAge);
+		}
+
+		@Override
+		public Map<MetricName, MetricValue> readAllMetrics() throws MetricReadException {
+			return SharedMetricsReader.this.readAllMetrics(this);
+		}
+
+		@Override
+		public Iterable<MetricName> readNames() {
+			return readAllMetrics().keySet();
+		}
+	}
+
+	private class SharedMetaDataMetricsReader extends View implements MetaDataMetricsReader {
+		public SharedMetaDataMetricsReader(final long maxAge) {
+			super(maxAge);
+		}
+
+		@Override
+		public MetricsMetaData getMetaData() throws MetricReadException {
+			return SharedMetricsReader.this.getMetaData(this);
+		}
+
+		@Override
+		public MetricValue readMetric(final MetricName metric) throws MetricReadException {
+			return SharedMetricsReader.this.readMetric(this, metric);
+		}
+
+		@Override
+		public Iterable<MetricName> readNames() {
+			return getMetaData();
+		}
+	}
+}
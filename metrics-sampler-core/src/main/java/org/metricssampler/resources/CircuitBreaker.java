@@ -0,0 +1,103 @@
+package org.metricssampler.resources;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+import java.util.Random;
+
+import org.metricssampler.config.CircuitBreakerConfig;
+
+/**
+ * Keeps track of consecutive failures of a sampler to read its input. After {@link CircuitBreakerConfig#getFailureThreshold()} failures
+ * in a row the breaker opens and no samplings are allowed for the backoff time. Afterwards it is half open and allows exactly one probe:
+ * if it succeeds the breaker closes, otherwise it opens again for twice the previous backoff (up to the maximum). The backoff is randomly
+ * varied by the configured jitter. All times are in milliseconds.
+ */
+public class CircuitBreaker {
+	public enum State {
+		CLOSED,
+		OPEN,
+		HALF_OPEN
+	}
+
+	private final CircuitBreakerConfig config;
+	private final Random random = new Random();
+
+	private State state = State.CLOSED;
+	private int consecutiveFailures = 0;
+	private long backoff = 0L;
+	private long openUntil = 0L;
+	private boolean probing = false;
+
+	public CircuitBreaker(final CircuitBreakerConfig config) {
+		checkArgumentNotNull(config, "config");
+		this.config = config;
+	}
+
+	/**
+	 * @return {@code true} if the sampler may try to read its input now. When half open only the first caller gets {@code true} until
+	 *         the outcome of its probe is recorded.
+	 */
+	public synchronized boolean allowRequest(final long now) {
+		if (state == State.OPEN && now >= openUntil) {
+			state = State.HALF_OPEN;
+			probing = false;
+		}
+		if (state == State.HALF_OPEN) {
+			if (probing) {
+				return false;
+			}
+			probing = true;
+			return true;
+		}
+		return state == State.CLOSED;
+	}
+
+	public synchronized void recordSuccess() {
+		state = State.CLOSED;
+		consecutiveFailures = 0;
+		backoff = 0L;
+		probing = false;
+	}
+
+	/**
+	 * @return {@code true} if the failure opened the breaker
+	 */
+	public synchronized boolean recordFailure(final long now) {
+		consecutiveFailures++;
+		if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= config.getFailureThreshold())) {
+			backoff = backoff == 0L ? config.getBackoff() : Math.min(2 * backoff, config.getMaxBackoff());
+			openUntil = now + jitter(backoff);
+			state = State.OPEN;
+			probing = false;
+			return true;
+		}
+		return false;
+	}
+
+	private long jitter(final long value) {
+		final double factor = 1d + config.getJitter() * (2d * random.nextDouble() - 1d);
+		return Math.max(1L, Math.round(value * factor));
+	}
+
+	public synchronized State getState() {
+		return state;
+	}
+
+	/**
+	 * @return the current backoff without jitter or 0 if the breaker is closed
+	 */
+	public synchronized long getBackoff() {
+		return state == State.CLOSED ? 0L : backoff;
+	}
+
+	/**
+	 * @return the time when the breaker will allow the next probe
+	 */
+	public synchronized long getOpenUntil() {
+		return openUntil;
+	}
+
+	public synchronized int getConsecutiveFailures() {
+		return consecutiveFailures;
+	}
+}
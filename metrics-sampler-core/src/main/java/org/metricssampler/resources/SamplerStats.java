@@ -1,17 +1,105 @@
 package org.metricssampler.resources;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.metricssampler.util.Histogram;
+
+/**
+ * Statistics of a single sampler. They are updated by the thread running the sampler and by the threads of the outputs it writes to, and
+ * read by the self input and the control commands. All counters are 64 bit atomics and all other values are volatile so no locks are
+ * needed. Use {@link #getSnapshot()} to read all values at once.
+ */
 public class SamplerStats {
 	private static ThreadLocal<SamplerStats> stats = new ThreadLocal<SamplerStats>();
+	private static final long MIN_HIGHEST_TRACKABLE_PHASE_TIME = TimeUnit.SECONDS.toMicros(1);
+	private static final long MAX_HIGHEST_TRACKABLE_PHASE_TIME = TimeUnit.MINUTES.toMicros(10);
+
+	/**
+	 * The phases of a sampling whose durations are tracked in histograms.
+	 */
+	public enum Phase {
+		/**
+		 * How late the sampling started compared to when it was due
+		 */
+		SCHEDULE_LAG("scheduleLag"),
+		/**
+		 * Opening the reader, i.e. connecting to the input, without the metadata discovery
+		 */
+		OPEN("open"),
+		/**
+		 * Discovering the available metrics of the input
+		 */
+		METADATA("metadata"),
+		/**
+		 * Reading the values and selecting the metrics, without the metadata discovery
+		 */
+		SELECTION("selection"),
+		/**
+		 * Applying the value transformers
+		 */
+		TRANSFORMATION("transformation"),
+		/**
+		 * Writing the metrics to all outputs
+		 */
+		WRITE("write");
+
+		private final String metricName;
 
-	private int sampleSuccessCount = 0;
-	private int sampleFailureCount = 0;
-	private int connectCount = 0;
-	private int disconnectCount = 0;
-	private long activationTimestamp = System.currentTimeMillis();
+		private Phase(final String metricName) {
+			this.metricName = metricName;
+		}
+
+		/**
+		 * @return the name used in the self metrics
+		 */
+		public String getMetricName() {
+			return metricName;
+		}
+	}
+
+	private final AtomicLong sampleSuccessCount = new AtomicLong();
+	private final AtomicLong sampleFailureCount = new AtomicLong();
+	private final AtomicLong overrunCount = new AtomicLong();
+	private final AtomicLong skippedCount = new AtomicLong();
+	private final AtomicLong connectCount = new AtomicLong();
+	private final AtomicLong disconnectCount = new AtomicLong();
+	private final AtomicLong writerConnectCount = new AtomicLong();
+	private final AtomicLong writerReconnectCount = new AtomicLong();
+	private final AtomicLong writerPacketCount = new AtomicLong();
+	private final AtomicLong writerByteCount = new AtomicLong();
+	private volatile long activationTimestamp = System.currentTimeMillis();
+	/**
+	 * Only accessed by the thread running the sampler
+	 */
 	private long sampleStartTime = 0L;
-	private long sampleEndTime = 0L;
-	private int metricsCount = 0;
+	private volatile long sampleDuration = 0L;
+	private volatile int metricsCount = 0;
+	private volatile CircuitBreaker.State circuitBreakerState = CircuitBreaker.State.CLOSED;
+	private final AtomicLong shortCircuitCount = new AtomicLong();
+	private volatile long effectiveInterval = 0L;
+	/**
+	 * The histograms are created when the phase is recorded for the first time as e.g. metadata is only discovered by some inputs
+	 */
+	private final AtomicReferenceArray<Histogram> phaseTimes = new AtomicReferenceArray<Histogram>(Phase.values().length);
+	private final long highestTrackablePhaseTime;
+	private final AtomicLong metadataTime = new AtomicLong();
 	
+	public SamplerStats() {
+		this(TimeUnit.MICROSECONDS.toMillis(MAX_HIGHEST_TRACKABLE_PHASE_TIME));
+	}
+
+	/**
+	 * @param highestTrackablePhaseMillis the longest phase duration that the histograms track with full precision, typically the interval
+	 *            or the timeout of the sampler. Limited to the range from one second to ten minutes. Longer durations are still counted and
+	 *            their maximum is kept, but fewer buckets are needed.
+	 */
+	public SamplerStats(final long highestTrackablePhaseMillis) {
+		final long micros = TimeUnit.MILLISECONDS.toMicros(highestTrackablePhaseMillis);
+		this.highestTrackablePhaseTime = Math.min(Math.max(micros, MIN_HIGHEST_TRACKABLE_PHASE_TIME), MAX_HIGHEST_TRACKABLE_PHASE_TIME);
+	}
+
 	public static void init() {
 		set(new SamplerStats());
 	}
@@ -28,22 +116,30 @@ public class SamplerStats {
 	}
 	
 	public void startSample() {
-		sampleStartTime = System.currentTimeMillis();
+		sampleStartTime = System.nanoTime();
 	}
 
 	public int getSampleDuration() {
-		return (int) ((sampleEndTime - sampleStartTime) / 1000);
+		return (int) TimeUnit.NANOSECONDS.toSeconds(sampleDuration);
+	}
+
+	/**
+	 * @return the duration of the last sample in milliseconds
+	 */
+	public long getSampleDurationMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(sampleDuration);
 	}
 
 	public void endSample() {
-		this.sampleEndTime = System.currentTimeMillis();
+		this.sampleDuration = System.nanoTime() - sampleStartTime;
 	}
 
 	/**
 	 * @return number of seconds since last activation
 	 */
 	public int getActiveTime() {
-		return activationTimestamp == -1L ? 0 : (int) ((System.currentTimeMillis() - activationTimestamp)/1000);
+		final long timestamp = activationTimestamp;
+		return timestamp == -1L ? 0 : (int) ((System.currentTimeMillis() - timestamp)/1000);
 	}
 	
 	public void activate() {
@@ -57,45 +153,111 @@ public class SamplerStats {
 	/**
 	 * @return the total number of successful samplings. Not reseted upon activation/deactivation.
 	 */
-	public int getSampleSuccessCount() {
-		return sampleSuccessCount;
+	public long getSampleSuccessCount() {
+		return sampleSuccessCount.get();
 	}
 	
 	public void incSampleSuccessCount() {
-		sampleSuccessCount++;
+		sampleSuccessCount.incrementAndGet();
 	}
 
 	/**
 	 * @return the total number of failed samplings due to unexpected exception.
 	 */
-	public int getSampleFailureCount() {
-		return sampleFailureCount;
+	public long getSampleFailureCount() {
+		return sampleFailureCount.get();
 	}
 
 	public void incSampleFailureCount() {
-		sampleFailureCount++;
+		sampleFailureCount.incrementAndGet();
+	}
+
+	/**
+	 * @return the total number of samplings that were interrupted because they exceeded the timeout of the sampler
+	 */
+	public long getOverrunCount() {
+		return overrunCount.get();
+	}
+
+	public void incOverrunCount() {
+		overrunCount.incrementAndGet();
+	}
+
+	/**
+	 * @return the total number of executions that were skipped because they were due while the previous sampling was still running
+	 */
+	public long getSkippedCount() {
+		return skippedCount.get();
+	}
+
+	public void incSkippedCount() {
+		skippedCount.incrementAndGet();
 	}
 
 	/**
 	 * @return the total number times the reader tried to connect to the input
 	 */
-	public int getConnectCount() {
-		return connectCount;
+	public long getConnectCount() {
+		return connectCount.get();
 	}
 
 	public void incConnectCount() {
-		connectCount++;
+		connectCount.incrementAndGet();
 	}
 
 	/**
 	 * @return the total number of times the reader tried to disconnect from the input
 	 */
-	public int getDisconnectCount() {
-		return disconnectCount;
+	public long getDisconnectCount() {
+		return disconnectCount.get();
 	}
 
 	public void incDisconnectCount() {
-		disconnectCount++;
+		disconnectCount.incrementAndGet();
+	}
+
+	/**
+	 * @return the total number of times the writers tried to connect to their outputs
+	 */
+	public long getWriterConnectCount() {
+		return writerConnectCount.get();
+	}
+
+	public void incWriterConnectCount() {
+		writerConnectCount.incrementAndGet();
+	}
+
+	/**
+	 * @return the total number of times the writers had to reconnect to their outputs because a persistent connection broke
+	 */
+	public long getWriterReconnectCount() {
+		return writerReconnectCount.get();
+	}
+
+	public void incWriterReconnectCount() {
+		writerReconnectCount.incrementAndGet();
+	}
+
+	/**
+	 * @return the total number of datagrams the writers sent to their outputs
+	 */
+	public long getWriterPacketCount() {
+		return writerPacketCount.get();
+	}
+
+	public void incWriterPacketCount() {
+		writerPacketCount.incrementAndGet();
+	}
+
+	/**
+	 * @return the total number of bytes the writers sent to their outputs as datagrams
+	 */
+	public long getWriterByteCount() {
+		return writerByteCount.get();
+	}
+
+	public void addWriterByteCount(final int count) {
+		writerByteCount.addAndGet(count);
 	}
 
 	/**
@@ -108,4 +270,189 @@ public class SamplerStats {
 	public void setMetricsCount(final int metricsCount) {
 		this.metricsCount = metricsCount;
 	}
+
+	/**
+	 * @return the state of the circuit breaker of the sampler or {@link CircuitBreaker.State#CLOSED} if it has none
+	 */
+	public CircuitBreaker.State getCircuitBreakerState() {
+		return circuitBreakerState;
+	}
+
+	public void setCircuitBreakerState(final CircuitBreaker.State circuitBreakerState) {
+		this.circuitBreakerState = circuitBreakerState;
+	}
+
+	/**
+	 * @return the total number of samplings skipped because the circuit breaker was open
+	 */
+	public long getShortCircuitCount() {
+		return shortCircuitCount.get();
+	}
+
+	public void incShortCircuitCount() {
+		shortCircuitCount.incrementAndGet();
+	}
+
+	/**
+	 * @return the number of milliseconds between two attempts to read the input, i.e. the interval of the sampler or the backoff of its
+	 *         circuit breaker while it is open
+	 */
+	public long getEffectiveInterval() {
+		return effectiveInterval;
+	}
+
+	public void setEffectiveInterval(final long effectiveInterval) {
+		this.effectiveInterval = effectiveInterval;
+	}
+
+	/**
+	 * Record the duration of a phase of the sampling. The histograms have a resolution of one microsecond and use a fixed amount of memory.
+	 *
+	 * @param nanos the duration in nanoseconds as measured with {@link System#nanoTime()}
+	 */
+	public void recordPhase(final Phase phase, final long nanos) {
+		Histogram histogram = phaseTimes.get(phase.ordinal());
+		if (histogram == null) {
+			phaseTimes.compareAndSet(phase.ordinal(), null, new Histogram(highestTrackablePhaseTime));
+			histogram = phaseTimes.get(phase.ordinal());
+		}
+		histogram.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+		if (phase == Phase.METADATA) {
+			metadataTime.addAndGet(nanos);
+		}
+	}
+
+	/**
+	 * @return the total number of nanoseconds spent discovering metadata. Use the difference before and after a phase that may discover
+	 *         metadata to exclude it from that phase.
+	 */
+	public long getMetadataTime() {
+		return metadataTime.get();
+	}
+
+	/**
+	 * @return the durations of the phase in microseconds recorded since the sampler was created. The histograms are never reset so that
+	 *         several readers can compute the durations of their own intervals using {@link Histogram.Snapshot#since(Histogram.Snapshot)}.
+	 */
+	public Histogram.Snapshot getPhaseTimes(final Phase phase) {
+		final Histogram histogram = phaseTimes.get(phase.ordinal());
+		return histogram != null ? histogram.getSnapshot() : Histogram.EMPTY_SNAPSHOT;
+	}
+
+	/**
+	 * @return a copy of all values except the phase times. Every value is read exactly once so they do not change while being processed,
+	 *         but counters incremented concurrently may or may not be included.
+	 */
+	public Snapshot getSnapshot() {
+		return new Snapshot(this);
+	}
+
+	/**
+	 * An immutable copy of the values of {@link SamplerStats}.
+	 */
+	public static class Snapshot {
+		private final int activeTime;
+		private final long sampleSuccessCount;
+		private final long sampleFailureCount;
+		private final long overrunCount;
+		private final long skippedCount;
+		private final long connectCount;
+		private final long disconnectCount;
+		private final long writerConnectCount;
+		private final long writerReconnectCount;
+		private final long writerPacketCount;
+		private final long writerByteCount;
+		private final int metricsCount;
+		private final long sampleDuration;
+		private final CircuitBreaker.State circuitBreakerState;
+		private final long shortCircuitCount;
+		private final long effectiveInterval;
+
+		private Snapshot(final SamplerStats stats) {
+			activeTime = stats.getActiveTime();
+			sampleSuccessCount = stats.getSampleSuccessCount();
+			sampleFailureCount = stats.getSampleFailureCount();
+			overrunCount = stats.getOverrunCount();
+			skippedCount = stats.getSkippedCount();
+			connectCount = stats.getConnectCount();
+			disconnectCount = stats.getDisconnectCount();
+			writerConnectCount = stats.getWriterConnectCount();
+			writerReconnectCount = stats.getWriterReconnectCount();
+			writerPacketCount = stats.getWriterPacketCount();
+			writerByteCount = stats.getWriterByteCount();
+			metricsCount = stats.getMetricsCount();
+			sampleDuration = stats.sampleDuration;
+			circuitBreakerState = stats.getCircuitBreakerState();
+			shortCircuitCount = stats.getShortCircuitCount();
+			effectiveInterval = stats.getEffectiveInterval();
+		}
+
+		public int getActiveTime() {
+			return activeTime;
+		}
+
+		public long getSampleSuccessCount() {
+			return sampleSuccessCount;
+		}
+
+		public long getSampleFailureCount() {
+			return sampleFailureCount;
+		}
+
+		public long getOverrunCount() {
+			return overrunCount;
+		}
+
+		public long getSkippedCount() {
+			return skippedCount;
+		}
+
+		public long getConnectCount() {
+			return connectCount;
+		}
+
+		public long getDisconnectCount() {
+			return disconnectCount;
+		}
+
+		public long getWriterConnectCount() {
+			return writerConnectCount;
+		}
+
+		public long getWriterReconnectCount() {
+			return writerReconnectCount;
+		}
+
+		public long getWriterPacketCount() {
+			return writerPacketCount;
+		}
+
+		public long getWriterByteCount() {
+			return writerByteCount;
+		}
+
+		public int getMetricsCount() {
+			return metricsCount;
+		}
+
+		public int getSampleDuration() {
+			return (int) TimeUnit.NANOSECONDS.toSeconds(sampleDuration);
+		}
+
+		public long getSampleDurationMillis() {
+			return TimeUnit.NANOSECONDS.toMillis(sampleDuration);
+		}
+
+		public CircuitBreaker.State getCircuitBreakerState() {
+			return circuitBreakerState;
+		}
+
+		public long getShortCircuitCount() {
+			return shortCircuitCount;
+		}
+
+		public long getEffectiveInterval() {
+			return effectiveInterval;
+		}
+	}
 }
@@ -1,25 +1,55 @@
 package org.metricssampler.resources;
 
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.metricssampler.config.SamplerConfig.MissedTickPolicy;
 import org.metricssampler.sampler.Sampler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
 /**
- * A wrapper around a sampler that handles run-time aspects - enabling, disabling and running for a configured amount of time
+ * A wrapper around a sampler that handles run-time aspects - enabling, disabling and running for a configured amount of time. If the
+ * sampler has a timeout, a watchdog interrupts samplings that take longer and aborts them by force-closing the connection of the reader, as
+ * blocking socket reads ignore interrupts. Once the interrupted sampling returns, the sampling thread resets the sampler so that the next
+ * sampling starts with fresh connections. The sampler is never reset while it is still sampling because its readers and caches are not
+ * thread safe. If the sampler skips missed ticks, executions that are started more than one interval after they
+ * were due are dropped.
  */
 public class SamplerTask implements Runnable {
+	private static final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(final Runnable runnable) {
+			final Thread result = new Thread(runnable, "sampler-watchdog");
+			result.setDaemon(true);
+			return result;
+		}
+	});
+
 	private final Logger logger = LoggerFactory.getLogger(getClass());
 	private final Sampler sampler;
-	private final SamplerStats stats = new SamplerStats();
-	private final Lock repetitionsLock = new ReentrantLock();
-	private long repetitions = -1L;
+	private final SamplerStats stats;
+	/**
+	 * The number of remaining samplings, negative for unlimited and 0 if disabled
+	 */
+	private final AtomicLong repetitions = new AtomicLong(-1L);
+
+	/**
+	 * The thread currently sampling with a timeout and whether the watchdog has interrupted it. Guarded by the lock itself.
+	 */
+	private final Object samplingLock = new Object();
+	private Thread samplingThread = null;
+	private boolean timedOut = false;
 	
 	public SamplerTask(final Sampler sampler) {
 		this.sampler = sampler;
+		this.stats = new SamplerStats(Math.max(sampler.getConfig().getIntervalMillis(), sampler.getConfig().getTimeoutMillis()));
+		stats.setEffectiveInterval(sampler.getConfig().getIntervalMillis());
 		if (sampler.getConfig().isDisabled()) {
 			stats.deactivate();
 			disable();
@@ -28,40 +58,144 @@ public class SamplerTask implements Runnable {
 
 	@Override
 	public void run() {
+		run(System.nanoTime());
+	}
+
+	/**
+	 * Run the sampler and record how late it started.
+	 *
+	 * @param due the {@link System#nanoTime()} when the execution was due according to the schedule
+	 */
+	public void run(final long due) {
+		final long lag = System.nanoTime() - due;
+		stats.recordPhase(SamplerStats.Phase.SCHEDULE_LAG, lag);
 		MDC.put("sampler", sampler.getConfig().getName());
 		SamplerStats.set(stats);
 		
-		repetitionsLock.lock();
-		if (repetitions != 0) {
+		if (isMissedTick(lag)) {
+			stats.incSkippedCount();
+			logger.debug("Skipping execution because it was due more than one interval ago");
+		} else {
+			runIfEnabled();
+		}
+
+		SamplerStats.unset();
+		MDC.remove("sampler");
+	}
+
+	private void runIfEnabled() {
+		if (acquireRepetition()) {
 			try {
-				decrementRemainingRepetitions();
-				repetitionsLock.unlock();
 				stats.startSample();
-				sampler.sample();
+				final boolean completed = sample();
 				stats.endSample();
-				stats.incSampleSuccessCount();
+				if (completed) {
+					stats.incSampleSuccessCount();
+				}
 			} catch (final RuntimeException e) {
 				logger.warn("Sampler threw exception. Ignoring.", e);
 				stats.incSampleFailureCount();
 				stats.endSample();
 			}
 		} else {
-			repetitionsLock.unlock();
 			logger.debug("Sampler disabled thus not sampling");
 		}
+	}
 
-		SamplerStats.unset();
-		MDC.remove("sampler");
+	/**
+	 * @param lag the number of nanoseconds since the execution was due
+	 * @return {@code true} if the sampler skips missed ticks and this execution is at least one interval late, i.e. the scheduler is
+	 *         catching up after a sampling that took longer than the interval
+	 */
+	private boolean isMissedTick(final long lag) {
+		if (sampler.getConfig().getMissedTickPolicy() != MissedTickPolicy.SKIP) {
+			return false;
+		}
+		return lag >= TimeUnit.MILLISECONDS.toNanos(sampler.getConfig().getIntervalMillis());
 	}
 
-	private void decrementRemainingRepetitions() {
-		repetitions--;
-		if (repetitions == Long.MIN_VALUE) {
-			repetitions = -1L;
+	/**
+	 * @return {@code false} if the sampling was interrupted because it exceeded the timeout
+	 */
+	private boolean sample() {
+		final long timeout = sampler.getConfig().getTimeoutMillis();
+		if (timeout == 0L) {
+			sampler.sample();
+			return true;
 		}
-		if (repetitions == 0L) {
-			stats.deactivate();
-			logger.info("Auto-disabling sampler because it reached its repetitions limit");
+		synchronized (samplingLock) {
+			samplingThread = Thread.currentThread();
+			timedOut = false;
+		}
+		final ScheduledFuture<?> future = watchdog.schedule(new Runnable() {
+			@Override
+			public void run() {
+				interruptSampling();
+			}
+		}, timeout, TimeUnit.MILLISECONDS);
+		boolean interrupted = false;
+		try {
+			sampler.sample();
+		} finally {
+			future.cancel(false);
+			synchronized (samplingLock) {
+				samplingThread = null;
+				interrupted = timedOut;
+			}
+			if (interrupted) {
+				// clear the interrupted flag so that it does not affect the reset or the next task of the pool thread
+				Thread.interrupted();
+				stats.incOverrunCount();
+				sampler.reset();
+			}
+		}
+		return !interrupted;
+	}
+
+	/**
+	 * Called by the watchdog thread when the sampling exceeds the timeout. Only interrupts and aborts the sampling, the sampling thread resets
+	 * the sampler itself so that the single watchdog thread is never blocked by a slow reset.
+	 */
+	private void interruptSampling() {
+		synchronized (samplingLock) {
+			if (samplingThread == null) {
+				return;
+			}
+			MDC.put("sampler", sampler.getConfig().getName());
+			logger.warn("Sampling exceeded the timeout of {} ms. Interrupting and aborting the sampler", sampler.getConfig().getTimeoutMillis());
+			MDC.remove("sampler");
+			timedOut = true;
+			samplingThread.interrupt();
+		}
+		try {
+			sampler.abort();
+		} catch (final RuntimeException e) {
+			logger.warn("Failed to abort sampler " + sampler.getConfig().getName(), e);
+		}
+	}
+
+	/**
+	 * Decrement the remaining repetitions unless they are unlimited. Uses a compare-and-set loop because the control commands may enable or
+	 * disable the sampler at the same time.
+	 *
+	 * @return {@code false} if the sampler is disabled
+	 */
+	private boolean acquireRepetition() {
+		while (true) {
+			final long current = repetitions.get();
+			if (current < 0L) {
+				return true;
+			}
+			if (current == 0L) {
+				return false;
+			}
+			if (repetitions.compareAndSet(current, current - 1L)) {
+				if (current == 1L) {
+					stats.deactivate();
+					logger.info("Auto-disabling sampler because it reached its repetitions limit");
+				}
+				return true;
+			}
 		}
 	}
 
@@ -70,25 +204,19 @@ public class SamplerTask implements Runnable {
 		enableForTimes(-1);
 	}
 	public void enableForTimes(final int times) {
-		repetitionsLock.lock();
 		stats.activate();
-		this.repetitions = times;
-		repetitionsLock.unlock();
+		repetitions.set(times);
 	}
 
 	public void enableForDuration(final long seconds) {
-		final long times = seconds / sampler.getConfig().getInterval();
-		repetitionsLock.lock();
+		final long times = seconds * 1000L / sampler.getConfig().getIntervalMillis();
 		stats.activate();
-		repetitions = times > 1L ? times : 1L;
-		repetitionsLock.unlock();
+		repetitions.set(times > 1L ? times : 1L);
 	}
 
 	public void disable() {
-		repetitionsLock.lock();
 		stats.deactivate();
-		repetitions = 0;
-		repetitionsLock.unlock();
+		repetitions.set(0L);
 	}
 
 	public void reset() {
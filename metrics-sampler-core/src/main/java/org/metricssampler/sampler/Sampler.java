@@ -19,4 +19,10 @@ public interface Sampler {
 	SamplerConfig getConfig();
 	
 	void reset();
+
+	/**
+	 * Abort a sampling in progress that is blocked reading the input by force-closing the connection of the reader if it supports that.
+	 * Called by another thread than the one sampling, so it must be thread safe. The sampling thread calls {@link #reset()} afterwards.
+	 */
+	void abort();
 }
@@ -2,6 +2,7 @@ package org.metricssampler.selector;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -17,9 +18,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * A rudimentary implementation of a metrics selector which supports {@link MetaDataMetricsReader} and {@link BulkMetricsReader}.
+ * A rudimentary implementation of a metrics selector which supports {@link MetaDataMetricsReader} and {@link BulkMetricsReader}. The
+ * selected metrics are cached until {@link #reset()}: for metadata readers as long as the reader returns the same metadata and for bulk
+ * readers per metric name in a cache of limited size that evicts the least recently used names.
  */
 public abstract class AbstractMetricsSelector implements MetricsSelector {
+	public static final int DEFAULT_SELECTION_CACHE_SIZE = 20000;
+
+	/**
+	 * Marks metric names in the selection cache that are not selected
+	 */
+	private static final SelectedMetric NOT_SELECTED = new SelectedMetric(null, null);
+
 	private final Logger logger = LoggerFactory.getLogger(getClass());
 	
 	private final VariableReplacer variableReplacer = new VariableReplacer();
@@ -27,6 +37,25 @@ public abstract class AbstractMetricsSelector implements MetricsSelector {
 	private Map<String, Object> variables;
 	private MetricsMetaData cachedMetaData;
 	private List<SelectedMetric> cachedSelectedMetrics;
+	private final Map<String, SelectedMetric> selectionCache;
+
+	protected AbstractMetricsSelector() {
+		this(DEFAULT_SELECTION_CACHE_SIZE);
+	}
+
+	/**
+	 * @param selectionCacheSize the maximum number of metric names of bulk readers for which the selection result is cached
+	 */
+	protected AbstractMetricsSelector(final int selectionCacheSize) {
+		this.selectionCache = new LinkedHashMap<String, SelectedMetric>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, SelectedMetric> eldest) {
+				return size() > selectionCacheSize;
+			}
+		};
+	}
 	
 	@Override
 	public Map<String, MetricValue> readMetrics(final MetricsReader reader) {
@@ -56,15 +85,26 @@ public abstract class AbstractMetricsSelector implements MetricsSelector {
 	protected List<SelectedMetric> getSelectedMetrics(final MetaDataMetricsReader reader) {
 		final MetricsMetaData metaData = reader.getMetaData();
 		if (this.cachedMetaData != metaData) {
-			this.cachedMetaData = metaData;
-			this.cachedSelectedMetrics = selectMetrics(metaData);
-			if (cachedSelectedMetrics.isEmpty()) {
-				logger.warn(this + " matched no metrics");
-			}
+			setSelectedMetrics(metaData, selectMetrics(metaData));
 		}
 		return cachedSelectedMetrics;
 	}
 
+	boolean hasSelectedMetrics(final MetricsMetaData metaData) {
+		return cachedMetaData == metaData;
+	}
+
+	/**
+	 * Cache the metrics selected from the given metadata, e.g. by a {@link MetricsSelectorIndex} which selects for several selectors at once
+	 */
+	void setSelectedMetrics(final MetricsMetaData metaData, final List<SelectedMetric> selectedMetrics) {
+		this.cachedMetaData = metaData;
+		this.cachedSelectedMetrics = selectedMetrics;
+		if (cachedSelectedMetrics.isEmpty()) {
+			logger.warn(this + " matched no metrics");
+		}
+	}
+
 	protected List<SelectedMetric> selectMetrics(final Iterable<MetricName> names) {
 		logger.debug("Selecting metrics");
 		final List<SelectedMetric> result = new LinkedList<SelectedMetric>();
@@ -85,11 +125,19 @@ public abstract class AbstractMetricsSelector implements MetricsSelector {
 	 */
 	protected abstract SelectedMetric selectMetric(MetricName name);
 
+	/**
+	 * @return the literal text the names of all selected metrics start with or an empty string if the names can start with anything. Used
+	 *         by {@link MetricsSelectorIndex} to skip selectors that cannot match a name.
+	 */
+	protected String getNamePrefix() {
+		return "";
+	}
+
 	protected Map<String, MetricValue> readAllAndSelect(final BulkMetricsReader reader) {
 		final Map<String, MetricValue> result = new HashMap<String, MetricValue>();
 		final Map<MetricName, MetricValue> metrics = reader.readAllMetrics();
 		for (final Map.Entry<MetricName, MetricValue> entry : metrics.entrySet()) {
-			final SelectedMetric metric = selectMetric(entry.getKey());
+			final SelectedMetric metric = selectCachedMetric(entry.getKey());
 			if (metric != null) {
 				result.put(metric.getName(), entry.getValue());
 			}
@@ -97,9 +145,23 @@ public abstract class AbstractMetricsSelector implements MetricsSelector {
 		return result;
 	}
 
+	/**
+	 * Like {@link #selectMetric(MetricName)} but the result is cached by metric name. Selectors are only used by the thread running
+	 * their sampler so the cache is not synchronized.
+	 */
+	protected SelectedMetric selectCachedMetric(final MetricName name) {
+		final SelectedMetric cached = selectionCache.get(name.getName());
+		if (cached != null) {
+			return cached != NOT_SELECTED ? cached : null;
+		}
+		final SelectedMetric result = selectMetric(name);
+		selectionCache.put(name.getName(), result != null ? result : NOT_SELECTED);
+		return result;
+	}
+
 	@Override
 	public void setVariables(final Map<String, Object> variables) {
-		this.variables = Collections.unmodifiableMap(VariableReplacer.resolve(variables));
+		this.variables = variables;
 		doAfterVariablesSet(variables);
 	}
 
@@ -116,6 +178,13 @@ public abstract class AbstractMetricsSelector implements MetricsSelector {
 	protected String replaceVariables(final String text) {
 		return replaceVariables(text, variables);
 	}
+
+	/**
+	 * @return the given key expression compiled with the variables of the selector
+	 */
+	protected KeyExpressionTemplate compileKeyExpression(final String expression) {
+		return new KeyExpressionTemplate(expression, variables);
+	}
 	
 	@Override
 	public int getMetricCount(final MetricsReader reader) {
@@ -139,5 +208,6 @@ public abstract class AbstractMetricsSelector implements MetricsSelector {
 	public void reset() {
 		this.cachedMetaData = null;
 		this.cachedSelectedMetrics = null;
+		selectionCache.clear();
 	}
 }
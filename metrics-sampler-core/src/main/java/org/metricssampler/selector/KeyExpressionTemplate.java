@@ -0,0 +1,187 @@
+package org.metricssampler.selector;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A key expression like {@code ${input.host}.jvm.${name[1]}} compiled once into literal text and slots for the groups of the name and
+ * description patterns. Variables and functions that do not depend on the groups are replaced at compile time, so rendering a key only
+ * appends the segments to a reused buffer. The result is the same as replacing the variables with {@link VariableReplacer} in a context
+ * that contains the groups as {@code name[i]} and {@code description[i]} and the variables. Not thread safe because of the buffer.
+ */
+public class KeyExpressionTemplate {
+	private static final Pattern GROUP = Pattern.compile("(name|description)\\[([0-9]+)\\]");
+	private static final String MAP_FUNCTION = VariableReplacer.FUNCTION_PREFIX + "map(";
+
+	private final String expression;
+	private final Segment[] segments;
+	private final StringBuilder buffer = new StringBuilder();
+
+	/**
+	 * @param variables the variables of the selector which are replaced at compile time
+	 */
+	public KeyExpressionTemplate(final String expression, final Map<String, Object> variables) {
+		checkArgumentNotNull(expression, "expression");
+		checkArgumentNotNull(variables, "variables");
+		this.expression = expression;
+		this.segments = compile(expression, variables);
+	}
+
+	private static Segment[] compile(final String expression, final Map<String, Object> variables) {
+		final List<Segment> result = new ArrayList<Segment>();
+		final StringBuilder literal = new StringBuilder();
+		int prevIdx = 0;
+		int idx = expression.indexOf(VariableReplacer.START);
+		while (idx >= 0) {
+			final int end = expression.indexOf(VariableReplacer.END, idx);
+			if (end < 0) {
+				break;
+			}
+			literal.append(expression, prevIdx, idx);
+			final String variableName = expression.substring(idx + VariableReplacer.START.length(), end);
+			final Segment slot = compileVariable(variableName, variables);
+			if (slot != null) {
+				addLiteral(result, literal);
+				result.add(slot);
+			} else {
+				literal.append(VariableReplacer.replace(VariableReplacer.START + variableName + VariableReplacer.END, variables));
+			}
+			prevIdx = end + VariableReplacer.END.length();
+			idx = expression.indexOf(VariableReplacer.START, prevIdx);
+		}
+		literal.append(expression, prevIdx, expression.length());
+		addLiteral(result, literal);
+		return result.toArray(new Segment[result.size()]);
+	}
+
+	private static void addLiteral(final List<Segment> segments, final StringBuilder literal) {
+		if (literal.length() > 0) {
+			segments.add(new LiteralSegment(literal.toString()));
+			literal.setLength(0);
+		}
+	}
+
+	/**
+	 * @return the segment for a variable that depends on the groups or {@code null} if it can be replaced at compile time
+	 */
+	private static Segment compileVariable(final String variableName, final Map<String, Object> variables) {
+		if (variables.containsKey(variableName)) {
+			return null;
+		}
+		final Matcher groupMatcher = GROUP.matcher(variableName);
+		if (groupMatcher.matches()) {
+			return new GroupSegment(variableName, "name".equals(groupMatcher.group(1)), Integer.parseInt(groupMatcher.group(2)));
+		}
+		if (variableName.startsWith(MAP_FUNCTION) && variableName.endsWith(")")) {
+			final String[] params = variableName.substring(MAP_FUNCTION.length(), variableName.length() - 1).split(",");
+			if (params.length == 2 && !variables.containsKey(params[1]) && variables.get(params[0]) instanceof Map) {
+				final Matcher keyMatcher = GROUP.matcher(params[1]);
+				if (keyMatcher.matches()) {
+					@SuppressWarnings("unchecked")
+					final Map<String, ?> dictionary = (Map<String, ?>) variables.get(params[0]);
+					final GroupSegment key = new GroupSegment(params[1], "name".equals(keyMatcher.group(1)), Integer.parseInt(keyMatcher.group(2)));
+					return new MapSegment(variableName, dictionary, key);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param nameMatcher the matcher of the name pattern that matched the metric or {@code null} if there is none
+	 * @param descriptionMatcher the matcher of the description pattern that matched the metric or {@code null} if there is none
+	 * @return the key of the metric
+	 */
+	public String render(final Matcher nameMatcher, final Matcher descriptionMatcher) {
+		buffer.setLength(0);
+		for (final Segment segment : segments) {
+			segment.appendTo(buffer, nameMatcher, descriptionMatcher);
+		}
+		return buffer.toString();
+	}
+
+	@Override
+	public String toString() {
+		return expression;
+	}
+
+	private interface Segment {
+		void appendTo(StringBuilder result, Matcher nameMatcher, Matcher descriptionMatcher);
+	}
+
+	private static class LiteralSegment implements Segment {
+		private final String text;
+
+		public LiteralSegment(final String text) {
+			this.text = text;
+		}
+
+		@Override
+		public void appendTo(final StringBuilder result, final Matcher nameMatcher, final Matcher descriptionMatcher) {
+			result.append(text);
+		}
+	}
+
+	private static class GroupSegment implements Segment {
+		private final String variableName;
+		private final boolean name;
+		private final int group;
+
+		public GroupSegment(final String variableName, final boolean name, final int group) {
+			this.variableName = variableName;
+			this.name = name;
+			this.group = group;
+		}
+
+		/**
+		 * @return the value of the group or {@code null} if there is no such group or it did not participate in the match
+		 */
+		public String getValue(final Matcher nameMatcher, final Matcher descriptionMatcher) {
+			final Matcher matcher = name ? nameMatcher : descriptionMatcher;
+			if (matcher == null || group > matcher.groupCount()) {
+				return null;
+			}
+			return matcher.group(group);
+		}
+
+		@Override
+		public void appendTo(final StringBuilder result, final Matcher nameMatcher, final Matcher descriptionMatcher) {
+			final String value = getValue(nameMatcher, descriptionMatcher);
+			if (value != null) {
+				result.append(value);
+			} else {
+				result.append(VariableReplacer.START).append(variableName).append(VariableReplacer.END);
+			}
+		}
+	}
+
+	/**
+	 * The {@code fn:map} function with a static dictionary and a group as key
+	 */
+	private static class MapSegment implements Segment {
+		private final String variableName;
+		private final Map<String, ?> dictionary;
+		private final GroupSegment key;
+
+		public MapSegment(final String variableName, final Map<String, ?> dictionary, final GroupSegment key) {
+			this.variableName = variableName;
+			this.dictionary = dictionary;
+			this.key = key;
+		}
+
+		@Override
+		public void appendTo(final StringBuilder result, final Matcher nameMatcher, final Matcher descriptionMatcher) {
+			final Object value = dictionary.get(key.getValue(nameMatcher, descriptionMatcher));
+			if (value != null) {
+				result.append(value);
+			} else {
+				result.append(VariableReplacer.START).append(variableName).append(VariableReplacer.END);
+			}
+		}
+	}
+}
@@ -15,6 +15,9 @@ public interface MetricsSelector {
 	 */
 	Map<String, MetricValue> readMetrics(MetricsReader reader);
 
+	/**
+	 * @param variables the variables of the sampler, already resolved with {@link VariableReplacer#resolve(Map)} and not modified afterwards
+	 */
 	void setVariables(Map<String, Object> variables);
 	
 	/**
@@ -0,0 +1,162 @@
+package org.metricssampler.selector;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.metricssampler.reader.BulkMetricsReader;
+import org.metricssampler.reader.MetaDataMetricsReader;
+import org.metricssampler.reader.MetricName;
+import org.metricssampler.reader.MetricValue;
+import org.metricssampler.reader.MetricsMetaData;
+import org.metricssampler.reader.MetricsReader;
+
+/**
+ * Selects the metrics for all selectors of a sampler in a single pass over the metric names. The selectors are indexed in a trie by the
+ * literal prefix of their name pattern, so each name is only passed to the selectors whose prefix it starts with instead of to all of them.
+ * The result is the same as asking each selector in turn. Not thread safe as it is only used by the thread running the sampler.
+ */
+public class MetricsSelectorIndex {
+	private final List<AbstractMetricsSelector> selectors;
+	private final Node root = new Node();
+	/**
+	 * The indexes of the selectors matching the current name
+	 */
+	private final int[] candidates;
+
+	public MetricsSelectorIndex(final List<AbstractMetricsSelector> selectors) {
+		checkArgumentNotNull(selectors, "selectors");
+		this.selectors = new ArrayList<AbstractMetricsSelector>(selectors);
+		this.candidates = new int[selectors.size()];
+		for (int i = 0; i < this.selectors.size(); i++) {
+			add(this.selectors.get(i).getNamePrefix(), i);
+		}
+	}
+
+	private void add(final String prefix, final int selector) {
+		Node node = root;
+		for (int i = 0; i < prefix.length(); i++) {
+			final Character c = prefix.charAt(i);
+			Node child = node.children.get(c);
+			if (child == null) {
+				child = new Node();
+				node.children.put(c, child);
+			}
+			node = child;
+		}
+		node.addSelector(selector);
+	}
+
+	/**
+	 * @return the number of selectors that might select the given name. Their indexes are stored in {@link #candidates}.
+	 */
+	private int findCandidates(final String name) {
+		int result = 0;
+		Node node = root;
+		int i = 0;
+		while (node != null) {
+			for (final int selector : node.selectors) {
+				candidates[result++] = selector;
+			}
+			if (i == name.length()) {
+				break;
+			}
+			node = node.children.get(name.charAt(i++));
+		}
+		return result;
+	}
+
+	/**
+	 * @return the metrics selected by each selector in the order of the selectors
+	 */
+	public List<Map<String, MetricValue>> readMetrics(final MetricsReader reader) {
+		if (reader instanceof MetaDataMetricsReader) {
+			return readAlreadySelected((MetaDataMetricsReader) reader);
+		} else if (reader instanceof BulkMetricsReader) {
+			return readAllAndSelect((BulkMetricsReader) reader);
+		} else {
+			throw new IllegalArgumentException("Unsupported reader: " + reader);
+		}
+	}
+
+	private List<Map<String, MetricValue>> readAlreadySelected(final MetaDataMetricsReader reader) {
+		final MetricsMetaData metaData = reader.getMetaData();
+		selectMetrics(metaData);
+		final List<Map<String, MetricValue>> result = new ArrayList<Map<String, MetricValue>>(selectors.size());
+		for (final AbstractMetricsSelector selector : selectors) {
+			result.add(selector.readAlreadySelected(reader));
+		}
+		return result;
+	}
+
+	/**
+	 * Select the metrics of all selectors that have not yet selected from the given metadata
+	 */
+	private void selectMetrics(final MetricsMetaData metaData) {
+		final List<List<SelectedMetric>> selected = new ArrayList<List<SelectedMetric>>(selectors.size());
+		boolean changed = false;
+		for (final AbstractMetricsSelector selector : selectors) {
+			if (selector.hasSelectedMetrics(metaData)) {
+				selected.add(null);
+			} else {
+				selected.add(new LinkedList<SelectedMetric>());
+				changed = true;
+			}
+		}
+		if (!changed) {
+			return;
+		}
+		for (final MetricName name : metaData) {
+			final int count = findCandidates(name.getName());
+			for (int i = 0; i < count; i++) {
+				final List<SelectedMetric> list = selected.get(candidates[i]);
+				if (list != null) {
+					final SelectedMetric metric = selectors.get(candidates[i]).selectMetric(name);
+					if (metric != null) {
+						list.add(metric);
+					}
+				}
+			}
+		}
+		for (int i = 0; i < selectors.size(); i++) {
+			if (selected.get(i) != null) {
+				selectors.get(i).setSelectedMetrics(metaData, Collections.unmodifiableList(selected.get(i)));
+			}
+		}
+	}
+
+	private List<Map<String, MetricValue>> readAllAndSelect(final BulkMetricsReader reader) {
+		final List<Map<String, MetricValue>> result = new ArrayList<Map<String, MetricValue>>(selectors.size());
+		for (int i = 0; i < selectors.size(); i++) {
+			result.add(new HashMap<String, MetricValue>());
+		}
+		final Map<MetricName, MetricValue> metrics = reader.readAllMetrics();
+		for (final Map.Entry<MetricName, MetricValue> entry : metrics.entrySet()) {
+			final int count = findCandidates(entry.getKey().getName());
+			for (int i = 0; i < count; i++) {
+				final SelectedMetric metric = selectors.get(candidates[i]).selectCachedMetric(entry.getKey());
+				if (metric != null) {
+					result.get(candidates[i]).put(metric.getName(), entry.getValue());
+				}
+			}
+		}
+		return result;
+	}
+
+	private static class Node {
+		private final Map<Character, Node> children = new HashMap<Character, Node>();
+		private int[] selectors = new int[0];
+
+		public void addSelector(final int selector) {
+			final int[] result = new int[selectors.length + 1];
+			System.arraycopy(selectors, 0, result, 0, selectors.length);
+			result[selectors.length] = selector;
+			selectors = result;
+		}
+	}
+}
@@ -2,11 +2,15 @@ package org.metricssampler.selector;
 
 import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Set;
 
-import org.metricssampler.config.ConfigurationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,7 +31,9 @@ public class VariableReplacer {
 	}
 	
 	/**
-	 * Go through all string variables and resolve any variables used in the string value. Variables that cannot be resolved remain unchanged.
+	 * Go through all string variables and resolve any variables used in the string value. Each variable is resolved once after the
+	 * variables it refers to, so the values are replaced in dependency order. Variables that cannot be resolved remain unchanged, including
+	 * references that would close a cycle. Cycles are logged with the names of the variables involved.
 	 * 
 	 * @param variables
 	 * @return a new map with as much variables resolved as possible
@@ -35,27 +41,103 @@ public class VariableReplacer {
 	public static Map<String, Object> resolve(final Map<String, Object> variables) {
 		final Map<String, Object> result = new HashMap<String, Object>();
 		result.putAll(variables);
-		boolean replaced = true;
-		int iterations = 0;
-		while (replaced && iterations < MAX_RESOLVE_ITERATIONS) {
-			replaced = false;
-			for (final Entry<String, Object> entry : result.entrySet()) {
-				if (entry.getValue() instanceof String) {
-					final String oldValue = (String) entry.getValue();
-					if (oldValue == null) {
-						throw new ConfigurationException("Variable \"" + entry.getKey() + "\" has null value");
-					}
-					final String newValue = VariableReplacer.replace(oldValue, result);
-					if (!oldValue.equals(newValue)) {
-						replaced = true;
-						entry.setValue(newValue);
+		final VariableReplacer replacer = new VariableReplacer();
+		final Set<String> resolved = new HashSet<String>();
+		final LinkedHashSet<String> resolving = new LinkedHashSet<String>();
+		// resolve in the order of the names so that the values left in a cycle do not depend on the order of the map
+		final List<String> names = new ArrayList<String>();
+		for (final Map.Entry<String, Object> entry : result.entrySet()) {
+			if (hasReferences(entry.getValue())) {
+				names.add(entry.getKey());
+			}
+		}
+		Collections.sort(names);
+		for (final String name : names) {
+			replacer.resolveVariable(name, result, resolved, resolving);
+		}
+		return result;
+	}
+
+	/**
+	 * Resolve the variables the given variable refers to and then replace them in its value. The variables being resolved are removed from
+	 * the map until they are done so that a reference back to them is left unchanged.
+	 */
+	private void resolveVariable(final String name, final Map<String, Object> variables, final Set<String> resolved, final LinkedHashSet<String> resolving) {
+		if (resolved.contains(name)) {
+			return;
+		}
+		if (resolving.contains(name)) {
+			logCycle(name, resolving);
+			return;
+		}
+		final Object value = variables.get(name);
+		if (!hasReferences(value)) {
+			return;
+		}
+		resolving.add(name);
+		variables.remove(name);
+		String oldValue = (String) value;
+		for (int i = 0; i < MAX_RESOLVE_ITERATIONS; i++) {
+			final List<String> references = findReferences(oldValue);
+			if (references.isEmpty()) {
+				break;
+			}
+			for (final String reference : references) {
+				resolveVariable(reference, variables, resolved, resolving);
+			}
+			final String newValue = replaceVariables(oldValue, variables);
+			if (newValue.equals(oldValue)) {
+				break;
+			}
+			// the value of a dictionary entry can refer to further variables
+			oldValue = newValue;
+		}
+		variables.put(name, oldValue);
+		resolving.remove(name);
+		resolved.add(name);
+	}
+
+	private static boolean hasReferences(final Object value) {
+		return value instanceof String && ((String) value).indexOf(START) >= 0;
+	}
+
+	private static void logCycle(final String name, final Set<String> resolving) {
+		final StringBuilder cycle = new StringBuilder();
+		boolean inCycle = false;
+		for (final String variable : resolving) {
+			inCycle = inCycle || variable.equals(name);
+			if (inCycle) {
+				cycle.append(variable).append(" -> ");
+			}
+		}
+		cycle.append(name);
+		logger.warn("Variable reference cycle {} cannot be resolved", cycle);
+	}
+
+	/**
+	 * @return the names of the variables used in the given expression including the parameters of functions
+	 */
+	private static List<String> findReferences(final String expression) {
+		final List<String> result = new ArrayList<String>();
+		int idx = expression.indexOf(START);
+		while (idx >= 0) {
+			final int end = expression.indexOf(END, idx);
+			if (end < 0) {
+				break;
+			}
+			final String variableName = expression.substring(idx + START.length(), end);
+			if (variableName.startsWith(FUNCTION_PREFIX)) {
+				final int idxLeftPar = variableName.indexOf('(');
+				final int idxRightPar = variableName.indexOf(')', idxLeftPar);
+				if (idxLeftPar >= 0 && idxRightPar >= 0) {
+					for (final String param : variableName.substring(idxLeftPar + 1, idxRightPar).split(",")) {
+						result.add(param);
 					}
 				}
+			} else {
+				result.add(variableName);
 			}
-			iterations++;
-		}
-		if (iterations == MAX_RESOLVE_ITERATIONS) {
-			logger.warn("Reached the maximal number of iterations while resolving variables. You probably have a variable reference cycle.");
+			idx = expression.indexOf(START, end);
 		}
 		return result;
 	}
@@ -26,11 +26,16 @@ import org.metricssampler.config.loader.xbeans.SharedResourceXBean;
 import org.metricssampler.config.loader.xbeans.StringVariableXBean;
 import org.metricssampler.config.loader.xbeans.VariableXBean;
 import org.metricssampler.reader.MetricsReader;
+import org.metricssampler.reader.SharedMetricsReader;
 import org.metricssampler.resources.SharedResource;
 import org.metricssampler.sampler.Sampler;
 import org.metricssampler.selector.MetricsSelector;
 import org.metricssampler.values.ValueTransformer;
+import org.metricssampler.writer.MetricsSpool;
+import org.metricssampler.writer.MetricsWriteQueue;
 import org.metricssampler.writer.MetricsWriter;
+import org.metricssampler.writer.QueuedMetricsWriter;
+import org.metricssampler.writer.SpoolingMetricsWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,7 +47,11 @@ public class DefaultBootstrapper implements Bootstrapper {
 
 	private Configuration configuration;
 	private List<Sampler> samplers;
-	private Map<String, SharedResource> sharedResources;
+	// package visible for testing the shutdown order
+	Map<String, SharedResource> sharedResources;
+	final Map<String, MetricsWriteQueue> writeQueues = new HashMap<String, MetricsWriteQueue>();
+	final Map<String, MetricsSpool> spools = new HashMap<String, MetricsSpool>();
+	private final Map<String, SharedMetricsReader> sharedReaders = new HashMap<String, SharedMetricsReader>();
 	private final String controlHost;
 	private final int controlPort;
 
@@ -162,16 +171,63 @@ public class DefaultBootstrapper implements Bootstrapper {
 		throw new IllegalArgumentException("Unsupported input: " + config);
 	}
 
+	/**
+	 * @return a reader of the shared reader of the given input. The shared reader is created for the first sampler that needs it.
+	 */
+	@Override
+	public MetricsReader newSharedReaderForInput(final InputConfig config, final long maxAge) {
+		SharedMetricsReader result = sharedReaders.get(config.getName());
+		if (result == null) {
+			logger.debug("Creating shared reader for input {}", config.getName());
+			result = new SharedMetricsReader(config.getName(), newReaderForInput(config));
+			sharedReaders.put(config.getName(), result);
+		}
+		return result.newReader(maxAge);
+	}
+
 	@Override
 	public MetricsWriter newWriterForOutput(final OutputConfig config) {
 		for (final LocalObjectFactory factory : objectFactories) {
 			if (factory.supportsOutput(config)) {
-				return factory.newWriterForOutput(config);
+				MetricsWriter writer = factory.newWriterForOutput(config);
+				if (config.getSpool() != null) {
+					writer = new SpoolingMetricsWriter(writer, getSpool(factory, config));
+				}
+				if (config.getWriteQueue() != null) {
+					writer = new QueuedMetricsWriter(writer, getWriteQueue(config));
+				}
+				return writer;
 			}
 		}
 		throw new ConfigurationException("Unsupported output: " + config);
 	}
 
+	/**
+	 * @return the spool shared by the writers of all samplers using the given output. The spool replays the metrics using its own writer.
+	 */
+	private MetricsSpool getSpool(final LocalObjectFactory factory, final OutputConfig config) {
+		MetricsSpool result = spools.get(config.getName());
+		if (result == null) {
+			logger.debug("Creating spool for output {}", config.getName());
+			result = new MetricsSpool(config.getName(), config.getSpool(), factory.newWriterForOutput(config));
+			spools.put(config.getName(), result);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the write queue shared by the writers of all samplers using the given output
+	 */
+	private MetricsWriteQueue getWriteQueue(final OutputConfig config) {
+		MetricsWriteQueue result = writeQueues.get(config.getName());
+		if (result == null) {
+			logger.debug("Creating write queue for output {}", config.getName());
+			result = new MetricsWriteQueue(config.getName(), config.getWriteQueue());
+			writeQueues.put(config.getName(), result);
+		}
+		return result;
+	}
+
 	@Override
 	public MetricsSelector newSelector(final SelectorConfig config) {
 		for (final LocalObjectFactory factory : objectFactories) {
@@ -235,8 +291,20 @@ public class DefaultBootstrapper implements Bootstrapper {
 		return result;
 	}
 
+	/**
+	 * Shut down the write queues first as they drain their remaining metrics into the spools and the writers, then the spools and finally the
+	 * shared resources (e.g. connection pools) that the writers of both use.
+	 */
 	@Override
 	public void shutdown() {
+		logger.info("Shutting down write queues");
+		for (final MetricsWriteQueue writeQueue : writeQueues.values()) {
+			writeQueue.shutdown();
+		}
+		logger.info("Shutting down spools");
+		for (final MetricsSpool spool : spools.values()) {
+			spool.shutdown();
+		}
 		logger.info("Shutting down shared resources");
 		for (final SharedResource sharedResource : sharedResources.values()) {
 			sharedResource.shutdown();
@@ -1,5 +1,7 @@
 package org.metricssampler.service;
 
+import org.metricssampler.config.InputConfig;
+import org.metricssampler.reader.MetricsReader;
 import org.metricssampler.resources.SharedResource;
 
 /**
@@ -7,4 +9,10 @@ import org.metricssampler.resources.SharedResource;
  */
 public interface GlobalObjectFactory extends ObjectFactory {
 	SharedResource getSharedResource(String name);
+
+	/**
+	 * @param maxAge the maximum age in milliseconds of values read by other samplers that may be used instead of reading the input again
+	 * @return a reader sharing the reads of the input with the other samplers that got a shared reader for it
+	 */
+	MetricsReader newSharedReaderForInput(InputConfig config, long maxAge);
 }
@@ -0,0 +1,150 @@
+package org.metricssampler.util;
+
+import static org.metricssampler.util.Preconditions.checkArgument;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of non-negative values with fixed memory in the style of HdrHistogram: values below 32 are counted exactly and above that
+ * each power of two is split into 16 linear buckets, so the relative error of the reported percentiles is at most 1/16 (about 6%).
+ * Values greater than the highest trackable value are counted in the last bucket, the maximum is however kept exactly. Recording is
+ * thread safe and lock free. The percentiles are computed from a {@link Snapshot} which is not atomic with respect to concurrent
+ * recording.
+ */
+public class Histogram {
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+
+	/**
+	 * A snapshot of a histogram without any recorded values
+	 */
+	public static final Snapshot EMPTY_SNAPSHOT = new Snapshot(new long[0], 0L);
+
+	private final long highestTrackableValue;
+	private final AtomicLongArray counts;
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * @param highestTrackableValue the highest value that is counted in its own bucket. It determines the number of buckets: about 16
+	 *            per power of two, e.g. 544 for two minutes in nanoseconds.
+	 */
+	public Histogram(final long highestTrackableValue) {
+		checkArgument(highestTrackableValue >= SUB_BUCKET_COUNT, "highestTrackableValue must be at least " + SUB_BUCKET_COUNT);
+		this.highestTrackableValue = highestTrackableValue;
+		this.counts = new AtomicLongArray(indexOf(highestTrackableValue) + 1);
+	}
+
+	public void record(final long value) {
+		final long normalized = value < 0L ? 0L : value;
+		counts.incrementAndGet(indexOf(Math.min(normalized, highestTrackableValue)));
+		long current = max.get();
+		while (normalized > current && !max.compareAndSet(current, normalized)) {
+			current = max.get();
+		}
+	}
+
+	public Snapshot getSnapshot() {
+		final long[] result = new long[counts.length()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = counts.get(i);
+		}
+		return new Snapshot(result, max.get());
+	}
+
+	/**
+	 * @return the values recorded since the last reset and start over with an empty histogram
+	 */
+	public Snapshot getSnapshotAndReset() {
+		final long[] result = new long[counts.length()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = counts.getAndSet(i, 0L);
+		}
+		return new Snapshot(result, max.getAndSet(0L));
+	}
+
+	static int indexOf(final long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		final int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+		return SUB_BUCKET_COUNT + (shift - 1) * HALF_SUB_BUCKET_COUNT + (int) (value >>> shift) - HALF_SUB_BUCKET_COUNT;
+	}
+
+	/**
+	 * @return the highest value counted in the bucket with the given index
+	 */
+	static long highestValueAt(final int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		final int shift = (index - SUB_BUCKET_COUNT) / HALF_SUB_BUCKET_COUNT + 1;
+		final long subBucket = (index - SUB_BUCKET_COUNT) % HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	/**
+	 * An immutable copy of the counts of a histogram.
+	 */
+	public static class Snapshot {
+		private final long[] counts;
+		private final long max;
+		private final long count;
+
+		private Snapshot(final long[] counts, final long max) {
+			this.counts = counts;
+			this.max = max;
+			long total = 0L;
+			for (final long value : counts) {
+				total += value;
+			}
+			this.count = total;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * @param previous an earlier snapshot of the same histogram that has not been reset since
+		 * @return the values recorded between the given snapshot and this one. The maximum is the highest value of the highest bucket with new
+		 *         values but never more than the maximum of this snapshot.
+		 */
+		public Snapshot since(final Snapshot previous) {
+			final long[] result = new long[counts.length];
+			long resultMax = 0L;
+			for (int i = 0; i < counts.length; i++) {
+				result[i] = counts[i] - (i < previous.counts.length ? previous.counts[i] : 0L);
+				if (result[i] > 0L) {
+					resultMax = i == counts.length - 1 ? max : Math.min(highestValueAt(i), max);
+				}
+			}
+			return new Snapshot(result, resultMax);
+		}
+
+		public long getMax() {
+			return max;
+		}
+
+		/**
+		 * @param percentile the percentile in range [0,100]
+		 * @return the highest value equivalent to the given percentile (but never more than the maximum) or 0 if nothing was recorded
+		 */
+		public long getValueAtPercentile(final double percentile) {
+			if (count == 0L) {
+				return 0L;
+			}
+			final long rank = Math.max(1L, (long) Math.ceil(Math.min(percentile, 100d) / 100d * count));
+			long seen = 0L;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					// the last bucket also counts the values above the highest trackable value
+					return i == counts.length - 1 ? max : Math.min(highestValueAt(i), max);
+				}
+			}
+			return max;
+		}
+	}
+}
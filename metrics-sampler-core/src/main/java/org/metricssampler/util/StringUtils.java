@@ -1,6 +1,9 @@
 package org.metricssampler.util;
 
 public final class StringUtils {
+	private static final String REGEXP_META_CHARACTERS = "[](){}.*+?^$|";
+	private static final String REGEXP_QUANTIFIERS = "?*+{";
+
 	private StringUtils() {
 	}
 
@@ -40,4 +43,79 @@ public final class StringUtils {
 	public static String trim(final String value) {
 		return value != null ? value.trim() : null;
 	}
+
+	/**
+	 * Parse a duration given in seconds (e.g. {@code "10"}, {@code "10s"} or {@code "0.25"}) or in milliseconds (e.g. {@code "250ms"}).
+	 *
+	 * @return the duration in milliseconds
+	 * @throws NumberFormatException if the value is not a valid duration
+	 */
+	public static long parseDuration(final String value) throws NumberFormatException {
+		final String trimmed = value.trim();
+		if (trimmed.endsWith("ms")) {
+			return Long.parseLong(trimmed.substring(0, trimmed.length() - 2).trim());
+		}
+		final String seconds = trimmed.endsWith("s") ? trimmed.substring(0, trimmed.length() - 1).trim() : trimmed;
+		return Math.round(Double.parseDouble(seconds) * 1000d);
+	}
+
+	/**
+	 * Determine the literal text every string matching the regular expression starts with, e.g. {@code "java.lang:type="} for
+	 * {@code java\.lang:type=(Memory|Threading)\..+}. The result may be shorter than the actual prefix (e.g. for escape sequences like
+	 * {@code \Q}) but never longer. Regular expressions with a top-level alternation have no prefix.
+	 *
+	 * @return the literal prefix or an empty string if there is none
+	 */
+	public static String literalPrefix(final String regexp) {
+		if (hasTopLevelAlternation(regexp)) {
+			return "";
+		}
+		final StringBuilder result = new StringBuilder();
+		int i = regexp.startsWith("^") ? 1 : 0;
+		while (i < regexp.length()) {
+			final char c = regexp.charAt(i);
+			final char literal;
+			int next = i + 1;
+			if (c == '\\') {
+				if (next >= regexp.length() || Character.isLetterOrDigit(regexp.charAt(next))) {
+					break;
+				}
+				literal = regexp.charAt(next);
+				next++;
+			} else if (REGEXP_META_CHARACTERS.indexOf(c) >= 0) {
+				break;
+			} else {
+				literal = c;
+			}
+			if (next < regexp.length() && REGEXP_QUANTIFIERS.indexOf(regexp.charAt(next)) >= 0) {
+				// the character is optional or repeated
+				break;
+			}
+			result.append(literal);
+			i = next;
+		}
+		return result.toString();
+	}
+
+	private static boolean hasTopLevelAlternation(final String regexp) {
+		int depth = 0;
+		boolean inCharacterClass = false;
+		for (int i = 0; i < regexp.length(); i++) {
+			final char c = regexp.charAt(i);
+			if (c == '\\') {
+				i++;
+			} else if (inCharacterClass) {
+				inCharacterClass = c != ']';
+			} else if (c == '[') {
+				inCharacterClass = true;
+			} else if (c == '(') {
+				depth++;
+			} else if (c == ')') {
+				depth--;
+			} else if (c == '|' && depth == 0) {
+				return true;
+			}
+		}
+		return false;
+	}
 }
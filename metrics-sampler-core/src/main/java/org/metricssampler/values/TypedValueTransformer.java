@@ -0,0 +1,15 @@
+package org.metricssampler.values;
+
+import org.metricssampler.reader.MetricValue;
+
+/**
+ * A value transformer that works on the metric value itself rather than on its string representation, so that numbers are transformed
+ * without being converted to strings and parsed again. The sampler prefers {@link #transform(MetricValue)} over
+ * {@link #transform(String)}.
+ */
+public interface TypedValueTransformer extends ValueTransformer {
+	/**
+	 * @return the transformed value or the given one if it cannot be transformed
+	 */
+	MetricValue transform(MetricValue value);
+}
@@ -0,0 +1,408 @@
+package org.metricssampler.writer;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNullNorEmpty;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.metricssampler.config.SpoolConfig;
+import org.metricssampler.reader.MetricValue;
+import org.metricssampler.resources.SamplerStats;
+import org.metricssampler.resources.SharedResource;
+import org.metricssampler.service.GlobalRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only log of metrics that could not be written to an output. The log consists of memory-mapped segment files that are
+ * rotated when full. A background thread replays the closed segments oldest first using its own writer, limited to the configured number
+ * of metrics per second, and deletes each segment once it has been replayed. A segment that was only partially replayed when the spool
+ * was shut down is replayed again from its start after the next startup. This is harmless for graphite as it keeps only the last value
+ * per metric and timestamp.
+ * <p>
+ * Each record consists of its length (4 bytes), the time it was spooled (8 bytes) and the serialized metrics. The length is written last
+ * so that a record is only visible to the reader once it is complete.
+ * </p>
+ */
+public class MetricsSpool implements SharedResource {
+	private static final String SEGMENT_PREFIX = "segment-";
+	private static final String SEGMENT_SUFFIX = ".spool";
+	private static final int RECORD_HEADER_SIZE = 4 + 8;
+	private static final long IDLE_DELAY = 1000L;
+	private static final long RETRY_DELAY = 5000L;
+
+	private final Logger logger;
+	private final String name;
+	private final SpoolConfig config;
+	private final MetricsWriter replayWriter;
+
+	/**
+	 * Segments that are no longer written to in the order they were created. Guarded by this.
+	 */
+	private final LinkedList<File> closedSegments = new LinkedList<File>();
+	private long closedSize = 0L;
+	private long nextSequence = 0L;
+	private File activeSegment;
+	private MappedByteBuffer activeBuffer;
+
+	private final AtomicLong spooledCount = new AtomicLong();
+	private final AtomicLong replayedCount = new AtomicLong();
+	private final AtomicLong expiredCount = new AtomicLong();
+	private final AtomicLong droppedSegmentCount = new AtomicLong();
+
+	private volatile boolean running = false;
+	private Thread replayer;
+
+	public MetricsSpool(final String name, final SpoolConfig config, final MetricsWriter replayWriter) {
+		checkArgumentNotNullNorEmpty(name, "name");
+		checkArgumentNotNull(config, "config");
+		checkArgumentNotNull(replayWriter, "replayWriter");
+		this.logger = LoggerFactory.getLogger("writer." + name);
+		this.name = name;
+		this.config = config;
+		this.replayWriter = replayWriter;
+		loadSegments();
+		startup();
+		GlobalRegistry.getInstance().addSharedResource(this);
+	}
+
+	private synchronized void loadSegments() {
+		final File directory = config.getDirectory();
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IllegalStateException("Failed to create spool directory " + directory);
+		}
+		final File[] files = directory.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(final File dir, final String name) {
+				return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+			}
+		});
+		Arrays.sort(files);
+		for (final File file : files) {
+			closedSegments.add(file);
+			closedSize += file.length();
+			nextSequence = Math.max(nextSequence, parseSequence(file) + 1);
+		}
+		if (!closedSegments.isEmpty()) {
+			logger.info("Found {} spooled segments with {} bytes in {}", new Object[] {closedSegments.size(), closedSize, directory});
+		}
+	}
+
+	private long parseSequence(final File file) {
+		final String fileName = file.getName();
+		try {
+			return Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+		} catch (final NumberFormatException e) {
+			return -1L;
+		}
+	}
+
+	@Override
+	public synchronized void startup() {
+		if (replayer == null) {
+			logger.info("Starting spool for output \"{}\" with {}", name, config);
+			running = true;
+			replayer = new Thread(new Replayer(), "spool-" + name);
+			replayer.setDaemon(true);
+			replayer.start();
+		} else {
+			logger.warn("Cannot startup as already started. Use shutdown first");
+		}
+	}
+
+	/**
+	 * Stop replaying and close the active segment so that its metrics are replayed after the next startup.
+	 */
+	@Override
+	public void shutdown() {
+		logger.info("Shutting down spool for output {}", name);
+		final Thread thread;
+		synchronized (this) {
+			running = false;
+			thread = replayer;
+			replayer = null;
+		}
+		if (thread != null) {
+			thread.interrupt();
+			try {
+				thread.join(TimeUnit.SECONDS.toMillis(20));
+			} catch (final InterruptedException e) {
+				logger.warn("Interrupted while waiting for the spool of {} to stop replaying", name);
+				Thread.currentThread().interrupt();
+			}
+		}
+		synchronized (this) {
+			closeActiveSegment();
+		}
+	}
+
+	/**
+	 * Append the metrics to the active segment, rotating it if they do not fit.
+	 */
+	public synchronized void append(final Map<String, MetricValue> metrics) throws IOException {
+		checkArgumentNotNull(metrics, "metrics");
+		final byte[] record = serialize(metrics);
+		if (activeBuffer == null || activeBuffer.remaining() < RECORD_HEADER_SIZE + record.length) {
+			closeActiveSegment();
+			openActiveSegment(RECORD_HEADER_SIZE + record.length);
+		}
+		final int start = activeBuffer.position();
+		activeBuffer.position(start + 4);
+		activeBuffer.putLong(System.currentTimeMillis());
+		activeBuffer.put(record);
+		activeBuffer.putInt(start, record.length);
+		spooledCount.incrementAndGet();
+		enforceMaxSize();
+	}
+
+	private void openActiveSegment(final int minSize) throws IOException {
+		final File file = new File(config.getDirectory(), String.format("%s%020d%s", SEGMENT_PREFIX, nextSequence++, SEGMENT_SUFFIX));
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			activeBuffer = raf.getChannel().map(MapMode.READ_WRITE, 0, Math.max(config.getSegmentSize(), minSize));
+			activeSegment = file;
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Make the active segment available for replaying, truncated to the size actually used.
+	 */
+	private void closeActiveSegment() {
+		if (activeBuffer == null) {
+			return;
+		}
+		final int used = activeBuffer.position();
+		activeBuffer.force();
+		activeBuffer = null;
+		if (used == 0) {
+			delete(activeSegment);
+		} else {
+			truncate(activeSegment, used);
+			closedSegments.add(activeSegment);
+			closedSize += activeSegment.length();
+		}
+		activeSegment = null;
+	}
+
+	private void truncate(final File file, final int size) {
+		try {
+			final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			try {
+				raf.setLength(size);
+			} finally {
+				raf.close();
+			}
+		} catch (final IOException e) {
+			logger.debug("Failed to truncate " + file + " to " + size + " bytes", e);
+		}
+	}
+
+	private void enforceMaxSize() {
+		final long activeSize = activeBuffer != null ? activeBuffer.capacity() : 0L;
+		while (!closedSegments.isEmpty() && closedSize + activeSize > config.getMaxSize()) {
+			final File oldest = closedSegments.getFirst();
+			logger.warn("Spool exceeds {} bytes. Dropping oldest segment {}", config.getMaxSize(), oldest);
+			removeSegment(oldest);
+			droppedSegmentCount.incrementAndGet();
+		}
+	}
+
+	private synchronized void removeSegment(final File segment) {
+		if (closedSegments.remove(segment)) {
+			closedSize -= segment.length();
+			delete(segment);
+		}
+	}
+
+	private void delete(final File file) {
+		if (!file.delete()) {
+			logger.warn("Failed to delete {}", file);
+		}
+	}
+
+	/**
+	 * @return the oldest closed segment or {@code null} if there is nothing to replay. The active segment is closed if there are no closed
+	 *         segments left so that recently spooled metrics are replayed too.
+	 */
+	private synchronized File nextSegment() {
+		if (closedSegments.isEmpty() && activeBuffer != null && activeBuffer.position() > 0) {
+			closeActiveSegment();
+		}
+		return closedSegments.isEmpty() ? null : closedSegments.getFirst();
+	}
+
+	protected byte[] serialize(final Map<String, MetricValue> metrics) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(metrics.size());
+		for (final Entry<String, MetricValue> entry : metrics.entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeLong(entry.getValue().getTimestamp());
+			out.writeUTF(String.valueOf(entry.getValue().getValue()));
+		}
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	protected Map<String, MetricValue> deserialize(final byte[] record) throws IOException {
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+		final int count = in.readInt();
+		final Map<String, MetricValue> result = new LinkedHashMap<String, MetricValue>(count);
+		for (int i = 0; i < count; i++) {
+			final String metricName = in.readUTF();
+			final long timestamp = in.readLong();
+			final String value = in.readUTF();
+			result.put(metricName, MetricValue.parse(timestamp, value));
+		}
+		return result;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public synchronized Map<String, Object> getStats() {
+		final String prefix = "spools." + name + ".";
+		final Map<String, Object> result = new HashMap<String, Object>();
+		result.put(prefix + "segmentCount", closedSegments.size() + (activeBuffer != null ? 1 : 0));
+		result.put(prefix + "size", closedSize + (activeBuffer != null ? activeBuffer.position() : 0));
+		result.put(prefix + "spooledCount", spooledCount.get());
+		result.put(prefix + "replayedCount", replayedCount.get());
+		result.put(prefix + "expiredCount", expiredCount.get());
+		result.put(prefix + "droppedSegmentCount", droppedSegmentCount.get());
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + name + "]";
+	}
+
+	private class Replayer implements Runnable {
+		@Override
+		public void run() {
+			SamplerStats.init();
+			try {
+				while (running) {
+					final File segment = nextSegment();
+					if (segment == null) {
+						sleep(IDLE_DELAY);
+					} else {
+						replay(segment);
+					}
+				}
+			} finally {
+				SamplerStats.unset();
+			}
+		}
+
+		private void replay(final File segment) {
+			logger.info("Replaying spooled segment {}", segment);
+			final MappedByteBuffer buffer;
+			try {
+				final RandomAccessFile raf = new RandomAccessFile(segment, "r");
+				try {
+					buffer = raf.getChannel().map(MapMode.READ_ONLY, 0, raf.length());
+				} finally {
+					raf.close();
+				}
+			} catch (final ClosedByInterruptException e) {
+				// interrupted by shutdown, the segment is replayed after the next startup
+				return;
+			} catch (final IOException e) {
+				logger.warn("Failed to read spooled segment " + segment + ". Dropping it", e);
+				removeSegment(segment);
+				droppedSegmentCount.incrementAndGet();
+				return;
+			}
+			while (running && buffer.remaining() >= RECORD_HEADER_SIZE) {
+				final int length = buffer.getInt();
+				if (length <= 0 || length > buffer.remaining() - 8) {
+					break;
+				}
+				final long spooled = buffer.getLong();
+				final byte[] record = new byte[length];
+				buffer.get(record);
+				if (System.currentTimeMillis() - spooled > config.getMaxAge()) {
+					expiredCount.incrementAndGet();
+					continue;
+				}
+				if (!replay(record)) {
+					return;
+				}
+			}
+			if (running) {
+				removeSegment(segment);
+			}
+		}
+
+		/**
+		 * @return {@code false} if the spool was shut down before the record could be written
+		 */
+		private boolean replay(final byte[] record) {
+			final Map<String, MetricValue> metrics;
+			try {
+				metrics = deserialize(record);
+			} catch (final IOException e) {
+				logger.warn("Skipping corrupt spooled record", e);
+				return true;
+			}
+			while (!write(metrics)) {
+				if (!sleep(RETRY_DELAY)) {
+					return false;
+				}
+			}
+			replayedCount.incrementAndGet();
+			if (config.getReplayRate() > 0) {
+				return sleep(metrics.size() * 1000L / config.getReplayRate());
+			}
+			return running;
+		}
+
+		private boolean write(final Map<String, MetricValue> metrics) {
+			try {
+				replayWriter.open();
+				replayWriter.write(metrics);
+				return true;
+			} catch (final MetricWriteException e) {
+				logger.debug("Failed to replay spooled metrics: {}", e.getMessage());
+				return false;
+			} finally {
+				replayWriter.close();
+			}
+		}
+
+		/**
+		 * @return {@code false} if interrupted because the spool is shutting down
+		 */
+		private boolean sleep(final long millis) {
+			try {
+				Thread.sleep(millis);
+				return running;
+			} catch (final InterruptedException e) {
+				return false;
+			}
+		}
+	}
+}
@@ -0,0 +1,210 @@
+package org.metricssampler.writer;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNullNorEmpty;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.metricssampler.config.WriteQueueConfig;
+import org.metricssampler.reader.MetricValue;
+import org.metricssampler.resources.SamplerStats;
+import org.metricssampler.resources.SharedResource;
+import org.metricssampler.service.GlobalRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded queue of metrics waiting to be written to one output. A dedicated thread drains the queue and writes the metrics using the
+ * writer of the sampler that submitted them. As this is the only thread using those writers, they do not need to be thread safe.
+ */
+public class MetricsWriteQueue implements SharedResource {
+	/**
+	 * How long the drainer waits for metrics before checking whether the queue was shut down
+	 */
+	private static final long POLL_TIMEOUT_MILLIS = 100L;
+
+	private final Logger logger;
+	private final String name;
+	private final WriteQueueConfig config;
+	private final BlockingQueue<Item> queue;
+
+	private final AtomicLong submittedCount = new AtomicLong();
+	private final AtomicLong droppedCount = new AtomicLong();
+	private final AtomicLong writtenCount = new AtomicLong();
+	private final AtomicLong failedCount = new AtomicLong();
+
+	private volatile boolean running = false;
+	private Thread drainer;
+
+	public MetricsWriteQueue(final String name, final WriteQueueConfig config) {
+		checkArgumentNotNullNorEmpty(name, "name");
+		checkArgumentNotNull(config, "config");
+		this.logger = LoggerFactory.getLogger("writer." + name);
+		this.name = name;
+		this.config = config;
+		this.queue = new ArrayBlockingQueue<Item>(config.getSize());
+		startup();
+		GlobalRegistry.getInstance().addSharedResource(this);
+	}
+
+	@Override
+	public synchronized void startup() {
+		if (drainer == null) {
+			logger.info("Starting write queue for output \"{}\" with {}", name, config);
+			running = true;
+			drainer = new Thread(new Drainer(), "write-queue-" + name);
+			drainer.setDaemon(true);
+			drainer.start();
+		} else {
+			logger.warn("Cannot startup as already started. Use shutdown first");
+		}
+	}
+
+	/**
+	 * Stop accepting new metrics, write the ones still in the queue and stop the drainer thread. The drainer is not interrupted because the
+	 * writers might use interruptible channels which would fail all remaining writes.
+	 */
+	@Override
+	public synchronized void shutdown() {
+		logger.info("Shutting down write queue for output {}", name);
+		running = false;
+		if (drainer != null) {
+			try {
+				drainer.join(TimeUnit.SECONDS.toMillis(20));
+			} catch (final InterruptedException e) {
+				logger.warn("Interrupted while waiting for the write queue of {} to drain", name);
+				Thread.currentThread().interrupt();
+			}
+			drainer = null;
+		}
+	}
+
+	/**
+	 * Queue the metrics for writing with the given writer. Depending on the overflow policy a full queue will drop the oldest queued
+	 * metrics, drop the given metrics or block the caller until there is free space or the block timeout expires.
+	 *
+	 * @return {@code false} if the given metrics were dropped
+	 */
+	public boolean submit(final MetricsWriter writer, final Map<String, MetricValue> metrics) {
+		checkArgumentNotNull(writer, "writer");
+		checkArgumentNotNull(metrics, "metrics");
+		if (!running) {
+			droppedCount.incrementAndGet();
+			return false;
+		}
+		final Item item = new Item(writer, metrics, SamplerStats.get());
+		final boolean result = offer(item);
+		if (result) {
+			submittedCount.incrementAndGet();
+		} else {
+			droppedCount.incrementAndGet();
+		}
+		return result;
+	}
+
+	private boolean offer(final Item item) {
+		switch (config.getOverflowPolicy()) {
+			case DROP_OLDEST:
+				while (!queue.offer(item)) {
+					if (queue.poll() != null) {
+						droppedCount.incrementAndGet();
+					}
+				}
+				return true;
+			case BLOCK:
+				try {
+					return queue.offer(item, config.getBlockTimeout(), TimeUnit.MILLISECONDS);
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			default:
+				return queue.offer(item);
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public Map<String, Object> getStats() {
+		final String prefix = "write-queues." + name + ".";
+		final Map<String, Object> result = new HashMap<String, Object>();
+		result.put(prefix + "queueSize", queue.size());
+		result.put(prefix + "submittedCount", submittedCount.get());
+		result.put(prefix + "droppedCount", droppedCount.get());
+		result.put(prefix + "writtenCount", writtenCount.get());
+		result.put(prefix + "failedCount", failedCount.get());
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + name + "]";
+	}
+
+	private static class Item {
+		private final MetricsWriter writer;
+		private final Map<String, MetricValue> metrics;
+		private final SamplerStats stats;
+
+		public Item(final MetricsWriter writer, final Map<String, MetricValue> metrics, final SamplerStats stats) {
+			this.writer = writer;
+			this.metrics = metrics;
+			this.stats = stats;
+		}
+	}
+
+	private class Drainer implements Runnable {
+		@Override
+		public void run() {
+			while (running) {
+				try {
+					final Item item = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+					if (item != null) {
+						write(item);
+					}
+				} catch (final InterruptedException e) {
+					// nobody else interrupts the drainer - clear the flag so that it does not fail the remaining writes
+					Thread.interrupted();
+				}
+			}
+			Item item = queue.poll();
+			while (item != null) {
+				write(item);
+				item = queue.poll();
+			}
+		}
+
+		/**
+		 * Write the item using the stats of the sampler that submitted it so that writer statistics end up at that sampler.
+		 */
+		private void write(final Item item) {
+			SamplerStats.set(item.stats);
+			try {
+				item.writer.open();
+				item.writer.write(item.metrics);
+				writtenCount.incrementAndGet();
+			} catch (final MetricWriteException e) {
+				failedCount.incrementAndGet();
+				logger.warn("Failed to write metrics to " + item.writer + ": " + e.getMessage());
+			} catch (final RuntimeException e) {
+				failedCount.incrementAndGet();
+				logger.warn("Failed to write metrics to " + item.writer, e);
+			} finally {
+				try {
+					item.writer.close();
+				} catch (final RuntimeException e) {
+					logger.warn("Failed to close " + item.writer, e);
+				}
+				SamplerStats.unset();
+			}
+		}
+	}
+}
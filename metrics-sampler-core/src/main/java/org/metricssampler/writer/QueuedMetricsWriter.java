@@ -0,0 +1,45 @@
+package org.metricssampler.writer;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+import java.util.Map;
+
+import org.metricssampler.reader.MetricValue;
+
+/**
+ * Decouples a sampler from its writer by submitting the metrics to the {@link MetricsWriteQueue} of the output instead of writing them
+ * directly. The writer is opened, used and closed by the queue's drainer thread.
+ */
+public class QueuedMetricsWriter implements MetricsWriter {
+	private final MetricsWriter delegate;
+	private final MetricsWriteQueue queue;
+
+	public QueuedMetricsWriter(final MetricsWriter delegate, final MetricsWriteQueue queue) {
+		checkArgumentNotNull(delegate, "delegate");
+		checkArgumentNotNull(queue, "queue");
+		this.delegate = delegate;
+		this.queue = queue;
+	}
+
+	@Override
+	public void open() throws MetricWriteException {
+		// the delegate is opened by the drainer thread of the queue
+	}
+
+	@Override
+	public void close() {
+		// the delegate is closed by the drainer thread of the queue
+	}
+
+	@Override
+	public void write(final Map<String, MetricValue> metrics) throws MetricWriteException {
+		if (!queue.submit(delegate, metrics)) {
+			throw new MetricWriteException("Write queue of output \"" + queue.getName() + "\" is full. Dropped " + metrics.size() + " metrics");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + delegate + "]";
+	}
+}
@@ -0,0 +1,72 @@
+package org.metricssampler.writer;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.metricssampler.reader.MetricValue;
+
+/**
+ * Appends the metrics to the {@link MetricsSpool} of the output whenever the delegate fails to open or to write them, so that they are
+ * replayed once the output is available again.
+ */
+public class SpoolingMetricsWriter implements MetricsWriter {
+	private final MetricsWriter delegate;
+	private final MetricsSpool spool;
+
+	/**
+	 * The reason why the delegate could not be opened or {@code null} if it is open
+	 */
+	private MetricWriteException openFailure;
+
+	public SpoolingMetricsWriter(final MetricsWriter delegate, final MetricsSpool spool) {
+		checkArgumentNotNull(delegate, "delegate");
+		checkArgumentNotNull(spool, "spool");
+		this.delegate = delegate;
+		this.spool = spool;
+	}
+
+	@Override
+	public void open() {
+		try {
+			delegate.open();
+			openFailure = null;
+		} catch (final MetricWriteException e) {
+			openFailure = e;
+		}
+	}
+
+	@Override
+	public void close() {
+		delegate.close();
+	}
+
+	@Override
+	public void write(final Map<String, MetricValue> metrics) throws MetricWriteException {
+		if (openFailure == null) {
+			try {
+				delegate.write(metrics);
+				return;
+			} catch (final MetricWriteException e) {
+				spool(metrics, e);
+			}
+		} else {
+			spool(metrics, openFailure);
+		}
+	}
+
+	private void spool(final Map<String, MetricValue> metrics, final MetricWriteException cause) {
+		try {
+			spool.append(metrics);
+		} catch (final IOException e) {
+			throw new MetricWriteException("Failed to spool " + metrics.size() + " metrics after: " + cause.getMessage(), e);
+		}
+		throw new MetricWriteException("Spooled " + metrics.size() + " metrics for later replay: " + cause.getMessage());
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + delegate + "]";
+	}
+}
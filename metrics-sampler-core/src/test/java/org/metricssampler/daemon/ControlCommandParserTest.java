@@ -69,6 +69,16 @@ public class ControlCommandParserTest {
 		assertSame(expected, result);
 	}
 
+	@Test
+	public void parseTimingsSampler() {
+		final ControlCommand expected = mock(ControlCommand.class);
+		when(factory.timingsSampler("tomcat.*")).thenReturn(expected);
+
+		final ControlCommand result = testee.parse("sampler tomcat.* timings");
+
+		assertSame(expected, result);
+	}
+
 	@Test
 	public void parseEnableSamplerForTimesRegExp() {
 		final ControlCommand expected = mock(ControlCommand.class);
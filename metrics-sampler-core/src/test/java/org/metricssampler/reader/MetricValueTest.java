@@ -0,0 +1,38 @@
+package org.metricssampler.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MetricValueTest {
+	@Test
+	public void parseLong() {
+		final MetricValue result = MetricValue.parse(1000L, "-1234567890123");
+
+		assertTrue(result instanceof LongMetricValue);
+		assertEquals(-1234567890123L, ((LongMetricValue) result).getLongValue());
+		assertEquals(1000L, result.getTimestamp());
+		assertEquals("-1234567890123", result.toString());
+	}
+
+	@Test
+	public void parseDouble() {
+		final MetricValue result = MetricValue.parse(1000L, "28.11");
+
+		assertTrue(result instanceof DoubleMetricValue);
+		assertEquals(28.11d, ((DoubleMetricValue) result).getDoubleValue(), 0d);
+		assertEquals("28.11", result.toString());
+	}
+
+	@Test
+	public void parseKeepsText() {
+		for (final String text : new String[] {"007", "-0", "+1", "1e3", "28.10", "99999999999999999999", "", "-", ".", "up"}) {
+			final MetricValue result = MetricValue.parse(1000L, text);
+
+			assertFalse(text, result instanceof LongMetricValue || result instanceof DoubleMetricValue);
+			assertEquals(text, result.getValue());
+		}
+	}
+}
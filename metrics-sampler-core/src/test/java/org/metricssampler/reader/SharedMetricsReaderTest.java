@@ -0,0 +1,129 @@
+package org.metricssampler.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class SharedMetricsReaderTest {
+	private final MetricName name = new SimpleMetricName("metric", null);
+	private final MetricValue value = new MetricValue(0L, 1L);
+
+	@Test
+	public void bulkReadIsShared() {
+		final BulkMetricsReader reader = mock(BulkMetricsReader.class);
+		when(reader.readAllMetrics()).thenReturn(Collections.singletonMap(name, value));
+		final SharedMetricsReader testee = new SharedMetricsReader("input", reader);
+		final BulkMetricsReader first = (BulkMetricsReader) testee.newReader(60000L);
+		final BulkMetricsReader second = (BulkMetricsReader) testee.newReader(60000L);
+
+		first.open();
+		final Map<MetricName, MetricValue> firstResult = first.readAllMetrics();
+		first.close();
+		second.open();
+		final Map<MetricName, MetricValue> secondResult = second.readAllMetrics();
+		second.close();
+
+		assertSame(firstResult, secondResult);
+		verify(reader, times(1)).open();
+		verify(reader, times(1)).readAllMetrics();
+		verify(reader, times(1)).close();
+		assertEquals(1L, testee.getStats().get("shared-inputs.input.readCount"));
+		assertEquals(1L, testee.getStats().get("shared-inputs.input.sharedReadCount"));
+	}
+
+	@Test
+	public void bulkReadExpires() {
+		final BulkMetricsReader reader = mock(BulkMetricsReader.class);
+		when(reader.readAllMetrics()).thenReturn(Collections.singletonMap(name, value));
+		final SharedMetricsReader testee = new SharedMetricsReader("input", reader);
+		final BulkMetricsReader first = (BulkMetricsReader) testee.newReader(60000L);
+		final BulkMetricsReader second = (BulkMetricsReader) testee.newReader(0L);
+
+		first.readAllMetrics();
+		second.readAllMetrics();
+
+		verify(reader, times(1)).open();
+		verify(reader, times(2)).readAllMetrics();
+		verify(reader, never()).close();
+		first.close();
+		verify(reader, never()).close();
+		second.close();
+		verify(reader, times(1)).close();
+	}
+
+	@Test
+	public void metaDataReadIsSharedPerMetric() {
+		final MetaDataMetricsReader reader = mock(MetaDataMetricsReader.class);
+		final MetricName other = new SimpleMetricName("other", null);
+		final MetricsMetaData metaData = new MetricsMetaData(Arrays.asList(name, other));
+		when(reader.getMetaData()).thenReturn(metaData);
+		when(reader.readMetric(name)).thenReturn(value);
+		when(reader.readMetric(other)).thenReturn(value);
+		final SharedMetricsReader testee = new SharedMetricsReader("input", reader);
+		final MetaDataMetricsReader first = (MetaDataMetricsReader) testee.newReader(60000L);
+		final MetaDataMetricsReader second = (MetaDataMetricsReader) testee.newReader(60000L);
+
+		assertSame(metaData, first.getMetaData());
+		first.readMetric(name);
+		first.close();
+		assertSame(metaData, second.getMetaData());
+		assertSame(value, second.readMetric(name));
+		second.readMetric(other);
+		second.close();
+
+		verify(reader, times(1)).readMetric(name);
+		verify(reader, times(1)).readMetric(other);
+		verify(reader, times(2)).open();
+		verify(reader, times(2)).close();
+	}
+
+	@Test
+	public void resetDiscardsValues() {
+		final BulkMetricsReader reader = mock(BulkMetricsReader.class);
+		when(reader.readAllMetrics()).thenReturn(Collections.singletonMap(name, value));
+		final SharedMetricsReader testee = new SharedMetricsReader("input", reader);
+		final BulkMetricsReader first = (BulkMetricsReader) testee.newReader(60000L);
+
+		first.readAllMetrics();
+		first.reset();
+		first.readAllMetrics();
+
+		verify(reader).reset();
+		verify(reader, times(2)).readAllMetrics();
+	}
+
+	@Test
+	public void resetReopensForOtherOpenReaders() {
+		final MetaDataMetricsReader reader = mock(MetaDataMetricsReader.class);
+		when(reader.getMetaData()).thenReturn(new MetricsMetaData(Arrays.asList(name)));
+		when(reader.readMetric(name)).thenReturn(value);
+		final SharedMetricsReader testee = new SharedMetricsReader("input", reader);
+		final MetaDataMetricsReader first = (MetaDataMetricsReader) testee.newReader(0L);
+		final MetaDataMetricsReader second = (MetaDataMetricsReader) testee.newReader(0L);
+		first.readMetric(name);
+		second.readMetric(name);
+		verify(reader, times(1)).open();
+
+		first.reset();
+		second.getMetaData();
+		second.readMetric(name);
+		first.readMetric(name);
+
+		verify(reader, times(2)).open();
+		verify(reader, times(4)).readMetric(name);
+		first.close();
+		verify(reader, never()).close();
+		second.close();
+		verify(reader, times(1)).close();
+	}
+}
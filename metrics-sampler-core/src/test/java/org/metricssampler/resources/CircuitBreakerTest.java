@@ -0,0 +1,86 @@
+package org.metricssampler.resources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.metricssampler.config.CircuitBreakerConfig;
+import org.metricssampler.resources.CircuitBreaker.State;
+
+public class CircuitBreakerTest {
+	private CircuitBreaker testee;
+
+	@Before
+	public void setup() {
+		testee = new CircuitBreaker(new CircuitBreakerConfig(3, 1000L, 3000L, 0d));
+	}
+
+	@Test
+	public void opensAfterThreshold() {
+		assertFalse(testee.recordFailure(0L));
+		assertFalse(testee.recordFailure(0L));
+		assertTrue(testee.allowRequest(0L));
+
+		assertTrue(testee.recordFailure(0L));
+
+		assertEquals(State.OPEN, testee.getState());
+		assertFalse(testee.allowRequest(999L));
+		assertEquals(1000L, testee.getBackoff());
+	}
+
+	@Test
+	public void successResetsFailures() {
+		testee.recordFailure(0L);
+		testee.recordFailure(0L);
+		testee.recordSuccess();
+
+		assertFalse(testee.recordFailure(0L));
+		assertEquals(State.CLOSED, testee.getState());
+	}
+
+	@Test
+	public void halfOpenAllowsSingleProbe() {
+		open();
+
+		assertTrue(testee.allowRequest(1000L));
+		assertEquals(State.HALF_OPEN, testee.getState());
+		assertFalse(testee.allowRequest(1000L));
+
+		testee.recordSuccess();
+		assertEquals(State.CLOSED, testee.getState());
+		assertTrue(testee.allowRequest(1000L));
+	}
+
+	@Test
+	public void failedProbeDoublesBackoffUpToMax() {
+		open();
+
+		testee.allowRequest(1000L);
+		assertTrue(testee.recordFailure(1000L));
+		assertEquals(2000L, testee.getBackoff());
+		assertFalse(testee.allowRequest(2999L));
+
+		testee.allowRequest(3000L);
+		testee.recordFailure(3000L);
+		assertEquals(3000L, testee.getBackoff());
+		assertEquals(6000L, testee.getOpenUntil());
+	}
+
+	@Test
+	public void jitterVariesBackoff() {
+		testee = new CircuitBreaker(new CircuitBreakerConfig(1, 1000L, 1000L, 0.2d));
+		for (int i = 0; i < 100; i++) {
+			testee.recordFailure(0L);
+			assertTrue(testee.getOpenUntil() >= 800L && testee.getOpenUntil() <= 1200L);
+			testee.recordSuccess();
+		}
+	}
+
+	private void open() {
+		for (int i = 0; i < 3; i++) {
+			testee.recordFailure(0L);
+		}
+	}
+}
@@ -1,16 +1,28 @@
 package org.metricssampler.resources;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.metricssampler.config.SamplerConfig;
+import org.metricssampler.config.SamplerConfig.MissedTickPolicy;
 import org.metricssampler.sampler.Sampler;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 public class SamplerTaskTest {
 	private Sampler sampler;
@@ -55,12 +67,42 @@ public class SamplerTaskTest {
 		verify(sampler, times(2)).sample();
 	}
 	
+	@Test
+	public void runEnableForTimesConcurrently() throws InterruptedException {
+		testee.enableForTimes(1000);
+		final CountDownLatch start = new CountDownLatch(1);
+		final Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (final InterruptedException e) {
+						return;
+					}
+					for (int j = 0; j < 500; j++) {
+						testee.run();
+					}
+				}
+			};
+			threads[i].start();
+		}
+		start.countDown();
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+
+		verify(sampler, times(1000)).sample();
+		assertEquals(1000L, testee.getStats().getSampleSuccessCount());
+	}
+
 	@Test
 	public void runEnableForDuration() {
 		testee.disable();
 		testee.run();
 		verify(sampler, never()).sample();
-		when(config.getInterval()).thenReturn(2);
+		when(config.getIntervalMillis()).thenReturn(2000L);
 		testee.enableForDuration(7);
 		testee.run();
 		testee.run();
@@ -86,4 +128,129 @@ public class SamplerTaskTest {
 		verify(sampler, never()).sample();
 	}
 
+	@Test
+	public void runTimeoutInterruptsAndResets() {
+		when(config.getTimeoutMillis()).thenReturn(1000L);
+		final boolean[] sampling = new boolean[1];
+		final Thread[] resetThread = new Thread[1];
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(final InvocationOnMock invocation) {
+				sampling[0] = true;
+				try {
+					return new Sleep(10000L).answer(invocation);
+				} finally {
+					sampling[0] = false;
+				}
+			}
+		}).when(sampler).sample();
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(final InvocationOnMock invocation) {
+				assertFalse("reset while sampling", sampling[0]);
+				resetThread[0] = Thread.currentThread();
+				return null;
+			}
+		}).when(sampler).reset();
+		final long start = System.currentTimeMillis();
+
+		testee.run();
+
+		assertTrue(System.currentTimeMillis() - start < 5000L);
+		assertFalse(Thread.currentThread().isInterrupted());
+		assertEquals(1, testee.getStats().getOverrunCount());
+		assertEquals(0, testee.getStats().getSampleSuccessCount());
+		verify(sampler).reset();
+		assertEquals(Thread.currentThread(), resetThread[0]);
+	}
+
+	@Test
+	public void runTimeoutAbortsReadIgnoringInterrupts() {
+		when(config.getTimeoutMillis()).thenReturn(500L);
+		final CountDownLatch aborted = new CountDownLatch(1);
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(final InvocationOnMock invocation) {
+				// like a blocking socket read: interrupts are ignored and only closing the connection frees the thread
+				while (aborted.getCount() > 0) {
+					try {
+						aborted.await();
+					} catch (final InterruptedException e) {
+						// ignored
+					}
+				}
+				return null;
+			}
+		}).when(sampler).sample();
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(final InvocationOnMock invocation) {
+				aborted.countDown();
+				return null;
+			}
+		}).when(sampler).abort();
+
+		testee.run();
+
+		assertEquals(1, testee.getStats().getOverrunCount());
+		final InOrder order = inOrder(sampler);
+		order.verify(sampler).abort();
+		order.verify(sampler).reset();
+	}
+
+	@Test
+	public void runWithinTimeout() {
+		when(config.getTimeoutMillis()).thenReturn(5000L);
+		testee.run();
+		assertEquals(0, testee.getStats().getOverrunCount());
+		assertEquals(1, testee.getStats().getSampleSuccessCount());
+		verify(sampler, never()).reset();
+	}
+
+	@Test
+	public void runSkipsMissedTicks() {
+		when(config.getIntervalMillis()).thenReturn(1000L);
+		when(config.getMissedTickPolicy()).thenReturn(MissedTickPolicy.SKIP);
+		final long now = System.nanoTime();
+
+		testee.run(now - TimeUnit.MILLISECONDS.toNanos(1500L));
+		testee.run(now - TimeUnit.MILLISECONDS.toNanos(500L));
+
+		verify(sampler, times(1)).sample();
+		assertEquals(1, testee.getStats().getSkippedCount());
+	}
+
+	@Test
+	public void runResumesAfterDroppedTick() {
+		when(config.getIntervalMillis()).thenReturn(1000L);
+		when(config.getMissedTickPolicy()).thenReturn(MissedTickPolicy.SKIP);
+		doAnswer(new Sleep(2100L)).doNothing().when(sampler).sample();
+		final long start = System.nanoTime();
+
+		testee.run(start);
+		// the tick due at start + 1 s was dropped by the pool because the sampler was still running
+		testee.run(start + TimeUnit.MILLISECONDS.toNanos(2000L));
+		testee.run(System.nanoTime());
+
+		verify(sampler, times(3)).sample();
+		assertEquals(0, testee.getStats().getSkippedCount());
+	}
+
+	private static class Sleep implements Answer<Void> {
+		private final long millis;
+
+		public Sleep(final long millis) {
+			this.millis = millis;
+		}
+
+		@Override
+		public Void answer(final InvocationOnMock invocation) {
+			try {
+				Thread.sleep(millis);
+			} catch (final InterruptedException e) {
+				throw new IllegalStateException("Interrupted");
+			}
+			return null;
+		}
+	}
 }
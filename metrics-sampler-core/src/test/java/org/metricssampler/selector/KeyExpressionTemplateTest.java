@@ -0,0 +1,76 @@
+package org.metricssampler.selector;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class KeyExpressionTemplateTest {
+	private Map<String, Object> variables;
+	private Matcher nameMatcher;
+	private Matcher descriptionMatcher;
+
+	@Before
+	public void setup() {
+		variables = new HashMap<String, Object>();
+		variables.put("input.host", "host1");
+		final Map<String, String> pools = new HashMap<String, String>();
+		pools.put("PS Eden Space", "eden");
+		variables.put("pools", pools);
+		nameMatcher = matches("java\\.lang:type=MemoryPool,name=(.+)\\.(Usage)(\\.max)?", "java.lang:type=MemoryPool,name=PS Eden Space.Usage");
+		descriptionMatcher = matches("(.+) usage", "Eden usage");
+	}
+
+	private Matcher matches(final String regexp, final String text) {
+		final Matcher result = Pattern.compile(regexp).matcher(text);
+		result.matches();
+		return result;
+	}
+
+	@Test
+	public void renderLiteral() {
+		final KeyExpressionTemplate testee = new KeyExpressionTemplate("jvm.memory", variables);
+
+		assertEquals("jvm.memory", testee.render(nameMatcher, descriptionMatcher));
+	}
+
+	@Test
+	public void renderVariablesAndGroups() {
+		final KeyExpressionTemplate testee = new KeyExpressionTemplate("${input.host}.jvm.${name[1]}.${name[2]}.${description[1]}", variables);
+
+		assertEquals("host1.jvm.PS Eden Space.Usage.Eden", testee.render(nameMatcher, descriptionMatcher));
+		assertEquals("host1.jvm.PS Eden Space.Usage.Eden", testee.render(nameMatcher, descriptionMatcher));
+	}
+
+	@Test
+	public void renderMapFunctionWithGroup() {
+		final KeyExpressionTemplate testee = new KeyExpressionTemplate("${input.host}.${fn:map(pools,name[1])}", variables);
+
+		assertEquals("host1.eden", testee.render(nameMatcher, null));
+	}
+
+	@Test
+	public void renderKeepsUnknownVariables() {
+		final KeyExpressionTemplate testee = new KeyExpressionTemplate("${missing}.${name[3]}.${name[9]}.${description[1]}", variables);
+
+		assertEquals("${missing}.${name[3]}.${name[9]}.${description[1]}", testee.render(nameMatcher, null));
+	}
+
+	@Test
+	public void renderSameAsVariableReplacer() {
+		final String expression = "${input.host}.jvm.${name[1]}.${fn:map(pools,name[1])}.${name[3]}";
+		final KeyExpressionTemplate testee = new KeyExpressionTemplate(expression, variables);
+		final Map<String, Object> context = new HashMap<String, Object>();
+		for (int i = 0; i <= nameMatcher.groupCount(); i++) {
+			context.put("name[" + i + "]", nameMatcher.group(i));
+		}
+		context.putAll(variables);
+
+		assertEquals(VariableReplacer.replace(expression, context), testee.render(nameMatcher, null));
+	}
+}
@@ -0,0 +1,99 @@
+package org.metricssampler.selector;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+import org.metricssampler.reader.BulkMetricsReader;
+import org.metricssampler.reader.MetaDataMetricsReader;
+import org.metricssampler.reader.MetricName;
+import org.metricssampler.reader.MetricValue;
+import org.metricssampler.reader.MetricsMetaData;
+import org.metricssampler.reader.SimpleMetricName;
+
+public class MetricsSelectorIndexTest {
+	private final MetricName memory = new SimpleMetricName("java.lang:type=Memory.HeapMemoryUsage", null);
+	private final MetricName threading = new SimpleMetricName("java.lang:type=Threading.ThreadCount", null);
+	private final MetricName catalina = new SimpleMetricName("Catalina:type=Manager.activeSessions", null);
+	private final MetricValue value = new MetricValue(0L, 1L);
+
+	@Test
+	public void readMetricsBulk() {
+		final CountingSelector memorySelector = new CountingSelector("java.lang:type=Memory.", "java\\.lang:type=Memory\\.(.+)");
+		final CountingSelector javaSelector = new CountingSelector("java.lang:", "java\\.lang:.+");
+		final CountingSelector anySelector = new CountingSelector("", ".+\\.activeSessions");
+		final MetricsSelectorIndex testee = new MetricsSelectorIndex(Arrays.<AbstractMetricsSelector> asList(memorySelector, javaSelector, anySelector));
+		final BulkMetricsReader reader = mock(BulkMetricsReader.class);
+		final Map<MetricName, MetricValue> metrics = new HashMap<MetricName, MetricValue>();
+		metrics.put(memory, value);
+		metrics.put(threading, value);
+		metrics.put(catalina, value);
+		when(reader.readAllMetrics()).thenReturn(metrics);
+
+		final List<Map<String, MetricValue>> result = testee.readMetrics(reader);
+
+		assertEquals(3, result.size());
+		assertEquals(1, result.get(0).size());
+		assertEquals(value, result.get(0).get(memory.getName()));
+		assertEquals(2, result.get(1).size());
+		assertEquals(1, result.get(2).size());
+		assertEquals(value, result.get(2).get(catalina.getName()));
+		assertEquals(1, memorySelector.selections);
+		assertEquals(2, javaSelector.selections);
+		assertEquals(3, anySelector.selections);
+	}
+
+	@Test
+	public void readMetricsMetaData() {
+		final CountingSelector memorySelector = new CountingSelector("java.lang:type=Memory.", "java\\.lang:type=Memory\\.(.+)");
+		final CountingSelector catalinaSelector = new CountingSelector("Catalina:", "Catalina:.+");
+		final MetricsSelectorIndex testee = new MetricsSelectorIndex(Arrays.<AbstractMetricsSelector> asList(memorySelector, catalinaSelector));
+		final MetaDataMetricsReader reader = mock(MetaDataMetricsReader.class);
+		when(reader.getMetaData()).thenReturn(new MetricsMetaData(Arrays.asList(memory, threading, catalina)));
+		when(reader.readMetric(memory)).thenReturn(value);
+		when(reader.readMetric(catalina)).thenReturn(value);
+
+		testee.readMetrics(reader);
+		final List<Map<String, MetricValue>> result = testee.readMetrics(reader);
+
+		assertEquals(value, result.get(0).get(memory.getName()));
+		assertEquals(1, result.get(0).size());
+		assertEquals(value, result.get(1).get(catalina.getName()));
+		assertEquals(1, result.get(1).size());
+		assertEquals(1, memorySelector.selections);
+		assertEquals(1, catalinaSelector.selections);
+	}
+
+	private static class CountingSelector extends AbstractMetricsSelector {
+		private final String prefix;
+		private final Pattern pattern;
+		private int selections = 0;
+
+		public CountingSelector(final String prefix, final String pattern) {
+			this.prefix = prefix;
+			this.pattern = Pattern.compile(pattern);
+		}
+
+		@Override
+		protected SelectedMetric selectMetric(final MetricName name) {
+			selections++;
+			return pattern.matcher(name.getName()).matches() ? new SelectedMetric(name, name.getName()) : null;
+		}
+
+		@Override
+		protected String getNamePrefix() {
+			return prefix;
+		}
+
+		@Override
+		protected void doAfterVariablesSet(final Map<String, Object> variables) {
+		}
+	}
+}
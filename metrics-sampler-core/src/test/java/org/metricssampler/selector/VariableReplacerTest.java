@@ -39,6 +39,25 @@ public class VariableReplacerTest {
 		assertEquals("${first}", result.get("third"));
 	}
 	
+	@Test
+	public void resolveInDependencyOrder() {
+		final Map<String, Object> variables = new HashMap<String, Object>();
+		variables.put("prefix", "${datacenter}.${host}");
+		variables.put("host", "${fn:map(hosts,fqdn)}");
+		variables.put("fqdn", "${name}.example.com");
+		variables.put("name", "host1");
+		variables.put("datacenter", "dc1");
+		final Map<String, String> hosts = new HashMap<String, String>();
+		hosts.put("host1.example.com", "${name}-${missing}");
+		variables.put("hosts", hosts);
+		final Map<String, Object> result = VariableReplacer.resolve(variables);
+		assertEquals(6, result.size());
+		assertEquals("dc1.host1-${missing}", result.get("prefix"));
+		assertEquals("host1-${missing}", result.get("host"));
+		assertEquals("host1.example.com", result.get("fqdn"));
+		assertEquals(hosts, result.get("hosts"));
+	}
+	
 	@Test
 	public void replaceVariablesNone() {
 		final String input = "this is the first test without variables";
@@ -2,8 +2,14 @@ package org.metricssampler.service;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
 
 import org.junit.Test;
+import org.metricssampler.resources.SharedResource;
+import org.metricssampler.writer.MetricsSpool;
+import org.metricssampler.writer.MetricsWriteQueue;
+import org.mockito.InOrder;
 
 public class DefaultBootstrapperTest {
 	@Test
@@ -18,4 +24,22 @@ public class DefaultBootstrapperTest {
 		assertEquals(28123, result.getControlPort());
 	}
 
+	@Test
+	public void shutdownDrainsQueuesAndSpoolsBeforeSharedResources() {
+		final DefaultBootstrapper testee = (DefaultBootstrapper) DefaultBootstrapper.bootstrap("src/test/resources/config.tiny.xml", "localhost", 28123);
+		final SharedResource pool = mock(SharedResource.class);
+		final MetricsWriteQueue writeQueue = mock(MetricsWriteQueue.class);
+		final MetricsSpool spool = mock(MetricsSpool.class);
+		testee.sharedResources.put("pool", pool);
+		testee.writeQueues.put("graphite", writeQueue);
+		testee.spools.put("graphite", spool);
+
+		testee.shutdown();
+
+		final InOrder order = inOrder(writeQueue, spool, pool);
+		order.verify(writeQueue).shutdown();
+		order.verify(spool).shutdown();
+		order.verify(pool).shutdown();
+	}
+
 }
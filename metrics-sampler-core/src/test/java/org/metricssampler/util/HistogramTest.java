@@ -0,0 +1,79 @@
+package org.metricssampler.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HistogramTest {
+	@Test
+	public void bucketsAreContiguous() {
+		for (long value = 0L; value < 100000L; value++) {
+			final int index = Histogram.indexOf(value);
+			assertTrue(value <= Histogram.highestValueAt(index));
+			if (index > 0) {
+				assertTrue(value > Histogram.highestValueAt(index - 1));
+			}
+		}
+	}
+
+	@Test
+	public void percentilesWithinRelativeError() {
+		final Histogram testee = new Histogram(60000000000L);
+		for (long value = 1L; value <= 10000L; value++) {
+			testee.record(value * 1000L);
+		}
+
+		final Histogram.Snapshot result = testee.getSnapshot();
+
+		assertEquals(10000L, result.getCount());
+		assertEquals(10000000L, result.getMax());
+		assertWithin(5000000L, result.getValueAtPercentile(50));
+		assertWithin(9900000L, result.getValueAtPercentile(99));
+		assertEquals(10000000L, result.getValueAtPercentile(100));
+	}
+
+	@Test
+	public void valuesAboveHighestTrackableValueKeepMax() {
+		final Histogram testee = new Histogram(1000L);
+		testee.record(5000L);
+
+		final Histogram.Snapshot result = testee.getSnapshot();
+
+		assertEquals(5000L, result.getMax());
+		assertEquals(5000L, result.getValueAtPercentile(50));
+	}
+
+	@Test
+	public void snapshotAndReset() {
+		final Histogram testee = new Histogram(1000L);
+		testee.record(10L);
+
+		assertEquals(1L, testee.getSnapshotAndReset().getCount());
+
+		final Histogram.Snapshot result = testee.getSnapshot();
+		assertEquals(0L, result.getCount());
+		assertEquals(0L, result.getMax());
+		assertEquals(0L, result.getValueAtPercentile(99));
+	}
+
+	@Test
+	public void snapshotSincePrevious() {
+		final Histogram testee = new Histogram(1000L);
+		testee.record(500L);
+		final Histogram.Snapshot previous = testee.getSnapshot();
+		testee.record(10L);
+		testee.record(20L);
+
+		final Histogram.Snapshot result = testee.getSnapshot().since(previous);
+
+		assertEquals(2L, result.getCount());
+		assertEquals(20L, result.getMax());
+		assertEquals(10L, result.getValueAtPercentile(50));
+		assertEquals(3L, testee.getSnapshot().since(Histogram.EMPTY_SNAPSHOT).getCount());
+	}
+
+	private void assertWithin(final long expected, final long actual) {
+		assertTrue("expected " + expected + " but was " + actual, Math.abs(actual - expected) <= expected / 16);
+	}
+}
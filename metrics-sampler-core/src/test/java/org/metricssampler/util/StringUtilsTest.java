@@ -6,6 +6,20 @@ import org.junit.Test;
 
 public class StringUtilsTest {
 
+	@Test
+	public void parseDuration() {
+		assertEquals(10000L, StringUtils.parseDuration("10"));
+		assertEquals(10000L, StringUtils.parseDuration("10s"));
+		assertEquals(250L, StringUtils.parseDuration("0.25"));
+		assertEquals(250L, StringUtils.parseDuration("250ms"));
+		assertEquals(100L, StringUtils.parseDuration(" 100 ms "));
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void parseDurationInvalid() {
+		StringUtils.parseDuration("ten seconds");
+	}
+
 	@Test
 	public void camelCaseToSplitAbbreviationsPrefix() {
 		final String result = StringUtils.camelCaseToSplit("UMLName", "-");
@@ -24,6 +38,16 @@ public class StringUtilsTest {
 		assertEquals("simple-jdbc", result);
 	}
 
+	@Test
+	public void literalPrefix() {
+		assertEquals("java.lang:type=", StringUtils.literalPrefix("java\\.lang:type=(Memory|Threading)\\..+"));
+		assertEquals("com.bea:Name=", StringUtils.literalPrefix("^com\\.bea:Name=[^,]+,Type=.+"));
+		assertEquals("Catalina:type=Manager", StringUtils.literalPrefix("Catalina:type=Managers?\\..+"));
+		assertEquals("", StringUtils.literalPrefix("\\QCatalina\\E.+"));
+		assertEquals("", StringUtils.literalPrefix("java\\.lang:.+|Catalina:.+"));
+		assertEquals("abc", StringUtils.literalPrefix("abc"));
+	}
+
 	@Test
 	public void camelCaseToSplit() {
 		final String result = StringUtils.camelCaseToSplit("ThisIsASimpleTest", "-");
@@ -0,0 +1,107 @@
+package org.metricssampler.writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.metricssampler.config.SpoolConfig;
+import org.metricssampler.reader.MetricValue;
+
+public class MetricsSpoolTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private MetricsSpool testee;
+
+	@After
+	public void cleanup() {
+		if (testee != null) {
+			testee.shutdown();
+		}
+	}
+
+	@Test
+	public void replayAfterOutputRecovers() throws IOException, InterruptedException {
+		final RecordingWriter writer = new RecordingWriter();
+		testee = new MetricsSpool("output", config(1024), writer);
+
+		testee.append(metrics("a", "1"));
+		testee.append(metrics("b", "2"));
+		writer.available = true;
+
+		waitForReplay(writer, 2);
+		assertEquals("1", writer.written.get(0).get("a").toString());
+		assertEquals("2", writer.written.get(1).get("b").toString());
+		assertEquals(0L, testee.getStats().get("spools.output.size"));
+	}
+
+	@Test
+	public void replayAfterRestart() throws IOException, InterruptedException {
+		testee = new MetricsSpool("output", config(1024), new RecordingWriter());
+		testee.append(metrics("a", "1"));
+		testee.shutdown();
+
+		final RecordingWriter writer = new RecordingWriter();
+		writer.available = true;
+		testee = new MetricsSpool("output", config(1024), writer);
+
+		waitForReplay(writer, 1);
+		assertEquals(1000L, writer.written.get(0).get("a").getTimestamp());
+	}
+
+	@Test
+	public void appendDropsOldestSegmentsWhenFull() throws IOException {
+		testee = new MetricsSpool("output", config(64), new RecordingWriter());
+
+		for (int i = 0; i < 4; i++) {
+			testee.append(metrics("name", "value"));
+		}
+
+		assertTrue((Long) testee.getStats().get("spools.output.droppedSegmentCount") > 0L);
+	}
+
+	private SpoolConfig config(final int segmentSize) {
+		return new SpoolConfig(folder.getRoot(), 2 * segmentSize, 60000L, segmentSize, 0);
+	}
+
+	private void waitForReplay(final RecordingWriter writer, final int count) throws InterruptedException {
+		for (int i = 0; i < 100 && writer.written.size() < count; i++) {
+			Thread.sleep(100L);
+		}
+		assertEquals(count, writer.written.size());
+	}
+
+	private Map<String, MetricValue> metrics(final String name, final String value) {
+		return Collections.singletonMap(name, new MetricValue(1000L, value));
+	}
+
+	private static class RecordingWriter implements MetricsWriter {
+		private volatile boolean available = false;
+		private final List<Map<String, MetricValue>> written = new CopyOnWriteArrayList<Map<String, MetricValue>>();
+
+		@Override
+		public void open() {
+			if (!available) {
+				throw new MetricWriteException("Not available");
+			}
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public void write(final Map<String, MetricValue> metrics) {
+			written.add(metrics);
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package org.metricssampler.writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.metricssampler.config.WriteQueueConfig;
+import org.metricssampler.config.WriteQueueConfig.OverflowPolicy;
+import org.metricssampler.reader.MetricValue;
+
+public class MetricsWriteQueueTest {
+	private BlockingWriter writer;
+	private MetricsWriteQueue testee;
+
+	@Before
+	public void setup() {
+		writer = new BlockingWriter();
+	}
+
+	@After
+	public void cleanup() {
+		writer.release();
+		testee.shutdown();
+	}
+
+	@Test
+	public void submitDropOldest() throws InterruptedException {
+		testee = new MetricsWriteQueue("output", new WriteQueueConfig(1, OverflowPolicy.DROP_OLDEST, 0));
+		fillQueue();
+
+		assertTrue(testee.submit(writer, metrics("c")));
+		writer.release();
+		testee.shutdown();
+
+		assertEquals(1L, testee.getStats().get("write-queues.output.droppedCount"));
+		assertEquals(2, writer.written.size());
+		assertEquals(Collections.singleton("c"), writer.written.get(1).keySet());
+	}
+
+	@Test
+	public void submitDropNewest() throws InterruptedException {
+		testee = new MetricsWriteQueue("output", new WriteQueueConfig(1, OverflowPolicy.DROP_NEWEST, 0));
+		fillQueue();
+
+		assertFalse(testee.submit(writer, metrics("c")));
+		writer.release();
+		testee.shutdown();
+
+		assertEquals(1L, testee.getStats().get("write-queues.output.droppedCount"));
+		assertEquals(2, writer.written.size());
+		assertEquals(Collections.singleton("b"), writer.written.get(1).keySet());
+	}
+
+	@Test
+	public void submitBlockTimesOut() throws InterruptedException {
+		testee = new MetricsWriteQueue("output", new WriteQueueConfig(1, OverflowPolicy.BLOCK, 10));
+		fillQueue();
+
+		assertFalse(testee.submit(writer, metrics("c")));
+
+		assertEquals(1L, testee.getStats().get("write-queues.output.droppedCount"));
+	}
+
+	@Test
+	public void shutdownWritesRemainingMetricsWithoutInterrupt() throws InterruptedException {
+		testee = new MetricsWriteQueue("output", new WriteQueueConfig(1, OverflowPolicy.DROP_NEWEST, 0));
+		fillQueue();
+		final Thread shutdown = new Thread() {
+			@Override
+			public void run() {
+				testee.shutdown();
+			}
+		};
+		shutdown.start();
+		Thread.sleep(200L);
+		writer.release();
+		shutdown.join(TimeUnit.SECONDS.toMillis(10));
+
+		assertEquals(2, writer.written.size());
+		assertEquals(Collections.singleton("b"), writer.written.get(1).keySet());
+		assertFalse(writer.interrupted);
+	}
+
+	/**
+	 * Submit one batch that blocks the drainer in the writer and a second one that occupies the only slot in the queue.
+	 */
+	private void fillQueue() throws InterruptedException {
+		assertTrue(testee.submit(writer, metrics("a")));
+		assertTrue(writer.started.await(5, TimeUnit.SECONDS));
+		assertTrue(testee.submit(writer, metrics("b")));
+	}
+
+	private Map<String, MetricValue> metrics(final String name) {
+		return Collections.singletonMap(name, new MetricValue(1000L, 1));
+	}
+
+	private static class BlockingWriter implements MetricsWriter {
+		private final CountDownLatch started = new CountDownLatch(1);
+		private final CountDownLatch released = new CountDownLatch(1);
+		private final List<Map<String, MetricValue>> written = new CopyOnWriteArrayList<Map<String, MetricValue>>();
+		private volatile boolean interrupted = false;
+
+		@Override
+		public void open() {
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public void write(final Map<String, MetricValue> metrics) {
+			started.countDown();
+			try {
+				released.await(5, TimeUnit.SECONDS);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			interrupted |= Thread.currentThread().isInterrupted();
+			written.add(metrics);
+		}
+
+		public void release() {
+			released.countDown();
+		}
+	}
+}
@@ -16,6 +16,7 @@ import org.metricssampler.resources.SharedResource;
 import org.metricssampler.sampler.Sampler;
 import org.metricssampler.selector.MetricsSelector;
 import org.metricssampler.service.AbstractExtension;
+import org.metricssampler.values.ValueTransformer;
 import org.metricssampler.writer.MetricsWriter;
 
 public class BaseExtension extends AbstractExtension {
@@ -29,6 +30,9 @@ public class BaseExtension extends AbstractExtension {
 		result.add(DefaultSamplerXBean.class);
 		result.add(SelfInputXBean.class);
 		result.add(ELValueTransformerXBean.class);
+		result.add(ScaleValueTransformerXBean.class);
+		result.add(UnitValueTransformerXBean.class);
+		result.add(ClampValueTransformerXBean.class);
 		return result;
 	}
 	
@@ -70,7 +74,12 @@ public class BaseExtension extends AbstractExtension {
 	@Override
 	protected Sampler doNewSampler(final SamplerConfig config) {
 		final DefaultSamplerConfig actualConfig = (DefaultSamplerConfig) config;
-		final MetricsReader reader = getGlobalFactory().newReaderForInput(actualConfig.getInput());
+		final MetricsReader reader;
+		if (actualConfig.isShareInput()) {
+			reader = getGlobalFactory().newSharedReaderForInput(actualConfig.getInput(), actualConfig.getIntervalMillis() / 2);
+		} else {
+			reader = getGlobalFactory().newReaderForInput(actualConfig.getInput());
+		}
 		final DefaultSampler result = new DefaultSampler(actualConfig, reader);
 		for (final OutputConfig writerConfig : actualConfig.getOutputs()) {
 			result.addWriter(getGlobalFactory().newWriterForOutput(writerConfig));
@@ -87,6 +96,9 @@ public class BaseExtension extends AbstractExtension {
 	@Override
 	protected SharedResource doNewSharedResource(final SharedResourceConfig config) {
 		final ThreadPoolConfig actualConfig = (ThreadPoolConfig) config;
+		if (actualConfig.getType() == ThreadPoolConfig.Type.ELASTIC) {
+			return new ElasticSamplerThreadPool(actualConfig);
+		}
 		return new DefaultSamplerThreadPool(actualConfig);
 	}
 
@@ -97,11 +109,14 @@ public class BaseExtension extends AbstractExtension {
 
 	@Override
 	public boolean supportsValueTransformer(final ValueTransformerConfig config) {
-		return config instanceof ELValueTransformerConfig;
+		return config instanceof ELValueTransformerConfig || config instanceof NumericValueTransformerConfig;
 	}
 
 	@Override
-	protected ELValueTransformer doNewValueTransformer(final ValueTransformerConfig config) {
+	protected ValueTransformer doNewValueTransformer(final ValueTransformerConfig config) {
+		if (config instanceof NumericValueTransformerConfig) {
+			return new NumericValueTransformer((NumericValueTransformerConfig) config);
+		}
 		final ELValueTransformerConfig actualConfig = (ELValueTransformerConfig) config;
 		return new ELValueTransformer(actualConfig, elFactory);
 	}
@@ -0,0 +1,21 @@
+package org.metricssampler.extensions.base;
+
+import org.metricssampler.config.ConfigurationException;
+
+import com.thoughtworks.xstream.annotations.XStreamAlias;
+
+@XStreamAlias("clamp-value-transformer")
+public class ClampValueTransformerXBean extends NumericValueTransformerXBean {
+	@Override
+	protected void validate() {
+		super.validate();
+		if (!hasBounds()) {
+			throw new ConfigurationException("At least one of the attributes \"min\" and \"max\" of clamp-value-transformer is mandatory");
+		}
+	}
+
+	@Override
+	protected double getFactor() {
+		return 1d;
+	}
+}
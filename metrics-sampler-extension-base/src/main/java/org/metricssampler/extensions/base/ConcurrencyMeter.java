@@ -0,0 +1,52 @@
+package org.metricssampler.extensions.base;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the samplers running at the same time and remembers the highest count, i.e. the largest burst. The peak is never reset, so
+ * that any number of readers can report it.
+ */
+public class ConcurrencyMeter {
+	private final AtomicInteger current = new AtomicInteger();
+	private final AtomicInteger peak = new AtomicInteger();
+
+	public void enter() {
+		final int value = current.incrementAndGet();
+		int max = peak.get();
+		while (value > max && !peak.compareAndSet(max, value)) {
+			max = peak.get();
+		}
+	}
+
+	public void exit() {
+		current.decrementAndGet();
+	}
+
+	public int getCurrent() {
+		return current.get();
+	}
+
+	/**
+	 * @return the highest number of concurrently running samplers since the meter was created
+	 */
+	public int getPeak() {
+		return peak.get();
+	}
+
+	/**
+	 * @return a runnable that runs the task while counting it as running
+	 */
+	public Runnable wrap(final Runnable task) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				enter();
+				try {
+					task.run();
+				} finally {
+					exit();
+				}
+			}
+		};
+	}
+}
@@ -1,9 +1,15 @@
 package org.metricssampler.extensions.base;
 
 import org.metricssampler.config.OutputConfig;
+import org.metricssampler.config.SpoolConfig;
+import org.metricssampler.config.WriteQueueConfig;
 
 public class ConsoleOutputConfig extends OutputConfig {
 	public ConsoleOutputConfig(final String name, final boolean default_) {
 		super(name, default_);
 	}
+
+	public ConsoleOutputConfig(final String name, final boolean default_, final WriteQueueConfig writeQueue, final SpoolConfig spool) {
+		super(name, default_, writeQueue, spool);
+	}
 }
@@ -4,19 +4,27 @@ import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
 
+import org.metricssampler.reader.AbortableMetricsReader;
 import org.metricssampler.reader.MetricReadException;
 import org.metricssampler.reader.MetricValue;
 import org.metricssampler.reader.MetricsReader;
 import org.metricssampler.reader.OpenMetricsReaderException;
+import org.metricssampler.resources.CircuitBreaker;
 import org.metricssampler.resources.SamplerStats;
+import org.metricssampler.resources.SamplerStats.Phase;
 import org.metricssampler.sampler.Sampler;
+import org.metricssampler.selector.AbstractMetricsSelector;
 import org.metricssampler.selector.MetricsSelector;
+import org.metricssampler.selector.MetricsSelectorIndex;
+import org.metricssampler.selector.VariableReplacer;
+import org.metricssampler.values.TypedValueTransformer;
 import org.metricssampler.values.ValueTransformer;
 import org.metricssampler.writer.MetricWriteException;
 import org.metricssampler.writer.MetricsWriter;
@@ -24,6 +32,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class DefaultSampler implements Sampler {
+	/**
+	 * The maximum number of metric names for which the matching value transformer is cached
+	 */
+	public static final int TRANSFORMER_CACHE_SIZE = 20000;
+	private static final ValueTransformer NO_TRANSFORMER = new ValueTransformer() {
+		@Override
+		public boolean matches(final String metric) {
+			return false;
+		}
+
+		@Override
+		public String transform(final String value) {
+			return value;
+		}
+	};
+
 	private final Logger logger;
 	private final Logger timingsLogger;
 
@@ -34,9 +58,30 @@ public class DefaultSampler implements Sampler {
 	private final List<MetricsWriter> writers = new LinkedList<MetricsWriter>();
 	private final List<MetricsSelector> selectors = new LinkedList<MetricsSelector>();
 	private final List<ValueTransformer> valueTransformers = new LinkedList<ValueTransformer>();
+	/**
+	 * The transformer applied to each metric name, i.e. the first one that matches it, or {@link #NO_TRANSFORMER}. Cleared on reset.
+	 */
+	private final Map<String, ValueTransformer> transformerCache = new LinkedHashMap<String, ValueTransformer>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<String, ValueTransformer> eldest) {
+			return size() > TRANSFORMER_CACHE_SIZE;
+		}
+	};
+	/**
+	 * Selects for all selectors in one pass over the metric names. Created on first use and {@code null} if not all selectors support it.
+	 */
+	private MetricsSelectorIndex selectorIndex;
+	private boolean selectorIndexCreated = false;
 	
 	private final Map<String, Object> variables;
 
+	/**
+	 * {@code null} if the sampler tries to read the input on every tick
+	 */
+	private final CircuitBreaker circuitBreaker;
+
 	/**
 	 * close will actually disconnect even persistent connections if the current timestamp >= this value. Long.MAX_VALUE effectively disables
 	 * that.
@@ -54,6 +99,7 @@ public class DefaultSampler implements Sampler {
 		this.config = config;
 		this.reader = reader;
 		this.variables = prepareVariables();
+		this.circuitBreaker = config.getCircuitBreaker() != null ? new CircuitBreaker(config.getCircuitBreaker()) : null;
 		logger = LoggerFactory.getLogger("sampler." + this.config.getName());
 		timingsLogger = LoggerFactory.getLogger("timings.sampler");
 	}
@@ -64,8 +110,12 @@ public class DefaultSampler implements Sampler {
 		result.putAll(reader.getVariables());
 		result.putAll(config.getVariables());
 		result.put("sampler.name", config.getName());
-		result.put("sampler.interval", config.getInterval());
-		return Collections.unmodifiableMap(result);
+		final long intervalMillis = config.getIntervalMillis();
+		// whole seconds stay integers so that existing names do not change, sub-second intervals would otherwise be published as 0
+		result.put("sampler.interval", intervalMillis % 1000L == 0 ? (Object) Long.valueOf(intervalMillis / 1000L) : Double.valueOf(intervalMillis / 1000d));
+		result.put("sampler.interval.millis", intervalMillis);
+		// resolved once here so that the selectors do not have to resolve the same references again
+		return Collections.unmodifiableMap(VariableReplacer.resolve(result));
 	}
 
 	public DefaultSampler addWriter(final MetricsWriter writer) {
@@ -78,40 +128,49 @@ public class DefaultSampler implements Sampler {
 		checkArgumentNotNull(selector, "selector");
 		selectors.add(selector);
 		selector.setVariables(variables);
+		selectorIndexCreated = false;
 		return this;
 	}
 	
 	public DefaultSampler addValueTransformer(final ValueTransformer valueTransformer) {
 		checkArgumentNotNull(valueTransformer, "valueTransformer");
 		valueTransformers.add(valueTransformer);
+		transformerCache.clear();
 		return this;
 	}
 
-	protected void openWriters() {
-		for (final MetricsWriter writer : writers) {
-			writer.open();
-		}
-	}
-
-	protected void closeWriters() {
-		for (final MetricsWriter writer : writers) {
-			writer.close();
-		}
-	}
-
 	@Override
 	public void sample() {
+		if (circuitBreaker != null && !circuitBreaker.allowRequest(System.currentTimeMillis())) {
+			logger.debug("Circuit breaker open, not sampling");
+			SamplerStats.get().incShortCircuitCount();
+			return;
+		}
+		if (circuitBreaker != null && circuitBreaker.getState() == CircuitBreaker.State.HALF_OPEN) {
+			logger.debug("Probing input with circuit breaker half open");
+			updateCircuitBreakerStats();
+		}
 		logger.debug("Sampling");
 		try {
-			final long readStart = System.currentTimeMillis();
+			final long readStart = System.nanoTime();
 			final Map<String, MetricValue> rawMetrics = readMetrics();
+			readSucceeded();
+			final long transformStart = System.nanoTime();
 			final Map<String, MetricValue> metrics = transformValues(rawMetrics);
-			final long readEnd = System.currentTimeMillis();
-			timingsLogger.debug("Sampled {} metrics in {} ms", metrics.size(), readEnd-readStart);
+			final long readEnd = System.nanoTime();
+			SamplerStats.get().recordPhase(Phase.TRANSFORMATION, readEnd - transformStart);
+			if (timingsLogger.isDebugEnabled()) {
+				timingsLogger.debug("Sampled {} metrics in {} ms", metrics.size(), (readEnd-readStart) / 1000000L);
+			}
 			writeMetrics(metrics);
-			timingsLogger.debug("Metrics sent to writers in {} ms", System.currentTimeMillis()-readEnd);
+			final long writeEnd = System.nanoTime();
+			SamplerStats.get().recordPhase(Phase.WRITE, writeEnd - readEnd);
+			if (timingsLogger.isDebugEnabled()) {
+				timingsLogger.debug("Metrics sent to writers in {} ms", (writeEnd-readEnd) / 1000000L);
+			}
 			SamplerStats.get().setMetricsCount(metrics.size());
 		} catch (final OpenMetricsReaderException e) {
+			readFailed();
 			if (logger.isDebugEnabled()) {
 				logger.debug("Failed to open reader", e);
 			} else {
@@ -121,10 +180,43 @@ public class DefaultSampler implements Sampler {
 				}
 			}
 		} catch (final MetricReadException e) {
+			readFailed();
 			logger.warn("Failed to read metrics", e);
 		} catch (final MetricWriteException e) {
 			logger.warn("Failed to write metrics", e);
+		} finally {
+			if (circuitBreaker != null && circuitBreaker.getState() == CircuitBreaker.State.HALF_OPEN) {
+				// the probe failed with an unexpected exception
+				readFailed();
+			}
+		}
+	}
+
+	private void readSucceeded() {
+		if (circuitBreaker != null) {
+			if (circuitBreaker.getState() != CircuitBreaker.State.CLOSED) {
+				logger.info("Input available again, closing circuit breaker");
+			}
+			circuitBreaker.recordSuccess();
+			updateCircuitBreakerStats();
+		}
+	}
+
+	private void readFailed() {
+		if (circuitBreaker == null) {
+			return;
 		}
+		if (circuitBreaker.recordFailure(System.currentTimeMillis())) {
+			logger.info("Opening circuit breaker after {} consecutive failures. Next attempt in {} ms", circuitBreaker.getConsecutiveFailures(),
+					circuitBreaker.getOpenUntil() - System.currentTimeMillis());
+		}
+		updateCircuitBreakerStats();
+	}
+
+	private void updateCircuitBreakerStats() {
+		final SamplerStats stats = SamplerStats.get();
+		stats.setCircuitBreakerState(circuitBreaker.getState());
+		stats.setEffectiveInterval(Math.max(config.getIntervalMillis(), circuitBreaker.getBackoff()));
 	}
 
 	protected Map<String, MetricValue> transformValues(final Map<String, MetricValue> metrics) {
@@ -132,52 +224,101 @@ public class DefaultSampler implements Sampler {
 			return metrics;
 		} else {
 			logger.debug("Transforming values");
-			final Map<String, MetricValue> result = new HashMap<String, MetricValue>();
+			// only copied if at least one value is transformed
+			Map<String, MetricValue> result = metrics;
 			for (final Entry<String, MetricValue> entry : metrics.entrySet()) {
 				final MetricValue newValue = transformValue(entry.getKey(), entry.getValue());
-				result.put(entry.getKey(), newValue);
+				if (newValue != entry.getValue()) {
+					if (result == metrics) {
+						result = new HashMap<String, MetricValue>(metrics);
+					}
+					result.put(entry.getKey(), newValue);
+				}
 			}
 			return result;
 		}
 	}
 
 	protected MetricValue transformValue(final String name, final MetricValue value) {
-		for (final ValueTransformer transformer : valueTransformers) {
-			if (transformer.matches(name)) {
-				final String newValue = transformer.transform(value.getValue().toString());
-				return new MetricValue(value.getTimestamp(), newValue);
-			}
+		final ValueTransformer transformer = findValueTransformer(name);
+		if (transformer instanceof TypedValueTransformer) {
+			return ((TypedValueTransformer) transformer).transform(value);
+		} else if (transformer != NO_TRANSFORMER) {
+			final String newValue = transformer.transform(value.getValue().toString());
+			return new MetricValue(value.getTimestamp(), newValue);
 		}
 		return value;
 	}
 
-	private void writeMetrics(final Map<String, MetricValue> metrics) {
-		openWriters();
+	private ValueTransformer findValueTransformer(final String name) {
+		ValueTransformer result = transformerCache.get(name);
+		if (result == null) {
+			result = NO_TRANSFORMER;
+			for (final ValueTransformer transformer : valueTransformers) {
+				if (transformer.matches(name)) {
+					result = transformer;
+					break;
+				}
+			}
+			transformerCache.put(name, result);
+		}
+		return result;
+	}
 
+	/**
+	 * Open, write to and close each writer separately so that a writer that cannot connect to its output does not prevent the others from
+	 * getting the metrics. Writers with persistent connections keep them open after {@link MetricsWriter#close()}.
+	 */
+	private void writeMetrics(final Map<String, MetricValue> metrics) {
 		for (final MetricsWriter writer : writers) {
 			try {
-				logger.debug("Writing metrics to " + writer);
+				writer.open();
+				logger.debug("Writing metrics to {}", writer);
 				writer.write(metrics);
 			} catch(final MetricWriteException e) {
-				logger.warn("Failed to write metrics to "+writer);
+				logger.warn("Failed to write metrics to " + writer + ": " + e.getMessage());
+			} finally {
+				writer.close();
 			}
 		}
-
-		closeWriters();
 	}
 
+	/**
+	 * Readers and selectors may discover the metadata of the input while opening or selecting. They record that time separately as
+	 * {@link Phase#METADATA} so it is subtracted from the open and selection phases.
+	 */
 	private Map<String, MetricValue> readMetrics() {
+		final SamplerStats stats = SamplerStats.get();
 		logger.debug("Opening reader {}", reader);
+		final long openStart = System.nanoTime();
+		final long openMetadataTime = stats.getMetadataTime();
 		reader.open();
+		final long selectionStart = System.nanoTime();
+		final long selectionMetadataTime = stats.getMetadataTime();
+		stats.recordPhase(Phase.OPEN, selectionStart - openStart - (selectionMetadataTime - openMetadataTime));
 
 		logger.debug("Reading metrics from {}", reader);
 		final Map<String, MetricValue> result = new HashMap<String, MetricValue>();
-		for (final MetricsSelector selector : selectors) {
-			logger.debug("Reading metrics from {} via {}", reader, selector);
-			final Map<String, MetricValue> metrics = selector.readMetrics(reader);
-			logger.debug("Selector " + selector + " returned " + metrics.size() + " metrics for " + reader);
-			result.putAll(metrics);
+		final MetricsSelectorIndex index = getSelectorIndex();
+		if (index != null) {
+			final List<Map<String, MetricValue>> selected = index.readMetrics(reader);
+			for (int i = 0; i < selected.size(); i++) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Selector {} returned {} metrics for {}", new Object[] {selectors.get(i), selected.get(i).size(), reader});
+				}
+				result.putAll(selected.get(i));
+			}
+		} else {
+			for (final MetricsSelector selector : selectors) {
+				logger.debug("Reading metrics from {} via {}", reader, selector);
+				final Map<String, MetricValue> metrics = selector.readMetrics(reader);
+				if (logger.isDebugEnabled()) {
+					logger.debug("Selector {} returned {} metrics for {}", new Object[] {selector, metrics.size(), reader});
+				}
+				result.putAll(metrics);
+			}
 		}
+		stats.recordPhase(Phase.SELECTION, System.nanoTime() - selectionStart - (stats.getMetadataTime() - selectionMetadataTime));
 
 		reader.close();
 
@@ -190,6 +331,27 @@ public class DefaultSampler implements Sampler {
 		return result;
 	}
 
+	/**
+	 * @return the index of the selectors or {@code null} if there is only one or if some of them are not {@link AbstractMetricsSelector}s
+	 */
+	private MetricsSelectorIndex getSelectorIndex() {
+		if (!selectorIndexCreated) {
+			selectorIndexCreated = true;
+			selectorIndex = null;
+			final List<AbstractMetricsSelector> indexed = new LinkedList<AbstractMetricsSelector>();
+			for (final MetricsSelector selector : selectors) {
+				if (!(selector instanceof AbstractMetricsSelector)) {
+					return null;
+				}
+				indexed.add((AbstractMetricsSelector) selector);
+			}
+			if (indexed.size() > 1) {
+				selectorIndex = new MetricsSelectorIndex(indexed);
+			}
+		}
+		return selectorIndex;
+	}
+
 	protected void scheduleResetIfNecessary(final int newNumberOfSelectedMetrics) {
 		final boolean noMetricsSelected = newNumberOfSelectedMetrics == 0;
 		if (noMetricsSelected) {
@@ -252,5 +414,14 @@ public class DefaultSampler implements Sampler {
 		for (final MetricsSelector selector : selectors) {
 			selector.reset();
 		}
+		transformerCache.clear();
+	}
+
+	@Override
+	public void abort() {
+		if (reader instanceof AbortableMetricsReader) {
+			logger.info("Aborting reader {}", reader);
+			((AbortableMetricsReader) reader).abort();
+		}
 	}
 }
@@ -6,6 +6,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import org.metricssampler.config.CircuitBreakerConfig;
 import org.metricssampler.config.InputConfig;
 import org.metricssampler.config.OutputConfig;
 import org.metricssampler.config.SamplerConfig;
@@ -20,11 +21,14 @@ public class DefaultSamplerConfig extends SamplerConfig {
 	private final Map<String, Object> globalVariables;
 	private final boolean quiet;
 	private final int resetTimeout;
+	private final CircuitBreakerConfig circuitBreaker;
+	private final boolean shareInput;
 
-	public DefaultSamplerConfig(final String name, final String pool, final int interval, final boolean ignored, final boolean disabled, final InputConfig input,
-			final List<OutputConfig> outputs, final List<SelectorConfig> selectors, final Map<String, Object> variables,
-			final Map<String, Object> globalVariables, final List<ValueTransformerConfig> valueTransformers, final boolean quiet, final int resetTimeout) {
-		super(name, pool, interval, ignored, disabled, globalVariables, valueTransformers);
+	public DefaultSamplerConfig(final String name, final String pool, final long intervalMillis, final long timeoutMillis, final MissedTickPolicy missedTickPolicy,
+			final boolean ignored, final boolean disabled, final InputConfig input, final List<OutputConfig> outputs, final List<SelectorConfig> selectors,
+			final Map<String, Object> variables, final Map<String, Object> globalVariables, final List<ValueTransformerConfig> valueTransformers,
+			final boolean quiet, final int resetTimeout, final CircuitBreakerConfig circuitBreaker, final boolean shareInput) {
+		super(name, pool, intervalMillis, timeoutMillis, missedTickPolicy, ignored, disabled, globalVariables, valueTransformers);
 		checkArgumentNotNull(input, "input");
 		checkArgumentNotNull(outputs, "outputs");
 		checkArgumentNotNull(selectors, "selectors");
@@ -37,6 +41,8 @@ public class DefaultSamplerConfig extends SamplerConfig {
 		this.globalVariables = Collections.unmodifiableMap(globalVariables);
 		this.quiet = quiet;
 		this.resetTimeout = resetTimeout;
+		this.circuitBreaker = circuitBreaker;
+		this.shareInput = shareInput;
 	}
 
 	public InputConfig getInput() {
@@ -82,4 +88,20 @@ public class DefaultSamplerConfig extends SamplerConfig {
 		return quiet;
 	}
 
+	/**
+	 * @return the configuration of the circuit breaker that backs off while the input is unavailable or {@code null} if the sampler
+	 *         should try to read the input on every tick
+	 */
+	public CircuitBreakerConfig getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	/**
+	 * @return {@code true} if the sampler shares the reads of its input with the other samplers of the same input that share it. Values
+	 *         read by another sampler within half the interval are used instead of reading the input again.
+	 */
+	public boolean isShareInput() {
+		return shareInput;
+	}
+
 }
@@ -6,19 +6,43 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.metricssampler.config.ThreadPoolConfig;
 import org.metricssampler.resources.SamplerTask;
 import org.metricssampler.resources.SamplerThreadPool;
 import org.metricssampler.sampler.Sampler;
 import org.metricssampler.service.GlobalRegistry;
+import org.metricssampler.util.Histogram;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * A sampler thread pool based on a scheduled thread pool executor whose threads both schedule and execute the samplers. The pool measures
+ * the schedule lag of the samplers, i.e. how late they start compared to when they were due. If auto sizing is enabled, the number of
+ * threads is adjusted periodically between the core and the maximum size: the pool grows while the 95th percentile of the lag exceeds the
+ * target and shrinks one thread at a time while it is well below the target and the threads are mostly idle.
+ */
 public class DefaultSamplerThreadPool implements SamplerThreadPool {
+	static final long ADJUST_PERIOD = 5000L;
+	static final double TARGET_UTILIZATION = 0.75d;
+	private static final long HIGHEST_TRACKABLE_LAG = TimeUnit.MINUTES.toNanos(10);
+
 	private final Logger logger = LoggerFactory.getLogger(getClass());
 	private final ThreadPoolConfig config;
+	private final ConcurrencyMeter concurrency = new ConcurrencyMeter();
+	/**
+	 * Lag since the pool was created. Never reset so that every reader of {@link #getStats()} sees the same values.
+	 */
+	private final Histogram lag = new Histogram(HIGHEST_TRACKABLE_LAG);
+	/**
+	 * Lag and busy time since the last adjustment of the pool size
+	 */
+	private final Histogram adjustmentLag = new Histogram(HIGHEST_TRACKABLE_LAG);
+	private final AtomicLong busyTime = new AtomicLong();
+	private long lastAdjustment;
 	private ScheduledThreadPoolExecutor executorService;
+	private ScheduledThreadPoolExecutor sizer;
 
 	public DefaultSamplerThreadPool(final ThreadPoolConfig config) {
 		checkArgumentNotNull(config, "config");
@@ -30,6 +54,18 @@ public class DefaultSamplerThreadPool implements SamplerThreadPool {
 	@Override
 	public void startup() {
 		this.executorService = createExecutorService(config);
+		if (config.isAutoSize()) {
+			logger.info("Auto sizing thread pool \"{}\" between {} and {} threads with a target lag of {} ms",
+					new Object[] {config.getName(), config.getCoreSize(), config.getMaxSize(), config.getTargetLag()});
+			lastAdjustment = System.nanoTime();
+			sizer = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("sampler-sizer-" + config.getName()));
+			sizer.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					adjustPoolSize();
+				}
+			}, ADJUST_PERIOD, ADJUST_PERIOD, TimeUnit.MILLISECONDS);
+		}
 	}
 
 	private ScheduledThreadPoolExecutor createExecutorService(final ThreadPoolConfig config) {
@@ -49,7 +85,10 @@ public class DefaultSamplerThreadPool implements SamplerThreadPool {
 		assertStarted();
 		final SamplerTask result = new SamplerTask(sampler);
 		GlobalRegistry.getInstance().addSamplerTask(result);
-		executorService.scheduleAtFixedRate(result, 0L, sampler.getConfig().getInterval(), TimeUnit.SECONDS);
+		final long interval = sampler.getConfig().getIntervalMillis();
+		final long initialDelay = SamplerPhases.getInitialDelay(config, sampler.getConfig().getName(), interval, System.currentTimeMillis());
+		final long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(initialDelay);
+		executorService.scheduleAtFixedRate(new MeasuredTask(result, due, TimeUnit.MILLISECONDS.toNanos(interval)), initialDelay, interval, TimeUnit.MILLISECONDS);
 		return result;
 	}
 
@@ -62,6 +101,10 @@ public class DefaultSamplerThreadPool implements SamplerThreadPool {
 	@Override
 	public void shutdown() {
 		logger.info("Shutting down thread pool {}", config.getName());
+		if (sizer != null) {
+			sizer.shutdownNow();
+			sizer = null;
+		}
 		try {
 			logger.debug("Waiting for the executor service to gracefully shutdown");
 			executorService.shutdown();
@@ -85,6 +128,85 @@ public class DefaultSamplerThreadPool implements SamplerThreadPool {
 		result.put(prefix + "activeCount", executorService.getActiveCount());
 		result.put(prefix + "poolSize", executorService.getPoolSize());
 		result.put(prefix + "completedTaskCount", executorService.getCompletedTaskCount());
+		result.put(prefix + "corePoolSize", executorService.getCorePoolSize());
+		result.put(prefix + "burstConcurrency", concurrency.getPeak());
+		final Histogram.Snapshot lagSnapshot = lag.getSnapshot();
+		result.put(prefix + "scheduleLagP50Micros", TimeUnit.NANOSECONDS.toMicros(lagSnapshot.getValueAtPercentile(50)));
+		result.put(prefix + "scheduleLagP95Micros", TimeUnit.NANOSECONDS.toMicros(lagSnapshot.getValueAtPercentile(95)));
+		result.put(prefix + "scheduleLagP99Micros", TimeUnit.NANOSECONDS.toMicros(lagSnapshot.getValueAtPercentile(99)));
+		result.put(prefix + "scheduleLagMaxMicros", TimeUnit.NANOSECONDS.toMicros(lagSnapshot.getMax()));
 		return result;
 	}
+
+	private void adjustPoolSize() {
+		final long now = System.nanoTime();
+		final long elapsed = now - lastAdjustment;
+		lastAdjustment = now;
+		final long lagP95 = adjustmentLag.getSnapshotAndReset().getValueAtPercentile(95);
+		final ScheduledThreadPoolExecutor executor = executorService;
+		if (executor == null) {
+			return;
+		}
+		final int current = executor.getCorePoolSize();
+		final int size = computePoolSize(config, current, lagP95, busyTime.getAndSet(0L), elapsed);
+		if (size != current) {
+			logger.info("Resizing thread pool \"{}\" from {} to {} threads. The 95th percentile of the schedule lag was {} ms",
+					new Object[] {config.getName(), current, size, TimeUnit.NANOSECONDS.toMillis(lagP95)});
+			executor.setCorePoolSize(size);
+		}
+	}
+
+	/**
+	 * @param lagP95 the 95th percentile of the schedule lag since the last adjustment in nanoseconds
+	 * @param busyTime the total time the threads spent running samplers since the last adjustment in nanoseconds
+	 * @param elapsed the time since the last adjustment in nanoseconds
+	 * @return the number of threads the pool should have
+	 */
+	static int computePoolSize(final ThreadPoolConfig config, final int current, final long lagP95, final long busyTime, final long elapsed) {
+		final long targetLag = TimeUnit.MILLISECONDS.toNanos(config.getTargetLag());
+		final int needed = (int) Math.ceil(busyTime / (double) elapsed / TARGET_UTILIZATION);
+		final int result;
+		if (lagP95 > targetLag) {
+			result = Math.max(current + Math.max(1, current / 4), needed);
+		} else if (lagP95 < targetLag / 2) {
+			result = Math.max(current - 1, needed);
+		} else {
+			result = current;
+		}
+		return Math.min(config.getMaxSize(), Math.max(config.getCoreSize(), result));
+	}
+
+	/**
+	 * Measures the schedule lag and busy time of a sampler task. Executions at fixed rate never overlap so the due time needs no
+	 * synchronization.
+	 */
+	private class MeasuredTask implements Runnable {
+		private final SamplerTask task;
+		private final long interval;
+		private long due;
+
+		public MeasuredTask(final SamplerTask task, final long due, final long interval) {
+			this.task = task;
+			this.due = due;
+			this.interval = interval;
+		}
+
+		@Override
+		public void run() {
+			final long start = System.nanoTime();
+			final long scheduled = due;
+			lag.record(start - scheduled);
+			if (config.isAutoSize()) {
+				adjustmentLag.record(start - scheduled);
+			}
+			due += interval;
+			concurrency.enter();
+			try {
+				task.run(scheduled);
+			} finally {
+				concurrency.exit();
+				busyTime.addAndGet(System.nanoTime() - start);
+			}
+		}
+	}
 }
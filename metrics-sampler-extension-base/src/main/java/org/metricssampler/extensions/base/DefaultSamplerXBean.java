@@ -8,6 +8,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
+import org.metricssampler.config.CircuitBreakerConfig;
 import org.metricssampler.config.ConfigurationException;
 import org.metricssampler.config.InputConfig;
 import org.metricssampler.config.OutputConfig;
@@ -44,6 +45,21 @@ public class DefaultSamplerXBean extends SamplerXBean {
 	@XStreamAsAttribute
 	private Integer resetTimeout;
 
+	@XStreamAlias("failure-threshold")
+	@XStreamAsAttribute
+	private Integer failureThreshold;
+
+	@XStreamAsAttribute
+	private String backoff;
+
+	@XStreamAlias("max-backoff")
+	@XStreamAsAttribute
+	private String maxBackoff;
+
+	@XStreamAlias("share-input")
+	@XStreamAsAttribute
+	private Boolean shareInput;
+
 	private List<VariableXBean> variables;
 
 	private List<SelectorXBean> selectors;
@@ -116,6 +132,38 @@ public class DefaultSamplerXBean extends SamplerXBean {
 		this.resetTimeout = resetTimeout;
 	}
 
+	public Integer getFailureThreshold() {
+		return failureThreshold;
+	}
+
+	public void setFailureThreshold(final Integer failureThreshold) {
+		this.failureThreshold = failureThreshold;
+	}
+
+	public String getBackoff() {
+		return backoff;
+	}
+
+	public void setBackoff(final String backoff) {
+		this.backoff = backoff;
+	}
+
+	public String getMaxBackoff() {
+		return maxBackoff;
+	}
+
+	public void setMaxBackoff(final String maxBackoff) {
+		this.maxBackoff = maxBackoff;
+	}
+
+	public Boolean getShareInput() {
+		return shareInput;
+	}
+
+	public void setShareInput(final Boolean shareInput) {
+		this.shareInput = shareInput;
+	}
+
 	@Override
 	protected void validate() {
 		super.validate();
@@ -125,6 +173,17 @@ public class DefaultSamplerXBean extends SamplerXBean {
 			if (resetTimeout != null) {
 				greaterThanZero(this, "reload-timeout", resetTimeout);
 			}
+			if (failureThreshold != null) {
+				greaterThanZero(this, "failure-threshold", failureThreshold);
+				if (parseBackoff() <= 0L) {
+					throw new ConfigurationException("Attribute \"backoff\" of sampler[" + getName() + "] must be greater than 0 but was \"" + getBackoff() + "\"");
+				}
+				if (parseMaxBackoff() < parseBackoff()) {
+					throw new ConfigurationException("Attribute \"max-backoff\" of sampler[" + getName() + "] must be greater than or equal to \"backoff\"");
+				}
+			} else if (backoff != null || maxBackoff != null) {
+				throw new ConfigurationException("Attributes \"backoff\" and \"max-backoff\" of sampler[" + getName() + "] require \"failure-threshold\"");
+			}
 		}
 	}
 	@Override
@@ -141,7 +200,26 @@ public class DefaultSamplerXBean extends SamplerXBean {
 		final String pool = getPool() != null ? getPool() : DEFAULT_POOL_NAME;
 		final int resetTimeoutInt = resetTimeout != null ? resetTimeout : -1;
 		final List<ValueTransformerConfig> valueTransformerConfigs = configureValueTransformers(valueTransformers);
-		return new DefaultSamplerConfig(getName(), pool, getInterval(), ignored, disabled, inputConfig, outputConfigs, selectorConfigs, samplerVariables, globalVariables, valueTransformerConfigs, quiet, resetTimeoutInt);
+		final boolean shareInputBool = shareInput != null ? shareInput : false;
+		return new DefaultSamplerConfig(getName(), pool, parseInterval(), parseTimeout(), parseMissedTicks(), ignored, disabled, inputConfig, outputConfigs, selectorConfigs, samplerVariables, globalVariables, valueTransformerConfigs, quiet, resetTimeoutInt, createCircuitBreakerConfig(), shareInputBool);
+	}
+
+	/**
+	 * @return the circuit breaker configuration or {@code null} if no failure threshold is set. The backoff defaults to the interval.
+	 */
+	protected CircuitBreakerConfig createCircuitBreakerConfig() {
+		if (failureThreshold == null) {
+			return null;
+		}
+		return new CircuitBreakerConfig(failureThreshold, parseBackoff(), parseMaxBackoff(), CircuitBreakerConfig.DEFAULT_JITTER);
+	}
+
+	private long parseBackoff() {
+		return backoff != null ? parseDuration("backoff", backoff) : parseInterval();
+	}
+
+	private long parseMaxBackoff() {
+		return maxBackoff != null ? parseDuration("max-backoff", maxBackoff) : Math.max(CircuitBreakerConfig.DEFAULT_MAX_BACKOFF, parseBackoff());
 	}
 
 	protected List<ValueTransformerConfig> configureValueTransformers(final List<ValueTransformerXBean> valueTransformers) {
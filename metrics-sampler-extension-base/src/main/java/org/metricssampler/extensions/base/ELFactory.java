@@ -1,18 +1,35 @@
 package org.metricssampler.extensions.base;
 
+import java.beans.FeatureDescriptor;
 import java.lang.reflect.Method;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 
 import javax.el.ELContext;
+import javax.el.ELResolver;
 import javax.el.ExpressionFactory;
+import javax.el.FunctionMapper;
+import javax.el.PropertyNotWritableException;
+import javax.el.ValueExpression;
+import javax.el.VariableMapper;
 
 import de.odysseus.el.util.SimpleContext;
+import de.odysseus.el.util.SimpleResolver;
 
+/**
+ * Parses the expressions of the EL value transformers and creates the contexts to evaluate them with. The functions are registered once in
+ * the context used for parsing; the parsed expressions are immutable and resolve the variable {@code value} from the context they are
+ * evaluated with, so they can be evaluated by several threads at once.
+ */
 public class ELFactory {
+	public static final String VALUE_VARIABLE = "value";
+
 	private final ExpressionFactory factory;
 	private final Map<String, Method> functions = new HashMap<String, Method>();
+	private final SimpleContext parseContext = new SimpleContext();
+	private final ELResolver resolver = new ValueResolver(new SimpleResolver(true));
 	
 	public ELFactory() {
 		factory = ExpressionFactory.newInstance();
@@ -32,16 +49,27 @@ public class ELFactory {
 		} catch (final SecurityException e) {
 			throw new IllegalStateException(e);
 		}
-	}
-
-	public ELContext newContext(final String value) {
-		final SimpleContext result = new SimpleContext();
 		for (final Entry<String, Method> entry : functions.entrySet()) {
 			final int colonIdx = entry.getKey().indexOf(':');
-			result.setFunction(entry.getKey().substring(0, colonIdx), entry.getKey().substring(colonIdx+1), entry.getValue());
+			parseContext.setFunction(entry.getKey().substring(0, colonIdx), entry.getKey().substring(colonIdx+1), entry.getValue());
+		}
+	}
+
+	/**
+	 * @param expression the expression without the surrounding {@code #{...}}
+	 * @return the parsed expression which can be evaluated with a context from {@link #newContext(String)}
+	 */
+	public ValueExpression createExpression(final String expression) {
+		synchronized (parseContext) {
+			return factory.createValueExpression(parseContext, "#{" + expression + "}", Object.class);
 		}
-		result.setVariable("value", factory.createValueExpression(value, String.class));
-		return result;
+	}
+
+	/**
+	 * @return a context to evaluate an expression from {@link #createExpression(String)} with the given value
+	 */
+	public ELContext newContext(final String value) {
+		return new ValueContext(value);
 	}
 
 	public ExpressionFactory getFactory() {
@@ -55,4 +83,87 @@ public class ELFactory {
 	public static String back(final String value, final int beginIndex) {
 		return value != null ? value.substring(beginIndex) : null;
 	}
+
+	private class ValueContext extends ELContext {
+		private final String value;
+
+		public ValueContext(final String value) {
+			this.value = value;
+		}
+
+		@Override
+		public ELResolver getELResolver() {
+			return resolver;
+		}
+
+		@Override
+		public FunctionMapper getFunctionMapper() {
+			return parseContext.getFunctionMapper();
+		}
+
+		@Override
+		public VariableMapper getVariableMapper() {
+			return parseContext.getVariableMapper();
+		}
+	}
+
+	/**
+	 * Resolves the top level identifier {@code value} from the {@link ValueContext} and everything else with the given delegate.
+	 */
+	private static class ValueResolver extends ELResolver {
+		private final ELResolver delegate;
+
+		public ValueResolver(final ELResolver delegate) {
+			this.delegate = delegate;
+		}
+
+		private boolean isValue(final ELContext context, final Object base, final Object property) {
+			return base == null && VALUE_VARIABLE.equals(property) && context instanceof ValueContext;
+		}
+
+		@Override
+		public Object getValue(final ELContext context, final Object base, final Object property) {
+			if (isValue(context, base, property)) {
+				context.setPropertyResolved(true);
+				return ((ValueContext) context).value;
+			}
+			return delegate.getValue(context, base, property);
+		}
+
+		@Override
+		public Class<?> getType(final ELContext context, final Object base, final Object property) {
+			if (isValue(context, base, property)) {
+				context.setPropertyResolved(true);
+				return String.class;
+			}
+			return delegate.getType(context, base, property);
+		}
+
+		@Override
+		public boolean isReadOnly(final ELContext context, final Object base, final Object property) {
+			if (isValue(context, base, property)) {
+				context.setPropertyResolved(true);
+				return true;
+			}
+			return delegate.isReadOnly(context, base, property);
+		}
+
+		@Override
+		public void setValue(final ELContext context, final Object base, final Object property, final Object value) {
+			if (isValue(context, base, property)) {
+				throw new PropertyNotWritableException("Variable \"" + VALUE_VARIABLE + "\" is read-only");
+			}
+			delegate.setValue(context, base, property, value);
+		}
+
+		@Override
+		public Iterator<FeatureDescriptor> getFeatureDescriptors(final ELContext context, final Object base) {
+			return delegate.getFeatureDescriptors(context, base);
+		}
+
+		@Override
+		public Class<?> getCommonPropertyType(final ELContext context, final Object base) {
+			return delegate.getCommonPropertyType(context, base);
+		}
+	}
 }
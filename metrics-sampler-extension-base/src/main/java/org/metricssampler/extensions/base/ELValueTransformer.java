@@ -1,27 +1,25 @@
 package org.metricssampler.extensions.base;
 
-import javax.el.ELContext;
 import javax.el.ValueExpression;
 
 import org.metricssampler.values.NameRegExpValueTransformer;
 
+/**
+ * Transforms the value using an expression language expression which is parsed once. Thread safe.
+ */
 public class ELValueTransformer extends NameRegExpValueTransformer {
 	private final ELFactory elFactory;
+	private final ValueExpression expression;
 
 	public ELValueTransformer(final ELValueTransformerConfig config, final ELFactory elFactory) {
 		super(config);
 		this.elFactory = elFactory;
-	}
-
-	private ELValueTransformerConfig getConfig() {
-		return (ELValueTransformerConfig) config;
+		this.expression = elFactory.createExpression(config.getExpression());
 	}
 
 	@Override
 	public String transform(final String value) {
-		final ELContext context = elFactory.newContext(value);
-		final ValueExpression expression = elFactory.getFactory().createValueExpression(context, "#{" + getConfig().getExpression() + "}", Object.class); 
-		final Object result = expression.getValue(context);
+		final Object result = expression.getValue(elFactory.newContext(value));
 		return result != null ? result.toString() : null;
 	}
 }
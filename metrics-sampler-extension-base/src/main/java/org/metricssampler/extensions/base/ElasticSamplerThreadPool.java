@@ -0,0 +1,174 @@
+package org.metricssampler.extensions.base;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.metricssampler.config.ThreadPoolConfig;
+import org.metricssampler.resources.SamplerTask;
+import org.metricssampler.resources.SamplerThreadPool;
+import org.metricssampler.sampler.Sampler;
+import org.metricssampler.service.GlobalRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A sampler thread pool that separates timing from execution: a single scheduler thread fires the samplers at their intervals and hands
+ * each execution over to a pool of worker threads. Idle workers beyond the core size are disposed after the keep alive time, so the pool
+ * only holds as many threads as there are samplers waiting for their targets at the same time. The maximum size limits the number of
+ * concurrently running samplers. If it is reached, or if the previous execution of a sampler has not finished yet, the execution is skipped
+ * instead of being queued so that a slow target never causes a burst of catch-up samples. The scheduler thread is either a scheduled
+ * executor or a {@link HashedTimingWheel}.
+ */
+public class ElasticSamplerThreadPool implements SamplerThreadPool {
+	public static final int DEFAULT_MAX_SIZE = 1000;
+	public static final int DEFAULT_KEEP_ALIVE_TIME = 60;
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+	private final ThreadPoolConfig config;
+	private final AtomicLong rejectedCount = new AtomicLong();
+	private final AtomicLong overlapCount = new AtomicLong();
+	private final ConcurrencyMeter concurrency = new ConcurrencyMeter();
+	private SamplerScheduler scheduler;
+	private ThreadPoolExecutor workers;
+
+	public ElasticSamplerThreadPool(final ThreadPoolConfig config) {
+		checkArgumentNotNull(config, "config");
+		this.config = config;
+		startup();
+		GlobalRegistry.getInstance().addSharedResource(this);
+	}
+
+	@Override
+	public void startup() {
+		final int maxSize = config.getMaxSize() != -1 ? config.getMaxSize() : Math.max(DEFAULT_MAX_SIZE, config.getCoreSize());
+		final int keepAliveTime = config.getKeepAliveTime() != -1 ? config.getKeepAliveTime() : DEFAULT_KEEP_ALIVE_TIME;
+		logger.info("Starting elastic thread pool \"{}\" with {} to {} worker threads", new Object[] {config.getName(), config.getCoreSize(), maxSize});
+		scheduler = createScheduler();
+		workers = new ThreadPoolExecutor(config.getCoreSize(), maxSize, keepAliveTime, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+				new NamedThreadFactory("sampler-" + config.getName()));
+	}
+
+	private SamplerScheduler createScheduler() {
+		final String name = "sampler-scheduler-" + config.getName();
+		if (config.getScheduler() == ThreadPoolConfig.Scheduler.TIMING_WHEEL) {
+			return new HashedTimingWheel(name, config.getTickDuration());
+		}
+		return new ExecutorSamplerScheduler(name);
+	}
+
+	@Override
+	public SamplerTask schedule(final Sampler sampler) {
+		assertStarted();
+		final SamplerTask result = new SamplerTask(sampler);
+		GlobalRegistry.getInstance().addSamplerTask(result);
+		final long interval = sampler.getConfig().getIntervalMillis();
+		final long initialDelay = SamplerPhases.getInitialDelay(config, sampler.getConfig().getName(), interval, System.currentTimeMillis());
+		final long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(initialDelay);
+		scheduler.scheduleAtFixedRate(new Dispatcher(result, due, TimeUnit.MILLISECONDS.toNanos(interval)), initialDelay, interval);
+		return result;
+	}
+
+	protected void assertStarted() {
+		if (scheduler == null) {
+			throw new IllegalStateException("I must be started to do that");
+		}
+	}
+
+	@Override
+	public void shutdown() {
+		logger.info("Shutting down thread pool {}", config.getName());
+		scheduler.shutdown();
+		workers.shutdown();
+		try {
+			logger.debug("Waiting for the worker threads to gracefully shutdown");
+			workers.awaitTermination(20, TimeUnit.SECONDS);
+			logger.info("Executor service terminated");
+		} catch (final InterruptedException e) {
+			logger.warn("Thread pool failed to gracefully shutdown within 20 seconds. Forcing shtudown");
+		}
+		scheduler = null;
+		workers = null;
+	}
+
+	@Override
+	public String getName() {
+		return config.getName();
+	}
+
+	@Override
+	public Map<String, Object> getStats() {
+		final String prefix = "thread-pools." + getName() + ".";
+		final Map<String, Object> result = new HashMap<String, Object>();
+		result.put(prefix + "activeCount", workers.getActiveCount());
+		result.put(prefix + "poolSize", workers.getPoolSize());
+		result.put(prefix + "largestPoolSize", workers.getLargestPoolSize());
+		result.put(prefix + "completedTaskCount", workers.getCompletedTaskCount());
+		result.put(prefix + "rejectedCount", rejectedCount.get());
+		result.put(prefix + "overlapCount", overlapCount.get());
+		result.put(prefix + "burstConcurrency", concurrency.getPeak());
+		return result;
+	}
+
+	/**
+	 * Runs in the scheduler thread and submits the sampler task to the workers unless it is still running. The time the execution was due
+	 * is handed over to the worker so that the schedule lag includes the time spent waiting for a worker.
+	 */
+	private class Dispatcher implements Runnable {
+		private final SamplerTask task;
+		private final long interval;
+		private final AtomicBoolean running = new AtomicBoolean();
+		/**
+		 * Only written by the scheduler thread
+		 */
+		private long due;
+		/**
+		 * Written before the execution is submitted and read by the worker. Executions never overlap.
+		 */
+		private volatile long executionDue;
+		private final Runnable execution = new Runnable() {
+			@Override
+			public void run() {
+				concurrency.enter();
+				try {
+					task.run(executionDue);
+				} finally {
+					concurrency.exit();
+					running.set(false);
+				}
+			}
+		};
+
+		public Dispatcher(final SamplerTask task, final long due, final long interval) {
+			this.task = task;
+			this.due = due;
+			this.interval = interval;
+		}
+
+		@Override
+		public void run() {
+			final long scheduled = due;
+			due += interval;
+			if (!running.compareAndSet(false, true)) {
+				overlapCount.incrementAndGet();
+				logger.debug("Skipping execution of {} because the previous one has not finished yet", task.getName());
+				return;
+			}
+			executionDue = scheduled;
+			try {
+				workers.execute(execution);
+			} catch (final RejectedExecutionException e) {
+				running.set(false);
+				rejectedCount.incrementAndGet();
+				logger.debug("Skipping execution of {} because all worker threads are busy", task.getName());
+			}
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package org.metricssampler.extensions.base;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A scheduler backed by a scheduled thread pool executor with one thread.
+ */
+public class ExecutorSamplerScheduler implements SamplerScheduler {
+	private final ScheduledThreadPoolExecutor executor;
+
+	public ExecutorSamplerScheduler(final String name) {
+		this.executor = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory(name));
+	}
+
+	@Override
+	public void scheduleAtFixedRate(final Runnable task, final long initialDelay, final long period) {
+		executor.scheduleAtFixedRate(task, initialDelay, period, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void shutdown() {
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,157 @@
+package org.metricssampler.extensions.base;
+
+import static org.metricssampler.util.Preconditions.checkArgument;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A scheduler that keeps the tasks in a wheel of buckets and advances one bucket per tick of fixed duration. A task due at tick {@code t}
+ * lives in bucket {@code t % wheelSize}, so scheduling a task and expiring it both cost O(1) regardless of the number of tasks. All tasks due
+ * in the same tick are collected first and then run one after another. Periodic tasks are rescheduled relative to their previous deadline
+ * and not to the time they actually ran, so they do not drift. The resolution of the wheel is the tick duration: tasks run at the end of the
+ * tick they are due in.
+ */
+public class HashedTimingWheel implements SamplerScheduler {
+	private static final int WHEEL_SIZE = 1024;
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+	private final long tickDuration;
+	private final List<Entry>[] wheel;
+	private final Queue<Entry> pending = new ConcurrentLinkedQueue<Entry>();
+	private final List<Entry> expired = new ArrayList<Entry>();
+	private final Thread worker;
+	private final long startTime;
+	private volatile boolean running = true;
+	/**
+	 * Only accessed by the worker thread
+	 */
+	private long tick = 0L;
+
+	@SuppressWarnings("unchecked")
+	public HashedTimingWheel(final String name, final long tickDuration) {
+		checkArgument(tickDuration > 0, "tickDuration must be greater than 0");
+		this.tickDuration = tickDuration;
+		this.wheel = new List[WHEEL_SIZE];
+		for (int i = 0; i < wheel.length; i++) {
+			wheel[i] = new ArrayList<Entry>();
+		}
+		this.startTime = System.nanoTime();
+		this.worker = new Thread(new Worker(), name);
+		this.worker.setDaemon(true);
+		this.worker.start();
+	}
+
+	@Override
+	public void scheduleAtFixedRate(final Runnable task, final long initialDelay, final long period) {
+		checkArgumentNotNull(task, "task");
+		checkArgument(initialDelay >= 0, "initialDelay must not be negative");
+		checkArgument(period > 0, "period must be greater than 0");
+		pending.add(new Entry(task, elapsedMillis() + initialDelay, period));
+	}
+
+	@Override
+	public void shutdown() {
+		running = false;
+		worker.interrupt();
+		try {
+			worker.join(TimeUnit.SECONDS.toMillis(20));
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private long elapsedMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+	}
+
+	/**
+	 * Put the entry in the bucket of the tick it is due in but not before the given tick
+	 */
+	private void add(final Entry entry, final long minTick) {
+		final long dueTick = Math.max(minTick, entry.deadline / tickDuration);
+		wheel[(int) (dueTick % WHEEL_SIZE)].add(entry);
+	}
+
+	private void expire(final List<Entry> bucket) {
+		final long end = (tick + 1) * tickDuration;
+		int kept = 0;
+		for (int i = 0; i < bucket.size(); i++) {
+			final Entry entry = bucket.get(i);
+			if (entry.deadline < end) {
+				expired.add(entry);
+			} else {
+				bucket.set(kept++, entry);
+			}
+		}
+		for (int i = bucket.size() - 1; i >= kept; i--) {
+			bucket.remove(i);
+		}
+	}
+
+	private void runExpired() {
+		for (final Entry entry : expired) {
+			try {
+				entry.task.run();
+			} catch (final RuntimeException e) {
+				logger.warn("Scheduled task threw exception. Ignoring.", e);
+			}
+			entry.deadline += entry.period;
+			add(entry, tick + 1);
+		}
+		expired.clear();
+	}
+
+	/**
+	 * Sleep until the end of the current tick
+	 */
+	private void waitForTick() throws InterruptedException {
+		final long end = (tick + 1) * tickDuration;
+		final long remaining = end - elapsedMillis();
+		if (remaining > 0) {
+			Thread.sleep(remaining);
+		}
+	}
+
+	private class Worker implements Runnable {
+		@Override
+		public void run() {
+			while (running) {
+				try {
+					waitForTick();
+				} catch (final InterruptedException e) {
+					break;
+				}
+				Entry entry;
+				while ((entry = pending.poll()) != null) {
+					add(entry, tick);
+				}
+				expire(wheel[(int) (tick % WHEEL_SIZE)]);
+				runExpired();
+				tick++;
+			}
+		}
+	}
+
+	private static class Entry {
+		private final Runnable task;
+		private final long period;
+		/**
+		 * Milliseconds since the start of the wheel
+		 */
+		private long deadline;
+
+		public Entry(final Runnable task, final long deadline, final long period) {
+			this.task = task;
+			this.deadline = deadline;
+			this.period = period;
+		}
+	}
+}
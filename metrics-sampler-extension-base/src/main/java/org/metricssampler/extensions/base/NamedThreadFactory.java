@@ -0,0 +1,21 @@
+package org.metricssampler.extensions.base;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates threads named after a common prefix and a sequence number.
+ */
+public class NamedThreadFactory implements ThreadFactory {
+	private final String prefix;
+	private final AtomicInteger count = new AtomicInteger();
+
+	public NamedThreadFactory(final String prefix) {
+		this.prefix = prefix;
+	}
+
+	@Override
+	public Thread newThread(final Runnable runnable) {
+		return new Thread(runnable, prefix + "-" + count.incrementAndGet());
+	}
+}
@@ -0,0 +1,83 @@
+package org.metricssampler.extensions.base;
+
+import org.metricssampler.reader.DoubleMetricValue;
+import org.metricssampler.reader.LongMetricValue;
+import org.metricssampler.reader.MetricValue;
+import org.metricssampler.values.NameRegExpValueTransformer;
+import org.metricssampler.values.TypedValueTransformer;
+
+/**
+ * Multiplies numeric values with a factor and clamps the result to a range. Longs stay longs as long as the factor and the bounds are
+ * integral and the result does not overflow, everything else becomes a double. Values that are not numbers are left as they are. Thread
+ * safe.
+ */
+public class NumericValueTransformer extends NameRegExpValueTransformer implements TypedValueTransformer {
+	private final double factor;
+	private final double min;
+	private final double max;
+	/**
+	 * {@code true} if longs can be transformed without converting them to doubles
+	 */
+	private final boolean integral;
+	private final long longFactor;
+	private final long longMin;
+	private final long longMax;
+
+	public NumericValueTransformer(final NumericValueTransformerConfig config) {
+		super(config);
+		this.factor = config.getFactor();
+		this.min = config.getMin();
+		this.max = config.getMax();
+		this.integral = isLong(factor) && (isLong(min) || min == Double.NEGATIVE_INFINITY) && (isLong(max) || max == Double.POSITIVE_INFINITY);
+		this.longFactor = (long) factor;
+		this.longMin = min == Double.NEGATIVE_INFINITY ? Long.MIN_VALUE : (long) min;
+		this.longMax = max == Double.POSITIVE_INFINITY ? Long.MAX_VALUE : (long) max;
+	}
+
+	private static boolean isLong(final double value) {
+		return value == Math.rint(value) && Math.abs(value) < Long.MAX_VALUE;
+	}
+
+	@Override
+	public MetricValue transform(final MetricValue value) {
+		if (value instanceof LongMetricValue) {
+			return transform(value.getTimestamp(), ((LongMetricValue) value).getLongValue());
+		} else if (value instanceof DoubleMetricValue) {
+			return transform(value.getTimestamp(), ((DoubleMetricValue) value).getDoubleValue());
+		}
+		final Object raw = value.getValue();
+		if (raw instanceof Long || raw instanceof Integer || raw instanceof Short || raw instanceof Byte) {
+			return transform(value.getTimestamp(), ((Number) raw).longValue());
+		} else if (raw instanceof Number) {
+			return transform(value.getTimestamp(), ((Number) raw).doubleValue());
+		} else if (raw != null) {
+			final MetricValue parsed = MetricValue.parse(value.getTimestamp(), raw.toString());
+			if (parsed instanceof LongMetricValue || parsed instanceof DoubleMetricValue) {
+				return transform(parsed);
+			}
+		}
+		return value;
+	}
+
+	private MetricValue transform(final long timestamp, final long value) {
+		if (integral) {
+			final long result = value * longFactor;
+			if (longFactor == 0 || result / longFactor == value) {
+				return new LongMetricValue(timestamp, Math.min(Math.max(result, longMin), longMax));
+			}
+		}
+		return transform(timestamp, (double) value);
+	}
+
+	private MetricValue transform(final long timestamp, final double value) {
+		return new DoubleMetricValue(timestamp, Math.min(Math.max(value * factor, min), max));
+	}
+
+	@Override
+	public String transform(final String value) {
+		if (value == null) {
+			return null;
+		}
+		return transform(MetricValue.parse(0L, value)).toString();
+	}
+}
@@ -0,0 +1,35 @@
+package org.metricssampler.extensions.base;
+
+import java.util.regex.Pattern;
+
+import org.metricssampler.config.NameRegExpValueTransformerConfig;
+
+public class NumericValueTransformerConfig extends NameRegExpValueTransformerConfig {
+	private final double factor;
+	private final double min;
+	private final double max;
+
+	/**
+	 * @param factor the factor to multiply the values with
+	 * @param min the lower bound of the result or {@link Double#NEGATIVE_INFINITY}
+	 * @param max the upper bound of the result or {@link Double#POSITIVE_INFINITY}
+	 */
+	public NumericValueTransformerConfig(final Pattern namePattern, final double factor, final double min, final double max) {
+		super(namePattern);
+		this.factor = factor;
+		this.min = min;
+		this.max = max;
+	}
+
+	public double getFactor() {
+		return factor;
+	}
+
+	public double getMin() {
+		return min;
+	}
+
+	public double getMax() {
+		return max;
+	}
+}
@@ -0,0 +1,51 @@
+package org.metricssampler.extensions.base;
+
+import org.metricssampler.config.ConfigurationException;
+import org.metricssampler.config.loader.xbeans.NameRegExpValueTransformerXBean;
+
+import com.thoughtworks.xstream.annotations.XStreamAlias;
+import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
+
+/**
+ * Base class of the value transformers that are configured as a {@link NumericValueTransformer}: all of them can clamp the result to the
+ * range given by the optional attributes {@code min} and {@code max}.
+ */
+public abstract class NumericValueTransformerXBean extends NameRegExpValueTransformerXBean {
+	@XStreamAsAttribute
+	private Double min;
+
+	@XStreamAsAttribute
+	private Double max;
+
+	@Override
+	protected void validate() {
+		super.validate();
+		if (min != null && max != null && min > max) {
+			final String tag = getClass().getAnnotation(XStreamAlias.class).value();
+			throw new ConfigurationException("Attribute \"min\" of " + tag + " with value " + min + " is greater than \"max\" with value " + max);
+		}
+	}
+
+	protected double getMin() {
+		return min != null ? min : Double.NEGATIVE_INFINITY;
+	}
+
+	protected double getMax() {
+		return max != null ? max : Double.POSITIVE_INFINITY;
+	}
+
+	protected boolean hasBounds() {
+		return min != null || max != null;
+	}
+
+	/**
+	 * @return the factor to multiply the values with
+	 */
+	protected abstract double getFactor();
+
+	@Override
+	public NumericValueTransformerConfig toConfig() {
+		validate();
+		return new NumericValueTransformerConfig(getNamePattern(), getFactor(), getMin(), getMax());
+	}
+}
@@ -2,14 +2,15 @@ package org.metricssampler.extensions.base;
 
 import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.metricssampler.reader.MetricName;
 import org.metricssampler.selector.AbstractMetricsSelector;
+import org.metricssampler.selector.KeyExpressionTemplate;
 import org.metricssampler.selector.SelectedMetric;
+import org.metricssampler.util.StringUtils;
 
 /**
  * Select metrics using regular expressions and rename them using an expression that can contain variables. 
@@ -19,6 +20,8 @@ public class RegExpMetricsSelector extends AbstractMetricsSelector {
 
 	private Pattern namePattern;
 	private Pattern descriptionPattern;
+	private String namePrefix = "";
+	private KeyExpressionTemplate keyExpression;
 	
 	public RegExpMetricsSelector(final RegExpSelectorConfig config) {
 		checkArgumentNotNull(config, "config");
@@ -29,6 +32,13 @@ public class RegExpMetricsSelector extends AbstractMetricsSelector {
 	protected void doAfterVariablesSet(final Map<String, Object> variables) {
 		this.namePattern = createPattern(config.getNamePattern());
 		this.descriptionPattern = createPattern(config.getDescriptionPattern());
+		this.namePrefix = namePattern != null ? StringUtils.literalPrefix(namePattern.pattern()) : "";
+		this.keyExpression = compileKeyExpression(config.getKeyExpression());
+	}
+
+	@Override
+	protected String getNamePrefix() {
+		return namePrefix;
 	}
 
 	protected Pattern createPattern(final String text) {
@@ -42,34 +52,22 @@ public class RegExpMetricsSelector extends AbstractMetricsSelector {
 
 	@Override
 	protected SelectedMetric selectMetric(final MetricName from) {
-		Map<String, Object> context = null;
-
+		Matcher nameMatcher = null;
 		if (namePattern != null) {
-			final Matcher nameMatcher = namePattern.matcher(from.getName());
+			nameMatcher = namePattern.matcher(from.getName());
 			if (!nameMatcher.matches()) {
 				return null;
 			}
-			context = addGroups(nameMatcher, "name", context);
 		}
+		Matcher descriptionMatcher = null;
 		if (descriptionPattern != null) {
-			final Matcher descriptionMatcher = descriptionPattern.matcher(from.getDescription());
+			descriptionMatcher = descriptionPattern.matcher(from.getDescription());
 			if (!descriptionMatcher.matches()) {
 				return null;
 			}
-			context = addGroups(descriptionMatcher, "description", context);
 		}
-		addVariables(context);
-		final String newName = replaceVariables(config.getKeyExpression(), context);
+		final String newName = keyExpression.render(nameMatcher, descriptionMatcher);
 		return new SelectedMetric(from, newName);
-		
-	}
-
-	private Map<String, Object> addGroups(final Matcher matcher, final String prefix, final Map<String, Object> context) {
-		final Map<String, Object> result = context == null ? new HashMap<String, Object>() : context;
-		for (int i=0; i<=matcher.groupCount(); i++) {
-			result.put(prefix+"["+i+"]", matcher.group(i));
-		}
-		return result;
 	}
 
 	@Override
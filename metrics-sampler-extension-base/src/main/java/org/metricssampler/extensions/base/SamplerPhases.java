@@ -0,0 +1,42 @@
+package org.metricssampler.extensions.base;
+
+import org.metricssampler.config.ThreadPoolConfig;
+import org.metricssampler.config.ThreadPoolConfig.Phase;
+
+/**
+ * Computes when a sampler should run for the first time according to the phase settings of its thread pool.
+ */
+public final class SamplerPhases {
+	private SamplerPhases() {
+	}
+
+	/**
+	 * @param config the configuration of the thread pool
+	 * @param name the name of the sampler
+	 * @param interval the interval of the sampler in milliseconds
+	 * @param now the current time in milliseconds since the epoch
+	 * @return the delay in milliseconds before the first run of the sampler
+	 */
+	public static long getInitialDelay(final ThreadPoolConfig config, final String name, final long interval, final long now) {
+		final long offset = config.getPhase() == Phase.SPREAD ? getOffset(name, interval) : 0L;
+		if (!config.isAlignToInterval()) {
+			return offset;
+		}
+		final long result = now - now % interval + offset - now;
+		return result >= 0 ? result : result + interval;
+	}
+
+	/**
+	 * @return a fixed offset in the range [0, interval) derived from the name
+	 */
+	public static long getOffset(final String name, final long interval) {
+		// mix the bits so that similar names like "sampler1" and "sampler2" end up far apart (finalizer of MurmurHash3)
+		long hash = name.hashCode();
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return (hash & Long.MAX_VALUE) % interval;
+	}
+}
@@ -0,0 +1,14 @@
+package org.metricssampler.extensions.base;
+
+/**
+ * Fires tasks at a fixed rate on a single thread. The tasks are expected to return quickly, e.g. by handing the actual work over to
+ * another thread.
+ */
+public interface SamplerScheduler {
+	/**
+	 * Run the task periodically, first after the initial delay and then every period. Both values are in milliseconds.
+	 */
+	void scheduleAtFixedRate(Runnable task, long initialDelay, long period);
+
+	void shutdown();
+}
@@ -0,0 +1,23 @@
+package org.metricssampler.extensions.base;
+
+import static org.metricssampler.config.loader.xbeans.ValidationUtils.notNull;
+
+import com.thoughtworks.xstream.annotations.XStreamAlias;
+import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
+
+@XStreamAlias("scale-value-transformer")
+public class ScaleValueTransformerXBean extends NumericValueTransformerXBean {
+	@XStreamAsAttribute
+	private Double factor;
+
+	@Override
+	protected void validate() {
+		super.validate();
+		notNull(this, "factor", factor);
+	}
+
+	@Override
+	protected double getFactor() {
+		return factor;
+	}
+}
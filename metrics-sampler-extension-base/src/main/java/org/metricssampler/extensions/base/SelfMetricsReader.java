@@ -6,15 +6,23 @@ import java.util.Map.Entry;
 
 import org.metricssampler.reader.AbstractMetricsReader;
 import org.metricssampler.reader.BulkMetricsReader;
+import org.metricssampler.reader.LongMetricValue;
 import org.metricssampler.reader.MetricName;
 import org.metricssampler.reader.MetricValue;
 import org.metricssampler.reader.SimpleMetricName;
 import org.metricssampler.resources.SamplerStats;
+import org.metricssampler.resources.SamplerStats.Phase;
 import org.metricssampler.resources.SamplerTask;
 import org.metricssampler.resources.SharedResource;
 import org.metricssampler.service.GlobalRegistry;
+import org.metricssampler.util.Histogram;
 
 public class SelfMetricsReader extends AbstractMetricsReader<SelfInputConfig> implements BulkMetricsReader{
+	/**
+	 * The phase times of each sampler at the last reading of this reader, so that every reader reports the durations of its own interval
+	 */
+	private final Map<String, Histogram.Snapshot> previousPhaseTimes = new HashMap<String, Histogram.Snapshot>();
+
 	public SelfMetricsReader(final SelfInputConfig config) {
 		super(config);
 	}
@@ -29,26 +37,28 @@ public class SelfMetricsReader extends AbstractMetricsReader<SelfInputConfig> im
 		// nothing to do here
 	}
 
+	/**
+	 * @return the names of the metrics without starting a new interval of the phase times
+	 */
 	@Override
 	public Iterable<MetricName> readNames() {
-		return readAllMetrics().keySet();
+		return readMetrics(false).keySet();
 	}
 
 	@Override
 	public Map<MetricName, MetricValue> readAllMetrics() {
+		return readMetrics(true);
+	}
+
+	/**
+	 * @param nextInterval whether the phase times read now are the start of the next interval of this reader
+	 */
+	private Map<MetricName, MetricValue> readMetrics(final boolean nextInterval) {
 		final Map<MetricName, MetricValue> result = new HashMap<MetricName, MetricValue>();
 		final GlobalRegistry registry = GlobalRegistry.getInstance();
 		final long timestamp = System.currentTimeMillis();
 		for(final SamplerTask task : registry.getTasks()) {
-			final SamplerStats stats = task.getStats();
-			final String prefix = "samplers." + task.getName() + ".";
-			result.put(new SimpleMetricName(prefix + "activeTime", "The number of seconds since the last activation of the sampler"), new MetricValue(timestamp, stats.getActiveTime()));
-			result.put(new SimpleMetricName(prefix + "sampleSuccessCount", "The total number of successful samplings"), new MetricValue(timestamp, stats.getSampleSuccessCount()));
-			result.put(new SimpleMetricName(prefix + "sampleFailureCount", "The total number of failed samplings due to unexpected exception"), new MetricValue(timestamp, stats.getSampleFailureCount()));
-			result.put(new SimpleMetricName(prefix + "connectCount", "The total number of times the reader tried to connect to the input"), new MetricValue(timestamp, stats.getConnectCount()));
-			result.put(new SimpleMetricName(prefix + "disconnectCount", "The total number of times the reader tried to disconnect from the input"), new MetricValue(timestamp, stats.getDisconnectCount()));
-			result.put(new SimpleMetricName(prefix + "metricsCount", "The total number of metrics sampled the last time"), new MetricValue(timestamp, stats.getMetricsCount()));
-			result.put(new SimpleMetricName(prefix + "sampleDuration", "The last sample duration in seconds"), new MetricValue(timestamp, stats.getSampleDuration()));
+			addSamplerMetrics(result, task, timestamp, nextInterval);
 		}
 
 		for (final SharedResource sharedResource : registry.getSharedResources()) {
@@ -60,4 +70,46 @@ public class SelfMetricsReader extends AbstractMetricsReader<SelfInputConfig> im
 		return result;
 	}
 
+	/**
+	 * Add the metrics of one sampler. Package visible for testing as the registry is global.
+	 *
+	 * @param nextInterval whether the phase times read now are the start of the next interval of this reader
+	 */
+	void addSamplerMetrics(final Map<MetricName, MetricValue> result, final SamplerTask task, final long timestamp, final boolean nextInterval) {
+		final SamplerStats.Snapshot stats = task.getStats().getSnapshot();
+		final String prefix = "samplers." + task.getName() + ".";
+		result.put(new SimpleMetricName(prefix + "activeTime", "The number of seconds since the last activation of the sampler"), new LongMetricValue(timestamp, stats.getActiveTime()));
+		result.put(new SimpleMetricName(prefix + "sampleSuccessCount", "The total number of successful samplings"), new LongMetricValue(timestamp, stats.getSampleSuccessCount()));
+		result.put(new SimpleMetricName(prefix + "sampleFailureCount", "The total number of failed samplings due to unexpected exception"), new LongMetricValue(timestamp, stats.getSampleFailureCount()));
+		result.put(new SimpleMetricName(prefix + "overrunCount", "The total number of samplings interrupted because they exceeded the timeout"), new LongMetricValue(timestamp, stats.getOverrunCount()));
+		result.put(new SimpleMetricName(prefix + "skippedCount", "The total number of executions skipped because the previous sampling was still running"), new LongMetricValue(timestamp, stats.getSkippedCount()));
+		result.put(new SimpleMetricName(prefix + "connectCount", "The total number of times the reader tried to connect to the input"), new LongMetricValue(timestamp, stats.getConnectCount()));
+		result.put(new SimpleMetricName(prefix + "disconnectCount", "The total number of times the reader tried to disconnect from the input"), new LongMetricValue(timestamp, stats.getDisconnectCount()));
+		result.put(new SimpleMetricName(prefix + "writerConnectCount", "The total number of times the writers tried to connect to their outputs"), new LongMetricValue(timestamp, stats.getWriterConnectCount()));
+		result.put(new SimpleMetricName(prefix + "writerReconnectCount", "The total number of times the writers reconnected to their outputs after a broken connection"), new LongMetricValue(timestamp, stats.getWriterReconnectCount()));
+		result.put(new SimpleMetricName(prefix + "writerPacketCount", "The total number of datagrams the writers sent to their outputs"), new LongMetricValue(timestamp, stats.getWriterPacketCount()));
+		result.put(new SimpleMetricName(prefix + "writerByteCount", "The total number of bytes the writers sent to their outputs as datagrams"), new LongMetricValue(timestamp, stats.getWriterByteCount()));
+		result.put(new SimpleMetricName(prefix + "metricsCount", "The total number of metrics sampled the last time"), new LongMetricValue(timestamp, stats.getMetricsCount()));
+		result.put(new SimpleMetricName(prefix + "sampleDuration", "The last sample duration in seconds"), new LongMetricValue(timestamp, stats.getSampleDuration()));
+		result.put(new SimpleMetricName(prefix + "sampleDurationMillis", "The last sample duration in milliseconds"), new LongMetricValue(timestamp, stats.getSampleDurationMillis()));
+		result.put(new SimpleMetricName(prefix + "circuitBreakerState", "The state of the circuit breaker: 0 closed, 1 open, 2 half open"), new LongMetricValue(timestamp, stats.getCircuitBreakerState().ordinal()));
+		result.put(new SimpleMetricName(prefix + "shortCircuitCount", "The total number of samplings skipped because the circuit breaker was open"), new LongMetricValue(timestamp, stats.getShortCircuitCount()));
+		result.put(new SimpleMetricName(prefix + "effectiveInterval", "The number of milliseconds between two attempts to read the input"), new LongMetricValue(timestamp, stats.getEffectiveInterval()));
+		for (final Phase phase : Phase.values()) {
+			final String phasePrefix = prefix + phase.getMetricName();
+			final Histogram.Snapshot times = task.getStats().getPhaseTimes(phase);
+			final Histogram.Snapshot previousTimes = previousPhaseTimes.get(phasePrefix);
+			addPhaseTimes(result, phasePrefix, times.since(previousTimes != null ? previousTimes : Histogram.EMPTY_SNAPSHOT), timestamp);
+			if (nextInterval) {
+				previousPhaseTimes.put(phasePrefix, times);
+			}
+		}
+	}
+
+	private void addPhaseTimes(final Map<MetricName, MetricValue> result, final String prefix, final Histogram.Snapshot times, final long timestamp) {
+		result.put(new SimpleMetricName(prefix + "P50Micros", "The median duration in microseconds since the last sampling of the self metrics"), new LongMetricValue(timestamp, times.getValueAtPercentile(50)));
+		result.put(new SimpleMetricName(prefix + "P95Micros", "The 95th percentile of the duration in microseconds since the last sampling of the self metrics"), new LongMetricValue(timestamp, times.getValueAtPercentile(95)));
+		result.put(new SimpleMetricName(prefix + "P99Micros", "The 99th percentile of the duration in microseconds since the last sampling of the self metrics"), new LongMetricValue(timestamp, times.getValueAtPercentile(99)));
+		result.put(new SimpleMetricName(prefix + "MaxMicros", "The maximum duration in microseconds since the last sampling of the self metrics"), new LongMetricValue(timestamp, times.getMax()));
+	}
 }
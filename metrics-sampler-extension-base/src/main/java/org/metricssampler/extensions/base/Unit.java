@@ -0,0 +1,66 @@
+package org.metricssampler.extensions.base;
+
+/**
+ * The units a {@link UnitValueTransformerXBean} can convert between. Each unit is a multiple of the smallest unit of its dimension so that
+ * the conversion factors are computed from exact integers.
+ */
+public enum Unit {
+	NANOSECONDS("ns", Dimension.TIME, 1L),
+	MICROSECONDS("us", Dimension.TIME, 1000L),
+	MILLISECONDS("ms", Dimension.TIME, 1000000L),
+	SECONDS("s", Dimension.TIME, 1000000000L),
+	MINUTES("min", Dimension.TIME, 60L * 1000000000L),
+	HOURS("h", Dimension.TIME, 3600L * 1000000000L),
+	DAYS("d", Dimension.TIME, 86400L * 1000000000L),
+	BYTES("B", Dimension.DATA, 1L),
+	KILOBYTES("KB", Dimension.DATA, 1000L),
+	MEGABYTES("MB", Dimension.DATA, 1000L * 1000L),
+	GIGABYTES("GB", Dimension.DATA, 1000L * 1000L * 1000L),
+	KIBIBYTES("KiB", Dimension.DATA, 1024L),
+	MEBIBYTES("MiB", Dimension.DATA, 1024L * 1024L),
+	GIBIBYTES("GiB", Dimension.DATA, 1024L * 1024L * 1024L);
+
+	public enum Dimension {
+		TIME, DATA
+	}
+
+	private final String symbol;
+	private final Dimension dimension;
+	private final long multiple;
+
+	private Unit(final String symbol, final Dimension dimension, final long multiple) {
+		this.symbol = symbol;
+		this.dimension = dimension;
+		this.multiple = multiple;
+	}
+
+	public String getSymbol() {
+		return symbol;
+	}
+
+	public Dimension getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * @return the factor to multiply a value in this unit with to get the value in the given unit
+	 */
+	public double getFactorTo(final Unit unit) {
+		if (dimension != unit.dimension) {
+			throw new IllegalArgumentException("Cannot convert " + symbol + " to " + unit.symbol);
+		}
+		return (double) multiple / unit.multiple;
+	}
+
+	/**
+	 * @return the unit with the given symbol or {@code null} if there is none
+	 */
+	public static Unit fromSymbol(final String symbol) {
+		for (final Unit unit : values()) {
+			if (unit.symbol.equals(symbol)) {
+				return unit;
+			}
+		}
+		return null;
+	}
+}
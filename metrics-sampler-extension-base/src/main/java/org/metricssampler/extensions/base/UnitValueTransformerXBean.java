@@ -0,0 +1,47 @@
+package org.metricssampler.extensions.base;
+
+import static org.metricssampler.config.loader.xbeans.ValidationUtils.notEmpty;
+
+import org.metricssampler.config.ConfigurationException;
+
+import com.thoughtworks.xstream.annotations.XStreamAlias;
+import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
+
+@XStreamAlias("unit-value-transformer")
+public class UnitValueTransformerXBean extends NumericValueTransformerXBean {
+	@XStreamAsAttribute
+	private String from;
+
+	@XStreamAsAttribute
+	private String to;
+
+	@Override
+	protected void validate() {
+		super.validate();
+		notEmpty(this, "from", from);
+		notEmpty(this, "to", to);
+		final Unit fromUnit = parseUnit("from", from);
+		final Unit toUnit = parseUnit("to", to);
+		if (fromUnit.getDimension() != toUnit.getDimension()) {
+			throw new ConfigurationException("Attributes \"from\" and \"to\" of unit-value-transformer must be units of the same dimension but "
+					+ from + " is " + fromUnit.getDimension() + " and " + to + " is " + toUnit.getDimension());
+		}
+	}
+
+	private Unit parseUnit(final String name, final String symbol) {
+		final Unit result = Unit.fromSymbol(symbol);
+		if (result == null) {
+			final StringBuilder symbols = new StringBuilder();
+			for (final Unit unit : Unit.values()) {
+				symbols.append(symbols.length() > 0 ? ", " : "").append(unit.getSymbol());
+			}
+			throw new ConfigurationException("Attribute \"" + name + "\" of unit-value-transformer with value " + symbol + " is not one of " + symbols);
+		}
+		return result;
+	}
+
+	@Override
+	protected double getFactor() {
+		return Unit.fromSymbol(from).getFactorTo(Unit.fromSymbol(to));
+	}
+}
@@ -0,0 +1,34 @@
+package org.metricssampler.extensions.base;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ConcurrencyMeterTest {
+	private final ConcurrencyMeter testee = new ConcurrencyMeter();
+
+	@Test
+	public void getPeakIsNotResetByReading() {
+		testee.enter();
+		testee.enter();
+		testee.exit();
+		testee.exit();
+
+		assertEquals(0, testee.getCurrent());
+		assertEquals(2, testee.getPeak());
+		assertEquals(2, testee.getPeak());
+	}
+
+	@Test
+	public void getPeakKeepsHighestBurst() {
+		testee.enter();
+		testee.exit();
+		testee.enter();
+		testee.enter();
+		testee.enter();
+		testee.exit();
+
+		assertEquals(2, testee.getCurrent());
+		assertEquals(3, testee.getPeak());
+	}
+}
@@ -0,0 +1,143 @@
+package org.metricssampler.extensions.base;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.metricssampler.config.InputConfig;
+import org.metricssampler.config.OutputConfig;
+import org.metricssampler.config.SamplerConfig.MissedTickPolicy;
+import org.metricssampler.config.SelectorConfig;
+import org.metricssampler.config.ValueTransformerConfig;
+import org.metricssampler.reader.BulkMetricsReader;
+import org.metricssampler.reader.MetricName;
+import org.metricssampler.reader.MetricReadException;
+import org.metricssampler.reader.MetricValue;
+import org.metricssampler.reader.SimpleMetricName;
+import org.metricssampler.resources.SamplerStats;
+import org.metricssampler.writer.MetricWriteException;
+import org.metricssampler.writer.MetricsWriter;
+
+/**
+ * Measures the cost of one {@link DefaultSampler#sample()} with an in-memory reader and writer, i.e. everything but the I/O: selecting the
+ * metrics by regular expression, renaming them and handing them to the writer. The numbers show how many metrics a single thread can
+ * sample at a sub-second interval. Run it with {@code java -cp ... DefaultSamplerBenchmark [seconds]}.
+ */
+public class DefaultSamplerBenchmark {
+	private static final int[] METRIC_COUNTS = {10, 100, 1000, 10000};
+	private static final long[] INTERVALS = {100L, 250L};
+
+	public static void main(final String[] args) {
+		final long duration = args.length > 0 ? Long.parseLong(args[0]) * 1000L : 5000L;
+		SamplerStats.init();
+		try {
+			for (final int count : METRIC_COUNTS) {
+				run(count, duration);
+			}
+		} finally {
+			SamplerStats.unset();
+		}
+	}
+
+	private static void run(final int count, final long duration) {
+		final CountingWriter writer = new CountingWriter();
+		final DefaultSampler sampler = createSampler(count, writer);
+		// warm up so that the selector has matched the names and the JIT has compiled the hot path
+		sample(sampler, duration / 5);
+		writer.count = 0L;
+		final long[] result = sample(sampler, duration);
+		final long samples = result[0];
+		final long meanNanos = result[1] / samples;
+		final StringBuilder budget = new StringBuilder();
+		for (final long interval : INTERVALS) {
+			budget.append(String.format(", %5.2f%% of %d ms", 100.0 * meanNanos / (interval * 1000000L), interval));
+		}
+		System.out.printf("%6d metrics: %8d samples, %10d metrics written, mean %8d us, max %8d us%s%n", count, samples, writer.count,
+				meanNanos / 1000, result[2] / 1000, budget);
+	}
+
+	/**
+	 * @return the number of samples, their total duration and the longest duration in nanoseconds
+	 */
+	private static long[] sample(final DefaultSampler sampler, final long duration) {
+		final long end = System.nanoTime() + duration * 1000000L;
+		long samples = 0L;
+		long total = 0L;
+		long max = 0L;
+		long now = System.nanoTime();
+		while (now < end) {
+			sampler.sample();
+			final long done = System.nanoTime();
+			total += done - now;
+			max = Math.max(max, done - now);
+			samples++;
+			now = done;
+		}
+		return new long[] {samples, total, max};
+	}
+
+	private static DefaultSampler createSampler(final int count, final MetricsWriter writer) {
+		final InputConfig input = new InputConfig("benchmark", Collections.<String, Object>emptyMap()) {};
+		final DefaultSamplerConfig config = new DefaultSamplerConfig("benchmark", "default", 100L, 0L, MissedTickPolicy.SKIP, false, false, input,
+				Collections.<OutputConfig>emptyList(), Collections.<SelectorConfig>emptyList(), Collections.<String, Object>emptyMap(),
+				Collections.<String, Object>emptyMap(), Collections.<ValueTransformerConfig>emptyList(), true, 0, null, false);
+		final DefaultSampler result = new DefaultSampler(config, new InMemoryReader(count));
+		result.addSelector(new RegExpMetricsSelector(new RegExpSelectorConfig("java\\.lang:type=Memory\\.(.+)", null, "${sampler.name}.memory.${name[1]}")));
+		result.addWriter(writer);
+		return result;
+	}
+
+	private static class InMemoryReader implements BulkMetricsReader {
+		private final Map<MetricName, MetricValue> metrics = new HashMap<MetricName, MetricValue>();
+
+		public InMemoryReader(final int count) {
+			for (int i = 0; i < count; i++) {
+				metrics.put(new SimpleMetricName("java.lang:type=Memory.attribute" + i, null), new MetricValue(System.currentTimeMillis(), (long) i));
+			}
+		}
+
+		@Override
+		public Map<MetricName, MetricValue> readAllMetrics() throws MetricReadException {
+			return metrics;
+		}
+
+		@Override
+		public void open() throws MetricReadException {
+		}
+
+		@Override
+		public Iterable<MetricName> readNames() {
+			return metrics.keySet();
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public Map<String, Object> getVariables() {
+			return Collections.emptyMap();
+		}
+
+		@Override
+		public void reset() {
+		}
+	}
+
+	private static class CountingWriter implements MetricsWriter {
+		private long count;
+
+		@Override
+		public void open() throws MetricWriteException {
+		}
+
+		@Override
+		public void write(final Map<String, MetricValue> metrics) throws MetricWriteException {
+			count += metrics.size();
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
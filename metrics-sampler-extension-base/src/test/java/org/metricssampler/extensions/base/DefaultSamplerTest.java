@@ -1,15 +1,35 @@
 package org.metricssampler.extensions.base;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentMatcher;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.metricssampler.config.CircuitBreakerConfig;
 import org.metricssampler.reader.BulkMetricsReader;
+import org.metricssampler.reader.MetricValue;
+import org.metricssampler.reader.OpenMetricsReaderException;
+import org.metricssampler.resources.CircuitBreaker;
 import org.metricssampler.resources.SamplerStats;
+import org.metricssampler.resources.SamplerStats.Phase;
 import org.metricssampler.selector.MetricsSelector;
+import org.metricssampler.values.ValueTransformer;
 import org.metricssampler.writer.MetricsWriter;
 
 public class DefaultSamplerTest {
@@ -60,4 +80,110 @@ public class DefaultSamplerTest {
 		verify(writer2, times(1)).open();
 		verify(writer2, times(1)).close();
 	}
+
+	@Test
+	public void transformValuesCachesMatchingTransformer() {
+		final ValueTransformer valueTransformer = mock(ValueTransformer.class);
+		when(valueTransformer.matches("a")).thenReturn(true);
+		when(valueTransformer.transform("1")).thenReturn("2");
+		testee.addValueTransformer(valueTransformer);
+		final Map<String, MetricValue> metrics = new HashMap<String, MetricValue>();
+		metrics.put("a", new MetricValue(0L, "1"));
+		metrics.put("b", new MetricValue(0L, "1"));
+
+		testee.transformValues(metrics);
+		final Map<String, MetricValue> result = testee.transformValues(metrics);
+
+		assertEquals("2", result.get("a").getValue());
+		assertEquals("1", result.get("b").getValue());
+		assertEquals("1", metrics.get("a").getValue());
+		verify(valueTransformer, times(1)).matches("a");
+		verify(valueTransformer, times(1)).matches("b");
+		testee.reset();
+		testee.transformValues(metrics);
+		verify(valueTransformer, times(2)).matches("a");
+	}
+
+	@Test
+	public void transformValuesDoesNotCopyUnchangedMetrics() {
+		final ValueTransformer valueTransformer = mock(ValueTransformer.class);
+		testee.addValueTransformer(valueTransformer);
+		final Map<String, MetricValue> metrics = new HashMap<String, MetricValue>();
+		metrics.put("a", new MetricValue(0L, "1"));
+
+		final Map<String, MetricValue> result = testee.transformValues(metrics);
+
+		assertSame(metrics, result);
+		verify(valueTransformer, never()).transform("1");
+	}
+
+	@Test
+	public void sampleRecordsPhaseTimesWithoutMetadata() {
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(final InvocationOnMock invocation) {
+				SamplerStats.get().recordPhase(Phase.METADATA, 5000000000L);
+				return null;
+			}
+		}).when(bulkReader).open();
+
+		testee.sample();
+
+		final SamplerStats stats = SamplerStats.get();
+		assertEquals(0L, stats.getPhaseTimes(Phase.SCHEDULE_LAG).getCount());
+		assertEquals(5000000L, stats.getPhaseTimes(Phase.METADATA).getMax());
+		assertTrue(stats.getPhaseTimes(Phase.OPEN).getMax() < 5000000L);
+		for (final Phase phase : new Phase[] {Phase.OPEN, Phase.SELECTION, Phase.TRANSFORMATION, Phase.WRITE}) {
+			assertEquals(phase.name(), 1L, stats.getPhaseTimes(phase).getCount());
+		}
+	}
+
+	@Test
+	public void addSelectorPublishesSubSecondInterval() {
+		when(config.getIntervalMillis()).thenReturn(500L);
+		testee = new DefaultSampler(config, bulkReader);
+
+		testee.addSelector(transformer1);
+
+		verify(transformer1).setVariables(argThat(new ArgumentMatcher<Map<String, Object>>() {
+			@Override
+			public boolean matches(final Object argument) {
+				final Map<?, ?> variables = (Map<?, ?>) argument;
+				return Double.valueOf(0.5d).equals(variables.get("sampler.interval")) && Long.valueOf(500L).equals(variables.get("sampler.interval.millis"));
+			}
+		}));
+	}
+
+	@Test
+	public void addSelectorPublishesWholeSecondIntervalAsInteger() {
+		when(config.getIntervalMillis()).thenReturn(10000L);
+		testee = new DefaultSampler(config, bulkReader);
+
+		testee.addSelector(transformer1);
+
+		verify(transformer1).setVariables(argThat(new ArgumentMatcher<Map<String, Object>>() {
+			@Override
+			public boolean matches(final Object argument) {
+				return Long.valueOf(10L).equals(((Map<?, ?>) argument).get("sampler.interval"));
+			}
+		}));
+	}
+
+	@Test
+	public void sampleStopsReadingWhenCircuitBreakerOpens() {
+		when(config.getIntervalMillis()).thenReturn(1000L);
+		when(config.getCircuitBreaker()).thenReturn(new CircuitBreakerConfig(2, 60000L, 60000L, 0d));
+		testee = new DefaultSampler(config, bulkReader);
+		testee.addSelector(transformer1);
+		doThrow(new OpenMetricsReaderException("down")).when(bulkReader).open();
+
+		for (int i = 0; i < 5; i++) {
+			testee.sample();
+		}
+
+		verify(bulkReader, times(2)).open();
+		assertEquals(CircuitBreaker.State.OPEN, SamplerStats.get().getCircuitBreakerState());
+		assertEquals(3, SamplerStats.get().getShortCircuitCount());
+		assertEquals(60000L, SamplerStats.get().getEffectiveInterval());
+	}
 }
@@ -0,0 +1,90 @@
+package org.metricssampler.extensions.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.metricssampler.config.SamplerConfig;
+import org.metricssampler.config.ThreadPoolConfig;
+import org.metricssampler.config.ThreadPoolConfig.Phase;
+import org.metricssampler.config.ThreadPoolConfig.Scheduler;
+import org.metricssampler.config.ThreadPoolConfig.Type;
+import org.metricssampler.sampler.Sampler;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class DefaultSamplerThreadPoolTest {
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+	private static final long TARGET_LAG = TimeUnit.MILLISECONDS.toNanos(100);
+
+	private final ThreadPoolConfig autoSized = new ThreadPoolConfig("auto", false, Type.SCHEDULED, Scheduler.EXECUTOR, 10, Phase.IMMEDIATE, false, true, 100, 2, 10, -1);
+
+	@Test
+	public void computePoolSizeGrowsWhenLagExceedsTarget() {
+		assertEquals(5, DefaultSamplerThreadPool.computePoolSize(autoSized, 4, 2 * TARGET_LAG, 0L, 5 * SECOND));
+		assertEquals(3, DefaultSamplerThreadPool.computePoolSize(autoSized, 2, 2 * TARGET_LAG, 0L, 5 * SECOND));
+		assertEquals(8, DefaultSamplerThreadPool.computePoolSize(autoSized, 2, 2 * TARGET_LAG, 30 * SECOND, 5 * SECOND));
+	}
+
+	@Test
+	public void computePoolSizeShrinksWhenIdle() {
+		assertEquals(5, DefaultSamplerThreadPool.computePoolSize(autoSized, 6, 0L, SECOND, 5 * SECOND));
+		assertEquals(6, DefaultSamplerThreadPool.computePoolSize(autoSized, 6, 0L, 20 * SECOND, 5 * SECOND));
+	}
+
+	@Test
+	public void computePoolSizeKeepsSizeWithinTarget() {
+		assertEquals(6, DefaultSamplerThreadPool.computePoolSize(autoSized, 6, TARGET_LAG, 0L, 5 * SECOND));
+	}
+
+	@Test
+	public void computePoolSizeStaysWithinBounds() {
+		assertEquals(10, DefaultSamplerThreadPool.computePoolSize(autoSized, 10, 10 * TARGET_LAG, 100 * SECOND, 5 * SECOND));
+		assertEquals(2, DefaultSamplerThreadPool.computePoolSize(autoSized, 2, 0L, 0L, 5 * SECOND));
+	}
+
+	@Test
+	public void getStatsReportsScheduleLag() throws InterruptedException {
+		final DefaultSamplerThreadPool testee = new DefaultSamplerThreadPool(new ThreadPoolConfig("lag", false, Type.SCHEDULED, Scheduler.EXECUTOR, 10, Phase.IMMEDIATE, false, false, 100, 1, -1, -1));
+		final CountDownLatch executions = new CountDownLatch(4);
+		try {
+			final Answer<Void> blocking = new Answer<Void>() {
+				@Override
+				public Void answer(final InvocationOnMock invocation) throws Throwable {
+					executions.countDown();
+					Thread.sleep(200L);
+					return null;
+				}
+			};
+			testee.schedule(mockSampler("first", blocking));
+			testee.schedule(mockSampler("second", blocking));
+			assertTrue(executions.await(5, TimeUnit.SECONDS));
+
+			final Map<String, Object> result = testee.getStats();
+
+			assertTrue((Long) result.get("thread-pools.lag.scheduleLagMaxMicros") >= 100000L);
+			assertTrue((Long) result.get("thread-pools.lag.scheduleLagP99Micros") <= (Long) result.get("thread-pools.lag.scheduleLagMaxMicros"));
+			// reading the stats must not discard the lag for the other readers
+			assertTrue((Long) testee.getStats().get("thread-pools.lag.scheduleLagMaxMicros") >= 100000L);
+		} finally {
+			testee.shutdown();
+		}
+	}
+
+	private Sampler mockSampler(final String name, final Answer<Void> sample) {
+		final Sampler result = mock(Sampler.class);
+		final SamplerConfig config = mock(SamplerConfig.class);
+		when(result.getConfig()).thenReturn(config);
+		when(config.getName()).thenReturn(name);
+		when(config.getIntervalMillis()).thenReturn(300L);
+		doAnswer(sample).when(result).sample();
+		return result;
+	}
+}
@@ -0,0 +1,80 @@
+package org.metricssampler.extensions.base;
+
+import java.lang.reflect.Method;
+import java.util.regex.Pattern;
+
+import javax.el.ExpressionFactory;
+import javax.el.ValueExpression;
+
+import de.odysseus.el.util.SimpleContext;
+
+/**
+ * Compares transforming values by creating a context with all functions and parsing the expression for every value (as
+ * {@link ELValueTransformer} used to) with evaluating the expression parsed once by the transformer. Run it with
+ * {@code java -cp ... ELValueTransformerBenchmark [seconds]}.
+ */
+public class ELValueTransformerBenchmark {
+	private static final String EXPRESSION = "c:long(value) / 1024";
+	private static final int VALUE_COUNT = 1000;
+
+	public static void main(final String[] args) throws Exception {
+		final long duration = args.length > 0 ? Long.parseLong(args[0]) * 1000L : 5000L;
+		final String[] values = new String[VALUE_COUNT];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = String.valueOf(i * 4096L);
+		}
+		final ELValueTransformer transformer = new ELValueTransformer(new ELValueTransformerConfig(Pattern.compile(".*"), EXPRESSION), new ELFactory());
+		final ParsingTransformer parsing = new ParsingTransformer();
+
+		// warm up both variants so that the JIT has compiled the hot paths
+		run("parse", parsing, null, values, duration / 5, false);
+		run("compiled", null, transformer, values, duration / 5, false);
+		run("parse", parsing, null, values, duration, true);
+		run("compiled", null, transformer, values, duration, true);
+	}
+
+	private static void run(final String name, final ParsingTransformer parsing, final ELValueTransformer transformer, final String[] values,
+			final long duration, final boolean print) {
+		final long end = System.nanoTime() + duration * 1000000L;
+		long count = 0L;
+		long length = 0L;
+		final long start = System.nanoTime();
+		while (System.nanoTime() < end) {
+			for (final String value : values) {
+				final String result = transformer != null ? transformer.transform(value) : parsing.transform(value);
+				length += result.length();
+			}
+			count += values.length;
+		}
+		if (print) {
+			System.out.printf("%-8s %10d values (mean length %d): %6d ns/value%n", name, count, length / count, (System.nanoTime() - start) / count);
+		}
+	}
+
+	private static class ParsingTransformer {
+		private final ExpressionFactory factory = ExpressionFactory.newInstance();
+		private final Method parseInt;
+		private final Method parseLong;
+		private final Method substring;
+		private final Method back;
+
+		public ParsingTransformer() throws NoSuchMethodException {
+			parseInt = Integer.class.getMethod("parseInt", String.class);
+			parseLong = Long.class.getMethod("parseLong", String.class);
+			substring = ELFactory.class.getMethod("substr", String.class, int.class, int.class);
+			back = ELFactory.class.getMethod("back", String.class, int.class);
+		}
+
+		public String transform(final String value) {
+			final SimpleContext context = new SimpleContext();
+			context.setFunction("c", "int", parseInt);
+			context.setFunction("c", "long", parseLong);
+			context.setFunction("s", "substr", substring);
+			context.setFunction("s", "back", back);
+			context.setVariable("value", factory.createValueExpression(value, String.class));
+			final ValueExpression expression = factory.createValueExpression(context, "#{" + EXPRESSION + "}", Object.class);
+			final Object result = expression.getValue(context);
+			return result != null ? result.toString() : null;
+		}
+	}
+}
@@ -37,6 +37,15 @@ public class ELValueTransformerTest {
 		assertEquals("345", result);
 	}
 
+	@Test
+	public void transformReusesExpression() {
+		final ELValueTransformerConfig config = new ELValueTransformerConfig(Pattern.compile(".*"), "c:long(value) * 1000");
+		final ELValueTransformer testee = new ELValueTransformer(config, elFactory);
+		
+		assertEquals("1000", testee.transform("1"));
+		assertEquals("2000", testee.transform("2"));
+	}
+
 	@Test
 	public void matches() {
 		final ELValueTransformerConfig config = new ELValueTransformerConfig(Pattern.compile("a.*c"), "value");
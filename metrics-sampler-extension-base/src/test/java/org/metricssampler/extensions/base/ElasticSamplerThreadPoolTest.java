@@ -0,0 +1,109 @@
+package org.metricssampler.extensions.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.metricssampler.config.SamplerConfig;
+import org.metricssampler.config.ThreadPoolConfig;
+import org.metricssampler.config.ThreadPoolConfig.Phase;
+import org.metricssampler.config.ThreadPoolConfig.Scheduler;
+import org.metricssampler.config.ThreadPoolConfig.Type;
+import org.metricssampler.sampler.Sampler;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class ElasticSamplerThreadPoolTest {
+	private ElasticSamplerThreadPool testee;
+
+	@Before
+	public void setup() {
+		testee = new ElasticSamplerThreadPool(new ThreadPoolConfig("elastic", false, Type.ELASTIC, Scheduler.EXECUTOR, 10, Phase.IMMEDIATE, false, false, 100, 1, 2, 1));
+	}
+
+	@After
+	public void cleanup() {
+		testee.shutdown();
+	}
+
+	@Test
+	public void scheduleSkipsOverlappingExecutions() throws InterruptedException {
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger executions = new AtomicInteger();
+		final Sampler sampler = mockSampler("slow", new Answer<Void>() {
+			@Override
+			public Void answer(final InvocationOnMock invocation) throws Throwable {
+				executions.incrementAndGet();
+				release.await(5, TimeUnit.SECONDS);
+				return null;
+			}
+		});
+
+		testee.schedule(sampler);
+		Thread.sleep(2500L);
+
+		assertEquals(1, executions.get());
+		assertTrue((Long) testee.getStats().get("thread-pools.elastic.overlapCount") >= 2L);
+		release.countDown();
+	}
+
+	@Test
+	public void scheduleRejectsWhenAllWorkersBusy() throws InterruptedException {
+		final CountDownLatch release = new CountDownLatch(1);
+		final Answer<Void> blocking = new Answer<Void>() {
+			@Override
+			public Void answer(final InvocationOnMock invocation) throws Throwable {
+				release.await(5, TimeUnit.SECONDS);
+				return null;
+			}
+		};
+
+		testee.schedule(mockSampler("first", blocking));
+		testee.schedule(mockSampler("second", blocking));
+		testee.schedule(mockSampler("third", blocking));
+		Thread.sleep(500L);
+
+		assertEquals(2, testee.getStats().get("thread-pools.elastic.activeCount"));
+		assertEquals(1L, testee.getStats().get("thread-pools.elastic.rejectedCount"));
+		release.countDown();
+	}
+
+	@Test
+	public void scheduleWithTimingWheel() throws InterruptedException {
+		final ElasticSamplerThreadPool wheelPool = new ElasticSamplerThreadPool(new ThreadPoolConfig("wheel", false, Type.ELASTIC, Scheduler.TIMING_WHEEL, 10, Phase.IMMEDIATE, false, false, 100, 1, 2, 1));
+		final AtomicInteger executions = new AtomicInteger();
+		try {
+			wheelPool.schedule(mockSampler("fast", new Answer<Void>() {
+				@Override
+				public Void answer(final InvocationOnMock invocation) throws Throwable {
+					executions.incrementAndGet();
+					return null;
+				}
+			}));
+			Thread.sleep(1500L);
+		} finally {
+			wheelPool.shutdown();
+		}
+
+		assertEquals(2, executions.get());
+	}
+
+	private Sampler mockSampler(final String name, final Answer<Void> sample) {
+		final Sampler result = mock(Sampler.class);
+		final SamplerConfig config = mock(SamplerConfig.class);
+		when(result.getConfig()).thenReturn(config);
+		when(config.getName()).thenReturn(name);
+		when(config.getIntervalMillis()).thenReturn(1000L);
+		doAnswer(sample).when(result).sample();
+		return result;
+	}
+}
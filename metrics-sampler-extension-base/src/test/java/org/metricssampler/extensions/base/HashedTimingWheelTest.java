@@ -0,0 +1,73 @@
+package org.metricssampler.extensions.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HashedTimingWheelTest {
+	private HashedTimingWheel testee;
+
+	@Before
+	public void setup() {
+		testee = new HashedTimingWheel("test-wheel", 10L);
+	}
+
+	@After
+	public void cleanup() {
+		testee.shutdown();
+	}
+
+	@Test
+	public void scheduleAtFixedRate() throws InterruptedException {
+		final AtomicInteger count = new AtomicInteger();
+		testee.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				count.incrementAndGet();
+			}
+		}, 0L, 50L);
+
+		Thread.sleep(525L);
+
+		assertTrue("Expected about 11 runs but got " + count.get(), count.get() >= 9 && count.get() <= 12);
+	}
+
+	@Test
+	public void scheduleAtFixedRateHonorsInitialDelay() throws InterruptedException {
+		final long start = System.nanoTime();
+		final AtomicLong firstRun = new AtomicLong();
+		testee.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				firstRun.compareAndSet(0L, System.nanoTime());
+			}
+		}, 200L, 10000L);
+
+		Thread.sleep(100L);
+		assertEquals(0L, firstRun.get());
+		Thread.sleep(250L);
+		assertTrue(firstRun.get() - start >= 190000000L);
+	}
+
+	@Test
+	public void scheduleAtFixedRateSurvivesFailingTask() throws InterruptedException {
+		final AtomicInteger count = new AtomicInteger();
+		testee.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				count.incrementAndGet();
+				throw new IllegalStateException("expected");
+			}
+		}, 0L, 20L);
+
+		Thread.sleep(200L);
+
+		assertTrue(count.get() > 1);
+	}
+}
@@ -0,0 +1,88 @@
+package org.metricssampler.extensions.base;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.metricssampler.selector.KeyExpressionTemplate;
+import org.metricssampler.selector.VariableReplacer;
+
+/**
+ * Compares renaming a selected metric by replacing the variables of its key expression in a context map built for every metric (as
+ * {@link RegExpMetricsSelector} used to) with rendering a precompiled {@link KeyExpressionTemplate}. Prints the time and the bytes
+ * allocated per metric, the latter only on JVMs that support {@code com.sun.management.ThreadMXBean}. Run it with
+ * {@code java -cp ... KeyExpressionBenchmark [seconds]}.
+ */
+public class KeyExpressionBenchmark {
+	private static final String EXPRESSION = "${input.host}.jvm.${sampler.name}.${name[1]}.${name[2]}";
+	private static final int NAME_COUNT = 1000;
+
+	public static void main(final String[] args) {
+		final long duration = args.length > 0 ? Long.parseLong(args[0]) * 1000L : 5000L;
+		final Map<String, Object> variables = new HashMap<String, Object>();
+		variables.put("input.host", "tomcat01");
+		variables.put("sampler.name", "memory-pools");
+		final Matcher[] matchers = createMatchers();
+		final KeyExpressionTemplate template = new KeyExpressionTemplate(EXPRESSION, variables);
+
+		// warm up both variants so that the JIT has compiled the hot paths
+		run("context", matchers, variables, null, duration / 5, false);
+		run("template", matchers, variables, template, duration / 5, false);
+		run("context", matchers, variables, null, duration, true);
+		run("template", matchers, variables, template, duration, true);
+	}
+
+	private static Matcher[] createMatchers() {
+		final Pattern pattern = Pattern.compile("java\\.lang:type=MemoryPool,name=(.+)\\.(Usage|PeakUsage)\\.used");
+		final Matcher[] result = new Matcher[NAME_COUNT];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = pattern.matcher("java.lang:type=MemoryPool,name=Pool " + i + (i % 2 == 0 ? ".Usage" : ".PeakUsage") + ".used");
+			result[i].matches();
+		}
+		return result;
+	}
+
+	private static void run(final String name, final Matcher[] matchers, final Map<String, Object> variables, final KeyExpressionTemplate template,
+			final long duration, final boolean print) {
+		final long end = System.nanoTime() + duration * 1000000L;
+		long count = 0L;
+		long length = 0L;
+		final long startBytes = allocatedBytes();
+		final long start = System.nanoTime();
+		while (System.nanoTime() < end) {
+			for (final Matcher matcher : matchers) {
+				final String key = template != null ? template.render(matcher, null) : replace(matcher, variables);
+				length += key.length();
+			}
+			count += matchers.length;
+		}
+		final long nanos = System.nanoTime() - start;
+		final long bytes = allocatedBytes() - startBytes;
+		if (print) {
+			System.out.printf("%-8s %10d keys (mean length %d): %6d ns/key, %6s bytes/key%n", name, count, length / count, nanos / count,
+					bytes >= 0 ? String.valueOf(bytes / count) : "n/a");
+		}
+	}
+
+	private static String replace(final Matcher matcher, final Map<String, Object> variables) {
+		final Map<String, Object> context = new HashMap<String, Object>();
+		for (int i = 0; i <= matcher.groupCount(); i++) {
+			context.put("name[" + i + "]", matcher.group(i));
+		}
+		context.putAll(variables);
+		return VariableReplacer.replace(EXPRESSION, context);
+	}
+
+	/**
+	 * @return the bytes allocated by the current thread or a negative number if that is not supported
+	 */
+	private static long allocatedBytes() {
+		final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1L;
+	}
+}
@@ -0,0 +1,133 @@
+package org.metricssampler.extensions.base;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.metricssampler.reader.MetaDataMetricsReader;
+import org.metricssampler.reader.MetricName;
+import org.metricssampler.reader.MetricReadException;
+import org.metricssampler.reader.MetricValue;
+import org.metricssampler.reader.MetricsMetaData;
+import org.metricssampler.reader.SimpleMetricName;
+import org.metricssampler.selector.AbstractMetricsSelector;
+import org.metricssampler.selector.MetricsSelectorIndex;
+
+/**
+ * Compares selecting the metrics of a sampler with many selectors one selector after another (each running its regular expression against
+ * all names) with selecting them through a {@link MetricsSelectorIndex}. The metadata changes on every round so that the selection is not
+ * cached, i.e. this measures what happens whenever a JMX input reconnects. Run it with
+ * {@code java -cp ... MetricsSelectorIndexBenchmark [selectors] [names] [seconds]}.
+ */
+public class MetricsSelectorIndexBenchmark {
+	public static void main(final String[] args) {
+		final int selectorCount = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+		final int nameCount = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+		final long duration = args.length > 2 ? Long.parseLong(args[2]) * 1000L : 5000L;
+
+		final List<AbstractMetricsSelector> selectors = createSelectors(selectorCount);
+		final InMemoryReader reader = new InMemoryReader(createNames(selectorCount, nameCount));
+		final MetricsSelectorIndex index = new MetricsSelectorIndex(selectors);
+
+		// warm up both variants so that the JIT has compiled the hot paths
+		run("loop", selectors, null, reader, duration / 5, false);
+		run("index", selectors, index, reader, duration / 5, false);
+		run("loop", selectors, null, reader, duration, true);
+		run("index", selectors, index, reader, duration, true);
+	}
+
+	private static void run(final String name, final List<AbstractMetricsSelector> selectors, final MetricsSelectorIndex index,
+			final InMemoryReader reader, final long duration, final boolean print) {
+		final long end = System.nanoTime() + duration * 1000000L;
+		long rounds = 0L;
+		long selected = 0L;
+		final long start = System.nanoTime();
+		while (System.nanoTime() < end) {
+			reader.reload();
+			if (index != null) {
+				for (final Map<String, MetricValue> metrics : index.readMetrics(reader)) {
+					selected += metrics.size();
+				}
+			} else {
+				for (final AbstractMetricsSelector selector : selectors) {
+					selected += selector.readMetrics(reader).size();
+				}
+			}
+			rounds++;
+		}
+		if (print) {
+			final long meanMicros = (System.nanoTime() - start) / rounds / 1000L;
+			System.out.printf("%-6s %4d selectors, %6d names: %6d rounds, %6d metrics per round, mean %8d us%n", name, selectors.size(),
+					reader.names.size(), rounds, selected / rounds, meanMicros);
+		}
+	}
+
+	private static List<AbstractMetricsSelector> createSelectors(final int count) {
+		final List<AbstractMetricsSelector> result = new ArrayList<AbstractMetricsSelector>(count);
+		for (int i = 0; i < count; i++) {
+			final RegExpMetricsSelector selector = new RegExpMetricsSelector(new RegExpSelectorConfig("com\\.example:type=Type" + i + ",name=(.+)\\.(Count|Total)", null,
+					"${sampler.name}.type" + i + ".${name[1]}.${name[2]}"));
+			selector.setVariables(Collections.<String, Object>singletonMap("sampler.name", "benchmark"));
+			result.add(selector);
+		}
+		return result;
+	}
+
+	private static List<MetricName> createNames(final int types, final int count) {
+		final List<MetricName> result = new ArrayList<MetricName>(count);
+		final String[] attributes = {"Count", "Total", "Average", "Max"};
+		for (int i = 0; i < count; i++) {
+			// a third of the names belongs to types no selector is interested in
+			final int type = i % (types + types / 2);
+			result.add(new SimpleMetricName("com.example:type=Type" + type + ",name=bean" + i + "." + attributes[i % attributes.length], null));
+		}
+		return result;
+	}
+
+	private static class InMemoryReader implements MetaDataMetricsReader {
+		private final List<MetricName> names;
+		private final MetricValue value = new MetricValue(System.currentTimeMillis(), 1L);
+		private MetricsMetaData metaData;
+
+		public InMemoryReader(final List<MetricName> names) {
+			this.names = names;
+		}
+
+		public void reload() {
+			metaData = new MetricsMetaData(names);
+		}
+
+		@Override
+		public MetricsMetaData getMetaData() throws MetricReadException {
+			return metaData;
+		}
+
+		@Override
+		public MetricValue readMetric(final MetricName metric) throws MetricReadException {
+			return value;
+		}
+
+		@Override
+		public void open() throws MetricReadException {
+		}
+
+		@Override
+		public Iterable<MetricName> readNames() {
+			return metaData;
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public Map<String, Object> getVariables() {
+			return Collections.emptyMap();
+		}
+
+		@Override
+		public void reset() {
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package org.metricssampler.extensions.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+import org.metricssampler.reader.DoubleMetricValue;
+import org.metricssampler.reader.LongMetricValue;
+import org.metricssampler.reader.MetricValue;
+
+public class NumericValueTransformerTest {
+	private NumericValueTransformer create(final double factor, final double min, final double max) {
+		return new NumericValueTransformer(new NumericValueTransformerConfig(Pattern.compile(".*"), factor, min, max));
+	}
+
+	@Test
+	public void transformLongWithIntegralFactor() {
+		final NumericValueTransformer testee = create(1000d, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+		final MetricValue result = testee.transform(new LongMetricValue(5L, 28L));
+
+		assertTrue(result instanceof LongMetricValue);
+		assertEquals(28000L, ((LongMetricValue) result).getLongValue());
+		assertEquals(5L, result.getTimestamp());
+	}
+
+	@Test
+	public void transformLongWithFraction() {
+		final NumericValueTransformer testee = create(Unit.MILLISECONDS.getFactorTo(Unit.SECONDS), Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+		final MetricValue result = testee.transform(new LongMetricValue(5L, 1500L));
+
+		assertTrue(result instanceof DoubleMetricValue);
+		assertEquals(1.5d, ((DoubleMetricValue) result).getDoubleValue(), 0d);
+	}
+
+	@Test
+	public void transformLongOverflow() {
+		final NumericValueTransformer testee = create(10d, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+		final MetricValue result = testee.transform(new LongMetricValue(5L, Long.MAX_VALUE));
+
+		assertTrue(result instanceof DoubleMetricValue);
+		assertEquals(Long.MAX_VALUE * 10d, ((DoubleMetricValue) result).getDoubleValue(), 0d);
+	}
+
+	@Test
+	public void transformClamps() {
+		final NumericValueTransformer testee = create(1d, 0d, 100d);
+
+		assertEquals(100L, ((LongMetricValue) testee.transform(new LongMetricValue(5L, 101L))).getLongValue());
+		assertEquals(0L, ((LongMetricValue) testee.transform(new LongMetricValue(5L, -1L))).getLongValue());
+		assertEquals(100d, ((DoubleMetricValue) testee.transform(new DoubleMetricValue(5L, 100.5d))).getDoubleValue(), 0d);
+	}
+
+	@Test
+	public void transformBoxedAndText() {
+		final NumericValueTransformer testee = create(2d, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+		assertEquals(4L, ((LongMetricValue) testee.transform(new MetricValue(5L, Integer.valueOf(2)))).getLongValue());
+		assertEquals(5d, ((DoubleMetricValue) testee.transform(new MetricValue(5L, "2.5"))).getDoubleValue(), 0d);
+		assertEquals("6", testee.transform("3"));
+	}
+
+	@Test
+	public void transformKeepsNonNumericValues() {
+		final NumericValueTransformer testee = create(2d, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+		final MetricValue value = new MetricValue(5L, "up");
+
+		assertSame(value, testee.transform(value));
+		assertEquals("up", testee.transform("up"));
+	}
+}
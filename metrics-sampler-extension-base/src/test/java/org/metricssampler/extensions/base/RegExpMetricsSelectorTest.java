@@ -18,6 +18,7 @@ import org.metricssampler.reader.MetricName;
 import org.metricssampler.reader.MetricValue;
 import org.metricssampler.reader.MetricsMetaData;
 import org.metricssampler.reader.SimpleMetricName;
+import org.metricssampler.selector.SelectedMetric;
 
 public class RegExpMetricsSelectorTest {
 	private RegExpMetricsSelector testee;
@@ -53,6 +54,34 @@ public class RegExpMetricsSelectorTest {
 		assertEquals(bbbValue, result.get("PREFIX.whatever.bbb"));
 	}
 	
+	@Test
+	public void readMetricsBulkCachesSelection() {
+		final int[] selections = new int[1];
+		testee = new RegExpMetricsSelector(new RegExpSelectorConfig(".+\\.(.+)\\..+", null, "${prefix}.whatever.${name[1]}")) {
+			@Override
+			protected SelectedMetric selectMetric(final MetricName from) {
+				selections[0]++;
+				return super.selectMetric(from);
+			}
+		};
+		testee.setVariables(variables);
+		final Map<MetricName, MetricValue> metrics = new HashMap<MetricName, MetricValue>();
+		final MetricValue aaaValue = new MetricValue(System.currentTimeMillis(), "11");
+		metrics.put(new SimpleMetricName("ignored-prefix.aaa.ignored-suffix", "whatever"), aaaValue);
+		metrics.put(new SimpleMetricName("ignored-prefix.too-short", "whatever"), new MetricValue(System.currentTimeMillis(), "0"));
+		when(bulkReader.readAllMetrics()).thenReturn(metrics);
+
+		testee.readMetrics(bulkReader);
+		final Map<String, MetricValue> result = testee.readMetrics(bulkReader);
+
+		assertEquals(1, result.size());
+		assertEquals(aaaValue, result.get("PREFIX.whatever.aaa"));
+		assertEquals(2, selections[0]);
+		testee.reset();
+		testee.readMetrics(bulkReader);
+		assertEquals(4, selections[0]);
+	}
+
 	@Test
 	public void readMetricsMetaData() {
 		MetricName aaaName = new SimpleMetricName("ignored-prefix.aaa.ignored-suffix", "whatever");
@@ -0,0 +1,56 @@
+package org.metricssampler.extensions.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.metricssampler.config.ThreadPoolConfig;
+import org.metricssampler.config.ThreadPoolConfig.Phase;
+import org.metricssampler.config.ThreadPoolConfig.Scheduler;
+import org.metricssampler.config.ThreadPoolConfig.Type;
+
+public class SamplerPhasesTest {
+	private static final long NOW = 1400000012345L;
+
+	@Test
+	public void getInitialDelayImmediate() {
+		assertEquals(0L, SamplerPhases.getInitialDelay(config(Phase.IMMEDIATE, false), "sampler", 10000L, NOW));
+	}
+
+	@Test
+	public void getInitialDelayImmediateAligned() {
+		assertEquals(7655L, SamplerPhases.getInitialDelay(config(Phase.IMMEDIATE, true), "sampler", 10000L, NOW));
+	}
+
+	@Test
+	public void getInitialDelaySpread() {
+		final long delay = SamplerPhases.getInitialDelay(config(Phase.SPREAD, false), "sampler", 10000L, NOW);
+
+		assertEquals(SamplerPhases.getOffset("sampler", 10000L), delay);
+		assertEquals(delay, SamplerPhases.getInitialDelay(config(Phase.SPREAD, false), "sampler", 10000L, NOW + 1234L));
+	}
+
+	@Test
+	public void getInitialDelaySpreadAligned() {
+		final long offset = SamplerPhases.getOffset("sampler", 10000L);
+		final long delay = SamplerPhases.getInitialDelay(config(Phase.SPREAD, true), "sampler", 10000L, NOW);
+
+		assertTrue(delay >= 0L && delay < 10000L);
+		assertEquals(offset, (NOW + delay) % 10000L);
+	}
+
+	@Test
+	public void getOffsetSpreadsSimilarNames() {
+		final int[] buckets = new int[10];
+		for (int i = 0; i < 1000; i++) {
+			buckets[(int) (SamplerPhases.getOffset("sampler" + i, 10000L) / 1000L)]++;
+		}
+		for (final int bucket : buckets) {
+			assertTrue("Uneven distribution: " + bucket, bucket > 50 && bucket < 150);
+		}
+	}
+
+	private ThreadPoolConfig config(final Phase phase, final boolean alignToInterval) {
+		return new ThreadPoolConfig("samplers", false, Type.SCHEDULED, Scheduler.EXECUTOR, 10, phase, alignToInterval, false, 100, 1, -1, -1);
+	}
+}
@@ -0,0 +1,66 @@
+package org.metricssampler.extensions.base;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Soak benchmark comparing the scheduler backends of the elastic thread pool. Each run schedules the given number of tasks with a period
+ * of one second and a random phase and measures how long it takes to schedule them and how late the tasks are fired on average and at
+ * most. Run it with {@code java -cp ... SamplerSchedulerBenchmark [seconds]}.
+ */
+public class SamplerSchedulerBenchmark {
+	private static final long PERIOD = 1000L;
+	private static final int[] TASK_COUNTS = {1000, 10000, 50000};
+
+	public static void main(final String[] args) throws InterruptedException {
+		final long duration = args.length > 0 ? Long.parseLong(args[0]) * 1000L : 10000L;
+		for (final int count : TASK_COUNTS) {
+			run("executor", new ExecutorSamplerScheduler("benchmark-executor"), count, duration);
+			run("timing-wheel", new HashedTimingWheel("benchmark-wheel", 10L), count, duration);
+		}
+	}
+
+	private static void run(final String name, final SamplerScheduler scheduler, final int count, final long duration) throws InterruptedException {
+		final Random random = new Random(count);
+		final AtomicLong runs = new AtomicLong();
+		final AtomicLong totalLag = new AtomicLong();
+		final AtomicLong maxLag = new AtomicLong();
+		final long scheduleStart = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			final long initialDelay = (long) random.nextInt((int) PERIOD);
+			scheduler.scheduleAtFixedRate(new LagMeasuringTask(scheduleStart + initialDelay * 1000000L, runs, totalLag, maxLag), initialDelay, PERIOD);
+		}
+		final long scheduleTime = System.nanoTime() - scheduleStart;
+		Thread.sleep(duration);
+		scheduler.shutdown();
+		final long meanLag = runs.get() > 0 ? totalLag.get() / runs.get() : 0L;
+		System.out.printf("%-12s %6d tasks: scheduled in %6d us, %8d runs, mean lag %6d us, max lag %6d us%n", name, count, scheduleTime / 1000,
+				runs.get(), meanLag / 1000, maxLag.get() / 1000);
+	}
+
+	private static class LagMeasuringTask implements Runnable {
+		private final AtomicLong runs;
+		private final AtomicLong totalLag;
+		private final AtomicLong maxLag;
+		private long expected;
+
+		public LagMeasuringTask(final long expected, final AtomicLong runs, final AtomicLong totalLag, final AtomicLong maxLag) {
+			this.expected = expected;
+			this.runs = runs;
+			this.totalLag = totalLag;
+			this.maxLag = maxLag;
+		}
+
+		@Override
+		public void run() {
+			final long lag = Math.max(0L, System.nanoTime() - expected);
+			expected += PERIOD * 1000000L;
+			runs.incrementAndGet();
+			totalLag.addAndGet(lag);
+			long max = maxLag.get();
+			while (lag > max && !maxLag.compareAndSet(max, lag)) {
+				max = maxLag.get();
+			}
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package org.metricssampler.extensions.base;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.metricssampler.config.InputConfig;
+import org.metricssampler.config.OutputConfig;
+import org.metricssampler.config.SamplerConfig.MissedTickPolicy;
+import org.metricssampler.config.SelectorConfig;
+import org.metricssampler.config.ValueTransformerConfig;
+import org.metricssampler.reader.BulkMetricsReader;
+import org.metricssampler.reader.MetricName;
+import org.metricssampler.reader.MetricReadException;
+import org.metricssampler.reader.MetricValue;
+
+/**
+ * Measures how long it takes to create the samplers of a large configuration, i.e. mostly resolving the variables of each selector. Every
+ * sampler sees the same global variables (a few hundred strings, many of them referring to each other, and a host dictionary with
+ * thousands of entries) plus a few variables of its own. Run it with
+ * {@code java -cp ... SamplerStartupBenchmark [samplers] [selectors per sampler] [rounds]}.
+ */
+public class SamplerStartupBenchmark {
+	private static final int GLOBAL_VARIABLE_COUNT = 300;
+	private static final int HOST_COUNT = 5000;
+
+	public static void main(final String[] args) {
+		final int samplerCount = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+		final int selectorCount = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		final int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		final Map<String, Object> globalVariables = createGlobalVariables();
+
+		long best = Long.MAX_VALUE;
+		long total = 0L;
+		for (int round = 0; round < rounds; round++) {
+			final long start = System.nanoTime();
+			for (int i = 0; i < samplerCount; i++) {
+				createSampler(i, selectorCount, globalVariables);
+			}
+			final long duration = System.nanoTime() - start;
+			best = Math.min(best, duration);
+			total += duration;
+		}
+		System.out.printf("%d samplers with %d selectors each: mean %d ms, best %d ms%n", samplerCount, selectorCount, total / rounds / 1000000L,
+				best / 1000000L);
+	}
+
+	private static Map<String, Object> createGlobalVariables() {
+		final Map<String, Object> result = new HashMap<String, Object>();
+		final Map<String, String> hosts = new HashMap<String, String>();
+		for (int i = 0; i < HOST_COUNT; i++) {
+			hosts.put("host" + i + ".example.com", "host" + i);
+		}
+		result.put("hosts", hosts);
+		result.put("datacenter", "dc1");
+		result.put("environment", "production");
+		result.put("prefix", "${datacenter}.${environment}");
+		for (int i = 0; i < GLOBAL_VARIABLE_COUNT; i++) {
+			// every third variable refers to the previous one, the rest only to the prefix
+			final String reference = i % 3 == 0 && i > 0 ? "${global" + (i - 1) + "}" : "${prefix}";
+			result.put("global" + i, reference + ".group" + i);
+		}
+		return result;
+	}
+
+	private static DefaultSampler createSampler(final int index, final int selectorCount, final Map<String, Object> globalVariables) {
+		final Map<String, Object> variables = new HashMap<String, Object>();
+		variables.put("host.fqdn", "host" + index + ".example.com");
+		variables.put("host", "${fn:map(hosts,host.fqdn)}");
+		variables.put("sampler.prefix", "${global" + (index % GLOBAL_VARIABLE_COUNT) + "}.${host}");
+		final InputConfig input = new InputConfig("input" + index, Collections.<String, Object>emptyMap()) {};
+		final DefaultSamplerConfig config = new DefaultSamplerConfig("sampler" + index, "default", 10000L, 0L, MissedTickPolicy.SKIP, false, false,
+				input, Collections.<OutputConfig>emptyList(), Collections.<SelectorConfig>emptyList(), variables, globalVariables,
+				Collections.<ValueTransformerConfig>emptyList(), true, 0, null, false);
+		final DefaultSampler result = new DefaultSampler(config, new EmptyReader());
+		for (int i = 0; i < selectorCount; i++) {
+			result.addSelector(new RegExpMetricsSelector(new RegExpSelectorConfig("java\\.lang:type=Type" + i + "\\.(.+)", null,
+					"${sampler.prefix}.type" + i + ".${name[1]}")));
+		}
+		return result;
+	}
+
+	private static class EmptyReader implements BulkMetricsReader {
+		@Override
+		public Map<MetricName, MetricValue> readAllMetrics() throws MetricReadException {
+			return Collections.emptyMap();
+		}
+
+		@Override
+		public void open() throws MetricReadException {
+		}
+
+		@Override
+		public Iterable<MetricName> readNames() {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public Map<String, Object> getVariables() {
+			return Collections.emptyMap();
+		}
+
+		@Override
+		public void reset() {
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package org.metricssampler.extensions.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.metricssampler.config.SamplerConfig;
+import org.metricssampler.reader.MetricName;
+import org.metricssampler.reader.MetricValue;
+import org.metricssampler.reader.SimpleMetricName;
+import org.metricssampler.resources.SamplerStats.Phase;
+import org.metricssampler.resources.SamplerTask;
+import org.metricssampler.sampler.Sampler;
+
+public class SelfMetricsReaderTest {
+	private static final String WRITE_MAX = "samplers.sampler.writeMaxMicros";
+	private static final String WRITE_P50 = "samplers.sampler.writeP50Micros";
+
+	private SamplerTask task;
+	private SelfMetricsReader first;
+	private SelfMetricsReader second;
+
+	@Before
+	public void setup() {
+		final Sampler sampler = mock(Sampler.class);
+		final SamplerConfig config = mock(SamplerConfig.class);
+		when(sampler.getConfig()).thenReturn(config);
+		when(config.getName()).thenReturn("sampler");
+		task = new SamplerTask(sampler);
+		first = new SelfMetricsReader(new SelfInputConfig("self", Collections.<String, Object> emptyMap()));
+		second = new SelfMetricsReader(new SelfInputConfig("self", Collections.<String, Object> emptyMap()));
+	}
+
+	@Test
+	public void readersHaveTheirOwnIntervals() {
+		task.getStats().recordPhase(Phase.WRITE, 2000000L);
+
+		assertEquals(2000L, read(first, true, WRITE_MAX));
+		task.getStats().recordPhase(Phase.WRITE, 5000000L);
+		assertEquals(5000L, read(first, true, WRITE_MAX));
+		// the median is the highest value of the bucket of 2000
+		assertEquals(2047L, read(second, false, WRITE_P50));
+		assertEquals(5000L, read(second, true, WRITE_MAX));
+		assertEquals(0L, read(first, true, WRITE_MAX));
+	}
+
+	@Test
+	public void readWithoutNextIntervalKeepsPhaseTimes() {
+		task.getStats().recordPhase(Phase.WRITE, 3000000L);
+
+		read(first, false, WRITE_MAX);
+
+		assertEquals(3000L, read(first, true, WRITE_MAX));
+	}
+
+	private long read(final SelfMetricsReader reader, final boolean nextInterval, final String name) {
+		final Map<MetricName, MetricValue> result = new HashMap<MetricName, MetricValue>();
+		reader.addSamplerMetrics(result, task, System.currentTimeMillis(), nextInterval);
+		return ((Number) result.get(new SimpleMetricName(name, null)).getValue()).longValue();
+	}
+}
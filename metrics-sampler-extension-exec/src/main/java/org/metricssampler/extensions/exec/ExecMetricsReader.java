@@ -114,7 +114,7 @@ public class ExecMetricsReader extends AbstractMetricsReader<ExecInputConfig> im
 	protected void parseMetric(final long timestamp, final Map<MetricName, MetricValue> result, final String line) {
 		final String[] cols = line.split("=", 2);
 		if (cols.length == 2) {
-			result.put(new SimpleMetricName(cols[0], null), new MetricValue(timestamp, cols[1]));
+			result.put(new SimpleMetricName(cols[0], null), MetricValue.parse(timestamp, cols[1]));
 		} else {
 			logger.warn("Failed to parse line \"{}\". It should be of the form [<timestamp>:]<metric-name>=<metric-value>", line);
 		}
@@ -62,7 +62,7 @@ public class ExecMetricsReaderTest {
 				if (timestamp != -1L) {
 					assertEquals("Timestamp of metric " + name, timestamp, entry.getValue().getTimestamp());
 				}
-				assertEquals("Value of metric " + name, value, entry.getValue().getValue());
+				assertEquals("Value of metric " + name, value, entry.getValue().toString());
 				return;
 			}
 		}
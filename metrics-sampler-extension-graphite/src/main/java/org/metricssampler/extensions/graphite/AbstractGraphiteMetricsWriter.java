@@ -0,0 +1,120 @@
+package org.metricssampler.extensions.graphite;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Map;
+
+import org.metricssampler.extensions.graphite.GraphiteOutputConfig.Protocol;
+import org.metricssampler.extensions.graphite.GraphiteOutputConfig.TimestampPrecision;
+import org.metricssampler.reader.DoubleMetricValue;
+import org.metricssampler.reader.LongMetricValue;
+import org.metricssampler.reader.MetricValue;
+import org.metricssampler.writer.MetricsWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Base class for writers that send metrics to graphite using either the plaintext or the pickle protocol. The metrics are encoded into
+ * buffers that are reused for each sample, so subclasses are not thread safe.
+ */
+public abstract class AbstractGraphiteMetricsWriter implements MetricsWriter {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	protected final Logger logger;
+
+	protected final GraphiteOutputConfig config;
+
+	private final GraphiteNames names;
+	private final GraphitePlaintextEncoder plaintextEncoder;
+	private final GraphitePickleEncoder pickleEncoder;
+	private final boolean millis;
+
+	protected AbstractGraphiteMetricsWriter(final GraphiteOutputConfig config) {
+		checkArgumentNotNull(config, "config");
+		this.config = config;
+		this.logger = LoggerFactory.getLogger("writer."+config.getName());
+		this.names = new GraphiteNames(config.getPrefix());
+		this.millis = config.getTimestampPrecision() == TimestampPrecision.MILLISECONDS;
+		if (config.getProtocol() == Protocol.PICKLE) {
+			this.plaintextEncoder = null;
+			this.pickleEncoder = new GraphitePickleEncoder(config.getMaxDatapointsPerFrame());
+		} else {
+			this.plaintextEncoder = new GraphitePlaintextEncoder();
+			this.pickleEncoder = null;
+		}
+	}
+
+	/**
+	 * Encode the metrics using the configured protocol. The returned buffer is reused by the next call.
+	 */
+	protected ByteBuffer encode(final Map<String, MetricValue> metrics) {
+		checkArgumentNotNull(metrics, "metrics");
+		if (pickleEncoder != null) {
+			return pickle(metrics);
+		} else {
+			final ByteBuffer result = plaintext(metrics);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Sending to graphite:\n" + UTF8.decode(result.duplicate()));
+			}
+			return result;
+		}
+	}
+
+	private ByteBuffer plaintext(final Map<String, MetricValue> metrics) {
+		plaintextEncoder.begin();
+		for (final Map.Entry<String, MetricValue> entry : metrics.entrySet()) {
+			final byte[] name = names.get(entry.getKey());
+			final MetricValue value = entry.getValue();
+			if (value instanceof LongMetricValue) {
+				final long longValue = ((LongMetricValue) value).getLongValue();
+				if (millis) {
+					plaintextEncoder.addMillis(name, value.getTimestamp(), longValue);
+				} else {
+					plaintextEncoder.add(name, value.getTimestamp()/1000, longValue);
+				}
+			} else if (value instanceof DoubleMetricValue) {
+				final double doubleValue = ((DoubleMetricValue) value).getDoubleValue();
+				if (millis) {
+					plaintextEncoder.addMillis(name, value.getTimestamp(), doubleValue);
+				} else {
+					plaintextEncoder.add(name, value.getTimestamp()/1000, doubleValue);
+				}
+			} else if (millis) {
+				plaintextEncoder.addMillis(name, value.getTimestamp(), value.getValue());
+			} else {
+				plaintextEncoder.add(name, value.getTimestamp()/1000, value.getValue());
+			}
+		}
+		return plaintextEncoder.finish();
+	}
+
+	private ByteBuffer pickle(final Map<String, MetricValue> metrics) {
+		pickleEncoder.begin();
+		for (final Map.Entry<String, MetricValue> entry : metrics.entrySet()) {
+			final MetricValue value = entry.getValue();
+			try {
+				final double doubleValue = toDouble(value);
+				if (millis) {
+					pickleEncoder.addMillis(names.get(entry.getKey()), value.getTimestamp(), doubleValue);
+				} else {
+					pickleEncoder.add(names.get(entry.getKey()), value.getTimestamp()/1000, doubleValue);
+				}
+			} catch (final NumberFormatException e) {
+				logger.debug("Skipping non-numeric value \"{}\" of {}", value, entry.getKey());
+			}
+		}
+		return pickleEncoder.finish();
+	}
+
+	private static double toDouble(final MetricValue value) {
+		if (value instanceof LongMetricValue) {
+			return ((LongMetricValue) value).getLongValue();
+		} else if (value instanceof DoubleMetricValue) {
+			return ((DoubleMetricValue) value).getDoubleValue();
+		}
+		final Object number = value.getValue();
+		return number instanceof Number ? ((Number) number).doubleValue() : Double.parseDouble(String.valueOf(number));
+	}
+}
@@ -0,0 +1,77 @@
+package org.metricssampler.extensions.graphite;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNullNorEmpty;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The consistent hash ring used by carbon-relay and carbon-client (the {@code carbon_ch} hash type): each destination is placed on the
+ * ring 100 times at the first 16 bits of the MD5 hash of {@code "(host, instance):replica"}, and a metric is routed to the destination
+ * at the first ring position greater than or equal to the position of its name. This class is not thread safe.
+ */
+public class ConsistentHashRing {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final int REPLICA_COUNT = 100;
+
+	private final List<GraphiteDestination> destinations;
+	private final MessageDigest md5;
+	private final int[] positions;
+	private final int[] nodes;
+
+	public ConsistentHashRing(final List<GraphiteDestination> destinations) {
+		checkArgumentNotNullNorEmpty(destinations, "destinations");
+		this.destinations = destinations;
+		try {
+			md5 = MessageDigest.getInstance("MD5");
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IllegalStateException("MD5 not available", e);
+		}
+		final int size = destinations.size() * REPLICA_COUNT;
+		final long[] entries = new long[size];
+		final boolean[] taken = new boolean[65536 + size];
+		int count = 0;
+		for (int node = 0; node < destinations.size(); node++) {
+			final String key = destinations.get(node).getRingKey();
+			for (int replica = 0; replica < REPLICA_COUNT; replica++) {
+				int position = computePosition(key + ":" + replica);
+				while (taken[position]) {
+					position++;
+				}
+				taken[position] = true;
+				entries[count++] = ((long) position << 32) | node;
+			}
+		}
+		Arrays.sort(entries);
+		positions = new int[size];
+		nodes = new int[size];
+		for (int i = 0; i < size; i++) {
+			positions[i] = (int) (entries[i] >>> 32);
+			nodes[i] = (int) entries[i];
+		}
+	}
+
+	/**
+	 * @return the index of the destination responsible for the given key
+	 */
+	public int getNodeIndex(final String key) {
+		final int position = computePosition(key);
+		int index = Arrays.binarySearch(positions, position);
+		if (index < 0) {
+			index = -index - 1;
+		}
+		return nodes[index % positions.length];
+	}
+
+	public GraphiteDestination getNode(final String key) {
+		return destinations.get(getNodeIndex(key));
+	}
+
+	private int computePosition(final String key) {
+		final byte[] hash = md5.digest(key.getBytes(UTF8));
+		return ((hash[0] & 0xff) << 8) | (hash[1] & 0xff);
+	}
+}
@@ -0,0 +1,191 @@
+package org.metricssampler.extensions.graphite;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.metricssampler.reader.MetricValue;
+import org.metricssampler.resources.SamplerStats;
+import org.metricssampler.writer.MetricWriteException;
+import org.metricssampler.writer.MetricsWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Distribute metrics over multiple carbon instances like carbon-relay does with consistent hashing. Each metric is routed to one
+ * destination using a {@link ConsistentHashRing} built from the configured destinations, so that the same metric always ends up in the
+ * same carbon instance. Every destination has its own {@link GraphiteMetricsWriter} (and thus connection). The partitions of a sample are
+ * written in parallel: the calling thread writes one of them and threads from a shared daemon pool write the others. A failure of one
+ * destination does not prevent the other partitions from being written. This class is not thread safe and should not be used by multiple
+ * samplers.
+ */
+public class GraphiteClusterMetricsWriter implements MetricsWriter {
+	private static final int MAX_ROUTE_CACHE_SIZE = 100000;
+	private static final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(final Runnable runnable) {
+			final Thread result = new Thread(runnable, "graphite-cluster-writer-" + count.incrementAndGet());
+			result.setDaemon(true);
+			return result;
+		}
+	});
+
+	private final Logger logger;
+	private final List<GraphiteDestination> destinations;
+	private final ConsistentHashRing ring;
+	private final GraphiteNames names;
+	private final Map<String, Integer> routes = new HashMap<String, Integer>();
+	private final GraphiteMetricsWriter[] writers;
+	private final Map<String, MetricValue>[] partitions;
+	private final MetricWriteException[] openFailures;
+
+	@SuppressWarnings("unchecked")
+	public GraphiteClusterMetricsWriter(final GraphiteOutputConfig config) {
+		checkArgumentNotNull(config, "config");
+		this.logger = LoggerFactory.getLogger("writer."+config.getName());
+		this.destinations = config.getDestinations();
+		this.ring = new ConsistentHashRing(destinations);
+		this.names = new GraphiteNames(config.getPrefix());
+		this.writers = new GraphiteMetricsWriter[destinations.size()];
+		this.partitions = new Map[destinations.size()];
+		this.openFailures = new MetricWriteException[destinations.size()];
+		for (int i = 0; i < writers.length; i++) {
+			writers[i] = new GraphiteMetricsWriter(config.forDestination(destinations.get(i)));
+			partitions[i] = new HashMap<String, MetricValue>();
+		}
+	}
+
+	/**
+	 * Open the connections to all destinations. Destinations that can not be connected are skipped during the next write and reported as
+	 * failed after the others were written. Only if none of the destinations is available the method fails.
+	 */
+	@Override
+	public void open() throws MetricWriteException {
+		int failed = 0;
+		for (int i = 0; i < writers.length; i++) {
+			try {
+				writers[i].open();
+				openFailures[i] = null;
+			} catch (final MetricWriteException e) {
+				logger.debug("Failed to connect to " + destinations.get(i), e);
+				openFailures[i] = e;
+				failed++;
+			}
+		}
+		if (failed == writers.length) {
+			throw new MetricWriteException("None of the destinations " + destinations + " is available");
+		}
+	}
+
+	@Override
+	public void write(final Map<String, MetricValue> metrics) {
+		checkArgumentNotNull(metrics, "metrics");
+		partition(metrics);
+		final SamplerStats stats = SamplerStats.get();
+		final List<String> failures = new LinkedList<String>();
+		final List<Future<?>> futures = new ArrayList<Future<?>>(writers.length);
+		final List<Integer> submitted = new ArrayList<Integer>(writers.length);
+		int local = -1;
+		for (int i = 0; i < writers.length; i++) {
+			if (partitions[i].isEmpty()) {
+				continue;
+			}
+			if (openFailures[i] != null) {
+				failures.add(destinations.get(i) + ": " + openFailures[i].getMessage());
+			} else if (local == -1) {
+				local = i;
+			} else {
+				futures.add(executor.submit(new PartitionWriter(i, stats)));
+				submitted.add(i);
+			}
+		}
+		if (local != -1) {
+			try {
+				writers[local].write(partitions[local]);
+			} catch (final MetricWriteException e) {
+				failures.add(destinations.get(local) + ": " + e.getMessage());
+			}
+		}
+		for (int i = 0; i < futures.size(); i++) {
+			try {
+				futures.get(i).get();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				failures.add(destinations.get(submitted.get(i)) + ": interrupted");
+			} catch (final ExecutionException e) {
+				failures.add(destinations.get(submitted.get(i)) + ": " + e.getCause().getMessage());
+			}
+		}
+		if (!failures.isEmpty()) {
+			throw new MetricWriteException("Failed to write to " + failures.size() + " of " + writers.length + " destinations: " + failures);
+		}
+	}
+
+	private void partition(final Map<String, MetricValue> metrics) {
+		for (final Map<String, MetricValue> partition : partitions) {
+			partition.clear();
+		}
+		for (final Map.Entry<String, MetricValue> entry : metrics.entrySet()) {
+			partitions[route(entry.getKey())].put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * carbon-relay hashes the full metric name as it arrives, so the ring key is the name including the prefix.
+	 */
+	private int route(final String name) {
+		Integer result = routes.get(name);
+		if (result == null) {
+			if (routes.size() >= MAX_ROUTE_CACHE_SIZE) {
+				routes.clear();
+			}
+			result = ring.getNodeIndex(names.toGraphiteName(name));
+			routes.put(name, result);
+		}
+		return result;
+	}
+
+	@Override
+	public void close() throws MetricWriteException {
+		for (final GraphiteMetricsWriter writer : writers) {
+			writer.close();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + destinations;
+	}
+
+	private class PartitionWriter implements Runnable {
+		private final int index;
+		private final SamplerStats stats;
+
+		public PartitionWriter(final int index, final SamplerStats stats) {
+			this.index = index;
+			this.stats = stats;
+		}
+
+		@Override
+		public void run() {
+			SamplerStats.set(stats);
+			try {
+				writers[index].write(partitions[index]);
+			} finally {
+				SamplerStats.unset();
+			}
+		}
+	}
+}
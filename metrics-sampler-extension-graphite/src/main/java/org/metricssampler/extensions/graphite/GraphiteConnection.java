@@ -0,0 +1,209 @@
+package org.metricssampler.extensions.graphite;
+
+import static org.apache.commons.io.IOUtils.closeQuietly;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNullNorEmpty;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import org.metricssampler.writer.MetricWriteException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A TCP connection to graphite that collects the written data in a direct buffer and sends it through a socket channel when the buffer is
+ * full or flushed. It also keeps track of failed connection attempts. After a failed attempt further attempts are refused until
+ * the reconnect delay has expired. The delay doubles with each further failure up to the maximal reconnect delay and is reset after a
+ * successful connection. This class is not thread safe.
+ */
+public class GraphiteConnection {
+	private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final String host;
+	private final int port;
+	private final int reconnectDelay;
+	private final int maxReconnectDelay;
+	private final int bufferSize;
+
+	private SocketChannel channel;
+	private ByteBuffer sendBuffer;
+	private final ByteBuffer probeBuffer = ByteBuffer.allocate(1);
+
+	/**
+	 * {@code true} if the last connection was not closed by us but because it broke.
+	 */
+	private boolean lost = false;
+	private int currentReconnectDelay = 0;
+	private long nextConnectTimestamp = 0L;
+
+	public GraphiteConnection(final String host, final int port, final int reconnectDelay, final int maxReconnectDelay) {
+		this(host, port, reconnectDelay, maxReconnectDelay, DEFAULT_BUFFER_SIZE);
+	}
+
+	public GraphiteConnection(final String host, final int port, final int reconnectDelay, final int maxReconnectDelay, final int bufferSize) {
+		checkArgumentNotNullNorEmpty(host, "host");
+		this.host = host;
+		this.port = port;
+		this.reconnectDelay = reconnectDelay;
+		this.maxReconnectDelay = maxReconnectDelay;
+		this.bufferSize = bufferSize;
+	}
+
+	public boolean isConnected() {
+		return channel != null;
+	}
+
+	/**
+	 * @return {@code true} if the last connection broke instead of being closed using {@link #disconnect()}
+	 */
+	public boolean isLost() {
+		return lost;
+	}
+
+	/**
+	 * @return {@code true} if a connection attempt is allowed now, {@code false} if we are still waiting for the reconnect delay to expire
+	 */
+	public boolean canConnect() {
+		return System.currentTimeMillis() >= nextConnectTimestamp;
+	}
+
+	/**
+	 * @return the timestamp in milliseconds after which the next connection attempt is allowed
+	 */
+	public long getNextConnectTimestamp() {
+		return nextConnectTimestamp;
+	}
+
+	public void assertCanConnect() throws MetricWriteException {
+		final long now = System.currentTimeMillis();
+		if (now < nextConnectTimestamp) {
+			throw new MetricWriteException("Not connecting to " + this + " for another " + (nextConnectTimestamp - now) + " ms after failed connection attempt");
+		}
+	}
+
+	public void connect() throws MetricWriteException {
+		assertCanConnect();
+		try {
+			logger.debug("Connecting to {}", this);
+			channel = SocketChannel.open(new InetSocketAddress(host, port));
+			if (sendBuffer == null) {
+				sendBuffer = ByteBuffer.allocateDirect(bufferSize);
+			}
+			sendBuffer.clear();
+			lost = false;
+			currentReconnectDelay = 0;
+			nextConnectTimestamp = 0L;
+		} catch (final IOException e) {
+			scheduleReconnect();
+			throw new MetricWriteException(e);
+		}
+	}
+
+	private void scheduleReconnect() {
+		disconnect();
+		if (currentReconnectDelay == 0) {
+			currentReconnectDelay = reconnectDelay;
+		} else {
+			currentReconnectDelay = (int) Math.min(2L * currentReconnectDelay, maxReconnectDelay);
+		}
+		nextConnectTimestamp = System.currentTimeMillis() + currentReconnectDelay;
+		logger.debug("Next connection attempt to {} in {} ms", this, currentReconnectDelay);
+	}
+
+	/**
+	 * Graphite never sends anything back so a non-blocking read from the channel either returns nothing (connection alive) or reaches the
+	 * end of the stream (connection closed by the remote side).
+	 *
+	 * @return {@code true} if the connection is established but the remote side has closed it
+	 */
+	public boolean isBroken() {
+		if (!isConnected()) {
+			return false;
+		}
+		try {
+			channel.configureBlocking(false);
+			try {
+				probeBuffer.clear();
+				return channel.read(probeBuffer) == -1;
+			} finally {
+				channel.configureBlocking(true);
+			}
+		} catch (final IOException e) {
+			return true;
+		}
+	}
+
+	/**
+	 * Append the data to the send buffer. The buffer is automatically written to the socket when full.
+	 */
+	public void write(final byte[] data) throws IOException {
+		write(ByteBuffer.wrap(data));
+	}
+
+	/**
+	 * Append the remaining bytes of the buffer to the send buffer. Data that does not fit into the send buffer is written directly to the
+	 * channel.
+	 */
+	public void write(final ByteBuffer data) throws IOException {
+		assertConnected();
+		if (data.remaining() > sendBuffer.remaining()) {
+			flush();
+		}
+		if (data.remaining() > sendBuffer.remaining()) {
+			writeFully(data);
+		} else {
+			sendBuffer.put(data);
+		}
+	}
+
+	public void flush() throws IOException {
+		assertConnected();
+		sendBuffer.flip();
+		try {
+			writeFully(sendBuffer);
+		} finally {
+			sendBuffer.clear();
+		}
+	}
+
+	private void writeFully(final ByteBuffer data) throws IOException {
+		while (data.hasRemaining()) {
+			channel.write(data);
+		}
+	}
+
+	public void send(final ByteBuffer data) throws IOException {
+		write(data);
+		flush();
+	}
+
+	public void disconnect() {
+		if (isConnected()) {
+			closeQuietly(channel);
+			channel = null;
+		}
+	}
+
+	/**
+	 * Close the connection because it is broken. The next {@link #connect()} will be a reconnect.
+	 */
+	public void disconnectBroken() {
+		disconnect();
+		lost = true;
+	}
+
+	protected void assertConnected() {
+		if (!isConnected()) {
+			throw new IllegalStateException("Not connected");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return host + ":" + port;
+	}
+}
@@ -0,0 +1,247 @@
+package org.metricssampler.extensions.graphite;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.metricssampler.resources.SharedResource;
+import org.metricssampler.service.GlobalRegistry;
+import org.metricssampler.writer.MetricWriteException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A fixed number of persistent connections to graphite shared by all outputs that refer to the pool. Writers submit already serialized
+ * batches of metrics to a lock-free queue. Each connection is served by its own thread which takes as many batches from the queue as fit
+ * into its send buffer and flushes them at once, so that many samplers share a few sockets and large writes.
+ */
+public class GraphiteConnectionPool implements SharedResource {
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+	private final GraphiteConnectionPoolConfig config;
+
+	private final Queue<byte[]> queue = new ConcurrentLinkedQueue<byte[]>();
+	private final AtomicInteger queueSize = new AtomicInteger();
+
+	private final AtomicLong submittedBatchCount = new AtomicLong();
+	private final AtomicLong droppedBatchCount = new AtomicLong();
+	private final AtomicLong sentBatchCount = new AtomicLong();
+	private final AtomicLong failedBatchCount = new AtomicLong();
+	private final AtomicLong flushCount = new AtomicLong();
+	private final AtomicLong connectCount = new AtomicLong();
+	private final AtomicLong reconnectCount = new AtomicLong();
+
+	private volatile boolean running = false;
+	private List<Thread> senders;
+
+	public GraphiteConnectionPool(final GraphiteConnectionPoolConfig config) {
+		checkArgumentNotNull(config, "config");
+		this.config = config;
+		startup();
+		GlobalRegistry.getInstance().addSharedResource(this);
+	}
+
+	@Override
+	public void startup() {
+		if (senders == null) {
+			logger.info("Starting graphite connection pool \"{}\" with {} connections to {}:{}", new Object[] {config.getName(), config.getSize(), config.getHost(), config.getPort()});
+			running = true;
+			senders = new LinkedList<Thread>();
+			for (int i = 0; i < config.getSize(); i++) {
+				final Thread thread = new Thread(new Sender(), "graphite-pool-" + config.getName() + "-" + i);
+				senders.add(thread);
+				thread.start();
+			}
+		} else {
+			logger.warn("Cannot startup as already started. Use shutdown first");
+		}
+	}
+
+	@Override
+	public void shutdown() {
+		logger.info("Shutting down graphite connection pool {}", config.getName());
+		running = false;
+		if (senders != null) {
+			for (final Thread thread : senders) {
+				LockSupport.unpark(thread);
+			}
+			for (final Thread thread : senders) {
+				try {
+					thread.join(TimeUnit.SECONDS.toMillis(20));
+				} catch (final InterruptedException e) {
+					logger.warn("Interrupted while waiting for {} to finish", thread.getName());
+					Thread.currentThread().interrupt();
+				}
+			}
+			senders = null;
+		}
+		// batches left over by senders that could not connect are lost
+		while (poll() != null) {
+			droppedBatchCount.incrementAndGet();
+		}
+		logger.info("Graphite connection pool {} was shutdown", config.getName());
+	}
+
+	/**
+	 * Queue a batch of already encoded metrics for sending.
+	 *
+	 * @param batch
+	 * @return {@code false} if the batch was dropped because the queue is full
+	 */
+	public boolean submit(final byte[] batch) {
+		checkArgumentNotNull(batch, "batch");
+		if (!enqueue(batch)) {
+			droppedBatchCount.incrementAndGet();
+			return false;
+		}
+		submittedBatchCount.incrementAndGet();
+		return true;
+	}
+
+	private boolean enqueue(final byte[] batch) {
+		if (queueSize.incrementAndGet() > config.getQueueSize()) {
+			queueSize.decrementAndGet();
+			return false;
+		}
+		queue.offer(batch);
+		return true;
+	}
+
+	private byte[] poll() {
+		final byte[] result = queue.poll();
+		if (result != null) {
+			queueSize.decrementAndGet();
+		}
+		return result;
+	}
+
+	public String getName() {
+		return config.getName();
+	}
+
+	public GraphiteConnectionPoolConfig getConfig() {
+		return config;
+	}
+
+	@Override
+	public Map<String, Object> getStats() {
+		final String prefix = "graphite-pools." + config.getName() + ".";
+		final Map<String, Object> result = new HashMap<String, Object>();
+		result.put(prefix + "queueSize", queueSize.get());
+		result.put(prefix + "submittedBatchCount", submittedBatchCount.get());
+		result.put(prefix + "droppedBatchCount", droppedBatchCount.get());
+		result.put(prefix + "sentBatchCount", sentBatchCount.get());
+		result.put(prefix + "failedBatchCount", failedBatchCount.get());
+		result.put(prefix + "flushCount", flushCount.get());
+		result.put(prefix + "connectCount", connectCount.get());
+		result.put(prefix + "reconnectCount", reconnectCount.get());
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + config.getName() + "]";
+	}
+
+	private class Sender implements Runnable {
+		private final GraphiteConnection connection = new GraphiteConnection(config.getHost(), config.getPort(), config.getReconnectDelay(), config.getMaxReconnectDelay(), config.getBufferSize());
+		/**
+		 * The batch taken from the queue while the connection could not be established. It is sent before any other batch so that the
+		 * order of the datapoints is kept.
+		 */
+		private byte[] pending;
+
+		@Override
+		public void run() {
+			while (running) {
+				final byte[] batch = next();
+				if (batch == null) {
+					idle();
+				} else if (ensureConnected()) {
+					send(batch);
+				} else {
+					pending = batch;
+					idle();
+				}
+			}
+			drain();
+			connection.disconnect();
+		}
+
+		private byte[] next() {
+			final byte[] result = pending != null ? pending : poll();
+			pending = null;
+			return result;
+		}
+
+		private void idle() {
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(config.getFlushInterval()));
+		}
+
+		private void drain() {
+			byte[] batch = next();
+			while (batch != null && ensureConnected()) {
+				send(batch);
+				batch = poll();
+			}
+			if (batch != null) {
+				droppedBatchCount.incrementAndGet();
+			}
+		}
+
+		private boolean ensureConnected() {
+			if (connection.isBroken()) {
+				logger.info("Connection to {} was closed by the remote side", connection);
+				connection.disconnectBroken();
+			}
+			if (!connection.isConnected()) {
+				if (!connection.canConnect()) {
+					return false;
+				}
+				connectCount.incrementAndGet();
+				if (connection.isLost()) {
+					reconnectCount.incrementAndGet();
+				}
+				try {
+					connection.connect();
+				} catch (final MetricWriteException e) {
+					logger.warn("Failed to connect to {}: {}", connection, e.getMessage());
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Write the given batch and as many queued ones as fit into the send buffer, then flush them all at once.
+		 */
+		private void send(final byte[] first) {
+			int batches = 0;
+			int size = 0;
+			byte[] batch = first;
+			try {
+				do {
+					connection.write(batch);
+					batches++;
+					size += batch.length;
+				} while (size < config.getBufferSize() && (batch = poll()) != null);
+				connection.flush();
+				sentBatchCount.addAndGet(batches);
+				flushCount.incrementAndGet();
+			} catch (final IOException e) {
+				logger.warn("Failed to send " + batches + " batches to " + connection, e);
+				connection.disconnectBroken();
+				failedBatchCount.addAndGet(batches);
+			}
+		}
+	}
+}
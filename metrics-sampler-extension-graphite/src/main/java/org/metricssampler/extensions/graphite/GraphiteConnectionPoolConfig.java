@@ -0,0 +1,100 @@
+package org.metricssampler.extensions.graphite;
+
+import static org.metricssampler.util.Preconditions.checkArgument;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNullNorEmpty;
+
+import org.metricssampler.config.SharedResourceConfig;
+import org.metricssampler.extensions.graphite.GraphiteOutputConfig.Protocol;
+
+public class GraphiteConnectionPoolConfig extends SharedResourceConfig {
+	private final String host;
+	private final int port;
+	private final Protocol protocol;
+	private final int size;
+	private final int queueSize;
+	private final int bufferSize;
+	private final int flushInterval;
+	private final int reconnectDelay;
+	private final int maxReconnectDelay;
+
+	public GraphiteConnectionPoolConfig(final String name, final boolean ignored, final String host, final int port, final Protocol protocol, final int size,
+			final int queueSize, final int bufferSize, final int flushInterval, final int reconnectDelay, final int maxReconnectDelay) {
+		super(name, ignored);
+		checkArgumentNotNullNorEmpty(host, "host");
+		checkArgument(port > 0 && port < 65536, "port must be in range [1,65535]");
+		checkArgumentNotNull(protocol, "protocol");
+		checkArgument(size > 0, "size must be greater than 0");
+		checkArgument(queueSize > 0, "queueSize must be greater than 0");
+		checkArgument(bufferSize > 0, "bufferSize must be greater than 0");
+		checkArgument(flushInterval > 0, "flushInterval must be greater than 0");
+		checkArgument(maxReconnectDelay >= reconnectDelay, "maxReconnectDelay must be greater than or equal to reconnectDelay");
+		this.host = host;
+		this.port = port;
+		this.protocol = protocol;
+		this.size = size;
+		this.queueSize = queueSize;
+		this.bufferSize = bufferSize;
+		this.flushInterval = flushInterval;
+		this.reconnectDelay = reconnectDelay;
+		this.maxReconnectDelay = maxReconnectDelay;
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	/**
+	 * @return the protocol carbon expects on {@link #getPort()}. Only outputs using the same protocol may send their metrics through the pool.
+	 */
+	public Protocol getProtocol() {
+		return protocol;
+	}
+
+	/**
+	 * @return the number of connections to graphite (and threads sending over them)
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the maximal number of metric batches waiting to be sent. Batches submitted while the queue is full are dropped.
+	 */
+	public int getQueueSize() {
+		return queueSize;
+	}
+
+	/**
+	 * @return the size in bytes of the send buffer of each connection. Queued batches are coalesced into the buffer until it is full or the
+	 *         queue is empty.
+	 */
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * @return the number of milliseconds an idle connection waits for new batches before checking the queue again
+	 */
+	public int getFlushInterval() {
+		return flushInterval;
+	}
+
+	/**
+	 * @return the number of milliseconds to wait before trying to connect again after the first failed connection attempt
+	 */
+	public int getReconnectDelay() {
+		return reconnectDelay;
+	}
+
+	/**
+	 * @return the maximal number of milliseconds to wait between two connection attempts
+	 */
+	public int getMaxReconnectDelay() {
+		return maxReconnectDelay;
+	}
+}
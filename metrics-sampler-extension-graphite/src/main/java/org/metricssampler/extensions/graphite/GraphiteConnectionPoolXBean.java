@@ -0,0 +1,170 @@
+package org.metricssampler.extensions.graphite;
+
+import static org.metricssampler.config.loader.xbeans.ValidationUtils.greaterThanZero;
+import static org.metricssampler.config.loader.xbeans.ValidationUtils.notEmpty;
+import static org.metricssampler.config.loader.xbeans.ValidationUtils.notNegativeOptional;
+import static org.metricssampler.config.loader.xbeans.ValidationUtils.validPort;
+
+import org.metricssampler.config.ConfigurationException;
+import org.metricssampler.config.SharedResourceConfig;
+import org.metricssampler.config.loader.xbeans.SharedResourceXBean;
+import org.metricssampler.extensions.graphite.GraphiteOutputConfig.Protocol;
+
+import com.thoughtworks.xstream.annotations.XStreamAlias;
+import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
+
+@XStreamAlias("graphite-connection-pool")
+public class GraphiteConnectionPoolXBean extends SharedResourceXBean {
+	private static final int DEFAULT_SIZE = 2;
+	private static final int DEFAULT_QUEUE_SIZE = 10000;
+	private static final int DEFAULT_BUFFER_SIZE = 65536;
+	private static final int DEFAULT_FLUSH_INTERVAL = 100;
+
+	@XStreamAsAttribute
+	private String host;
+
+	@XStreamAsAttribute
+	private Integer port;
+
+	@XStreamAsAttribute
+	private String protocol;
+
+	@XStreamAsAttribute
+	private Integer size;
+
+	@XStreamAsAttribute
+	@XStreamAlias("queue-size")
+	private Integer queueSize;
+
+	@XStreamAsAttribute
+	@XStreamAlias("buffer-size")
+	private Integer bufferSize;
+
+	@XStreamAsAttribute
+	@XStreamAlias("flush-interval")
+	private Integer flushInterval;
+
+	@XStreamAsAttribute
+	@XStreamAlias("reconnect-delay")
+	private Integer reconnectDelay;
+
+	@XStreamAsAttribute
+	@XStreamAlias("max-reconnect-delay")
+	private Integer maxReconnectDelay;
+
+	public String getHost() {
+		return host;
+	}
+
+	public void setHost(final String host) {
+		this.host = host;
+	}
+
+	public Integer getPort() {
+		return port;
+	}
+
+	public void setPort(final Integer port) {
+		this.port = port;
+	}
+
+	public String getProtocol() {
+		return protocol;
+	}
+
+	public void setProtocol(final String protocol) {
+		this.protocol = protocol;
+	}
+
+	public Integer getSize() {
+		return size;
+	}
+
+	public void setSize(final Integer size) {
+		this.size = size;
+	}
+
+	public Integer getQueueSize() {
+		return queueSize;
+	}
+
+	public void setQueueSize(final Integer queueSize) {
+		this.queueSize = queueSize;
+	}
+
+	public Integer getBufferSize() {
+		return bufferSize;
+	}
+
+	public void setBufferSize(final Integer bufferSize) {
+		this.bufferSize = bufferSize;
+	}
+
+	public Integer getFlushInterval() {
+		return flushInterval;
+	}
+
+	public void setFlushInterval(final Integer flushInterval) {
+		this.flushInterval = flushInterval;
+	}
+
+	public Integer getReconnectDelay() {
+		return reconnectDelay;
+	}
+
+	public void setReconnectDelay(final Integer reconnectDelay) {
+		this.reconnectDelay = reconnectDelay;
+	}
+
+	public Integer getMaxReconnectDelay() {
+		return maxReconnectDelay;
+	}
+
+	public void setMaxReconnectDelay(final Integer maxReconnectDelay) {
+		this.maxReconnectDelay = maxReconnectDelay;
+	}
+
+	@Override
+	protected void validate() {
+		super.validate();
+		notEmpty(this, "host", getHost());
+		validPort(this, "port", getPort());
+		parseProtocol();
+		if (getSize() != null) {
+			greaterThanZero(this, "size", getSize());
+		}
+		if (getQueueSize() != null) {
+			greaterThanZero(this, "queue-size", getQueueSize());
+		}
+		if (getBufferSize() != null) {
+			greaterThanZero(this, "buffer-size", getBufferSize());
+		}
+		if (getFlushInterval() != null) {
+			greaterThanZero(this, "flush-interval", getFlushInterval());
+		}
+		notNegativeOptional(this, "reconnect-delay", getReconnectDelay());
+		notNegativeOptional(this, "max-reconnect-delay", getMaxReconnectDelay());
+	}
+
+	private Protocol parseProtocol() {
+		if (getProtocol() == null) {
+			return Protocol.PLAINTEXT;
+		}
+		try {
+			return Protocol.valueOf(getProtocol().toUpperCase());
+		} catch (final IllegalArgumentException e) {
+			throw new ConfigurationException("Attribute \"protocol\" of graphite-connection-pool[" + getName() + "] must be either plaintext or pickle but was \"" + getProtocol() + "\"");
+		}
+	}
+
+	@Override
+	protected SharedResourceConfig createConfig() {
+		final int size = getSize() != null ? getSize() : DEFAULT_SIZE;
+		final int queueSize = getQueueSize() != null ? getQueueSize() : DEFAULT_QUEUE_SIZE;
+		final int bufferSize = getBufferSize() != null ? getBufferSize() : DEFAULT_BUFFER_SIZE;
+		final int flushInterval = getFlushInterval() != null ? getFlushInterval() : DEFAULT_FLUSH_INTERVAL;
+		final int reconnectDelay = getReconnectDelay() != null ? getReconnectDelay() : GraphiteOutputConfig.DEFAULT_RECONNECT_DELAY;
+		final int maxReconnectDelay = getMaxReconnectDelay() != null ? getMaxReconnectDelay() : Math.max(GraphiteOutputConfig.DEFAULT_MAX_RECONNECT_DELAY, reconnectDelay);
+		return new GraphiteConnectionPoolConfig(getName(), isIgnored(), getHost(), getPort(), parseProtocol(), size, queueSize, bufferSize, flushInterval, reconnectDelay, maxReconnectDelay);
+	}
+}
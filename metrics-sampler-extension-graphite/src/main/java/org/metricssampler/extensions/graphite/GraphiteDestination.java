@@ -0,0 +1,64 @@
+package org.metricssampler.extensions.graphite;
+
+import static org.metricssampler.util.Preconditions.checkArgument;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNullNorEmpty;
+
+/**
+ * One carbon instance of a cluster, given as in the DESTINATIONS setting of carbon-relay: {@code host:port[:instance]}.
+ */
+public class GraphiteDestination {
+	private final String host;
+	private final int port;
+	private final String instance;
+
+	public GraphiteDestination(final String host, final int port, final String instance) {
+		checkArgumentNotNullNorEmpty(host, "host");
+		checkArgument(port > 0 && port < 65536, "port must be in range [1,65535]");
+		this.host = host;
+		this.port = port;
+		this.instance = instance;
+	}
+
+	/**
+	 * @param value the destination in the format {@code host:port[:instance]}
+	 */
+	public static GraphiteDestination parse(final String value) {
+		final String[] parts = value.trim().split(":");
+		checkArgument(parts.length == 2 || parts.length == 3, "Destination \"" + value + "\" must be in the format host:port[:instance]");
+		final int port;
+		try {
+			port = Integer.parseInt(parts[1]);
+		} catch (final NumberFormatException e) {
+			throw new IllegalArgumentException("Destination \"" + value + "\" has an invalid port");
+		}
+		return new GraphiteDestination(parts[0], port, parts.length == 3 ? parts[2] : null);
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	/**
+	 * @return the carbon instance name or {@code null} if not specified
+	 */
+	public String getInstance() {
+		return instance;
+	}
+
+	/**
+	 * @return the key under which carbon-relay places the destination on its hash ring, i.e. the python string representation of the
+	 *         tuple {@code (host, instance)}
+	 */
+	public String getRingKey() {
+		return "('" + host + "', " + (instance != null ? "'" + instance + "'" : "None") + ")";
+	}
+
+	@Override
+	public String toString() {
+		return host + ":" + port + (instance != null ? ":" + instance : "");
+	}
+}
@@ -4,7 +4,11 @@ import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 
+import org.metricssampler.config.ConfigurationException;
 import org.metricssampler.config.OutputConfig;
+import org.metricssampler.config.SharedResourceConfig;
+import org.metricssampler.extensions.graphite.GraphiteOutputConfig.Transport;
+import org.metricssampler.resources.SharedResource;
 import org.metricssampler.service.AbstractExtension;
 import org.metricssampler.writer.MetricsWriter;
 
@@ -13,6 +17,7 @@ public class GraphiteExtension extends AbstractExtension {
 	public Collection<Class<?>> getXBeans() {
 		final List<Class<?>> result = new LinkedList<Class<?>>();
 		result.add(GraphiteOutputXBean.class);
+		result.add(GraphiteConnectionPoolXBean.class);
 		return result;
 	}
 	@Override
@@ -22,6 +27,36 @@ public class GraphiteExtension extends AbstractExtension {
 
 	@Override
 	protected MetricsWriter doNewWriter(final OutputConfig config) {
-		return new GraphiteMetricsWriter((GraphiteOutputConfig) config);
+		final GraphiteOutputConfig graphiteConfig = (GraphiteOutputConfig) config;
+		if (graphiteConfig.getTransport() == Transport.UDP) {
+			return new GraphiteUdpMetricsWriter(graphiteConfig);
+		}
+		if (!graphiteConfig.getDestinations().isEmpty()) {
+			return new GraphiteClusterMetricsWriter(graphiteConfig);
+		}
+		if (graphiteConfig.getPool() == null) {
+			return new GraphiteMetricsWriter(graphiteConfig);
+		}
+		final SharedResource sharedResource = getGlobalFactory().getSharedResource(graphiteConfig.getPool());
+		if (sharedResource instanceof GraphiteConnectionPool) {
+			final GraphiteConnectionPool pool = (GraphiteConnectionPool) sharedResource;
+			if (pool.getConfig().getProtocol() != graphiteConfig.getProtocol()) {
+				throw new ConfigurationException("Output " + graphiteConfig.getName() + " uses the " + graphiteConfig.getProtocol() + " protocol but its pool "
+						+ pool.getName() + " sends " + pool.getConfig().getProtocol());
+			}
+			return new PooledGraphiteMetricsWriter(graphiteConfig, pool);
+		} else {
+			throw new ConfigurationException(graphiteConfig.getPool() + " is not a graphite connection pool: " + sharedResource);
+		}
+	}
+
+	@Override
+	public boolean supportsSharedResource(final SharedResourceConfig config) {
+		return config instanceof GraphiteConnectionPoolConfig;
+	}
+
+	@Override
+	protected SharedResource doNewSharedResource(final SharedResourceConfig config) {
+		return new GraphiteConnectionPool((GraphiteConnectionPoolConfig) config);
 	}
 }
@@ -1,63 +1,59 @@
 package org.metricssampler.extensions.graphite;
 
-import static org.apache.commons.io.IOUtils.closeQuietly;
 import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
 
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
-import java.net.Socket;
-import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 import org.metricssampler.reader.MetricValue;
+import org.metricssampler.resources.SamplerStats;
 import org.metricssampler.writer.MetricWriteException;
-import org.metricssampler.writer.MetricsWriter;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
  * Send metrics to graphite. This class is not thread safe and should not be used by multiple samplers.
+ * <p>
+ * If the output is configured to use a persistent connection, the socket is kept open between samplings. A connection that was closed by
+ * the remote side or that failed during writing is re-established. Failed connection attempts are retried after a delay which doubles
+ * with each further failure up to the configured maximum.
+ * </p>
  */
-public class GraphiteMetricsWriter implements MetricsWriter {
-	private final Logger logger;
-
-	private final GraphiteOutputConfig config;
-
-	private Socket socket;
-	private Writer writer;
+public class GraphiteMetricsWriter extends AbstractGraphiteMetricsWriter {
+	private final GraphiteConnection connection;
 
 	public GraphiteMetricsWriter(final GraphiteOutputConfig config) {
-		checkArgumentNotNull(config, "config");
-		this.config = config;
-		this.logger = LoggerFactory.getLogger("writer."+config.getName());
+		super(config);
+		this.connection = new GraphiteConnection(config.getHost(), config.getPort(), config.getReconnectDelay(), config.getMaxReconnectDelay());
 	}
 
 	@Override
 	public void open() throws MetricWriteException {
-		if (!isConnected()) {
-	        try {
-				socket = new Socket(config.getHost(), config.getPort());
-				writer = new OutputStreamWriter(socket.getOutputStream());
-			} catch (final UnknownHostException e) {
-				throw new MetricWriteException(e);
-			} catch (final IOException e) {
-				throw new MetricWriteException(e);
-			}
+		if (connection.isBroken()) {
+			logger.info("Connection to {} was closed by the remote side", connection);
+			connection.disconnectBroken();
+		}
+		if (!connection.isConnected()) {
+			connect();
 		}
 	}
 
+	protected void connect() throws MetricWriteException {
+		connection.assertCanConnect();
+		SamplerStats.get().incWriterConnectCount();
+		if (connection.isLost()) {
+			SamplerStats.get().incWriterReconnectCount();
+		}
+		connection.connect();
+	}
+
 	protected boolean isConnected() {
-		return socket != null;
+		return connection.isConnected();
 	}
 
 	@Override
 	public void close() throws MetricWriteException {
-		if (isConnected()) {
-			closeQuietly(writer);
-			closeQuietly(socket);
-			writer = null;
-			socket = null;
+		if (!config.isPersistentConnection()) {
+			connection.disconnect();
 		}
 	}
 
@@ -65,30 +61,29 @@ public class GraphiteMetricsWriter implements MetricsWriter {
 	public void write(final Map<String, MetricValue> metrics) {
 		checkArgumentNotNull(metrics, "metrics");
 		assertIsConnected();
-		final StringBuilder builder = new StringBuilder();
-		for (final Map.Entry<String, MetricValue> entry : metrics.entrySet()) {
-			final MetricValue value = entry.getValue();
-			final String msg = serializeValue(entry.getKey(), value);
-			builder.append(msg);
+		final ByteBuffer payload = encode(metrics);
+		if (!payload.hasRemaining()) {
+			return;
 		}
 		try {
-			logger.debug("Sending to graphite:\n"+builder.toString());
-			writer.write(builder.toString());
-			writer.flush();
+			connection.send(payload);
 		} catch (final IOException e) {
-			throw new MetricWriteException(e);
+			connection.disconnectBroken();
+			if (!config.isPersistentConnection()) {
+				throw new MetricWriteException(e);
+			}
+			logger.info("Connection to {} broken while writing. Reconnecting", connection);
+			connect();
+			payload.rewind();
+			try {
+				connection.send(payload);
+			} catch (final IOException retryException) {
+				connection.disconnectBroken();
+				throw new MetricWriteException(retryException);
+			}
 		}
 	}
 
-	protected String serializeValue(final String name, final MetricValue value) {
-		checkArgumentNotNull(name, "name");
-		checkArgumentNotNull(value, "value");
-		final long timestamp = value.getTimestamp()/1000;
-		final String prefixedName = (config.getPrefix() != null ? config.getPrefix() : "") + name;
-		final String graphiteName = prefixedName.replaceAll(" ", "_");
-		return graphiteName + " " + value.getValue()+" " + timestamp + "\n";
-	}
-
 	protected void assertIsConnected() {
 		if (!isConnected()) {
 			throw new IllegalStateException("Not connected");
@@ -0,0 +1,38 @@
+package org.metricssampler.extensions.graphite;
+
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Converts metric names to the UTF-8 encoded names sent to graphite (prefix + name with spaces replaced by underscores). The result is
+ * cached so that it is computed only once per metric name. The cache is cleared when it reaches its maximal size, so that a reader that
+ * keeps producing new names does not exhaust the memory. This class is not thread safe.
+ */
+public class GraphiteNames {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final int MAX_CACHE_SIZE = 100000;
+
+	private final String prefix;
+	private final Map<String, byte[]> cache = new HashMap<String, byte[]>();
+
+	public GraphiteNames(final String prefix) {
+		this.prefix = prefix != null ? prefix : "";
+	}
+
+	public byte[] get(final String name) {
+		byte[] result = cache.get(name);
+		if (result == null) {
+			if (cache.size() >= MAX_CACHE_SIZE) {
+				cache.clear();
+			}
+			result = toGraphiteName(name).getBytes(UTF8);
+			cache.put(name, result);
+		}
+		return result;
+	}
+
+	public String toGraphiteName(final String name) {
+		return (prefix + name).replace(' ', '_');
+	}
+}
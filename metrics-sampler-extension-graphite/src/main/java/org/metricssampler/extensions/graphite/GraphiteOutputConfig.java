@@ -1,22 +1,111 @@
 package org.metricssampler.extensions.graphite;
 
 import static org.metricssampler.util.Preconditions.checkArgument;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
 import static org.metricssampler.util.Preconditions.checkArgumentNotNullNorEmpty;
 
+import java.util.Collections;
+import java.util.List;
+
 import org.metricssampler.config.OutputConfig;
+import org.metricssampler.config.SpoolConfig;
+import org.metricssampler.config.WriteQueueConfig;
 
 public class GraphiteOutputConfig extends OutputConfig {
+	public static final int DEFAULT_RECONNECT_DELAY = 1000;
+	public static final int DEFAULT_MAX_RECONNECT_DELAY = 60000;
+	public static final int DEFAULT_MAX_DATAPOINTS_PER_FRAME = 500;
+	public static final int DEFAULT_DATAGRAM_SIZE = 1432;
+
+	/**
+	 * The protocol used to send the metrics to carbon.
+	 */
+	public enum Protocol {
+		/**
+		 * One line of text per metric, usually port 2003
+		 */
+		PLAINTEXT,
+		/**
+		 * Length-prefixed frames of pickled datapoint lists, usually port 2004
+		 */
+		PICKLE
+	}
+
+	/**
+	 * The transport used to send the metrics to carbon.
+	 */
+	public enum Transport {
+		TCP,
+		/**
+		 * Fire-and-forget datagrams. Only supported with the plaintext protocol.
+		 */
+		UDP
+	}
+
+	/**
+	 * The precision of the timestamps sent to carbon.
+	 */
+	public enum TimestampPrecision {
+		/**
+		 * Whole seconds as expected by the default whisper storage
+		 */
+		SECONDS,
+		/**
+		 * Fractional seconds with millisecond precision for sub-second sampling intervals. Only useful with a backend that stores them
+		 * (whisper truncates to its archive resolution).
+		 */
+		MILLISECONDS
+	}
+
 	private final String host;
 	private final int port;
 	private final String prefix;
+	private final String pool;
+	private final List<GraphiteDestination> destinations;
+	private final boolean persistentConnection;
+	private final int reconnectDelay;
+	private final int maxReconnectDelay;
+	private final Protocol protocol;
+	private final int maxDatapointsPerFrame;
+	private final Transport transport;
+	private final int datagramSize;
+	private final TimestampPrecision timestampPrecision;
 
 	public GraphiteOutputConfig(final String name, final boolean default_, final String host, final int port, final String prefix) {
-		super(name, default_);
-		checkArgumentNotNullNorEmpty(host, "host");
-		checkArgument(port > 0 && port < 65536, "port must be in range [1,65535]");
+		this(name, default_, host, port, prefix, null, null, false, DEFAULT_RECONNECT_DELAY, DEFAULT_MAX_RECONNECT_DELAY, Protocol.PLAINTEXT, DEFAULT_MAX_DATAPOINTS_PER_FRAME, Transport.TCP, DEFAULT_DATAGRAM_SIZE, TimestampPrecision.SECONDS, null, null);
+	}
+
+	public GraphiteOutputConfig(final String name, final boolean default_, final String host, final int port, final String prefix, final String pool,
+			final List<GraphiteDestination> destinations, final boolean persistentConnection, final int reconnectDelay, final int maxReconnectDelay, final Protocol protocol, final int maxDatapointsPerFrame,
+			final Transport transport, final int datagramSize, final TimestampPrecision timestampPrecision, final WriteQueueConfig writeQueue, final SpoolConfig spool) {
+		super(name, default_, writeQueue, spool);
+		final boolean cluster = destinations != null && !destinations.isEmpty();
+		if (pool == null && !cluster) {
+			checkArgumentNotNullNorEmpty(host, "host");
+			checkArgument(port > 0 && port < 65536, "port must be in range [1,65535]");
+		}
+		checkArgument(reconnectDelay >= 0, "reconnectDelay must not be negative");
+		checkArgument(maxReconnectDelay >= reconnectDelay, "maxReconnectDelay must be greater than or equal to reconnectDelay");
+		checkArgumentNotNull(protocol, "protocol");
+		checkArgument(maxDatapointsPerFrame > 0, "maxDatapointsPerFrame must be greater than 0");
+		checkArgumentNotNull(transport, "transport");
+		checkArgument(transport == Transport.TCP || protocol == Protocol.PLAINTEXT, "UDP transport requires the plaintext protocol");
+		checkArgument(datagramSize > 0, "datagramSize must be greater than 0");
+		checkArgumentNotNull(timestampPrecision, "timestampPrecision");
+		checkArgument(!cluster || (pool == null && transport == Transport.TCP), "destinations can only be used with the TCP transport and without pool");
 		this.host = host;
 		this.port = port;
 		this.prefix = prefix;
+		this.pool = pool;
+		this.destinations = cluster ? Collections.unmodifiableList(destinations) : Collections.<GraphiteDestination>emptyList();
+		this.persistentConnection = persistentConnection;
+		this.reconnectDelay = reconnectDelay;
+		this.maxReconnectDelay = maxReconnectDelay;
+		this.protocol = protocol;
+		this.maxDatapointsPerFrame = maxDatapointsPerFrame;
+		this.transport = transport;
+		this.datagramSize = datagramSize;
+		this.timestampPrecision = timestampPrecision;
 	}
 
 	public String getHost() {
@@ -30,4 +119,76 @@ public class GraphiteOutputConfig extends OutputConfig {
 	public String getPrefix() {
 		return prefix;
 	}
+
+	/**
+	 * @return the name of the graphite connection pool to send the metrics through or {@code null} if the output uses its own connection
+	 *         to {@link #getHost()}:{@link #getPort()}
+	 */
+	public String getPool() {
+		return pool;
+	}
+
+	/**
+	 * @return the carbon instances the metrics are distributed to using consistent hashing or an empty list if the output sends all
+	 *         metrics to {@link #getHost()}:{@link #getPort()}
+	 */
+	public List<GraphiteDestination> getDestinations() {
+		return destinations;
+	}
+
+	/**
+	 * @return a configuration with the same settings as this one that sends all metrics to the given destination
+	 */
+	public GraphiteOutputConfig forDestination(final GraphiteDestination destination) {
+		return new GraphiteOutputConfig(getName(), false, destination.getHost(), destination.getPort(), prefix, null, null, persistentConnection, reconnectDelay,
+				maxReconnectDelay, protocol, maxDatapointsPerFrame, transport, datagramSize, timestampPrecision, null, null);
+	}
+
+	/**
+	 * @return {@code true} if the connection should be kept open between samplings and only closed when it breaks
+	 */
+	public boolean isPersistentConnection() {
+		return persistentConnection;
+	}
+
+	/**
+	 * @return the number of milliseconds to wait before trying to connect again after the first failed connection attempt. The delay is
+	 *         doubled after each further failure until it reaches {@link #getMaxReconnectDelay()}.
+	 */
+	public int getReconnectDelay() {
+		return reconnectDelay;
+	}
+
+	/**
+	 * @return the maximal number of milliseconds to wait between two connection attempts
+	 */
+	public int getMaxReconnectDelay() {
+		return maxReconnectDelay;
+	}
+
+	public Protocol getProtocol() {
+		return protocol;
+	}
+
+	/**
+	 * @return the maximal number of datapoints in one pickle frame. Larger samples are split into multiple frames.
+	 */
+	public int getMaxDatapointsPerFrame() {
+		return maxDatapointsPerFrame;
+	}
+
+	public Transport getTransport() {
+		return transport;
+	}
+
+	/**
+	 * @return the maximal number of bytes sent in one datagram when using the UDP transport. Lines are never split across datagrams.
+	 */
+	public int getDatagramSize() {
+		return datagramSize;
+	}
+
+	public TimestampPrecision getTimestampPrecision() {
+		return timestampPrecision;
+	}
 }
@@ -1,10 +1,19 @@
 package org.metricssampler.extensions.graphite;
 
+import static org.metricssampler.config.loader.xbeans.ValidationUtils.greaterThanZero;
 import static org.metricssampler.config.loader.xbeans.ValidationUtils.notEmpty;
+import static org.metricssampler.config.loader.xbeans.ValidationUtils.notNegativeOptional;
 import static org.metricssampler.config.loader.xbeans.ValidationUtils.validPort;
 
+import java.util.LinkedList;
+import java.util.List;
+
+import org.metricssampler.config.ConfigurationException;
 import org.metricssampler.config.OutputConfig;
 import org.metricssampler.config.loader.xbeans.OutputXBean;
+import org.metricssampler.extensions.graphite.GraphiteOutputConfig.Protocol;
+import org.metricssampler.extensions.graphite.GraphiteOutputConfig.TimestampPrecision;
+import org.metricssampler.extensions.graphite.GraphiteOutputConfig.Transport;
 
 import com.thoughtworks.xstream.annotations.XStreamAlias;
 import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
@@ -15,21 +24,57 @@ public class GraphiteOutputXBean extends OutputXBean {
 	private String host;
 
 	@XStreamAsAttribute
-	private int port;
+	private Integer port;
 
 	@XStreamAsAttribute
 	private String prefix;
 
+	@XStreamAsAttribute
+	private String pool;
+
+	@XStreamAsAttribute
+	private String destinations;
+
+	@XStreamAsAttribute
+	@XStreamAlias("persistent-connection")
+	private Boolean persistentConnection;
+
+	@XStreamAsAttribute
+	@XStreamAlias("reconnect-delay")
+	private Integer reconnectDelay;
+
+	@XStreamAsAttribute
+	@XStreamAlias("max-reconnect-delay")
+	private Integer maxReconnectDelay;
+
+	@XStreamAsAttribute
+	private String protocol;
+
+	@XStreamAsAttribute
+	@XStreamAlias("max-datapoints-per-frame")
+	private Integer maxDatapointsPerFrame;
+
+	@XStreamAsAttribute
+	private String transport;
+
+	@XStreamAsAttribute
+	@XStreamAlias("datagram-size")
+	private Integer datagramSize;
+
+	@XStreamAsAttribute
+	@XStreamAlias("timestamp-precision")
+	private String timestampPrecision;
+
 	public String getHost() {
 		return host;
 	}
 	public void setHost(final String host) {
 		this.host = host;
 	}
-	public int getPort() {
+	public Integer getPort() {
 		return port;
 	}
-	public void setPort(final int port) {
+	public void setPort(final Integer port) {
 		this.port = port;
 	}
 	public String getPrefix() {
@@ -38,17 +83,171 @@ public class GraphiteOutputXBean extends OutputXBean {
 	public void setPrefix(final String prefix) {
 		this.prefix = prefix;
 	}
+	public String getPool() {
+		return pool;
+	}
+	public void setPool(final String pool) {
+		this.pool = pool;
+	}
+	public String getDestinations() {
+		return destinations;
+	}
+	public void setDestinations(final String destinations) {
+		this.destinations = destinations;
+	}
+	public Boolean getPersistentConnection() {
+		return persistentConnection;
+	}
+	public void setPersistentConnection(final Boolean persistentConnection) {
+		this.persistentConnection = persistentConnection;
+	}
+	public Integer getReconnectDelay() {
+		return reconnectDelay;
+	}
+	public void setReconnectDelay(final Integer reconnectDelay) {
+		this.reconnectDelay = reconnectDelay;
+	}
+	public Integer getMaxReconnectDelay() {
+		return maxReconnectDelay;
+	}
+	public void setMaxReconnectDelay(final Integer maxReconnectDelay) {
+		this.maxReconnectDelay = maxReconnectDelay;
+	}
+	public String getProtocol() {
+		return protocol;
+	}
+	public void setProtocol(final String protocol) {
+		this.protocol = protocol;
+	}
+	public Integer getMaxDatapointsPerFrame() {
+		return maxDatapointsPerFrame;
+	}
+	public void setMaxDatapointsPerFrame(final Integer maxDatapointsPerFrame) {
+		this.maxDatapointsPerFrame = maxDatapointsPerFrame;
+	}
+	public String getTransport() {
+		return transport;
+	}
+	public void setTransport(final String transport) {
+		this.transport = transport;
+	}
+	public Integer getDatagramSize() {
+		return datagramSize;
+	}
+	public void setDatagramSize(final Integer datagramSize) {
+		this.datagramSize = datagramSize;
+	}
+	public String getTimestampPrecision() {
+		return timestampPrecision;
+	}
+	public void setTimestampPrecision(final String timestampPrecision) {
+		this.timestampPrecision = timestampPrecision;
+	}
 
 	@Override
 	protected void validate() {
 		super.validate();
-		notEmpty(this, "host", getHost());
-		validPort(this, "port", getPort());
+		if (getDestinations() != null) {
+			if (getHost() != null || getPort() != null || getPool() != null) {
+				throw new ConfigurationException("Attribute \"destinations\" of graphite[" + getName() + "] may not be used together with \"host\", \"port\" or \"pool\"");
+			}
+			parseDestinations();
+		} else if (getPool() == null) {
+			notEmpty(this, "host", getHost());
+			validPort(this, "port", getPort());
+		} else if (getHost() != null || getPort() != null) {
+			throw new ConfigurationException("Attributes \"host\" and \"port\" of graphite[" + getName() + "] may not be used together with \"pool\"");
+		}
+		notNegativeOptional(this, "reconnect-delay", getReconnectDelay());
+		notNegativeOptional(this, "max-reconnect-delay", getMaxReconnectDelay());
+		if (getReconnectDelayOrDefault() > getMaxReconnectDelayOrDefault()) {
+			throw new ConfigurationException("Attribute \"max-reconnect-delay\" of graphite[" + getName() + "] must be greater than or equal to \"reconnect-delay\"");
+		}
+		parseProtocol();
+		if (getMaxDatapointsPerFrame() != null) {
+			greaterThanZero(this, "max-datapoints-per-frame", getMaxDatapointsPerFrame());
+		}
+		if (parseTransport() == Transport.UDP) {
+			if (parseProtocol() != Protocol.PLAINTEXT || getPool() != null || getDestinations() != null) {
+				throw new ConfigurationException("Attribute \"transport\" of graphite[" + getName() + "] may only be udp with the plaintext protocol and without \"pool\" or \"destinations\"");
+			}
+		}
+		if (getDatagramSize() != null) {
+			greaterThanZero(this, "datagram-size", getDatagramSize());
+		}
+		parseTimestampPrecision();
 	}
+
+	private List<GraphiteDestination> parseDestinations() {
+		if (getDestinations() == null) {
+			return null;
+		}
+		final List<GraphiteDestination> result = new LinkedList<GraphiteDestination>();
+		for (final String destination : getDestinations().split("[,\\s]+")) {
+			if (!destination.isEmpty()) {
+				try {
+					result.add(GraphiteDestination.parse(destination));
+				} catch (final IllegalArgumentException e) {
+					throw new ConfigurationException("Attribute \"destinations\" of graphite[" + getName() + "] is invalid: " + e.getMessage());
+				}
+			}
+		}
+		if (result.isEmpty()) {
+			throw new ConfigurationException("Attribute \"destinations\" of graphite[" + getName() + "] must contain at least one destination");
+		}
+		return result;
+	}
+
+	private Transport parseTransport() {
+		if (getTransport() == null) {
+			return Transport.TCP;
+		}
+		try {
+			return Transport.valueOf(getTransport().toUpperCase());
+		} catch (final IllegalArgumentException e) {
+			throw new ConfigurationException("Attribute \"transport\" of graphite[" + getName() + "] must be either tcp or udp but was \"" + getTransport() + "\"");
+		}
+	}
+
+	private TimestampPrecision parseTimestampPrecision() {
+		if (getTimestampPrecision() == null) {
+			return TimestampPrecision.SECONDS;
+		}
+		try {
+			return TimestampPrecision.valueOf(getTimestampPrecision().toUpperCase());
+		} catch (final IllegalArgumentException e) {
+			throw new ConfigurationException("Attribute \"timestamp-precision\" of graphite[" + getName() + "] must be either seconds or milliseconds but was \"" + getTimestampPrecision() + "\"");
+		}
+	}
+
+	private Protocol parseProtocol() {
+		if (getProtocol() == null) {
+			return Protocol.PLAINTEXT;
+		}
+		try {
+			return Protocol.valueOf(getProtocol().toUpperCase());
+		} catch (final IllegalArgumentException e) {
+			throw new ConfigurationException("Attribute \"protocol\" of graphite[" + getName() + "] must be either plaintext or pickle but was \"" + getProtocol() + "\"");
+		}
+	}
+
+	private int getReconnectDelayOrDefault() {
+		return getReconnectDelay() != null ? getReconnectDelay() : GraphiteOutputConfig.DEFAULT_RECONNECT_DELAY;
+	}
+
+	private int getMaxReconnectDelayOrDefault() {
+		return getMaxReconnectDelay() != null ? getMaxReconnectDelay() : Math.max(GraphiteOutputConfig.DEFAULT_MAX_RECONNECT_DELAY, getReconnectDelayOrDefault());
+	}
+
 	@Override
 	public OutputConfig toConfig() {
 		validate();
-		return new GraphiteOutputConfig(getName(), isDefault(), getHost(), getPort(), getPrefix());
+		final boolean persistent = getPersistentConnection() != null ? getPersistentConnection() : false;
+		final int port = getPort() != null ? getPort() : -1;
+		final int maxDatapointsPerFrame = getMaxDatapointsPerFrame() != null ? getMaxDatapointsPerFrame() : GraphiteOutputConfig.DEFAULT_MAX_DATAPOINTS_PER_FRAME;
+		final int datagramSize = getDatagramSize() != null ? getDatagramSize() : GraphiteOutputConfig.DEFAULT_DATAGRAM_SIZE;
+		return new GraphiteOutputConfig(getName(), isDefault(), getHost(), port, getPrefix(), getPool(), parseDestinations(), persistent, getReconnectDelayOrDefault(), getMaxReconnectDelayOrDefault(),
+				parseProtocol(), maxDatapointsPerFrame, parseTransport(), datagramSize, parseTimestampPrecision(), createWriteQueueConfig(), createSpoolConfig());
 	}
 
 }
@@ -0,0 +1,141 @@
+package org.metricssampler.extensions.graphite;
+
+import static org.metricssampler.util.Preconditions.checkArgument;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes datapoints in the format expected by the pickle receiver of carbon: frames consisting of a four byte big endian length header
+ * followed by a pickled (protocol 2) list of {@code (name, (timestamp, value))} tuples. All frames of one batch are encoded into the same
+ * buffer which is reused for the next batch. This class is not thread safe.
+ */
+public class GraphitePickleEncoder {
+	private static final int INITIAL_BUFFER_SIZE = 8192;
+	private static final int HEADER_SIZE = 4;
+
+	private static final byte PROTO = (byte) 0x80;
+	private static final byte PROTOCOL_VERSION = 2;
+	private static final byte EMPTY_LIST = ']';
+	private static final byte MARK = '(';
+	private static final byte BINUNICODE = 'X';
+	private static final byte BININT = 'J';
+	private static final byte LONG1 = (byte) 0x8a;
+	private static final byte BINFLOAT = 'G';
+	private static final byte TUPLE2 = (byte) 0x86;
+	private static final byte APPENDS = 'e';
+	private static final byte STOP = '.';
+
+	private final int maxDatapointsPerFrame;
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
+
+	private int frameStart = -1;
+	private int frameDatapoints = 0;
+
+	public GraphitePickleEncoder(final int maxDatapointsPerFrame) {
+		checkArgument(maxDatapointsPerFrame > 0, "maxDatapointsPerFrame must be greater than 0");
+		this.maxDatapointsPerFrame = maxDatapointsPerFrame;
+	}
+
+	/**
+	 * Start a new batch discarding whatever was encoded before.
+	 */
+	public void begin() {
+		buffer.clear();
+		frameStart = -1;
+		frameDatapoints = 0;
+	}
+
+	/**
+	 * Append a datapoint to the current frame, starting a new frame if the current one is full.
+	 *
+	 * @param name the UTF-8 encoded graphite name of the metric
+	 * @param timestamp the timestamp in seconds since epoch
+	 * @param value the value of the metric
+	 */
+	public void add(final byte[] name, final long timestamp, final double value) {
+		putName(name);
+		if (timestamp >= Integer.MIN_VALUE && timestamp <= Integer.MAX_VALUE) {
+			buffer.put(BININT);
+			buffer.putInt(Integer.reverseBytes((int) timestamp));
+		} else {
+			buffer.put(LONG1);
+			buffer.put((byte) 8);
+			buffer.putLong(Long.reverseBytes(timestamp));
+		}
+		putValue(value);
+	}
+
+	/**
+	 * Same as {@link #add(byte[], long, double)} but the timestamp is pickled as float with millisecond precision.
+	 *
+	 * @param name the UTF-8 encoded graphite name of the metric
+	 * @param timestamp the timestamp in milliseconds since epoch
+	 * @param value the value of the metric
+	 */
+	public void addMillis(final byte[] name, final long timestamp, final double value) {
+		putName(name);
+		buffer.put(BINFLOAT);
+		buffer.putDouble(timestamp / 1000.0);
+		putValue(value);
+	}
+
+	private void putName(final byte[] name) {
+		if (frameStart == -1) {
+			startFrame();
+		}
+		ensureRemaining(name.length + 32);
+		buffer.put(BINUNICODE);
+		buffer.putInt(Integer.reverseBytes(name.length));
+		buffer.put(name);
+	}
+
+	private void putValue(final double value) {
+		buffer.put(BINFLOAT);
+		buffer.putDouble(value);
+		buffer.put(TUPLE2);
+		buffer.put(TUPLE2);
+		frameDatapoints++;
+		if (frameDatapoints == maxDatapointsPerFrame) {
+			endFrame();
+		}
+	}
+
+	/**
+	 * @return the encoded frames ready to be read. The buffer is only valid until the next call to {@link #begin()}.
+	 */
+	public ByteBuffer finish() {
+		if (frameStart != -1) {
+			endFrame();
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	private void startFrame() {
+		ensureRemaining(HEADER_SIZE + 5);
+		frameStart = buffer.position();
+		buffer.putInt(0);
+		buffer.put(PROTO);
+		buffer.put(PROTOCOL_VERSION);
+		buffer.put(EMPTY_LIST);
+		buffer.put(MARK);
+		frameDatapoints = 0;
+	}
+
+	private void endFrame() {
+		ensureRemaining(2);
+		buffer.put(APPENDS);
+		buffer.put(STOP);
+		buffer.putInt(frameStart, buffer.position() - frameStart - HEADER_SIZE);
+		frameStart = -1;
+	}
+
+	private void ensureRemaining(final int count) {
+		if (buffer.remaining() < count) {
+			final ByteBuffer newBuffer = ByteBuffer.allocateDirect(Math.max(2 * buffer.capacity(), buffer.position() + count));
+			buffer.flip();
+			newBuffer.put(buffer);
+			buffer = newBuffer;
+		}
+	}
+}
@@ -0,0 +1,190 @@
+package org.metricssampler.extensions.graphite;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Encodes datapoints as lines of the graphite plaintext protocol ({@code name value timestamp\n}) into a direct buffer which is reused for
+ * the next batch. Integral numbers and ASCII strings are written without creating intermediate objects. This class is not thread safe.
+ */
+public class GraphitePlaintextEncoder {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final int INITIAL_BUFFER_SIZE = 8192;
+	/**
+	 * Enough for the sign and the 19 digits of a long
+	 */
+	private static final int MAX_LONG_LENGTH = 20;
+	/**
+	 * Doubles with a greater absolute value are not written as integers even if they have no fraction
+	 */
+	private static final double MAX_INTEGRAL_DOUBLE = 1e15;
+
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
+	private final byte[] digits = new byte[MAX_LONG_LENGTH];
+
+	/**
+	 * Start a new batch discarding whatever was encoded before.
+	 */
+	public void begin() {
+		buffer.clear();
+	}
+
+	/**
+	 * @param name the UTF-8 encoded graphite name of the metric
+	 * @param timestamp the timestamp in seconds since epoch
+	 * @param value the value of the metric
+	 */
+	public void add(final byte[] name, final long timestamp, final Object value) {
+		startLine(name);
+		putValue(value);
+		endLine(timestamp);
+	}
+
+	/**
+	 * Same as {@link #add(byte[], long, Object)} for a long value which is written without boxing it.
+	 */
+	public void add(final byte[] name, final long timestamp, final long value) {
+		startLine(name);
+		putLong(value);
+		endLine(timestamp);
+	}
+
+	/**
+	 * Same as {@link #add(byte[], long, Object)} for a double value which is written without boxing it.
+	 */
+	public void add(final byte[] name, final long timestamp, final double value) {
+		startLine(name);
+		putDouble(value);
+		endLine(timestamp);
+	}
+
+	/**
+	 * Same as {@link #add(byte[], long, Object)} but with a fractional timestamp with millisecond precision (e.g. {@code 1400000000.250}).
+	 *
+	 * @param name the UTF-8 encoded graphite name of the metric
+	 * @param timestamp the timestamp in milliseconds since epoch
+	 * @param value the value of the metric
+	 */
+	public void addMillis(final byte[] name, final long timestamp, final Object value) {
+		startLine(name);
+		putValue(value);
+		endLineMillis(timestamp);
+	}
+
+	/**
+	 * Same as {@link #addMillis(byte[], long, Object)} for a long value which is written without boxing it.
+	 */
+	public void addMillis(final byte[] name, final long timestamp, final long value) {
+		startLine(name);
+		putLong(value);
+		endLineMillis(timestamp);
+	}
+
+	/**
+	 * Same as {@link #addMillis(byte[], long, Object)} for a double value which is written without boxing it.
+	 */
+	public void addMillis(final byte[] name, final long timestamp, final double value) {
+		startLine(name);
+		putDouble(value);
+		endLineMillis(timestamp);
+	}
+
+	private void startLine(final byte[] name) {
+		ensureRemaining(name.length + MAX_LONG_LENGTH + 1);
+		buffer.put(name);
+		buffer.put((byte) ' ');
+	}
+
+	private void endLine(final long timestamp) {
+		ensureRemaining(MAX_LONG_LENGTH + 2);
+		buffer.put((byte) ' ');
+		putLong(timestamp);
+		buffer.put((byte) '\n');
+	}
+
+	private void endLineMillis(final long timestamp) {
+		ensureRemaining(MAX_LONG_LENGTH + 6);
+		buffer.put((byte) ' ');
+		putLong(timestamp / 1000);
+		final int millis = (int) Math.abs(timestamp % 1000);
+		buffer.put((byte) '.');
+		buffer.put((byte) ('0' + millis / 100));
+		buffer.put((byte) ('0' + millis / 10 % 10));
+		buffer.put((byte) ('0' + millis % 10));
+		buffer.put((byte) '\n');
+	}
+
+	/**
+	 * @return the encoded lines ready to be read. The buffer is only valid until the next call to {@link #begin()}.
+	 */
+	public ByteBuffer finish() {
+		buffer.flip();
+		return buffer;
+	}
+
+	private void putValue(final Object value) {
+		if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			putLong(((Number) value).longValue());
+		} else if (value instanceof Double) {
+			putDouble(((Double) value).doubleValue());
+		} else if (value instanceof Float && isIntegral(((Float) value).doubleValue())) {
+			putLong(((Float) value).longValue());
+		} else {
+			putString(String.valueOf(value));
+		}
+	}
+
+	private void putDouble(final double value) {
+		if (isIntegral(value)) {
+			putLong((long) value);
+		} else {
+			putString(String.valueOf(value));
+		}
+	}
+
+	private boolean isIntegral(final double value) {
+		return value == Math.rint(value) && Math.abs(value) < MAX_INTEGRAL_DOUBLE;
+	}
+
+	private void putString(final String value) {
+		final int length = value.length();
+		for (int i = 0; i < length; i++) {
+			if (value.charAt(i) >= 0x80) {
+				final byte[] bytes = value.getBytes(UTF8);
+				ensureRemaining(bytes.length);
+				buffer.put(bytes);
+				return;
+			}
+		}
+		ensureRemaining(length);
+		for (int i = 0; i < length; i++) {
+			buffer.put((byte) value.charAt(i));
+		}
+	}
+
+	private void putLong(final long value) {
+		if (value == Long.MIN_VALUE) {
+			putString(Long.toString(value));
+			return;
+		}
+		long remaining = Math.abs(value);
+		int start = digits.length;
+		do {
+			digits[--start] = (byte) ('0' + remaining % 10);
+			remaining /= 10;
+		} while (remaining > 0);
+		if (value < 0) {
+			digits[--start] = '-';
+		}
+		buffer.put(digits, start, digits.length - start);
+	}
+
+	private void ensureRemaining(final int count) {
+		if (buffer.remaining() < count) {
+			final ByteBuffer newBuffer = ByteBuffer.allocateDirect(Math.max(2 * buffer.capacity(), buffer.position() + count));
+			buffer.flip();
+			newBuffer.put(buffer);
+			buffer = newBuffer;
+		}
+	}
+}
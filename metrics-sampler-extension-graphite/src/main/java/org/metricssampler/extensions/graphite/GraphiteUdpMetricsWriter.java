@@ -0,0 +1,103 @@
+package org.metricssampler.extensions.graphite;
+
+import static org.apache.commons.io.IOUtils.closeQuietly;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Map;
+
+import org.metricssampler.reader.MetricValue;
+import org.metricssampler.resources.SamplerStats;
+import org.metricssampler.writer.MetricWriteException;
+
+/**
+ * Send metrics to graphite as plaintext lines in UDP datagrams. Each datagram contains as many complete lines as fit into the configured
+ * datagram size. Lines are never split, so a single line longer than the datagram size is sent in its own (larger) datagram. The channel
+ * stays open between samplings. This class is not thread safe and should not be used by multiple samplers.
+ */
+public class GraphiteUdpMetricsWriter extends AbstractGraphiteMetricsWriter {
+	private DatagramChannel channel;
+
+	public GraphiteUdpMetricsWriter(final GraphiteOutputConfig config) {
+		super(config);
+	}
+
+	@Override
+	public void open() throws MetricWriteException {
+		if (channel == null) {
+			try {
+				channel = DatagramChannel.open();
+				channel.connect(new InetSocketAddress(config.getHost(), config.getPort()));
+			} catch (final IOException e) {
+				disconnect();
+				throw new MetricWriteException(e);
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		// datagram channels have no connection that could time out so we keep it open
+	}
+
+	@Override
+	public void write(final Map<String, MetricValue> metrics) throws MetricWriteException {
+		if (channel == null) {
+			throw new IllegalStateException("Not open");
+		}
+		final ByteBuffer payload = encode(metrics);
+		try {
+			sendPacked(payload);
+		} catch (final IOException e) {
+			disconnect();
+			throw new MetricWriteException(e);
+		}
+	}
+
+	/**
+	 * Send the lines in the payload in as few datagrams as possible without splitting a line.
+	 */
+	protected void sendPacked(final ByteBuffer payload) throws IOException {
+		final int end = payload.limit();
+		int packetStart = payload.position();
+		int packetEnd = packetStart;
+		for (int i = packetStart; i < end; i++) {
+			if (payload.get(i) == '\n') {
+				final int lineEnd = i + 1;
+				if (lineEnd - packetStart > config.getDatagramSize() && packetEnd > packetStart) {
+					send(payload, packetStart, packetEnd);
+					packetStart = packetEnd;
+				}
+				packetEnd = lineEnd;
+			}
+		}
+		if (packetEnd > packetStart) {
+			send(payload, packetStart, packetEnd);
+		}
+	}
+
+	private void send(final ByteBuffer payload, final int start, final int end) throws IOException {
+		final int limit = payload.limit();
+		payload.limit(end);
+		payload.position(start);
+		try {
+			final int count = channel.write(payload);
+			SamplerStats.get().incWriterPacketCount();
+			SamplerStats.get().addWriterByteCount(count);
+		} finally {
+			payload.limit(limit);
+		}
+	}
+
+	private void disconnect() {
+		closeQuietly(channel);
+		channel = null;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName()+"["+config.getHost()+":"+config.getPort()+"]";
+	}
+}
@@ -0,0 +1,52 @@
+package org.metricssampler.extensions.graphite;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import org.metricssampler.reader.MetricValue;
+import org.metricssampler.writer.MetricWriteException;
+
+/**
+ * Send metrics to graphite through a {@link GraphiteConnectionPool}. The metrics are only queued in the pool and sent asynchronously by it.
+ * The pool must use the same protocol as the output. This class is not thread safe.
+ */
+public class PooledGraphiteMetricsWriter extends AbstractGraphiteMetricsWriter {
+	private final GraphiteConnectionPool pool;
+
+	public PooledGraphiteMetricsWriter(final GraphiteOutputConfig config, final GraphiteConnectionPool pool) {
+		super(config);
+		checkArgumentNotNull(pool, "pool");
+		this.pool = pool;
+	}
+
+	@Override
+	public void open() throws MetricWriteException {
+		// nothing to do here - the pool manages the connections
+	}
+
+	@Override
+	public void close() {
+		// nothing to do here - the pool manages the connections
+	}
+
+	@Override
+	public void write(final Map<String, MetricValue> metrics) throws MetricWriteException {
+		checkArgumentNotNull(metrics, "metrics");
+		final ByteBuffer encoded = encode(metrics);
+		if (!encoded.hasRemaining()) {
+			return;
+		}
+		final byte[] payload = new byte[encoded.remaining()];
+		encoded.get(payload);
+		if (!pool.submit(payload)) {
+			throw new MetricWriteException("Queue of " + pool + " is full. Dropped " + metrics.size() + " metrics");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + pool.getName() + "]";
+	}
+}
@@ -0,0 +1,47 @@
+package org.metricssampler.extensions.graphite;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class ConsistentHashRingTest {
+	private final GraphiteDestination a = GraphiteDestination.parse("10.0.0.1:2004:a");
+	private final GraphiteDestination b = GraphiteDestination.parse("10.0.0.2:2004:b");
+	private final GraphiteDestination c = GraphiteDestination.parse("10.0.0.3:2004");
+
+	@Test
+	public void getNodeMatchesCarbonRelay() {
+		final ConsistentHashRing testee = new ConsistentHashRing(Arrays.asList(a, b, c));
+
+		assertEquals(b, testee.getNode("carbon.agents.a.cpuUsage"));
+		assertEquals(a, testee.getNode("servers.web01.load"));
+		assertEquals(a, testee.getNode("x"));
+		assertEquals(b, testee.getNode("servers.db01.disk.used"));
+		assertEquals(c, testee.getNode("foo.bar.baz"));
+		assertEquals(b, testee.getNode("metrics.sampler.test"));
+	}
+
+	@Test
+	public void getNodeSingleDestination() {
+		final ConsistentHashRing testee = new ConsistentHashRing(Arrays.asList(c));
+
+		assertEquals(c, testee.getNode("carbon.agents.a.cpuUsage"));
+		assertEquals(c, testee.getNode("x"));
+	}
+
+	@Test
+	public void parseDestination() {
+		assertEquals("10.0.0.1", a.getHost());
+		assertEquals(2004, a.getPort());
+		assertEquals("a", a.getInstance());
+		assertEquals("('10.0.0.1', 'a')", a.getRingKey());
+		assertEquals("('10.0.0.3', None)", c.getRingKey());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void parseDestinationWithoutPort() {
+		GraphiteDestination.parse("10.0.0.1");
+	}
+}
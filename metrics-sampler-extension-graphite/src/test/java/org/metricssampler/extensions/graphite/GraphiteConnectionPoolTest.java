@@ -0,0 +1,112 @@
+package org.metricssampler.extensions.graphite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.metricssampler.extensions.graphite.GraphiteOutputConfig.Protocol;
+
+public class GraphiteConnectionPoolTest {
+	private ServerSocket server;
+	private GraphiteConnectionPool testee;
+
+	@Before
+	public void setup() throws IOException {
+		server = new ServerSocket(0);
+		server.setSoTimeout(5000);
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		if (testee != null) {
+			testee.shutdown();
+		}
+		server.close();
+	}
+
+	@Test
+	public void submitSendsBatchesOverSharedConnection() throws IOException {
+		testee = new GraphiteConnectionPool(new GraphiteConnectionPoolConfig("pool", false, "localhost", server.getLocalPort(), Protocol.PLAINTEXT, 1, 10, 1024, 10, 1000, 60000));
+
+		assertTrue(testee.submit("a 1 1\n".getBytes()));
+		assertTrue(testee.submit("b 2 1\n".getBytes()));
+		final Socket client = server.accept();
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream()));
+
+		assertEquals("a 1 1", reader.readLine());
+		assertEquals("b 2 1", reader.readLine());
+		client.close();
+	}
+
+	@Test
+	public void submitKeepsOrderWhenConnectFails() throws Exception {
+		final int port = server.getLocalPort();
+		server.close();
+		// the sender idles for a second after the failed attempt, so the server is listening when it tries again
+		testee = new GraphiteConnectionPool(new GraphiteConnectionPoolConfig("pool", false, "localhost", port, Protocol.PLAINTEXT, 1, 10, 1024, 1000, 100, 100));
+
+		assertTrue(testee.submit("a 1 1\n".getBytes()));
+		assertTrue(testee.submit("b 2 1\n".getBytes()));
+		awaitConnectAttempt();
+		server = new ServerSocket();
+		server.setReuseAddress(true);
+		server.setSoTimeout(5000);
+		server.bind(new InetSocketAddress(port));
+		final Socket client = server.accept();
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream()));
+
+		assertEquals("a 1 1", reader.readLine());
+		assertEquals("b 2 1", reader.readLine());
+		client.close();
+	}
+
+	@Test
+	public void shutdownCountsUnsentBatchesAsDropped() throws Exception {
+		final int port = server.getLocalPort();
+		server.close();
+		testee = new GraphiteConnectionPool(new GraphiteConnectionPoolConfig("pool", false, "localhost", port, Protocol.PLAINTEXT, 1, 10, 1024, 10, 60000, 60000));
+
+		assertTrue(testee.submit("a 1 1\n".getBytes()));
+		assertTrue(testee.submit("b 2 1\n".getBytes()));
+		assertTrue(testee.submit("c 3 1\n".getBytes()));
+		awaitConnectAttempt();
+		testee.shutdown();
+
+		assertEquals(3L, testee.getStats().get("graphite-pools.pool.droppedBatchCount"));
+		assertEquals(0, testee.getStats().get("graphite-pools.pool.queueSize"));
+		testee = null;
+	}
+
+	@Test
+	public void submitDropsBatchesWhenQueueFull() {
+		final int port = server.getLocalPort();
+		testee = new GraphiteConnectionPool(new GraphiteConnectionPoolConfig("pool", false, "localhost", port, Protocol.PLAINTEXT, 1, 2, 1024, 10, 60000, 60000));
+		testee.shutdown();
+
+		assertTrue(testee.submit("a 1 1\n".getBytes()));
+		assertTrue(testee.submit("b 1 1\n".getBytes()));
+		assertFalse(testee.submit("c 1 1\n".getBytes()));
+
+		assertEquals(1L, testee.getStats().get("graphite-pools.pool.droppedBatchCount"));
+		testee = null;
+	}
+
+	private void awaitConnectAttempt() throws InterruptedException {
+		final long end = System.currentTimeMillis() + 5000L;
+		while (((Long) testee.getStats().get("graphite-pools.pool.connectCount")) == 0L && System.currentTimeMillis() < end) {
+			Thread.sleep(10L);
+		}
+		// let the attempt fail
+		Thread.sleep(50L);
+	}
+}
@@ -0,0 +1,49 @@
+package org.metricssampler.extensions.graphite;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.metricssampler.config.ConfigurationException;
+import org.metricssampler.extensions.graphite.GraphiteOutputConfig.Protocol;
+import org.metricssampler.extensions.graphite.GraphiteOutputConfig.TimestampPrecision;
+import org.metricssampler.extensions.graphite.GraphiteOutputConfig.Transport;
+import org.metricssampler.service.GlobalObjectFactory;
+
+public class GraphiteExtensionTest {
+	private GraphiteExtension testee;
+	private GraphiteConnectionPool pool;
+
+	@Before
+	public void setup() {
+		pool = new GraphiteConnectionPool(new GraphiteConnectionPoolConfig("pool", false, "localhost", 2003, Protocol.PLAINTEXT, 1, 10, 1024, 10, 1000, 60000));
+		final GlobalObjectFactory globalFactory = mock(GlobalObjectFactory.class);
+		when(globalFactory.getSharedResource("pool")).thenReturn(pool);
+		testee = new GraphiteExtension();
+		testee.setGlobalFactory(globalFactory);
+	}
+
+	@After
+	public void cleanup() {
+		pool.shutdown();
+	}
+
+	@Test
+	public void newWriterForOutputUsesPoolWithSameProtocol() {
+		assertTrue(testee.newWriterForOutput(pooledOutput(Protocol.PLAINTEXT)) instanceof PooledGraphiteMetricsWriter);
+	}
+
+	@Test(expected = ConfigurationException.class)
+	public void newWriterForOutputRejectsPoolWithOtherProtocol() {
+		testee.newWriterForOutput(pooledOutput(Protocol.PICKLE));
+	}
+
+	private GraphiteOutputConfig pooledOutput(final Protocol protocol) {
+		return new GraphiteOutputConfig("graphite", false, null, -1, "", "pool", null, false, GraphiteOutputConfig.DEFAULT_RECONNECT_DELAY,
+				GraphiteOutputConfig.DEFAULT_MAX_RECONNECT_DELAY, protocol, GraphiteOutputConfig.DEFAULT_MAX_DATAPOINTS_PER_FRAME, Transport.TCP,
+				GraphiteOutputConfig.DEFAULT_DATAGRAM_SIZE, TimestampPrecision.SECONDS, null, null);
+	}
+}
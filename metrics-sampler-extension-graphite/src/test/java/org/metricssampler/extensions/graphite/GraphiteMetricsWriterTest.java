@@ -2,28 +2,149 @@ package org.metricssampler.extensions.graphite;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
+import org.metricssampler.extensions.graphite.GraphiteOutputConfig.Protocol;
+import org.metricssampler.extensions.graphite.GraphiteOutputConfig.TimestampPrecision;
+import org.metricssampler.extensions.graphite.GraphiteOutputConfig.Transport;
+import org.metricssampler.reader.DoubleMetricValue;
+import org.metricssampler.reader.LongMetricValue;
 import org.metricssampler.reader.MetricValue;
+import org.metricssampler.resources.SamplerStats;
+import org.metricssampler.writer.MetricWriteException;
 
 public class GraphiteMetricsWriterTest {
+	private ServerSocket server;
+
+	@Before
+	public void setup() throws IOException {
+		SamplerStats.init();
+		server = new ServerSocket(0);
+		server.setSoTimeout(5000);
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		SamplerStats.unset();
+		server.close();
+	}
+
 	@Test
-	public void serializeValueWithPrefix() {
+	public void encodeValueWithPrefix() {
 		final GraphiteMetricsWriter testee = new GraphiteMetricsWriter(new GraphiteOutputConfig("name", false, "host", 2811, "prefix_"));
 		final long timestamp = System.currentTimeMillis();
-		
-		final String result = testee.serializeValue("this is the name", new MetricValue(timestamp, "28.11"));
-		
+
+		final String result = encode(testee, "this is the name", new MetricValue(timestamp, "28.11"));
+
 		assertEquals("prefix_this_is_the_name 28.11 "+(timestamp/1000)+"\n", result);
 	}
 
 	@Test
-	public void serializeValueWithoutPrefix() {
+	public void encodeValueWithoutPrefix() {
 		final GraphiteMetricsWriter testee = new GraphiteMetricsWriter(new GraphiteOutputConfig("name", false, "host", 2811, null));
 		final long timestamp = System.currentTimeMillis();
-		
-		final String result = testee.serializeValue("this is the name", new MetricValue(timestamp, "28.11"));
+
+		final String result = encode(testee, "this is the name", new MetricValue(timestamp, "28.11"));
 
 		assertEquals("this_is_the_name 28.11 "+(timestamp/1000)+"\n", result);
 	}
-	
+
+	@Test
+	public void encodeNumbers() {
+		final GraphiteMetricsWriter testee = new GraphiteMetricsWriter(new GraphiteOutputConfig("name", false, "host", 2811, null));
+
+		assertEquals("a -1234567890123 1\n", encode(testee, "a", new MetricValue(1000L, -1234567890123L)));
+		assertEquals("a 0 1\n", encode(testee, "a", new MetricValue(1000L, 0)));
+		assertEquals("a 28 1\n", encode(testee, "a", new MetricValue(1000L, 28.0d)));
+		assertEquals("a 28.11 1\n", encode(testee, "a", new MetricValue(1000L, 28.11d)));
+	}
+
+	@Test
+	public void encodeTypedNumbers() {
+		final GraphiteMetricsWriter testee = new GraphiteMetricsWriter(new GraphiteOutputConfig("name", false, "host", 2811, null));
+
+		assertEquals("a -1234567890123 1\n", encode(testee, "a", new LongMetricValue(1000L, -1234567890123L)));
+		assertEquals("a 28 1\n", encode(testee, "a", new DoubleMetricValue(1000L, 28.0d)));
+		assertEquals("a 28.11 1\n", encode(testee, "a", new DoubleMetricValue(1000L, 28.11d)));
+	}
+
+	@Test
+	public void encodeMillisecondTimestamps() {
+		final GraphiteMetricsWriter testee = new GraphiteMetricsWriter(new GraphiteOutputConfig("name", false, "host", 2811, null, null, null, false, 1000, 60000, Protocol.PLAINTEXT, 500, Transport.TCP, 1432, TimestampPrecision.MILLISECONDS, null, null));
+
+		assertEquals("a 1 1.250\n", encode(testee, "a", new MetricValue(1250L, 1)));
+		assertEquals("a 1 1400000000.005\n", encode(testee, "a", new MetricValue(1400000000005L, 1)));
+		assertEquals("a 1 1.250\n", encode(testee, "a", new LongMetricValue(1250L, 1L)));
+		assertEquals("a 1.5 1.250\n", encode(testee, "a", new DoubleMetricValue(1250L, 1.5d)));
+	}
+
+	@Test
+	public void writePersistentConnectionKeepsSocket() throws IOException {
+		final GraphiteMetricsWriter testee = new GraphiteMetricsWriter(new GraphiteOutputConfig("name", false, "localhost", server.getLocalPort(), null, null, null, true, 1000, 60000, Protocol.PLAINTEXT, 500, Transport.TCP, 1432, TimestampPrecision.SECONDS, null, null));
+
+		write(testee, "a", 1);
+		final Socket client = server.accept();
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream()));
+		assertEquals("a 1 1", reader.readLine());
+		write(testee, "b", 2);
+		assertEquals("b 2 1", reader.readLine());
+
+		assertEquals(1, SamplerStats.get().getWriterConnectCount());
+		assertEquals(0, SamplerStats.get().getWriterReconnectCount());
+		client.close();
+	}
+
+	@Test
+	public void writePersistentConnectionReconnectsWhenClosedRemotely() throws IOException {
+		final GraphiteMetricsWriter testee = new GraphiteMetricsWriter(new GraphiteOutputConfig("name", false, "localhost", server.getLocalPort(), null, null, null, true, 1000, 60000, Protocol.PLAINTEXT, 500, Transport.TCP, 1432, TimestampPrecision.SECONDS, null, null));
+
+		write(testee, "a", 1);
+		server.accept().close();
+		write(testee, "b", 2);
+		final Socket client = server.accept();
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream()));
+		assertEquals("b 2 1", reader.readLine());
+
+		assertEquals(2, SamplerStats.get().getWriterConnectCount());
+		assertEquals(1, SamplerStats.get().getWriterReconnectCount());
+		client.close();
+	}
+
+	@Test
+	public void openBacksOffAfterFailedConnect() throws IOException {
+		final int port = server.getLocalPort();
+		server.close();
+		final GraphiteMetricsWriter testee = new GraphiteMetricsWriter(new GraphiteOutputConfig("name", false, "localhost", port, null, null, null, true, 60000, 60000, Protocol.PLAINTEXT, 500, Transport.TCP, 1432, TimestampPrecision.SECONDS, null, null));
+
+		for (int i = 0; i < 3; i++) {
+			try {
+				testee.open();
+			} catch (final MetricWriteException e) {
+				// expected
+			}
+		}
+
+		assertEquals(1, SamplerStats.get().getWriterConnectCount());
+	}
+
+	private String encode(final GraphiteMetricsWriter testee, final String name, final MetricValue value) {
+		return Charset.forName("UTF-8").decode(testee.encode(Collections.singletonMap(name, value))).toString();
+	}
+
+	private void write(final GraphiteMetricsWriter testee, final String name, final int value) {
+		final Map<String, MetricValue> metrics = Collections.singletonMap(name, new MetricValue(1000L, value));
+		testee.open();
+		testee.write(metrics);
+		testee.close();
+	}
 }
@@ -0,0 +1,84 @@
+package org.metricssampler.extensions.graphite;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+public class GraphitePickleEncoderTest {
+	/**
+	 * The pickle of [(u'a', (1, 2.0))]
+	 */
+	private static final byte[] SINGLE_DATAPOINT = new byte[] {
+		(byte) 0x80, 0x02, ']', '(',
+		'X', 0x01, 0x00, 0x00, 0x00, 'a',
+		'J', 0x01, 0x00, 0x00, 0x00,
+		'G', 0x40, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
+		(byte) 0x86, (byte) 0x86,
+		'e', '.'
+	};
+
+	private static final byte[] NAME = new byte[] {'a'};
+
+	@Test
+	public void encodeSingleDatapoint() {
+		final GraphitePickleEncoder testee = new GraphitePickleEncoder(10);
+
+		testee.begin();
+		testee.add(NAME, 1L, 2.0);
+		final ByteBuffer result = testee.finish();
+
+		assertEquals(SINGLE_DATAPOINT.length, result.getInt());
+		final byte[] pickle = new byte[result.remaining()];
+		result.get(pickle);
+		assertArrayEquals(SINGLE_DATAPOINT, pickle);
+	}
+
+	@Test
+	public void encodeMillisecondTimestampAsFloat() {
+		final GraphitePickleEncoder testee = new GraphitePickleEncoder(10);
+
+		testee.begin();
+		testee.addMillis(NAME, 1250L, 2.0);
+		final ByteBuffer result = testee.finish();
+
+		result.position(result.position() + 4 + 10);
+		assertEquals('G', result.get());
+		assertEquals(1.25, result.getDouble(), 0.0);
+	}
+
+	@Test
+	public void encodeSplitsFrames() {
+		final GraphitePickleEncoder testee = new GraphitePickleEncoder(2);
+
+		testee.begin();
+		for (int i = 0; i < 5; i++) {
+			testee.add(NAME, 1L, 2.0);
+		}
+		final ByteBuffer result = testee.finish();
+
+		int frames = 0;
+		while (result.hasRemaining()) {
+			final int length = result.getInt();
+			result.position(result.position() + length);
+			frames++;
+		}
+		assertEquals(3, frames);
+	}
+
+	@Test
+	public void encodeReusesBuffer() {
+		final GraphitePickleEncoder testee = new GraphitePickleEncoder(10);
+		testee.begin();
+		testee.add(NAME, 1L, 2.0);
+		testee.finish();
+
+		testee.begin();
+		final ByteBuffer result = testee.finish();
+
+		assertFalse(result.hasRemaining());
+	}
+}
@@ -0,0 +1,106 @@
+package org.metricssampler.extensions.graphite;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.metricssampler.reader.LongMetricValue;
+import org.metricssampler.reader.MetricValue;
+
+/**
+ * Compares encoding a sample for the graphite plaintext protocol by building a string and converting it to bytes (as
+ * {@link AbstractGraphiteMetricsWriter} used to) with encoding it using {@link GraphiteNames} and {@link GraphitePlaintextEncoder}, both
+ * for boxed values and for {@link LongMetricValue}s. Prints the time and the bytes allocated per metric, the latter only on JVMs that
+ * support {@code com.sun.management.ThreadMXBean}. Run it with {@code java -cp ... GraphitePlaintextEncoderBenchmark [metrics] [seconds]}.
+ */
+public class GraphitePlaintextEncoderBenchmark {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final String PREFIX = "prod.tomcat01.";
+
+	public static void main(final String[] args) {
+		final int metricCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		final long duration = args.length > 1 ? Long.parseLong(args[1]) * 1000L : 5000L;
+		final long timestamp = System.currentTimeMillis();
+		final Map<String, MetricValue> boxed = new LinkedHashMap<String, MetricValue>();
+		final Map<String, MetricValue> typed = new LinkedHashMap<String, MetricValue>();
+		for (int i = 0; i < metricCount; i++) {
+			final String name = "jvm.memory-pools.Pool " + i + ".Usage.used";
+			final long value = 1000L * i + 123456789L;
+			boxed.put(name, new MetricValue(timestamp, value));
+			typed.put(name, new LongMetricValue(timestamp, value));
+		}
+
+		// warm up all variants so that the JIT has compiled the hot paths
+		run("string", boxed, duration / 5, false);
+		run("encoder", boxed, duration / 5, false);
+		run("typed", typed, duration / 5, false);
+		run("string", boxed, duration, true);
+		run("encoder", boxed, duration, true);
+		run("typed", typed, duration, true);
+	}
+
+	private static void run(final String name, final Map<String, MetricValue> metrics, final long duration, final boolean print) {
+		final GraphiteNames names = new GraphiteNames(PREFIX);
+		final GraphitePlaintextEncoder encoder = new GraphitePlaintextEncoder();
+		// fill the name cache and grow the buffer before measuring, as this happens only once per writer
+		encode(names, encoder, metrics);
+		final long end = System.nanoTime() + duration * 1000000L;
+		long count = 0L;
+		long length = 0L;
+		final long startBytes = allocatedBytes();
+		final long start = System.nanoTime();
+		while (System.nanoTime() < end) {
+			final ByteBuffer payload = "string".equals(name) ? serialize(metrics) : encode(names, encoder, metrics);
+			length += payload.remaining();
+			count += metrics.size();
+		}
+		final long nanos = System.nanoTime() - start;
+		final long bytes = allocatedBytes() - startBytes;
+		if (print) {
+			System.out.printf("%-8s %10d metrics (mean line length %d): %6d ns/metric, %6s bytes/metric%n", name, count, length / count,
+					nanos / count, bytes >= 0 ? String.valueOf(bytes / count) : "n/a");
+		}
+	}
+
+	/**
+	 * The plaintext encoding as it was done before the encoder existed
+	 */
+	private static ByteBuffer serialize(final Map<String, MetricValue> metrics) {
+		final StringBuilder builder = new StringBuilder();
+		for (final Map.Entry<String, MetricValue> entry : metrics.entrySet()) {
+			final MetricValue value = entry.getValue();
+			final String prefixedName = PREFIX + entry.getKey();
+			builder.append(prefixedName.replaceAll(" ", "_") + " " + value.getValue() + " " + value.getTimestamp() / 1000 + "\n");
+		}
+		return ByteBuffer.wrap(builder.toString().getBytes(UTF8));
+	}
+
+	/**
+	 * The plaintext encoding as done by {@link AbstractGraphiteMetricsWriter}
+	 */
+	private static ByteBuffer encode(final GraphiteNames names, final GraphitePlaintextEncoder encoder, final Map<String, MetricValue> metrics) {
+		encoder.begin();
+		for (final Map.Entry<String, MetricValue> entry : metrics.entrySet()) {
+			final MetricValue value = entry.getValue();
+			if (value instanceof LongMetricValue) {
+				encoder.add(names.get(entry.getKey()), value.getTimestamp() / 1000, ((LongMetricValue) value).getLongValue());
+			} else {
+				encoder.add(names.get(entry.getKey()), value.getTimestamp() / 1000, value.getValue());
+			}
+		}
+		return encoder.finish();
+	}
+
+	/**
+	 * @return the bytes allocated by the current thread or a negative number if that is not supported
+	 */
+	private static long allocatedBytes() {
+		final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1L;
+	}
+}
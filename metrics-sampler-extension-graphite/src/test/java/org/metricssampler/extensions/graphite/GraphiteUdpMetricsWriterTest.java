@@ -0,0 +1,75 @@
+package org.metricssampler.extensions.graphite;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.metricssampler.extensions.graphite.GraphiteOutputConfig.Protocol;
+import org.metricssampler.extensions.graphite.GraphiteOutputConfig.TimestampPrecision;
+import org.metricssampler.extensions.graphite.GraphiteOutputConfig.Transport;
+import org.metricssampler.reader.MetricValue;
+import org.metricssampler.resources.SamplerStats;
+
+public class GraphiteUdpMetricsWriterTest {
+	private DatagramSocket server;
+
+	@Before
+	public void setup() throws IOException {
+		SamplerStats.init();
+		server = new DatagramSocket(0);
+		server.setSoTimeout(5000);
+	}
+
+	@After
+	public void cleanup() {
+		SamplerStats.unset();
+		server.close();
+	}
+
+	@Test
+	public void writePacksLinesIntoDatagrams() throws IOException {
+		final GraphiteUdpMetricsWriter testee = new GraphiteUdpMetricsWriter(new GraphiteOutputConfig("name", false, "localhost", server.getLocalPort(), null, null, null, false, 1000, 60000, Protocol.PLAINTEXT, 500, Transport.UDP, 20, TimestampPrecision.SECONDS, null, null));
+		final Map<String, MetricValue> metrics = new LinkedHashMap<String, MetricValue>();
+		for (int i = 0; i < 5; i++) {
+			metrics.put("m" + i, new MetricValue(1000L, i));
+		}
+
+		testee.open();
+		testee.write(metrics);
+		testee.close();
+
+		assertEquals("m0 0 1\nm1 1 1\n", receive());
+		assertEquals("m2 2 1\nm3 3 1\n", receive());
+		assertEquals("m4 4 1\n", receive());
+		assertEquals(3, SamplerStats.get().getWriterPacketCount());
+		assertEquals(35L, SamplerStats.get().getWriterByteCount());
+	}
+
+	@Test
+	public void writeSendsLongLinesAlone() throws IOException {
+		final GraphiteUdpMetricsWriter testee = new GraphiteUdpMetricsWriter(new GraphiteOutputConfig("name", false, "localhost", server.getLocalPort(), null, null, null, false, 1000, 60000, Protocol.PLAINTEXT, 500, Transport.UDP, 5, TimestampPrecision.SECONDS, null, null));
+		final Map<String, MetricValue> metrics = new LinkedHashMap<String, MetricValue>();
+		metrics.put("a", new MetricValue(1000L, 1));
+		metrics.put("b", new MetricValue(1000L, 2));
+
+		testee.open();
+		testee.write(metrics);
+		testee.close();
+
+		assertEquals("a 1 1\n", receive());
+		assertEquals("b 2 1\n", receive());
+	}
+
+	private String receive() throws IOException {
+		final DatagramPacket packet = new DatagramPacket(new byte[1024], 1024);
+		server.receive(packet);
+		return new String(packet.getData(), 0, packet.getLength(), "UTF-8");
+	}
+}
@@ -10,6 +10,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.metricssampler.config.ConfigurationException;
+import org.metricssampler.reader.AbortableMetricsReader;
 import org.metricssampler.reader.AbstractMetricsReader;
 import org.metricssampler.reader.BulkMetricsReader;
 import org.metricssampler.reader.MetricName;
@@ -18,9 +19,13 @@ import org.metricssampler.reader.MetricValue;
 import org.metricssampler.reader.OpenMetricsReaderException;
 import org.metricssampler.reader.SimpleMetricName;
 
-public class JdbcMetricsReader extends AbstractMetricsReader<JdbcInputConfig> implements BulkMetricsReader {
+public class JdbcMetricsReader extends AbstractMetricsReader<JdbcInputConfig> implements BulkMetricsReader, AbortableMetricsReader {
 	private final JdbcConnectionPool connectionPool;
 	private Connection connection;
+	/**
+	 * The statement of the query currently executing. Volatile so that {@link #abort()} can cancel it from another thread.
+	 */
+	private volatile Statement currentStatement;
 
 	public JdbcMetricsReader(final JdbcInputConfig config, final JdbcConnectionPool connectionPool) {
 		super(config);
@@ -61,6 +66,22 @@ public class JdbcMetricsReader extends AbstractMetricsReader<JdbcInputConfig> im
 		forceDisconnect();
 	}
 
+	/**
+	 * Cancel the query currently executing. {@link Statement#cancel()} is the means JDBC provides to abort a statement from another thread.
+	 */
+	@Override
+	public void abort() {
+		final Statement statement = currentStatement;
+		if (statement != null) {
+			try {
+				logger.debug("Cancelling query");
+				statement.cancel();
+			} catch (final SQLException e) {
+				logger.warn("Failed to cancel query", e);
+			}
+		}
+	}
+
 	protected void assertConnected() {
 		if (connection == null) {
 			throw new IllegalStateException("Not connected. Call open() first.");
@@ -83,6 +104,7 @@ public class JdbcMetricsReader extends AbstractMetricsReader<JdbcInputConfig> im
 			logger.debug("Executing query {}", query);
 			final long start = System.currentTimeMillis();
 			statement = connection.createStatement();
+			currentStatement = statement;
 			ResultSet resultSet = null;
 			try {
 				resultSet = statement.executeQuery(query);
@@ -94,11 +116,11 @@ public class JdbcMetricsReader extends AbstractMetricsReader<JdbcInputConfig> im
 					final SimpleMetricName metric = new SimpleMetricName(key, resultSet.getMetaData().getColumnName(1));
 					if (columnCount == 2) {
 						logger.debug("Using current timestamp as metric timestamp for "+key);
-						result.put(metric, new MetricValue(start, value));
+						result.put(metric, MetricValue.parse(start, value));
 					} else if (columnCount == 3) {
 						logger.debug("Using timestamp from query result column 3 as metric timestamp for "+key);
 						final long timestamp = resultSet.getLong(3);
-						result.put(metric, new MetricValue(timestamp, value));
+						result.put(metric, MetricValue.parse(timestamp, value));
 					} else {
 						closeQuietly(resultSet);
 						throw new ConfigurationException("Query must return either 2 (name, value) or 3 columns (name, value, timestamp)");
@@ -115,6 +137,7 @@ public class JdbcMetricsReader extends AbstractMetricsReader<JdbcInputConfig> im
 			reconnect();
 			throw new MetricReadException("Failed to create statement. Will reconnect just in case", e);
 		} finally {
+			currentStatement = null;
 			closeQuietly(statement);
 		}
 	}
@@ -23,7 +23,10 @@ public class JmxConnection {
 	private final JMXServiceURL url;
 	private final Map<String, Object> environment;
 
-	private JMXConnector connector;
+	/**
+	 * Volatile so that {@link #abort()} can close it from another thread
+	 */
+	private volatile JMXConnector connector;
 	private MBeanServerConnection serverConnection;
 
 	public JmxConnection(final JmxInputConfig config) throws IOException {
@@ -76,6 +79,18 @@ public class JmxConnection {
 		}
 	}
 
+	/**
+	 * Close the connector from another thread so that pending calls fail instead of blocking. The connection stays established until
+	 * {@link #disconnect()} is called by the thread using it.
+	 */
+	public void abort() {
+		final JMXConnector current = connector;
+		if (current != null) {
+			logger.debug("Aborting");
+			closeQuietly(current);
+		}
+	}
+
 	public MBeanServerConnection getServerConnection() {
 		assertEstablished();
 		return serverConnection;
@@ -29,6 +29,7 @@ import javax.management.openmbean.TabularData;
 import javax.management.openmbean.TabularType;
 import javax.management.remote.JMXServiceURL;
 
+import org.metricssampler.reader.AbortableMetricsReader;
 import org.metricssampler.reader.AbstractMetricsReader;
 import org.metricssampler.reader.MetaDataMetricsReader;
 import org.metricssampler.reader.MetricName;
@@ -36,12 +37,14 @@ import org.metricssampler.reader.MetricReadException;
 import org.metricssampler.reader.MetricValue;
 import org.metricssampler.reader.MetricsMetaData;
 import org.metricssampler.reader.OpenMetricsReaderException;
+import org.metricssampler.resources.SamplerStats;
+import org.metricssampler.resources.SamplerStats.Phase;
 import org.metricssampler.util.VariableUtils;
 
 /**
- * Read metrics from a JMX server. This class is not thread safe and may not be reused in multiple samplers.
+ * Read metrics from a JMX server. This class is not thread safe (except for {@link #abort()}) and may not be reused in multiple samplers.
  */
-public class JmxMetricsReader extends AbstractMetricsReader<JmxInputConfig> implements MetaDataMetricsReader {
+public class JmxMetricsReader extends AbstractMetricsReader<JmxInputConfig> implements MetaDataMetricsReader, AbortableMetricsReader {
 	private MetricsMetaData metadata;
 	private final JmxConnection connection;
 
@@ -86,7 +89,7 @@ public class JmxMetricsReader extends AbstractMetricsReader<JmxInputConfig> impl
 	}
 
 	protected List<MetricName> readMetaData() {
-		final long start = System.currentTimeMillis();
+		final long start = System.nanoTime();
 		logger.debug("Loading metadata from " + config.getUrl());
 		final MBeanServerConnection serverConnection = connection.getServerConnection();
 		final List<MetricName> result = new LinkedList<MetricName>();
@@ -112,8 +115,9 @@ public class JmxMetricsReader extends AbstractMetricsReader<JmxInputConfig> impl
 		}
 		final int count = result.size();
 		logger.info("Loaded {} attributes", count);
-		final long end = System.currentTimeMillis();
-		timingsLogger.debug("Discovered {} metrics in {} ms", count, end - start);
+		final long duration = System.nanoTime() - start;
+		SamplerStats.get().recordPhase(Phase.METADATA, duration);
+		timingsLogger.debug("Discovered {} metrics in {} ms", count, duration / 1000000L);
 		return result;
 	}
 
@@ -331,4 +335,9 @@ public class JmxMetricsReader extends AbstractMetricsReader<JmxInputConfig> impl
 	public void reset() {
 		forceDisconnect();
 	}
+
+	@Override
+	public void abort() {
+		connection.abort();
+	}
 }
@@ -13,6 +13,7 @@ import org.apache.commons.io.LineIterator;
 import org.metricssampler.config.ConfigurationException;
 import org.metricssampler.reader.AbstractMetricsReader;
 import org.metricssampler.reader.BulkMetricsReader;
+import org.metricssampler.reader.LongMetricValue;
 import org.metricssampler.reader.MetricName;
 import org.metricssampler.reader.MetricReadException;
 import org.metricssampler.reader.MetricValue;
@@ -96,7 +97,7 @@ public class RedisMetricsReader extends AbstractMetricsReader<RedisInputConfig>
 			final String line = lines.next();
 			final String[] cols = line.split(":", 2);
 			if (cols.length == 2) {
-				result.put(new SimpleMetricName(cols[0], ""), new MetricValue(timestamp, cols[1]));
+				result.put(new SimpleMetricName(cols[0], ""), MetricValue.parse(timestamp, cols[1]));
 			} else {
 				logger.debug("Failed to parse line \"{}\"", line);
 			}
@@ -116,17 +117,17 @@ public class RedisMetricsReader extends AbstractMetricsReader<RedisInputConfig>
 					if ("list".equals(keyType)) {
 						final Long len = jedis.llen(key);
 						if (len != null) {
-							result.put(new SimpleMetricName(key + ".len", "llen(" + key + ")"), new MetricValue(timestamp, len));
+							result.put(new SimpleMetricName(key + ".len", "llen(" + key + ")"), new LongMetricValue(timestamp, len));
 						}
 					} else if ("set".equals(keyType)) {
 						final Long len = jedis.scard(key);
 						if (len != null) {
-							result.put(new SimpleMetricName(key + ".len", "scard(" + key + ")"), new MetricValue(timestamp, len));
+							result.put(new SimpleMetricName(key + ".len", "scard(" + key + ")"), new LongMetricValue(timestamp, len));
 						}
 					} else if ("hash".equals(keyType)) {
 						final Long len = jedis.hlen(key);
 						if (len != null) {
-							result.put(new SimpleMetricName(key + ".len", "hlen(" + key + ")"), new MetricValue(timestamp, len));
+							result.put(new SimpleMetricName(key + ".len", "hlen(" + key + ")"), new LongMetricValue(timestamp, len));
 						}
 					} else {
 						logger.debug("Unsupported type \"" + keyType + "\" for key \"" + key + "\"");